@@ -0,0 +1,76 @@
+package com.gabrielittner.auto.value.cursor;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+/**
+ * Encodes the values written by the {@code writeTo(ByteBuffer)} methods generated by this
+ * extension and decodes them in the generated {@code readFrom(ByteBuffer)} methods. Integers are
+ * stored as zigzag varints, so small positive and negative values take a single byte, strings and
+ * blobs are prefixed with their length.
+ */
+public final class ByteBuffers {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private ByteBuffers() {
+        throw new AssertionError("No instances.");
+    }
+
+    public static void putVarint(ByteBuffer buffer, long value) {
+        long zigzag = (value << 1) ^ (value >> 63);
+        while ((zigzag & ~0x7FL) != 0) {
+            buffer.put((byte) ((zigzag & 0x7F) | 0x80));
+            zigzag >>>= 7;
+        }
+        buffer.put((byte) zigzag);
+    }
+
+    public static long getVarint(ByteBuffer buffer) {
+        long zigzag = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = buffer.get();
+            zigzag |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return (zigzag >>> 1) ^ -(zigzag & 1);
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint");
+    }
+
+    public static void putBytes(ByteBuffer buffer, byte[] value) {
+        putVarint(buffer, value.length);
+        buffer.put(value);
+    }
+
+    public static byte[] getBytes(ByteBuffer buffer) {
+        byte[] value = new byte[(int) getVarint(buffer)];
+        buffer.get(value);
+        return value;
+    }
+
+    public static void putString(ByteBuffer buffer, String value) {
+        putBytes(buffer, value.getBytes(UTF_8));
+    }
+
+    public static String getString(ByteBuffer buffer) {
+        int length = (int) getVarint(buffer);
+        if (length > buffer.remaining()) {
+            // a heap buffer's array would decode bytes past its limit otherwise
+            throw new BufferUnderflowException();
+        }
+        String value;
+        if (buffer.hasArray()) {
+            // decode in place instead of copying the bytes of heap buffers
+            int offset = buffer.arrayOffset() + buffer.position();
+            value = new String(buffer.array(), offset, length, UTF_8);
+            buffer.position(buffer.position() + length);
+        } else {
+            byte[] bytes = new byte[length];
+            buffer.get(bytes);
+            value = new String(bytes, UTF_8);
+        }
+        return value;
+    }
+}
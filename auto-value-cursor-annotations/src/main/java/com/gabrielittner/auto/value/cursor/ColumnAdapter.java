@@ -10,5 +10,21 @@ import static java.lang.annotation.RetentionPolicy.SOURCE;
 @Retention(SOURCE)
 @Target({METHOD, FIELD})
 public @interface ColumnAdapter {
-    Class<? extends ColumnTypeAdapter<?>> value();
+    /**
+     * A class implementing {@link ColumnTypeAdapter}, {@link IntColumnAdapter}, {@link
+     * LongColumnAdapter} or {@link DoubleColumnAdapter}.
+     */
+    Class<?> value();
+
+    /**
+     * Set this to {@code true} if the adapter is stateless and thread safe. A single instance of it
+     * is then shared by all generated methods instead of creating a new one on every call.
+     */
+    boolean shared() default false;
+
+    /**
+     * The number of columns a {@link ColumnTypeAdapter} puts into {@code ContentValues}. It's used
+     * to create them with the right size.
+     */
+    int columns() default 1;
 }
@@ -0,0 +1,18 @@
+package com.gabrielittner.auto.value.cursor;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import static java.lang.annotation.ElementType.FIELD;
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.RetentionPolicy.SOURCE;
+
+/**
+ * Embeds a property whose type is another AutoValue class. Its properties are read from and
+ * written to the columns of the enclosing row, with the given prefix added to their column names.
+ */
+@Retention(SOURCE)
+@Target({METHOD, FIELD})
+public @interface ColumnPrefix {
+    String value();
+}
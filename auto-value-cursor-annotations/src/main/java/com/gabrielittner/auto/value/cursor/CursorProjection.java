@@ -0,0 +1,17 @@
+package com.gabrielittner.auto.value.cursor;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import static java.lang.annotation.ElementType.TYPE;
+import static java.lang.annotation.RetentionPolicy.SOURCE;
+
+/**
+ * Marks an interface nested in an AutoValue class as a partial projection of it. Every method of
+ * the interface has to match a property of the enclosing class and only those columns are queried
+ * and read.
+ */
+@Retention(SOURCE)
+@Target(TYPE)
+public @interface CursorProjection {
+}
@@ -0,0 +1,17 @@
+package com.gabrielittner.auto.value.cursor;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import static java.lang.annotation.ElementType.FIELD;
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.RetentionPolicy.SOURCE;
+
+/**
+ * Stores an enum property in an integer column holding its ordinal instead of a text column
+ * holding its name.
+ */
+@Retention(SOURCE)
+@Target({METHOD, FIELD})
+public @interface EnumOrdinal {
+}
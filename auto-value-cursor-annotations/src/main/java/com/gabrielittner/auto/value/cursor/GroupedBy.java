@@ -0,0 +1,20 @@
+package com.gabrielittner.auto.value.cursor;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import static java.lang.annotation.ElementType.FIELD;
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.RetentionPolicy.SOURCE;
+
+/**
+ * Fills a {@code List} of AutoValue objects, annotated with {@link ColumnPrefix}, from the rows of
+ * a JOIN. Consecutive rows with the same value in the given column of the enclosing class belong
+ * to the same object, so the cursor has to be sorted by that column.
+ */
+@Retention(SOURCE)
+@Target({METHOD, FIELD})
+public @interface GroupedBy {
+    /** The column holding the key of the enclosing object. */
+    String value();
+}
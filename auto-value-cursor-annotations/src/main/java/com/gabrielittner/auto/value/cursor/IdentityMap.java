@@ -0,0 +1,81 @@
+package com.gabrielittner.auto.value.cursor;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A bounded, thread safe map from primary keys to value objects used by the code generated for
+ * {@link PrimaryKey}. Keys are spread over independently locked stripes, each of which evicts its
+ * least recently used entry when it's full.
+ */
+public final class IdentityMap<K, V> {
+
+    private static final int STRIPES = 8;
+
+    private final Stripe<K, V>[] stripes;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public IdentityMap(int maxSize) {
+        // the stripe sizes add up to maxSize, so fewer stripes are used for small maps
+        int count = Math.min(STRIPES, Integer.highestOneBit(Math.max(1, maxSize)));
+        stripes = new Stripe[count];
+        for (int i = 0; i < count; i++) {
+            int stripeSize = maxSize / count + (i < maxSize % count ? 1 : 0);
+            stripes[i] = new Stripe<>(Math.max(1, stripeSize));
+        }
+    }
+
+    public V get(K key) {
+        Stripe<K, V> stripe = stripe(key);
+        synchronized (stripe) {
+            return stripe.get(key);
+        }
+    }
+
+    public void put(K key, V value) {
+        Stripe<K, V> stripe = stripe(key);
+        synchronized (stripe) {
+            stripe.put(key, value);
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Stripe<K, V> stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+
+    public void clear() {
+        for (Stripe<K, V> stripe : stripes) {
+            synchronized (stripe) {
+                stripe.clear();
+            }
+        }
+    }
+
+    private Stripe<K, V> stripe(K key) {
+        int h = key.hashCode();
+        h ^= h >>> 16;
+        return stripes[h & (stripes.length - 1)];
+    }
+
+    private static final class Stripe<K, V> extends LinkedHashMap<K, V> {
+        private static final long serialVersionUID = 1L;
+
+        private final int maxSize;
+
+        Stripe(int maxSize) {
+            super(16, 0.75f, true);
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+            return size() > maxSize;
+        }
+    }
+}
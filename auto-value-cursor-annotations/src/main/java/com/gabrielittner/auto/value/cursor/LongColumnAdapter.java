@@ -0,0 +1,12 @@
+package com.gabrielittner.auto.value.cursor;
+
+/**
+ * Maps a custom type to a single {@code long} column. Unlike {@link ColumnTypeAdapter} the
+ * generated code reads and writes the column itself, so the value is never boxed.
+ */
+public interface LongColumnAdapter<T> {
+
+    T fromLong(long value);
+
+    long toLong(T value);
+}
@@ -0,0 +1,197 @@
+package com.gabrielittner.auto.value.cursor;
+
+import java.util.Arrays;
+
+/**
+ * An {@link IdentityMap} for primary keys stored as integers, used by the code generated for
+ * {@link PrimaryKey} so that looking up a row doesn't box its key. Keys are spread over
+ * independently locked stripes, each of which evicts its least recently used entry when it's full.
+ */
+public final class LongIdentityMap<V> {
+
+    private static final int STRIPES = 8;
+
+    private final Stripe<V>[] stripes;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public LongIdentityMap(int maxSize) {
+        // the stripe sizes add up to maxSize, so fewer stripes are used for small maps
+        int count = Math.min(STRIPES, Integer.highestOneBit(Math.max(1, maxSize)));
+        stripes = new Stripe[count];
+        for (int i = 0; i < count; i++) {
+            int stripeSize = maxSize / count + (i < maxSize % count ? 1 : 0);
+            stripes[i] = new Stripe<>(Math.max(1, stripeSize));
+        }
+    }
+
+    public V get(long key) {
+        Stripe<V> stripe = stripe(key);
+        synchronized (stripe) {
+            return stripe.get(key);
+        }
+    }
+
+    public void put(long key, V value) {
+        Stripe<V> stripe = stripe(key);
+        synchronized (stripe) {
+            stripe.put(key, value);
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Stripe<V> stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+
+    public void clear() {
+        for (Stripe<V> stripe : stripes) {
+            synchronized (stripe) {
+                stripe.clear();
+            }
+        }
+    }
+
+    private Stripe<V> stripe(long key) {
+        int h = hash(key);
+        return stripes[h & (stripes.length - 1)];
+    }
+
+    static int hash(long key) {
+        int h = (int) (key ^ (key >>> 32));
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * A fixed size hash table with chained buckets whose entries are also linked in access order.
+     * All entries live in parallel arrays and are referred to by their index, -1 is the end of a
+     * chain.
+     */
+    private static final class Stripe<V> {
+        private final long[] keys;
+        private final Object[] values;
+        private final int[] buckets;
+        private final int[] nextInBucket;
+        private final int[] before;
+        private final int[] after;
+        private int size;
+        private int eldest = -1;
+        private int youngest = -1;
+
+        Stripe(int maxSize) {
+            keys = new long[maxSize];
+            values = new Object[maxSize];
+            nextInBucket = new int[maxSize];
+            before = new int[maxSize];
+            after = new int[maxSize];
+            buckets = new int[Integer.highestOneBit(maxSize * 2 - 1) << 1];
+            Arrays.fill(buckets, -1);
+        }
+
+        @SuppressWarnings("unchecked")
+        V get(long key) {
+            int index = indexOf(key);
+            if (index == -1) {
+                return null;
+            }
+            moveToYoungest(index);
+            return (V) values[index];
+        }
+
+        void put(long key, V value) {
+            int index = indexOf(key);
+            if (index != -1) {
+                values[index] = value;
+                moveToYoungest(index);
+                return;
+            }
+            if (size < keys.length) {
+                index = size++;
+            } else {
+                index = eldest;
+                removeFromBucket(index);
+                unlink(index);
+            }
+            keys[index] = key;
+            values[index] = value;
+            int bucket = bucket(key);
+            nextInBucket[index] = buckets[bucket];
+            buckets[bucket] = index;
+            linkYoungest(index);
+        }
+
+        int size() {
+            return size;
+        }
+
+        void clear() {
+            Arrays.fill(buckets, -1);
+            Arrays.fill(values, 0, size, null);
+            size = 0;
+            eldest = -1;
+            youngest = -1;
+        }
+
+        private int bucket(long key) {
+            // the low bits of the hash already picked the stripe
+            return (hash(key) >>> 3) & (buckets.length - 1);
+        }
+
+        private int indexOf(long key) {
+            for (int i = buckets[bucket(key)]; i != -1; i = nextInBucket[i]) {
+                if (keys[i] == key) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private void removeFromBucket(int index) {
+            int bucket = bucket(keys[index]);
+            if (buckets[bucket] == index) {
+                buckets[bucket] = nextInBucket[index];
+                return;
+            }
+            int previous = buckets[bucket];
+            while (nextInBucket[previous] != index) {
+                previous = nextInBucket[previous];
+            }
+            nextInBucket[previous] = nextInBucket[index];
+        }
+
+        private void moveToYoungest(int index) {
+            if (index != youngest) {
+                unlink(index);
+                linkYoungest(index);
+            }
+        }
+
+        private void unlink(int index) {
+            if (before[index] == -1) {
+                eldest = after[index];
+            } else {
+                after[before[index]] = after[index];
+            }
+            if (after[index] == -1) {
+                youngest = before[index];
+            } else {
+                before[after[index]] = before[index];
+            }
+        }
+
+        private void linkYoungest(int index) {
+            before[index] = youngest;
+            after[index] = -1;
+            if (youngest == -1) {
+                eldest = index;
+            } else {
+                after[youngest] = index;
+            }
+            youngest = index;
+        }
+    }
+}
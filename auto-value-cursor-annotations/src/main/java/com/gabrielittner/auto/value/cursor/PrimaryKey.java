@@ -0,0 +1,19 @@
+package com.gabrielittner.auto.value.cursor;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import static java.lang.annotation.ElementType.FIELD;
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.RetentionPolicy.SOURCE;
+
+/**
+ * Marks the property holding the primary key of a row. Objects read from a cursor are then kept in
+ * an {@link IdentityMap} and a row whose columns didn't change returns the existing instance.
+ */
+@Retention(SOURCE)
+@Target({METHOD, FIELD})
+public @interface PrimaryKey {
+    /** The maximum number of objects kept in the identity map. */
+    int cacheSize() default 256;
+}
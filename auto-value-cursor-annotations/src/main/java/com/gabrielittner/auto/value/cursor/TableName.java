@@ -0,0 +1,16 @@
+package com.gabrielittner.auto.value.cursor;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import static java.lang.annotation.ElementType.TYPE;
+import static java.lang.annotation.RetentionPolicy.SOURCE;
+
+/**
+ * The table an AutoValue class is stored in, used for the generated {@code INSERT_SQL}.
+ */
+@Retention(SOURCE)
+@Target(TYPE)
+public @interface TableName {
+    String value();
+}
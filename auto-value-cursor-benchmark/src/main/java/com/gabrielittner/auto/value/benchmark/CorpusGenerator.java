@@ -0,0 +1,166 @@
+package com.gabrielittner.auto.value.benchmark;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+
+/**
+ * Generates the sources of a corpus of AutoValue models that use the cursor and ContentValues
+ * extensions. Properties cycle through primitive, boxed, nullable, renamed and adapted types, so
+ * every model exercises the same mix no matter how many properties it has. Every other model also
+ * has an RxJava mapper. Without extensions the models don't opt in to any of them, so that the
+ * corpus compiles with AutoValue alone.
+ */
+final class CorpusGenerator {
+
+    static final String PACKAGE = "bench";
+
+    private CorpusGenerator() {
+        throw new AssertionError("No instances.");
+    }
+
+    /**
+     * Returns {@code classes} models with {@code properties} properties each, followed by the
+     * types they depend on.
+     */
+    static List<JavaFileObject> generate(int classes, int properties, boolean extensions) {
+        int slots = 1;
+        for (int i = 0; i < properties; i++) {
+            // long and double parameters take two slots
+            slots += i % 10 == 0 || i % 10 == 5 ? 2 : 1;
+        }
+        if (slots > 255) {
+            throw new IllegalArgumentException("The constructor AutoValue generates for "
+                    + properties + " properties would exceed the JVM's limit of 255 parameter "
+                    + "slots, use at most 211 properties");
+        }
+        List<JavaFileObject> sources = new ArrayList<>(classes + 6);
+        for (int i = 0; i < classes; i++) {
+            String name = "Model" + i;
+            String source = model(name, properties, extensions, extensions && i % 2 == 0);
+            sources.add(source(PACKAGE + "." + name, source));
+        }
+        sources.addAll(supportSources());
+        return sources;
+    }
+
+    private static String model(String name, int properties, boolean extensions, boolean rx) {
+        StringBuilder source = new StringBuilder()
+                .append("package ").append(PACKAGE).append(";\n")
+                .append("import android.content.ContentValues;\n")
+                .append("import android.database.Cursor;\n")
+                .append("import com.gabrielittner.auto.value.cursor.ColumnAdapter;\n")
+                .append("import com.gabrielittner.auto.value.cursor.ColumnName;\n")
+                .append("import com.google.auto.value.AutoValue;\n")
+                .append("import rx.functions.Func1;\n")
+                .append("@AutoValue public abstract class ").append(name).append(" {\n");
+        for (int i = 0; i < properties; i++) {
+            source.append("  ").append(property(i)).append(";\n");
+        }
+        if (extensions) {
+            source.append("  public abstract ContentValues toContentValues();\n")
+                    .append("  public static ").append(name).append(" create(Cursor cursor) {\n")
+                    .append("    return AutoValue_").append(name)
+                    .append(".createFromCursor(cursor);\n")
+                    .append("  }\n");
+        }
+        if (rx) {
+            source.append("  public static Func1<Cursor, ").append(name).append("> mapper() {\n")
+                    .append("    return AutoValue_").append(name).append(".MAPPER;\n")
+                    .append("  }\n");
+        }
+        return source.append("}\n").toString();
+    }
+
+    private static String property(int index) {
+        String name = "property" + index;
+        switch (index % 10) {
+            case 0:
+                return "public abstract long " + name + "()";
+            case 1:
+                return "public abstract String " + name + "()";
+            case 2:
+                return "@Nullable public abstract String " + name + "()";
+            case 3:
+                return "public abstract int " + name + "()";
+            case 4:
+                return "@Nullable public abstract Integer " + name + "()";
+            case 5:
+                return "public abstract double " + name + "()";
+            case 6:
+                return "public abstract boolean " + name + "()";
+            case 7:
+                return "@ColumnName(\"column_" + index + "\") public abstract String "
+                        + name + "()";
+            case 8:
+                return "@ColumnAdapter(TimestampAdapter.class) public abstract Timestamp "
+                        + name + "()";
+            default:
+                return "@ColumnAdapter(value = PointAdapter.class, columns = 2) "
+                        + "public abstract Point " + name + "()";
+        }
+    }
+
+    private static List<JavaFileObject> supportSources() {
+        List<JavaFileObject> sources = new ArrayList<>();
+        sources.add(source(PACKAGE + ".Nullable", ""
+                + "package " + PACKAGE + ";\n"
+                + "public @interface Nullable {}\n"));
+        sources.add(source(PACKAGE + ".Timestamp", ""
+                + "package " + PACKAGE + ";\n"
+                + "public final class Timestamp {\n"
+                + "  final long millis;\n"
+                + "  Timestamp(long millis) { this.millis = millis; }\n"
+                + "}\n"));
+        sources.add(source(PACKAGE + ".TimestampAdapter", ""
+                + "package " + PACKAGE + ";\n"
+                + "import com.gabrielittner.auto.value.cursor.LongColumnAdapter;\n"
+                + "public final class TimestampAdapter implements LongColumnAdapter<Timestamp> {\n"
+                + "  public Timestamp fromLong(long value) { return new Timestamp(value); }\n"
+                + "  public long toLong(Timestamp value) { return value.millis; }\n"
+                + "}\n"));
+        sources.add(source(PACKAGE + ".Point", ""
+                + "package " + PACKAGE + ";\n"
+                + "public final class Point {\n"
+                + "  final int x;\n"
+                + "  final int y;\n"
+                + "  Point(int x, int y) { this.x = x; this.y = y; }\n"
+                + "}\n"));
+        sources.add(source(PACKAGE + ".PointAdapter", ""
+                + "package " + PACKAGE + ";\n"
+                + "import android.content.ContentValues;\n"
+                + "import android.database.Cursor;\n"
+                + "import com.gabrielittner.auto.value.cursor.ColumnTypeAdapter;\n"
+                + "public final class PointAdapter implements ColumnTypeAdapter<Point> {\n"
+                + "  public Point fromCursor(Cursor cursor, String columnName) {\n"
+                + "    int x = cursor.getInt(cursor.getColumnIndex(columnName + \"_x\"));\n"
+                + "    int y = cursor.getInt(cursor.getColumnIndex(columnName + \"_y\"));\n"
+                + "    return new Point(x, y);\n"
+                + "  }\n"
+                + "  public void toContentValues(ContentValues values, String columnName, "
+                + "Point value) {\n"
+                + "    values.put(columnName + \"_x\", value.x);\n"
+                + "    values.put(columnName + \"_y\", value.y);\n"
+                + "  }\n"
+                + "}\n"));
+        // RxJava itself isn't needed, the extension only looks at the name of the type
+        sources.add(source("rx.functions.Func1", ""
+                + "package rx.functions;\n"
+                + "public interface Func1<T, R> {\n"
+                + "  R call(T t);\n"
+                + "}\n"));
+        return sources;
+    }
+
+    private static JavaFileObject source(String className, final String content) {
+        URI uri = URI.create("string:///" + className.replace('.', '/') + ".java");
+        return new SimpleJavaFileObject(uri, JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                return content;
+            }
+        };
+    }
+}
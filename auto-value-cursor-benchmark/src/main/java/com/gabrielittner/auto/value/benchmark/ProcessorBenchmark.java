@@ -0,0 +1,245 @@
+package com.gabrielittner.auto.value.benchmark;
+
+import com.google.auto.value.extension.AutoValueExtension;
+import com.google.auto.value.processor.AutoValueProcessor;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.ServiceLoader;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+/**
+ * Measures how much time the extensions add to compiling a corpus of AutoValue models. Every
+ * corpus from {@link CorpusGenerator} is compiled in memory once with AutoValue alone and once with
+ * all extensions on the classpath, after a few warm up runs. The time spent in each extension and
+ * the size of the code it generated are reported on their own lines below the corpus, so that a
+ * regression can be traced to one of them.
+ *
+ * <p>Arguments are {@code key=value} pairs, lists are separated by commas:
+ * <ul>
+ * <li>{@code classes}: the numbers of models in a corpus, {@code 100,1000} by default</li>
+ * <li>{@code properties}: the numbers of properties of each model, {@code 5,50} by default. At
+ * most 211 are supported, with more the constructor AutoValue generates would take more than the
+ * JVM's limit of 255 parameter slots</li>
+ * <li>{@code iterations}: measured runs per corpus, the median is reported, {@code 5} by
+ * default</li>
+ * <li>{@code warmup}: runs before measuring, {@code 2} by default</li>
+ * </ul>
+ */
+public final class ProcessorBenchmark {
+
+    public static void main(String[] args) {
+        List<Integer> classes = Arrays.asList(100, 1000);
+        List<Integer> properties = Arrays.asList(5, 50);
+        int iterations = 5;
+        int warmup = 2;
+        for (String arg : args) {
+            String[] keyValue = arg.split("=", 2);
+            if (keyValue.length != 2) {
+                throw new IllegalArgumentException("Expected key=value but was " + arg);
+            }
+            switch (keyValue[0]) {
+                case "classes":
+                    classes = parseList(keyValue[1]);
+                    break;
+                case "properties":
+                    properties = parseList(keyValue[1]);
+                    break;
+                case "iterations":
+                    iterations = Integer.parseInt(keyValue[1]);
+                    break;
+                case "warmup":
+                    warmup = Integer.parseInt(keyValue[1]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown argument " + keyValue[0]);
+            }
+        }
+
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            throw new IllegalStateException("The benchmark has to run on a JDK");
+        }
+        System.out.println("classes  properties  plain ms  extensions ms  "
+                + "overhead us/class  extension us/class  generated chars/class");
+        for (int classCount : classes) {
+            for (int propertyCount : properties) {
+                List<JavaFileObject> plain =
+                        CorpusGenerator.generate(classCount, propertyCount, false);
+                List<JavaFileObject> extended =
+                        CorpusGenerator.generate(classCount, propertyCount, true);
+                for (int i = 0; i < warmup; i++) {
+                    compile(compiler, plain, false);
+                    compile(compiler, extended, true);
+                }
+                long[] plainNanos = new long[iterations];
+                long[] extendedNanos = new long[iterations];
+                long[] extensionNanos = new long[iterations];
+                long generatedChars = 0;
+                Map<String, long[]> nanosByExtension = new LinkedHashMap<>();
+                Map<String, Long> charsByExtension = new LinkedHashMap<>();
+                for (int i = 0; i < iterations; i++) {
+                    plainNanos[i] = compile(compiler, plain, false).compileNanos;
+                    Run run = compile(compiler, extended, true);
+                    extendedNanos[i] = run.compileNanos;
+                    generatedChars = 0;
+                    for (TimingExtension extension : run.extensions) {
+                        extensionNanos[i] += extension.nanos();
+                        generatedChars += extension.generatedChars();
+                        long[] nanos = nanosByExtension.get(extension.name());
+                        if (nanos == null) {
+                            nanos = new long[iterations];
+                            nanosByExtension.put(extension.name(), nanos);
+                        }
+                        nanos[i] = extension.nanos();
+                        charsByExtension.put(extension.name(), extension.generatedChars());
+                    }
+                }
+                long plainMedian = median(plainNanos);
+                long extendedMedian = median(extendedNanos);
+                System.out.println(String.format(Locale.US,
+                        "%7d  %10d  %8.0f  %13.0f  %17.1f  %18.1f  %21d",
+                        classCount,
+                        propertyCount,
+                        plainMedian / 1e6,
+                        extendedMedian / 1e6,
+                        (extendedMedian - plainMedian) / 1e3 / classCount,
+                        median(extensionNanos) / 1e3 / classCount,
+                        generatedChars / classCount));
+                for (Map.Entry<String, long[]> entry : nanosByExtension.entrySet()) {
+                    System.out.println(String.format(Locale.US,
+                            "  %-61s  %18.1f  %21d",
+                            entry.getKey(),
+                            median(entry.getValue()) / 1e3 / classCount,
+                            charsByExtension.get(entry.getKey()) / classCount));
+                }
+            }
+        }
+    }
+
+    private static List<Integer> parseList(String value) {
+        List<Integer> values = new ArrayList<>();
+        for (String item : value.split(",")) {
+            values.add(Integer.parseInt(item.trim()));
+        }
+        return values;
+    }
+
+    private static long median(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+
+    private static Run compile(
+            JavaCompiler compiler, List<JavaFileObject> sources, boolean withExtensions) {
+        List<TimingExtension> extensions = new ArrayList<>();
+        if (withExtensions) {
+            ClassLoader classLoader = ProcessorBenchmark.class.getClassLoader();
+            for (AutoValueExtension extension :
+                    ServiceLoader.load(AutoValueExtension.class, classLoader)) {
+                extensions.add(new TimingExtension(extension));
+            }
+        }
+
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        InMemoryFileManager fileManager = new InMemoryFileManager(
+                compiler.getStandardFileManager(diagnostics, Locale.US, null));
+        List<String> options = Arrays.asList(
+                "-classpath", System.getProperty("java.class.path"), "-nowarn");
+        JavaCompiler.CompilationTask task =
+                compiler.getTask(null, fileManager, diagnostics, options, null, sources);
+        task.setProcessors(Collections.singletonList(new AutoValueProcessor(extensions)));
+
+        long start = System.nanoTime();
+        boolean success = task.call();
+        long compileNanos = System.nanoTime() - start;
+        if (!success) {
+            for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+                if (diagnostic.getKind() == Diagnostic.Kind.ERROR) {
+                    throw new IllegalStateException(
+                            "Corpus didn't compile: " + diagnostic.getMessage(Locale.US));
+                }
+            }
+        }
+
+        Run run = new Run();
+        run.compileNanos = compileNanos;
+        run.extensions = extensions;
+        return run;
+    }
+
+    private static final class Run {
+        long compileNanos;
+        List<TimingExtension> extensions;
+    }
+
+    /**
+     * Keeps generated sources in memory, javac reads them back to compile them, and discards class
+     * files so that disk writes don't show up in the numbers.
+     */
+    private static final class InMemoryFileManager
+            extends ForwardingJavaFileManager<StandardJavaFileManager> {
+
+        InMemoryFileManager(StandardJavaFileManager fileManager) {
+            super(fileManager);
+        }
+
+        @Override
+        public boolean isSameFile(FileObject a, FileObject b) {
+            return a.toUri().equals(b.toUri());
+        }
+
+        @Override
+        public JavaFileObject getJavaFileForOutput(
+                Location location, String className, JavaFileObject.Kind kind, FileObject sibling) {
+            URI uri = URI.create("mem:///" + className.replace('.', '/') + kind.extension);
+            if (kind == JavaFileObject.Kind.SOURCE) {
+                return new SimpleJavaFileObject(uri, kind) {
+                    private final ByteArrayOutputStream content = new ByteArrayOutputStream();
+
+                    @Override
+                    public OutputStream openOutputStream() {
+                        return content;
+                    }
+
+                    @Override
+                    public CharSequence getCharContent(boolean ignoreEncodingErrors)
+                            throws IOException {
+                        return content.toString("UTF-8");
+                    }
+                };
+            }
+            return new SimpleJavaFileObject(uri, kind) {
+                @Override
+                public OutputStream openOutputStream() {
+                    return new OutputStream() {
+                        @Override
+                        public void write(int b) {
+                        }
+
+                        @Override
+                        public void write(byte[] b, int off, int len) {
+                        }
+                    };
+                }
+            };
+        }
+    }
+}
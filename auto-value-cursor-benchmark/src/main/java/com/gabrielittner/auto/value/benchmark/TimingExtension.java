@@ -0,0 +1,84 @@
+package com.gabrielittner.auto.value.benchmark;
+
+import com.google.auto.value.extension.AutoValueExtension;
+import java.util.Set;
+import javax.lang.model.element.ExecutableElement;
+
+/**
+ * Forwards to another extension and adds up the time spent in it.
+ */
+final class TimingExtension extends AutoValueExtension {
+
+    private final AutoValueExtension delegate;
+    private long nanos;
+    private long generatedChars;
+
+    TimingExtension(AutoValueExtension delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public boolean applicable(Context context) {
+        long start = System.nanoTime();
+        try {
+            return delegate.applicable(context);
+        } finally {
+            nanos += System.nanoTime() - start;
+        }
+    }
+
+    @Override
+    public boolean mustBeFinal(Context context) {
+        long start = System.nanoTime();
+        try {
+            return delegate.mustBeFinal(context);
+        } finally {
+            nanos += System.nanoTime() - start;
+        }
+    }
+
+    @Override
+    public Set<String> consumeProperties(Context context) {
+        long start = System.nanoTime();
+        try {
+            return delegate.consumeProperties(context);
+        } finally {
+            nanos += System.nanoTime() - start;
+        }
+    }
+
+    @Override
+    public Set<ExecutableElement> consumeMethods(Context context) {
+        long start = System.nanoTime();
+        try {
+            return delegate.consumeMethods(context);
+        } finally {
+            nanos += System.nanoTime() - start;
+        }
+    }
+
+    @Override
+    public String generateClass(
+            Context context, String className, String classToExtend, boolean isFinal) {
+        long start = System.nanoTime();
+        try {
+            String source = delegate.generateClass(context, className, classToExtend, isFinal);
+            generatedChars += source.length();
+            return source;
+        } finally {
+            nanos += System.nanoTime() - start;
+        }
+    }
+
+    String name() {
+        return delegate.getClass().getSimpleName();
+    }
+
+    long nanos() {
+        return nanos;
+    }
+
+    long generatedChars() {
+        return generatedChars;
+    }
+}
@@ -0,0 +1,93 @@
+package android.content;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Stand-in for Android's {@code ContentValues}. Like the real class it keeps boxed values in a
+ * {@code HashMap}, so the benchmarks allocate what they would allocate on a device.
+ */
+public final class ContentValues {
+    private final HashMap<String, Object> values;
+
+    public ContentValues() {
+        values = new HashMap<>(8);
+    }
+
+    public ContentValues(int size) {
+        values = new HashMap<>(size, 1.0f);
+    }
+
+    public void put(String key, String value) {
+        values.put(key, value);
+    }
+
+    public void putAll(ContentValues other) {
+        values.putAll(other.values);
+    }
+
+    public void put(String key, Byte value) {
+        values.put(key, value);
+    }
+
+    public void put(String key, Short value) {
+        values.put(key, value);
+    }
+
+    public void put(String key, Integer value) {
+        values.put(key, value);
+    }
+
+    public void put(String key, Long value) {
+        values.put(key, value);
+    }
+
+    public void put(String key, Float value) {
+        values.put(key, value);
+    }
+
+    public void put(String key, Double value) {
+        values.put(key, value);
+    }
+
+    public void put(String key, Boolean value) {
+        values.put(key, value);
+    }
+
+    public void put(String key, byte[] value) {
+        values.put(key, value);
+    }
+
+    public void putNull(String key) {
+        values.put(key, null);
+    }
+
+    public int size() {
+        return values.size();
+    }
+
+    public void remove(String key) {
+        values.remove(key);
+    }
+
+    public void clear() {
+        values.clear();
+    }
+
+    public boolean containsKey(String key) {
+        return values.containsKey(key);
+    }
+
+    public Object get(String key) {
+        return values.get(key);
+    }
+
+    public Set<Map.Entry<String, Object>> valueSet() {
+        return values.entrySet();
+    }
+
+    public Set<String> keySet() {
+        return values.keySet();
+    }
+}
@@ -0,0 +1,131 @@
+package com.gabrielittner.auto.value.jmh;
+
+import android.database.Cursor;
+
+/**
+ * A {@link Cursor} over rows kept in memory, similar to Android's {@code MatrixCursor}. Values are
+ * stored the way SQLite returns them: integers as {@code Long}, reals as {@code Double}, text as
+ * {@code String} and {@code null} for a missing value. Columns are looked up by a linear,
+ * case-insensitive search like {@code AbstractCursor} does.
+ */
+final class ArrayCursor implements Cursor {
+    private final String[] columnNames;
+    private final Object[][] rows;
+    private int position = -1;
+
+    ArrayCursor(String[] columnNames, Object[][] rows) {
+        this.columnNames = columnNames;
+        this.rows = rows;
+    }
+
+    /** Moves back before the first row so the cursor can be read again. */
+    void reset() {
+        position = -1;
+    }
+
+    /** Moves to the given row, {@code -1} moves before the first row. */
+    void moveToPosition(int position) {
+        this.position = position;
+    }
+
+    @Override
+    public int getCount() {
+        return rows.length;
+    }
+
+    @Override
+    public boolean moveToNext() {
+        if (position < rows.length) {
+            position++;
+        }
+        return position < rows.length;
+    }
+
+    @Override
+    public boolean isAfterLast() {
+        return position >= rows.length;
+    }
+
+    @Override
+    public int getColumnIndex(String columnName) {
+        for (int i = 0; i < columnNames.length; i++) {
+            if (columnNames[i].equalsIgnoreCase(columnName)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public int getColumnIndexOrThrow(String columnName) throws IllegalArgumentException {
+        int index = getColumnIndex(columnName);
+        if (index < 0) {
+            throw new IllegalArgumentException("column '" + columnName + "' does not exist");
+        }
+        return index;
+    }
+
+    @Override
+    public String[] getColumnNames() {
+        return columnNames;
+    }
+
+    @Override
+    public byte[] getBlob(int columnIndex) {
+        return (byte[]) get(columnIndex);
+    }
+
+    @Override
+    public String getString(int columnIndex) {
+        Object value = get(columnIndex);
+        return value != null ? value.toString() : null;
+    }
+
+    @Override
+    public short getShort(int columnIndex) {
+        return (short) getLong(columnIndex);
+    }
+
+    @Override
+    public int getInt(int columnIndex) {
+        return (int) getLong(columnIndex);
+    }
+
+    @Override
+    public long getLong(int columnIndex) {
+        Object value = get(columnIndex);
+        return value != null ? ((Number) value).longValue() : 0L;
+    }
+
+    @Override
+    public float getFloat(int columnIndex) {
+        return (float) getDouble(columnIndex);
+    }
+
+    @Override
+    public double getDouble(int columnIndex) {
+        Object value = get(columnIndex);
+        return value != null ? ((Number) value).doubleValue() : 0.0;
+    }
+
+    @Override
+    public boolean isNull(int columnIndex) {
+        return get(columnIndex) == null;
+    }
+
+    @Override
+    public void close() {
+    }
+
+    @Override
+    public boolean isClosed() {
+        return false;
+    }
+
+    private Object get(int columnIndex) {
+        if (position < 0 || position >= rows.length) {
+            throw new IllegalStateException("Cursor is at position " + position);
+        }
+        return rows[position][columnIndex];
+    }
+}
@@ -0,0 +1,16 @@
+package com.gabrielittner.auto.value.jmh;
+
+import com.gabrielittner.auto.value.cursor.LongColumnAdapter;
+import java.util.Date;
+
+final class DateAdapter implements LongColumnAdapter<Date> {
+    @Override
+    public Date fromLong(long value) {
+        return new Date(value);
+    }
+
+    @Override
+    public long toLong(Date value) {
+        return value.getTime();
+    }
+}
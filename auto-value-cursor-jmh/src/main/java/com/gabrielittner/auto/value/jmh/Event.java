@@ -0,0 +1,54 @@
+package com.gabrielittner.auto.value.jmh;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+import com.gabrielittner.auto.value.cursor.ColumnAdapter;
+import com.google.auto.value.AutoValue;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * A row where most columns are converted by column adapters: a primitive adapter, a
+ * {@code ColumnTypeAdapter}, a shared adapter and an enum.
+ */
+@AutoValue
+public abstract class Event {
+    static final String[] COLUMNS = {
+            "id", "start", "end", "tags", "location_lat", "location_lng", "status"
+    };
+
+    public enum Status {
+        PLANNED, CONFIRMED, CANCELLED
+    }
+
+    abstract long id();
+
+    @ColumnAdapter(value = DateAdapter.class, shared = true)
+    abstract Date start();
+
+    @ColumnAdapter(DateAdapter.class)
+    abstract Date end();
+
+    @ColumnAdapter(value = TagsAdapter.class, shared = true)
+    abstract List<String> tags();
+
+    @ColumnAdapter(value = LocationAdapter.class, columns = 2)
+    abstract Location location();
+
+    abstract Status status();
+
+    abstract ContentValues toContentValues();
+
+    static Event create(Cursor cursor) {
+        return AutoValue_Event.createFromCursor(cursor);
+    }
+
+    static List<Event> createList(Cursor cursor) {
+        return AutoValue_Event.createListFromCursor(cursor);
+    }
+
+    static Event create(long id, Date start, Date end, List<String> tags, Location location,
+            Status status) {
+        return new AutoValue_Event(id, start, end, tags, location, status);
+    }
+}
@@ -0,0 +1,63 @@
+package com.gabrielittner.auto.value.jmh;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The code the extension replaces, written by hand the way it usually is in an Android app. It's
+ * the baseline the generated code is compared with.
+ */
+final class HandWritten {
+
+    private HandWritten() {
+        throw new AssertionError("No instances.");
+    }
+
+    static User readUser(Cursor cursor) {
+        int bioIndex = cursor.getColumnIndexOrThrow("bio");
+        return User.create(
+                cursor.getLong(cursor.getColumnIndexOrThrow("id")),
+                cursor.getString(cursor.getColumnIndexOrThrow("name")),
+                cursor.getString(cursor.getColumnIndexOrThrow("email_address")),
+                cursor.getInt(cursor.getColumnIndexOrThrow("age")),
+                cursor.getDouble(cursor.getColumnIndexOrThrow("score")),
+                cursor.getInt(cursor.getColumnIndexOrThrow("verified")) == 1,
+                cursor.isNull(bioIndex) ? null : cursor.getString(bioIndex));
+    }
+
+    static List<User> readUsers(Cursor cursor) {
+        int idIndex = cursor.getColumnIndexOrThrow("id");
+        int nameIndex = cursor.getColumnIndexOrThrow("name");
+        int emailIndex = cursor.getColumnIndexOrThrow("email_address");
+        int ageIndex = cursor.getColumnIndexOrThrow("age");
+        int scoreIndex = cursor.getColumnIndexOrThrow("score");
+        int verifiedIndex = cursor.getColumnIndexOrThrow("verified");
+        int bioIndex = cursor.getColumnIndexOrThrow("bio");
+        List<User> users = new ArrayList<>(cursor.getCount());
+        while (cursor.moveToNext()) {
+            users.add(User.create(
+                    cursor.getLong(idIndex),
+                    cursor.getString(nameIndex),
+                    cursor.getString(emailIndex),
+                    cursor.getInt(ageIndex),
+                    cursor.getDouble(scoreIndex),
+                    cursor.getInt(verifiedIndex) == 1,
+                    cursor.isNull(bioIndex) ? null : cursor.getString(bioIndex)));
+        }
+        return users;
+    }
+
+    static ContentValues toContentValues(User user) {
+        ContentValues values = new ContentValues();
+        values.put("id", user.id());
+        values.put("name", user.name());
+        values.put("email_address", user.email());
+        values.put("age", user.age());
+        values.put("score", user.score());
+        values.put("verified", user.verified());
+        values.put("bio", user.bio());
+        return values;
+    }
+}
@@ -0,0 +1,14 @@
+package com.gabrielittner.auto.value.jmh;
+
+import com.google.auto.value.AutoValue;
+
+@AutoValue
+public abstract class Location {
+    abstract double latitude();
+
+    abstract double longitude();
+
+    static Location create(double latitude, double longitude) {
+        return new AutoValue_Location(latitude, longitude);
+    }
+}
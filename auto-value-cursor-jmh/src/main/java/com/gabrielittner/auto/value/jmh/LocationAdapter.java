@@ -0,0 +1,21 @@
+package com.gabrielittner.auto.value.jmh;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+import com.gabrielittner.auto.value.cursor.ColumnTypeAdapter;
+
+/** Stores a {@link Location} in two columns, {@code <name>_lat} and {@code <name>_lng}. */
+final class LocationAdapter implements ColumnTypeAdapter<Location> {
+    @Override
+    public Location fromCursor(Cursor cursor, String columnName) {
+        double latitude = cursor.getDouble(cursor.getColumnIndexOrThrow(columnName + "_lat"));
+        double longitude = cursor.getDouble(cursor.getColumnIndexOrThrow(columnName + "_lng"));
+        return Location.create(latitude, longitude);
+    }
+
+    @Override
+    public void toContentValues(ContentValues values, String columnName, Location value) {
+        values.put(columnName + "_lat", value.latitude());
+        values.put(columnName + "_lng", value.longitude());
+    }
+}
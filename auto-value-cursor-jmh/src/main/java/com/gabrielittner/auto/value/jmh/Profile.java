@@ -0,0 +1,54 @@
+package com.gabrielittner.auto.value.jmh;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+import com.google.auto.value.AutoValue;
+import java.util.List;
+import javax.annotation.Nullable;
+
+/** A row of optional columns, where every column has to be checked for {@code null}. */
+@AutoValue
+public abstract class Profile {
+    static final String[] COLUMNS = {
+            "id", "nickname", "website", "location", "birthday", "followers", "rating", "premium"
+    };
+
+    abstract long id();
+
+    @Nullable
+    abstract String nickname();
+
+    @Nullable
+    abstract String website();
+
+    @Nullable
+    abstract String location();
+
+    @Nullable
+    abstract Long birthday();
+
+    @Nullable
+    abstract Integer followers();
+
+    @Nullable
+    abstract Double rating();
+
+    @Nullable
+    abstract Boolean premium();
+
+    abstract ContentValues toContentValues();
+
+    static Profile create(Cursor cursor) {
+        return AutoValue_Profile.createFromCursor(cursor);
+    }
+
+    static List<Profile> createList(Cursor cursor) {
+        return AutoValue_Profile.createListFromCursor(cursor);
+    }
+
+    static Profile create(long id, String nickname, String website, String location,
+            Long birthday, Integer followers, Double rating, Boolean premium) {
+        return new AutoValue_Profile(
+                id, nickname, website, location, birthday, followers, rating, premium);
+    }
+}
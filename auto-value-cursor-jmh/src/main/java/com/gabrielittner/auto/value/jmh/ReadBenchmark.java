@@ -0,0 +1,96 @@
+package com.gabrielittner.auto.value.jmh;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Reads single rows and whole result sets with the generated code and with {@link HandWritten}
+ * code. Single row reads look up the column indices on every call, full reads resolve them once.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReadBenchmark {
+
+    @Param({"100"})
+    int rows;
+
+    private ArrayCursor users;
+    private ArrayCursor profiles;
+    private ArrayCursor events;
+
+    @Setup
+    public void setUp() {
+        users = Rows.users(rows);
+        profiles = Rows.profiles(rows);
+        events = Rows.events(rows);
+    }
+
+    @Benchmark
+    public User readRow() {
+        users.moveToPosition(0);
+        return User.create(users);
+    }
+
+    @Benchmark
+    public User readRowHandWritten() {
+        users.moveToPosition(0);
+        return HandWritten.readUser(users);
+    }
+
+    @Benchmark
+    public List<User> readAllRows() {
+        users.reset();
+        return User.createList(users);
+    }
+
+    @Benchmark
+    public List<User> readAllRowsHandWritten() {
+        users.reset();
+        return HandWritten.readUsers(users);
+    }
+
+    @Benchmark
+    public Profile readNullableRow() {
+        profiles.moveToPosition(1);
+        return Profile.create(profiles);
+    }
+
+    @Benchmark
+    public Profile readNullRow() {
+        profiles.moveToPosition(0);
+        return Profile.create(profiles);
+    }
+
+    @Benchmark
+    public List<Profile> readAllNullableRows() {
+        profiles.reset();
+        return Profile.createList(profiles);
+    }
+
+    @Benchmark
+    public Event readAdaptedRow() {
+        events.moveToPosition(0);
+        return Event.create(events);
+    }
+
+    @Benchmark
+    public List<Event> readAllAdaptedRows() {
+        events.reset();
+        return Event.createList(events);
+    }
+}
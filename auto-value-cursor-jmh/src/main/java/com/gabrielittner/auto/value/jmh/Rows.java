@@ -0,0 +1,66 @@
+package com.gabrielittner.auto.value.jmh;
+
+/**
+ * Creates the rows the benchmarks read. Every other {@link Profile} row has no values at all, the
+ * rows in between have all of them.
+ */
+final class Rows {
+
+    private Rows() {
+        throw new AssertionError("No instances.");
+    }
+
+    static ArrayCursor users(int count) {
+        Object[][] rows = new Object[count][];
+        for (int i = 0; i < count; i++) {
+            rows[i] = new Object[] {
+                    (long) i,
+                    "User " + i,
+                    "user" + i + "@example.com",
+                    (long) (20 + i % 50),
+                    i * 0.5,
+                    (long) (i % 2),
+                    i % 3 == 0 ? null : "Bio of user " + i
+            };
+        }
+        return new ArrayCursor(User.COLUMNS, rows);
+    }
+
+    static ArrayCursor profiles(int count) {
+        Object[][] rows = new Object[count][];
+        for (int i = 0; i < count; i++) {
+            if (i % 2 == 0) {
+                rows[i] = new Object[] {(long) i, null, null, null, null, null, null, null};
+            } else {
+                rows[i] = new Object[] {
+                        (long) i,
+                        "nick" + i,
+                        "https://example.com/" + i,
+                        "City " + i,
+                        631152000000L + i,
+                        (long) i * 10,
+                        i % 5 + 0.5,
+                        (long) (i % 2)
+                };
+            }
+        }
+        return new ArrayCursor(Profile.COLUMNS, rows);
+    }
+
+    static ArrayCursor events(int count) {
+        Event.Status[] statuses = Event.Status.values();
+        Object[][] rows = new Object[count][];
+        for (int i = 0; i < count; i++) {
+            rows[i] = new Object[] {
+                    (long) i,
+                    1483228800000L + i * 3600000L,
+                    1483232400000L + i * 3600000L,
+                    "work,meeting,tag" + i,
+                    52.52 + i * 0.001,
+                    13.40 + i * 0.001,
+                    statuses[i % statuses.length].name()
+            };
+        }
+        return new ArrayCursor(Event.COLUMNS, rows);
+    }
+}
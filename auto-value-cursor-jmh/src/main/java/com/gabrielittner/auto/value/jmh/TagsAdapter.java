@@ -0,0 +1,28 @@
+package com.gabrielittner.auto.value.jmh;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+import com.gabrielittner.auto.value.cursor.ColumnTypeAdapter;
+import java.util.Arrays;
+import java.util.List;
+
+/** Stores a list of tags as one comma separated text column. */
+final class TagsAdapter implements ColumnTypeAdapter<List<String>> {
+    @Override
+    public List<String> fromCursor(Cursor cursor, String columnName) {
+        String tags = cursor.getString(cursor.getColumnIndexOrThrow(columnName));
+        return Arrays.asList(tags.split(","));
+    }
+
+    @Override
+    public void toContentValues(ContentValues values, String columnName, List<String> value) {
+        StringBuilder tags = new StringBuilder();
+        for (int i = 0; i < value.size(); i++) {
+            if (i > 0) {
+                tags.append(',');
+            }
+            tags.append(value.get(i));
+        }
+        values.put(columnName, tags.toString());
+    }
+}
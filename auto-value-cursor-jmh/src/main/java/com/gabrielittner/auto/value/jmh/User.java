@@ -0,0 +1,49 @@
+package com.gabrielittner.auto.value.jmh;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+import com.gabrielittner.auto.value.cursor.ColumnName;
+import com.google.auto.value.AutoValue;
+import java.util.List;
+import javax.annotation.Nullable;
+
+/** A typical row with a mix of primitive, text and nullable columns. */
+@AutoValue
+public abstract class User {
+    static final String[] COLUMNS = {
+            "id", "name", "email_address", "age", "score", "verified", "bio"
+    };
+
+    abstract long id();
+
+    abstract String name();
+
+    @ColumnName("email_address")
+    abstract String email();
+
+    abstract int age();
+
+    abstract double score();
+
+    abstract boolean verified();
+
+    @Nullable
+    abstract String bio();
+
+    abstract ContentValues toContentValues();
+
+    abstract void writeInto(ContentValues values);
+
+    static User create(Cursor cursor) {
+        return AutoValue_User.createFromCursor(cursor);
+    }
+
+    static List<User> createList(Cursor cursor) {
+        return AutoValue_User.createListFromCursor(cursor);
+    }
+
+    static User create(long id, String name, String email, int age, double score,
+            boolean verified, String bio) {
+        return new AutoValue_User(id, name, email, age, score, verified, bio);
+    }
+}
@@ -0,0 +1,75 @@
+package com.gabrielittner.auto.value.jmh;
+
+import android.content.ContentValues;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Writes a single object to {@code ContentValues} with the generated and hand-written code. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WriteBenchmark {
+
+    private User user;
+    private Profile profile;
+    private Profile nullProfile;
+    private Event event;
+    private ContentValues reused;
+
+    @Setup
+    public void setUp() {
+        user = User.create(1, "User", "user@example.com", 30, 4.5, true, "Bio");
+        profile = Profile.create(
+                1, "nick", "https://example.com", "City", 631152000000L, 10, 4.5, true);
+        nullProfile = Profile.create(2, null, null, null, null, null, null, null);
+        event = Event.create(1, new Date(1483228800000L), new Date(1483232400000L),
+                Arrays.asList("work", "meeting"), Location.create(52.52, 13.40),
+                Event.Status.CONFIRMED);
+        reused = new ContentValues();
+    }
+
+    @Benchmark
+    public ContentValues writeRow() {
+        return user.toContentValues();
+    }
+
+    @Benchmark
+    public ContentValues writeRowHandWritten() {
+        return HandWritten.toContentValues(user);
+    }
+
+    @Benchmark
+    public ContentValues writeIntoReused() {
+        user.writeInto(reused);
+        return reused;
+    }
+
+    @Benchmark
+    public ContentValues writeNullableRow() {
+        return profile.toContentValues();
+    }
+
+    @Benchmark
+    public ContentValues writeNullRow() {
+        return nullProfile.toContentValues();
+    }
+
+    @Benchmark
+    public ContentValues writeAdaptedRow() {
+        return event.toContentValues();
+    }
+}
@@ -2,97 +2,460 @@ package com.gabrielittner.auto.value;
 
 import com.gabrielittner.auto.value.cursor.ColumnAdapter;
 import com.gabrielittner.auto.value.cursor.ColumnName;
+import com.gabrielittner.auto.value.cursor.ColumnPrefix;
+import com.gabrielittner.auto.value.cursor.ColumnTypeAdapter;
+import com.gabrielittner.auto.value.cursor.DoubleColumnAdapter;
+import com.gabrielittner.auto.value.cursor.EnumOrdinal;
+import com.gabrielittner.auto.value.cursor.GroupedBy;
+import com.gabrielittner.auto.value.cursor.IntColumnAdapter;
+import com.gabrielittner.auto.value.cursor.LongColumnAdapter;
+import com.gabrielittner.auto.value.cursor.PrimaryKey;
 import com.gabrielittner.auto.value.util.Property;
+import com.google.auto.value.AutoValue;
 import com.google.auto.value.extension.AutoValueExtension;
+import com.google.common.base.Joiner;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.NameAllocator;
 import com.squareup.javapoet.TypeName;
-import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
 import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
 import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Types;
 
+import static com.gabrielittner.auto.value.util.AutoValueUtil.error;
 import static com.gabrielittner.auto.value.util.ElementUtil.getAnnotationValue;
+import static com.google.auto.common.MoreElements.getLocalAndInheritedMethods;
+import static com.google.auto.common.MoreElements.isAnnotationPresent;
 
 public final class ColumnProperty extends Property {
 
+    /**
+     * Returns the properties of the value class. The names of embedded properties are unique
+     * across the whole class because the generated code declares a local variable or field for
+     * each of them next to the ones of the other properties.
+     */
     public static ImmutableList<ColumnProperty> from(AutoValueExtension.Context context) {
+        ProcessingEnvironment env = context.processingEnvironment();
+        // reserved first, so that a property like authorId() keeps its name and the id of an
+        // embedded author() gets another one
+        NameAllocator humanNames = new NameAllocator();
+        for (String name : context.properties().keySet()) {
+            humanNames.newName(name, name);
+        }
         ImmutableList.Builder<ColumnProperty> values = ImmutableList.builder();
         for (Map.Entry<String, ExecutableElement> entry : context.properties().entrySet()) {
-            values.add(new ColumnProperty(entry.getKey(), entry.getValue()));
+            values.add(
+                    new ColumnProperty(
+                            env, humanNames, entry.getKey(), entry.getKey(), entry.getValue(), ""));
         }
         return values.build();
     }
 
-    private static final List<TypeName> SUPPORTED_TYPES =
-            Arrays.asList(
-                    TypeName.get(String.class),
-                    TypeName.get(byte[].class),
-                    TypeName.get(Byte[].class),
-                    TypeName.DOUBLE,
-                    TypeName.DOUBLE.box(),
-                    TypeName.FLOAT,
-                    TypeName.FLOAT.box(),
-                    TypeName.INT,
-                    TypeName.INT.box(),
-                    TypeName.LONG,
-                    TypeName.LONG.box(),
-                    TypeName.SHORT,
-                    TypeName.SHORT.box(),
-                    TypeName.BOOLEAN,
-                    TypeName.BOOLEAN.box());
+    /**
+     * Returns {@code properties} with every embedded property replaced by the properties of its
+     * type, which are the ones that are actually stored in a column.
+     */
+    public static ImmutableList<ColumnProperty> flatten(List<ColumnProperty> properties) {
+        ImmutableList.Builder<ColumnProperty> values = ImmutableList.builder();
+        for (ColumnProperty property : properties) {
+            if (property.embedded()) {
+                values.addAll(flatten(property.embeddedProperties()));
+            } else {
+                values.add(property);
+            }
+        }
+        return values.build();
+    }
+
+    /**
+     * Reports the errors of embedded properties that apply to every extension. Their columns are
+     * read and written one by one, so they can't be null, and their generated constructor has to
+     * be visible to create them.
+     */
+    public static void checkEmbedded(
+            AutoValueExtension.Context context, List<ColumnProperty> properties) {
+        for (ColumnProperty property : properties) {
+            if (!property.embedded()) {
+                continue;
+            }
+            if (property.nullable()) {
+                error(context, property, "@ColumnPrefix can't be used for @Nullable properties.");
+            }
+            if (!property.embeddedClass().packageName().equals(context.packageName())) {
+                error(context, property, "@ColumnPrefix can only be used for AutoValue classes in "
+                        + "the same package, their generated constructor isn't visible otherwise.");
+            }
+            checkEmbedded(context, property.embeddedProperties());
+        }
+    }
+
+    private static final ClassName CONTENT_VALUES =
+            ClassName.get("android.content", "ContentValues");
+
+    private static final Map<Class<?>, TypeName> PRIMITIVE_ADAPTERS =
+            ImmutableMap.<Class<?>, TypeName>of(
+                    IntColumnAdapter.class, TypeName.INT,
+                    LongColumnAdapter.class, TypeName.LONG,
+                    DoubleColumnAdapter.class, TypeName.DOUBLE);
 
     private final String columnName;
+    private final String columnPrefix;
+    private final String groupedBy;
+    private final ClassName embeddedType;
+    private final ClassName embeddedClass;
+    private final ImmutableList<ColumnProperty> embeddedProperties;
+    private final ColumnType columnType;
     private final boolean supportedType;
+    private final ImmutableList<String> enumConstants;
+    private final boolean enumOrdinal;
+    private final boolean validColumnAdapter;
+    private final TypeName primitiveAdapterType;
+    private final TypeMirror columnAdapter;
+    private final boolean sharedColumnAdapter;
+    private final int columnAdapterColumns;
+    private final boolean primaryKey;
+    private final int primaryKeyCacheSize;
 
-    private ColumnProperty(String humanName, ExecutableElement element) {
+    private ColumnProperty(
+            ProcessingEnvironment env,
+            NameAllocator humanNames,
+            String humanName,
+            String baseName,
+            ExecutableElement element,
+            String prefix) {
         super(humanName, element);
-        columnName = (String) getAnnotationValue(element, ColumnName.class, "value");
-        supportedType = SUPPORTED_TYPES.contains(type());
-    }
+        String name = (String) getAnnotationValue(element, ColumnName.class, "value");
+        columnName = prefix + (name != null ? name : baseName);
+        columnPrefix = (String) getAnnotationValue(element, ColumnPrefix.class, "value");
+        groupedBy = (String) getAnnotationValue(element, GroupedBy.class, "value");
+        TypeMirror returnType = element.getReturnType();
+        if (groupedBy != null) {
+            returnType = getListElementType(env, returnType);
+        }
+        TypeElement embeddedType = returnType != null ? getAutoValueType(returnType) : null;
+        if (columnPrefix != null && embeddedType != null) {
+            this.embeddedType = ClassName.get(embeddedType);
+            embeddedClass = getAutoValueFinalClass(embeddedType);
+            embeddedProperties =
+                    getEmbeddedProperties(
+                            env, humanNames, humanName, embeddedType, prefix + columnPrefix);
+        } else {
+            this.embeddedType = null;
+            embeddedClass = null;
+            embeddedProperties = null;
+        }
+        enumConstants = getEnumConstants(element.getReturnType());
+        enumOrdinal = isAnnotationPresent(element, EnumOrdinal.class);
+        supportedType = ColumnType.forType(type()) != null || enumConstants != null;
 
-    public boolean supportedType() {
-        return supportedType;
+        // annotation values are looked up once since the generators ask for them repeatedly
+        columnAdapter = (TypeMirror) getAnnotationValue(element, ColumnAdapter.class, "value");
+        sharedColumnAdapter =
+                Boolean.TRUE.equals(getAnnotationValue(element, ColumnAdapter.class, "shared"));
+        columnAdapterColumns = columnAdapter != null
+                ? (Integer) getAnnotationValue(element, ColumnAdapter.class, "columns")
+                : 1;
+        primaryKey = isAnnotationPresent(element, PrimaryKey.class);
+        primaryKeyCacheSize = primaryKey
+                ? (Integer) getAnnotationValue(element, PrimaryKey.class, "cacheSize")
+                : 0;
+
+        TypeName primitiveType = null;
+        boolean valid = columnAdapter == null
+                || isSubtype(env, columnAdapter, ColumnTypeAdapter.class);
+        if (columnAdapter != null) {
+            for (Map.Entry<Class<?>, TypeName> entry : PRIMITIVE_ADAPTERS.entrySet()) {
+                if (isSubtype(env, columnAdapter, entry.getKey())) {
+                    primitiveType = entry.getValue();
+                    valid = true;
+                }
+            }
+        }
+        validColumnAdapter = valid;
+        primitiveAdapterType = primitiveType;
+        columnType = getColumnType();
     }
 
-    public String columnName() {
-        return columnName != null ? columnName : humanName();
+    private ColumnType getColumnType() {
+        if (primitiveAdapterType != null) {
+            return ColumnType.forType(primitiveAdapterType);
+        }
+        if (!supportedType) {
+            return null;
+        }
+        if (enumConstants != null) {
+            return enumOrdinal ? ColumnType.INT : ColumnType.STRING;
+        }
+        return ColumnType.forType(type());
     }
 
-    public TypeMirror columnAdapter() {
-        return (TypeMirror) getAnnotationValue(element(), ColumnAdapter.class, "value");
+    private static TypeElement getAutoValueType(TypeMirror type) {
+        if (type.getKind() != TypeKind.DECLARED) {
+            return null;
+        }
+        Element element = ((DeclaredType) type).asElement();
+        return isAnnotationPresent(element, AutoValue.class) ? (TypeElement) element : null;
     }
 
-    public String cursorMethod() {
-        if (!supportedType) {
+    private static TypeMirror getListElementType(ProcessingEnvironment env, TypeMirror type) {
+        TypeElement list = env.getElementUtils().getTypeElement(List.class.getCanonicalName());
+        Types types = env.getTypeUtils();
+        if (type.getKind() != TypeKind.DECLARED
+                || !types.isSameType(types.erasure(type), types.erasure(list.asType()))) {
             return null;
         }
-        TypeName type = type();
-        if (type.equals(TypeName.get(byte[].class)) || type.equals(TypeName.get(Byte[].class))) {
-            return "cursor.getBlob($L)";
+        List<? extends TypeMirror> arguments = ((DeclaredType) type).getTypeArguments();
+        return arguments.size() == 1 ? arguments.get(0) : null;
+    }
+
+    private static ClassName getAutoValueFinalClass(TypeElement type) {
+        ClassName className = ClassName.get(type);
+        return ClassName.get(
+                className.packageName(),
+                "AutoValue_" + Joiner.on('_').join(className.simpleNames()));
+    }
+
+    /**
+     * Returns the properties of the AutoValue class {@code type} in the order of its generated
+     * constructor. Abstract methods returning {@code ContentValues} are implemented by an
+     * extension and aren't properties. Their names are prefixed with {@code parentName} and
+     * allocated with {@code humanNames}.
+     */
+    private static ImmutableList<ColumnProperty> getEmbeddedProperties(
+            ProcessingEnvironment env,
+            NameAllocator humanNames,
+            String parentName,
+            TypeElement type,
+            String prefix) {
+        List<ExecutableElement> methods = new ArrayList<>();
+        for (ExecutableElement method :
+                getLocalAndInheritedMethods(type, env.getTypeUtils(), env.getElementUtils())) {
+            if (method.getModifiers().contains(Modifier.ABSTRACT)
+                    && method.getParameters().isEmpty()
+                    && method.getReturnType().getKind() != TypeKind.VOID
+                    && !TypeName.get(method.getReturnType()).equals(CONTENT_VALUES)) {
+                methods.add(method);
+            }
         }
-        if (type.equals(TypeName.DOUBLE) || type.equals(TypeName.DOUBLE.box())) {
-            return "cursor.getDouble($L)";
+        boolean allPrefixed = true;
+        for (ExecutableElement method : methods) {
+            allPrefixed &= getterPrefixLength(method) > 0;
         }
-        if (type.equals(TypeName.FLOAT) || type.equals(TypeName.FLOAT.box())) {
-            return "cursor.getFloat($L)";
+        ImmutableList.Builder<ColumnProperty> values = ImmutableList.builder();
+        for (ExecutableElement method : methods) {
+            String name = method.getSimpleName().toString();
+            if (allPrefixed) {
+                name = name.substring(getterPrefixLength(method));
+                name = Character.toLowerCase(name.charAt(0)) + name.substring(1);
+            }
+            String humanName = humanNames.newName(parentName + capitalize(name));
+            values.add(new ColumnProperty(env, humanNames, humanName, name, method, prefix));
         }
-        if (type.equals(TypeName.INT) || type.equals(TypeName.INT.box())) {
-            return "cursor.getInt($L)";
+        return values.build();
+    }
+
+    private static int getterPrefixLength(ExecutableElement method) {
+        String name = method.getSimpleName().toString();
+        if (name.length() > 3 && name.startsWith("get") && Character.isUpperCase(name.charAt(3))) {
+            return 3;
         }
-        if (type.equals(TypeName.LONG) || type.equals(TypeName.LONG.box())) {
-            return "cursor.getLong($L)";
+        if (name.length() > 2 && name.startsWith("is") && Character.isUpperCase(name.charAt(2))
+                && method.getReturnType().getKind() == TypeKind.BOOLEAN) {
+            return 2;
         }
-        if (type.equals(TypeName.SHORT) || type.equals(TypeName.SHORT.box())) {
-            return "cursor.getShort($L)";
+        return 0;
+    }
+
+    private static ImmutableList<String> getEnumConstants(TypeMirror type) {
+        if (type.getKind() != TypeKind.DECLARED) {
+            return null;
+        }
+        Element element = ((DeclaredType) type).asElement();
+        if (element.getKind() != ElementKind.ENUM) {
+            return null;
+        }
+        ImmutableList.Builder<String> constants = ImmutableList.builder();
+        for (Element enclosed : element.getEnclosedElements()) {
+            if (enclosed.getKind() == ElementKind.ENUM_CONSTANT) {
+                constants.add(enclosed.getSimpleName().toString());
+            }
+        }
+        return constants.build();
+    }
+
+    private static boolean isSubtype(ProcessingEnvironment env, TypeMirror type, Class<?> cls) {
+        Types types = env.getTypeUtils();
+        TypeElement element = env.getElementUtils().getTypeElement(cls.getCanonicalName());
+        return element != null
+                && types.isAssignable(types.erasure(type), types.erasure(element.asType()));
+    }
+
+    public boolean supportedType() {
+        return supportedType;
+    }
+
+    public String columnName() {
+        return columnName;
+    }
+
+    /**
+     * Returns the value of {@code @ColumnPrefix} or {@code null} if the property isn't annotated
+     * with it.
+     */
+    public String columnPrefix() {
+        return columnPrefix;
+    }
+
+    /**
+     * Returns true if the property is annotated with {@code @ColumnPrefix} and its type is an
+     * AutoValue class. The columns of its {@link #embeddedProperties()} are part of the same row.
+     */
+    public boolean embedded() {
+        return embeddedProperties != null;
+    }
+
+    /**
+     * Returns the value of {@code @GroupedBy} or {@code null} if the property isn't annotated with
+     * it. The type of a grouped embedded property is a {@code List} of {@link #embeddedClass()}.
+     */
+    public String groupedBy() {
+        return groupedBy;
+    }
+
+    public ImmutableList<ColumnProperty> embeddedProperties() {
+        return embeddedProperties;
+    }
+
+    /**
+     * Returns the AutoValue class of an embedded property.
+     */
+    public ClassName embeddedType() {
+        return embeddedType;
+    }
+
+    /**
+     * Returns the class generated by AutoValue for the type of an embedded property.
+     */
+    public ClassName embeddedClass() {
+        return embeddedClass;
+    }
+
+    public TypeMirror columnAdapter() {
+        return columnAdapter;
+    }
+
+    /**
+     * Returns false if the class passed to {@code @ColumnAdapter} doesn't implement one of the
+     * supported adapter interfaces.
+     */
+    public boolean validColumnAdapter() {
+        return validColumnAdapter;
+    }
+
+    /**
+     * Returns true if the column adapter is a {@code ColumnTypeAdapter}, which accesses the
+     * {@code Cursor} and {@code ContentValues} itself.
+     */
+    public boolean columnTypeAdapter() {
+        return columnAdapter != null && primitiveAdapterType == null;
+    }
+
+    /**
+     * Returns true if the column adapter is an {@code IntColumnAdapter}, {@code LongColumnAdapter}
+     * or {@code DoubleColumnAdapter}. The column of those is read with {@link #cursorMethod()} and
+     * converted with {@link #fromPrimitiveMethod()}.
+     */
+    public boolean primitiveColumnAdapter() {
+        return primitiveAdapterType != null;
+    }
+
+    /**
+     * Returns the primitive type of the column of a primitive column adapter.
+     */
+    public TypeName primitiveAdapterType() {
+        return primitiveAdapterType;
+    }
+
+    public String fromPrimitiveMethod() {
+        return "from" + capitalize(primitiveAdapterType.toString());
+    }
+
+    public String toPrimitiveMethod() {
+        return "to" + capitalize(primitiveAdapterType.toString());
+    }
+
+    private static String capitalize(String s) {
+        return Character.toUpperCase(s.charAt(0)) + s.substring(1);
+    }
+
+    /**
+     * Returns true if the property is an enum without a column adapter. Those are stored by name,
+     * or by ordinal if {@link #enumOrdinal()} is true.
+     */
+    public boolean enumType() {
+        return enumConstants != null && columnAdapter == null;
+    }
+
+    public boolean enumOrdinal() {
+        return enumOrdinal;
+    }
+
+    public ImmutableList<String> enumConstants() {
+        return enumConstants;
+    }
+
+    public boolean primaryKey() {
+        return primaryKey;
+    }
+
+    public int primaryKeyCacheSize() {
+        return primaryKeyCacheSize;
+    }
+
+    /**
+     * Returns the number of columns the property is stored in.
+     */
+    public int columnCount() {
+        if (groupedBy != null) {
+            return 0;
         }
-        if (type.equals(TypeName.get(String.class))) {
-            return "cursor.getString($L)";
+        if (embedded()) {
+            int count = 0;
+            for (ColumnProperty property : embeddedProperties) {
+                count += property.columnCount();
+            }
+            return count;
         }
-        if (type.equals(TypeName.BOOLEAN) || type.equals(TypeName.BOOLEAN.box())) {
-            return "cursor.getInt($L) == 1";
+        if (columnTypeAdapter()) {
+            return columnAdapterColumns;
         }
-        throw new AssertionError(
-                String.format("supportedType is true but type %s isn't handled", type));
+        return 1;
+    }
+
+    public boolean sharedColumnAdapter() {
+        return sharedColumnAdapter;
+    }
+
+    /**
+     * Returns the type of the column the property is stored in when that doesn't need a
+     * {@code ColumnTypeAdapter}, or {@code null} otherwise.
+     */
+    public ColumnType columnType() {
+        return columnType;
+    }
+
+    public String cursorMethod() {
+        return columnType != null ? columnType.cursorFormat() : null;
     }
 }
@@ -0,0 +1,191 @@
+package com.gabrielittner.auto.value;
+
+import com.gabrielittner.auto.value.cursor.ByteBuffers;
+import com.google.common.collect.ImmutableMap;
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.TypeName;
+
+/**
+ * The types that can be stored in a column without a column adapter. Each of them knows how it's
+ * read from a {@code Cursor}, bound to a {@code SQLiteStatement} and encoded in a
+ * {@code ByteBuffer}. To support a new type add a constant and register it in {@link #TYPES}.
+ */
+public enum ColumnType {
+    BLOB("cursor.getBlob($L)", "bindBlob") {
+        @Override
+        public CodeBlock putInBuffer(CodeBlock value) {
+            return CodeBlock.of("$T.putBytes(buffer, $L)", BYTE_BUFFERS, value);
+        }
+
+        @Override
+        public CodeBlock getFromBuffer() {
+            return CodeBlock.of("$T.getBytes(buffer)", BYTE_BUFFERS);
+        }
+    },
+    BOXED_BLOB("cursor.getBlob($L)", null) {
+        @Override
+        public CodeBlock putInBuffer(CodeBlock value) {
+            return null;
+        }
+
+        @Override
+        public CodeBlock getFromBuffer() {
+            return null;
+        }
+    },
+    STRING("cursor.getString($L)", "bindString") {
+        @Override
+        public CodeBlock putInBuffer(CodeBlock value) {
+            return CodeBlock.of("$T.putString(buffer, $L)", BYTE_BUFFERS, value);
+        }
+
+        @Override
+        public CodeBlock getFromBuffer() {
+            return CodeBlock.of("$T.getString(buffer)", BYTE_BUFFERS);
+        }
+    },
+    DOUBLE("cursor.getDouble($L)", "bindDouble") {
+        @Override
+        public CodeBlock putInBuffer(CodeBlock value) {
+            return CodeBlock.of("buffer.putDouble($L)", value);
+        }
+
+        @Override
+        public CodeBlock getFromBuffer() {
+            return CodeBlock.of("buffer.getDouble()");
+        }
+    },
+    FLOAT("cursor.getFloat($L)", "bindDouble") {
+        @Override
+        public CodeBlock putInBuffer(CodeBlock value) {
+            return CodeBlock.of("buffer.putFloat($L)", value);
+        }
+
+        @Override
+        public CodeBlock getFromBuffer() {
+            return CodeBlock.of("buffer.getFloat()");
+        }
+    },
+    LONG("cursor.getLong($L)", "bindLong") {
+        @Override
+        public CodeBlock putInBuffer(CodeBlock value) {
+            return CodeBlock.of("$T.putVarint(buffer, $L)", BYTE_BUFFERS, value);
+        }
+
+        @Override
+        public CodeBlock getFromBuffer() {
+            return CodeBlock.of("$T.getVarint(buffer)", BYTE_BUFFERS);
+        }
+    },
+    INT("cursor.getInt($L)", "bindLong") {
+        @Override
+        public CodeBlock putInBuffer(CodeBlock value) {
+            return CodeBlock.of("$T.putVarint(buffer, $L)", BYTE_BUFFERS, value);
+        }
+
+        @Override
+        public CodeBlock getFromBuffer() {
+            return CodeBlock.of("(int) $T.getVarint(buffer)", BYTE_BUFFERS);
+        }
+    },
+    SHORT("cursor.getShort($L)", "bindLong") {
+        @Override
+        public CodeBlock putInBuffer(CodeBlock value) {
+            return CodeBlock.of("$T.putVarint(buffer, $L)", BYTE_BUFFERS, value);
+        }
+
+        @Override
+        public CodeBlock getFromBuffer() {
+            return CodeBlock.of("(short) $T.getVarint(buffer)", BYTE_BUFFERS);
+        }
+    },
+    BOOLEAN("cursor.getInt($L) == 1", "bindLong") {
+        @Override
+        public CodeBlock bindValue(CodeBlock value) {
+            return CodeBlock.of("$L ? 1 : 0", value);
+        }
+
+        @Override
+        public CodeBlock putInBuffer(CodeBlock value) {
+            return CodeBlock.of("buffer.put((byte) ($L ? 1 : 0))", value);
+        }
+
+        @Override
+        public CodeBlock getFromBuffer() {
+            return CodeBlock.of("buffer.get() != 0");
+        }
+    };
+
+    private static final ClassName BYTE_BUFFERS = ClassName.get(ByteBuffers.class);
+
+    private static final ImmutableMap<TypeName, ColumnType> TYPES =
+            ImmutableMap.<TypeName, ColumnType>builder()
+                    .put(TypeName.get(byte[].class), BLOB)
+                    .put(TypeName.get(Byte[].class), BOXED_BLOB)
+                    .put(TypeName.get(String.class), STRING)
+                    .put(TypeName.DOUBLE, DOUBLE)
+                    .put(TypeName.DOUBLE.box(), DOUBLE)
+                    .put(TypeName.FLOAT, FLOAT)
+                    .put(TypeName.FLOAT.box(), FLOAT)
+                    .put(TypeName.LONG, LONG)
+                    .put(TypeName.LONG.box(), LONG)
+                    .put(TypeName.INT, INT)
+                    .put(TypeName.INT.box(), INT)
+                    .put(TypeName.SHORT, SHORT)
+                    .put(TypeName.SHORT.box(), SHORT)
+                    .put(TypeName.BOOLEAN, BOOLEAN)
+                    .put(TypeName.BOOLEAN.box(), BOOLEAN)
+                    .build();
+
+    /**
+     * Returns the column type of {@code type} or {@code null} if it can't be stored without a
+     * column adapter.
+     */
+    public static ColumnType forType(TypeName type) {
+        return TYPES.get(type);
+    }
+
+    private final String cursorFormat;
+    private final String bindMethod;
+
+    ColumnType(String cursorFormat, String bindMethod) {
+        this.cursorFormat = cursorFormat;
+        this.bindMethod = bindMethod;
+    }
+
+    /**
+     * Returns a format reading the column at the index given as {@code $L} from a
+     * {@code Cursor} called {@code cursor}.
+     */
+    public String cursorFormat() {
+        return cursorFormat;
+    }
+
+    /**
+     * Returns the {@code SQLiteStatement} method binding this type or {@code null} if it can't be
+     * bound.
+     */
+    public String bindMethod() {
+        return bindMethod;
+    }
+
+    /**
+     * Returns {@code value} converted to the type of the parameter of {@link #bindMethod()}.
+     */
+    public CodeBlock bindValue(CodeBlock value) {
+        return value;
+    }
+
+    /**
+     * Returns a statement writing {@code value} to a {@code ByteBuffer} called {@code buffer} or
+     * {@code null} if this type can't be written to it.
+     */
+    public abstract CodeBlock putInBuffer(CodeBlock value);
+
+    /**
+     * Returns an expression reading a value written by {@link #putInBuffer(CodeBlock)} from a
+     * {@code ByteBuffer} called {@code buffer}.
+     */
+    public abstract CodeBlock getFromBuffer();
+}
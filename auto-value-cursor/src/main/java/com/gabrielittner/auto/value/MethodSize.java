@@ -0,0 +1,132 @@
+package com.gabrielittner.auto.value;
+
+import com.google.common.collect.ImmutableList;
+import com.squareup.javapoet.TypeName;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Estimates how many bytes of bytecode the generated code for a property takes. HotSpot never
+ * compiles methods with more than 8000 bytes of bytecode, so code for wide models is moved into
+ * helper methods once the estimate for a method gets close to that limit. The estimates are upper
+ * bounds of what javac emits for the generated statements.
+ */
+public enum MethodSize {
+    /** Reading a property from a {@code Cursor} and passing it to the constructor. */
+    READ {
+        @Override
+        int of(ColumnProperty property) {
+            if (property.embedded()) {
+                return of(property.embeddedProperties()) + 10;
+            }
+            if (property.columnTypeAdapter()) {
+                return 12;
+            }
+            int size = property.nullable() ? 50 : 22;
+            if (property.enumType()
+                    || property.primitiveColumnAdapter()
+                    || property.type().equals(TypeName.BOOLEAN)) {
+                size += 10;
+            }
+            return size;
+        }
+    },
+    /** Comparing a property to the one of another instance. */
+    COMPARISON {
+        @Override
+        int of(ColumnProperty property) {
+            return property.nullable() ? 30 : 20;
+        }
+    },
+    /** Putting a property into {@code ContentValues}. */
+    WRITE {
+        @Override
+        int of(ColumnProperty property) {
+            if (property.embedded()) {
+                return of(property.embeddedProperties()) + 5;
+            }
+            if (property.columnTypeAdapter()) {
+                return 15;
+            }
+            if (property.primitiveColumnAdapter()) {
+                return property.nullable() ? 30 : 18;
+            }
+            return property.enumType() ? 20 : 15;
+        }
+    },
+    /** Binding a property to a {@code SQLiteStatement} or putting it into a {@code ByteBuffer}. */
+    BIND {
+        @Override
+        int of(ColumnProperty property) {
+            if (property.embedded()) {
+                return of(property.embeddedProperties()) + 5;
+            }
+            int size = property.nullable() ? 30 : 15;
+            if (property.enumType()
+                    || property.primitiveColumnAdapter()
+                    || property.type().equals(TypeName.BOOLEAN)) {
+                size += 10;
+            }
+            return size;
+        }
+    },
+    /** Putting a property into {@code ContentValues} if it differs from the one of another instance. */
+    DIFF {
+        @Override
+        int of(ColumnProperty property) {
+            if (property.embedded()) {
+                // every column of an embedded property is compared on its own
+                return of(property.embeddedProperties()) + 10;
+            }
+            return COMPARISON.of(property) + WRITE.of(property);
+        }
+    };
+
+    /**
+     * Methods whose estimate is larger than this are split. It's below HotSpot's limit of 8000
+     * bytes to leave room for the code around the properties and for estimation errors.
+     */
+    public static final int SPLIT_THRESHOLD = 6000;
+
+    /** The largest estimate of the properties that are moved into one helper method. */
+    private static final int CHUNK_SIZE = 2000;
+
+    abstract int of(ColumnProperty property);
+
+    /** Returns the estimated size of the code for all {@code properties}. */
+    public int of(List<ColumnProperty> properties) {
+        int size = 0;
+        for (ColumnProperty property : properties) {
+            size += of(property);
+        }
+        return size;
+    }
+
+    /** Returns true if the code for {@code properties} should be split into helper methods. */
+    public boolean exceedsThreshold(List<ColumnProperty> properties) {
+        return of(properties) > SPLIT_THRESHOLD;
+    }
+
+    /**
+     * Splits {@code properties} into consecutive chunks whose code fits into a helper method.
+     */
+    public ImmutableList<List<ColumnProperty>> chunk(List<ColumnProperty> properties) {
+        ImmutableList.Builder<List<ColumnProperty>> chunks = ImmutableList.builder();
+        List<ColumnProperty> chunk = new ArrayList<>();
+        int size = 0;
+        for (ColumnProperty property : properties) {
+            int propertySize = of(property);
+            if (!chunk.isEmpty() && size + propertySize > CHUNK_SIZE) {
+                chunks.add(chunk);
+                chunk = new ArrayList<>();
+                size = 0;
+            }
+            chunk.add(property);
+            size += propertySize;
+        }
+        if (!chunk.isEmpty()) {
+            chunks.add(chunk);
+        }
+        return chunks.build();
+    }
+}
@@ -0,0 +1,383 @@
+package com.gabrielittner.auto.value.bytebuffer;
+
+import com.gabrielittner.auto.value.ColumnProperty;
+import com.gabrielittner.auto.value.ColumnType;
+import com.gabrielittner.auto.value.util.Property;
+import com.google.auto.service.AutoService;
+import com.google.auto.value.extension.AutoValueExtension;
+import com.google.common.base.Joiner;
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.FieldSpec;
+import com.squareup.javapoet.JavaFile;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.TypeName;
+import com.squareup.javapoet.TypeSpec;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+
+import static com.gabrielittner.auto.value.cursor.AutoValueCursorExtension.addColumnAdaptersToMethod;
+import static com.gabrielittner.auto.value.cursor.AutoValueCursorExtension.addEnumLookups;
+import static com.gabrielittner.auto.value.cursor.AutoValueCursorExtension.addSharedColumnAdapters;
+import static com.gabrielittner.auto.value.cursor.AutoValueCursorExtension.declaresSharedMembers;
+import static com.gabrielittner.auto.value.cursor.AutoValueCursorExtension.getColumnAdapter;
+import static com.gabrielittner.auto.value.cursor.AutoValueCursorExtension.getColumnAdapters;
+import static com.gabrielittner.auto.value.cursor.AutoValueCursorExtension.getEnumLookups;
+import static com.gabrielittner.auto.value.cursor.AutoValueCursorExtension.getSharedMember;
+import static com.gabrielittner.auto.value.util.AutoValueUtil.error;
+import static com.gabrielittner.auto.value.util.AutoValueUtil.getFinalClassClassName;
+import static com.gabrielittner.auto.value.util.AutoValueUtil.newFinalClassConstructorCall;
+import static com.gabrielittner.auto.value.util.AutoValueUtil.newTypeSpecBuilder;
+import static com.gabrielittner.auto.value.util.ElementUtil.getMatchingAbstractMethod;
+import static com.gabrielittner.auto.value.util.ElementUtil.getMatchingStaticMethod;
+import static javax.lang.model.element.Modifier.PUBLIC;
+import static javax.lang.model.element.Modifier.STATIC;
+
+/**
+ * Writes the properties of a value class to a {@link ByteBuffer} and reads them back. Properties
+ * are stored in declaration order after a bitmap with one bit for every nullable property. The
+ * values are encoded as defined by their {@link ColumnType}.
+ */
+@AutoService(AutoValueExtension.class)
+public class AutoValueByteBufferExtension extends AutoValueExtension {
+
+    private static final ClassName BYTE_BUFFER = ClassName.get(ByteBuffer.class);
+
+    private static final String READ_METHOD_NAME = "readFrom";
+    private static final String NULLS_LOCAL_NAME = "nulls";
+
+    @Override
+    public boolean applicable(Context context) {
+        return getWriteToMethod(context).isPresent() || hasReadMethod(context);
+    }
+
+    @Override
+    public Set<ExecutableElement> consumeMethods(Context context) {
+        return getWriteToMethod(context).asSet();
+    }
+
+    private static Optional<ExecutableElement> getWriteToMethod(Context context) {
+        return getMatchingAbstractMethod(context.abstractMethods(), TypeName.VOID, BYTE_BUFFER);
+    }
+
+    private static boolean hasReadMethod(Context context) {
+        TypeElement valueClass = context.autoValueClass();
+        return getMatchingStaticMethod(valueClass, ClassName.get(valueClass), BYTE_BUFFER)
+                .isPresent();
+    }
+
+    @Override
+    public String generateClass(
+            Context context, String className, String classToExtend, boolean isFinal) {
+        ImmutableList<ColumnProperty> properties = ColumnProperty.from(context);
+        ImmutableMap<Property, FieldSpec> columnAdapters = getColumnAdapters(properties);
+        ImmutableMap<Property, String> enumLookups = getEnumLookups(properties);
+        boolean sharedMembersElsewhere = !declaresSharedMembers(context, this);
+        if (!sharedMembersElsewhere) {
+            ColumnProperty.checkEmbedded(context, properties);
+        }
+
+        TypeSpec.Builder subclass = newTypeSpecBuilder(context, className, classToExtend, isFinal);
+        Optional<ExecutableElement> writeTo = getWriteToMethod(context);
+        if (writeTo.isPresent()) {
+            subclass.addMethod(
+                    createWriteToMethod(
+                            context,
+                            writeTo.get(),
+                            properties,
+                            columnAdapters,
+                            sharedMembersElsewhere));
+        }
+        if (hasReadMethod(context)) {
+            // errors are the same for both methods, only report them once
+            boolean reportErrors = !writeTo.isPresent();
+            subclass.addMethod(
+                    createReadFromMethod(
+                            context,
+                            properties,
+                            columnAdapters,
+                            enumLookups,
+                            sharedMembersElsewhere,
+                            reportErrors));
+        }
+
+        // only one class of the hierarchy declares the shared adapters and enum lookups
+        if (!sharedMembersElsewhere) {
+            addSharedColumnAdapters(subclass, properties, columnAdapters);
+            addEnumLookups(subclass, properties, enumLookups);
+        }
+
+        return JavaFile.builder(context.packageName(), subclass.build()).build().toString();
+    }
+
+    private MethodSpec createWriteToMethod(
+            Context context,
+            ExecutableElement methodToImplement,
+            ImmutableList<ColumnProperty> properties,
+            ImmutableMap<Property, FieldSpec> columnAdapters,
+            boolean sharedMembersElsewhere) {
+        MethodSpec.Builder writeMethod =
+                MethodSpec.methodBuilder(methodToImplement.getSimpleName().toString())
+                        .addAnnotation(Override.class)
+                        .addModifiers(PUBLIC)
+                        .addParameter(BYTE_BUFFER, "buffer");
+        addColumnAdaptersToMethod(writeMethod, properties, columnAdapters);
+
+        List<CodeBlock> nullableValues = getNullableValues(properties);
+        for (int i = 0; i < nullableValues.size(); i += 8) {
+            List<CodeBlock> bits = new ArrayList<>();
+            for (int bit = 0; bit < 8 && i + bit < nullableValues.size(); bit++) {
+                CodeBlock value = nullableValues.get(i + bit);
+                bits.add(CodeBlock.of("($L == null ? $L : 0)", value, 1 << bit));
+            }
+            writeMethod.addStatement("buffer.put((byte) ($L))", Joiner.on(" | ").join(bits));
+        }
+
+        CodeBlock.Builder writes = CodeBlock.builder();
+        for (ColumnProperty property : properties) {
+            addWrite(
+                    context,
+                    writes,
+                    property,
+                    CodeBlock.of("$N()", property.methodName()),
+                    columnAdapters,
+                    sharedMembersElsewhere);
+        }
+        return writeMethod.addCode(writes.build()).build();
+    }
+
+    /**
+     * Returns the getter calls of all properties, including embedded ones, that can be null. Each
+     * of them has a bit in the null bitmap.
+     */
+    private List<CodeBlock> getNullableValues(List<ColumnProperty> properties) {
+        List<CodeBlock> values = new ArrayList<>();
+        for (ColumnProperty property : properties) {
+            addNullableValues(property, CodeBlock.of("$N()", property.methodName()), values);
+        }
+        return values;
+    }
+
+    private void addNullableValues(
+            ColumnProperty property, CodeBlock value, List<CodeBlock> values) {
+        if (property.groupedBy() != null) {
+            return;
+        }
+        if (property.validColumnAdapter() && property.embedded()) {
+            for (ColumnProperty embeddedProperty : property.embeddedProperties()) {
+                CodeBlock embeddedValue =
+                        CodeBlock.of("$L.$N()", value, embeddedProperty.methodName());
+                addNullableValues(embeddedProperty, embeddedValue, values);
+            }
+        } else if (property.nullable()) {
+            values.add(value);
+        }
+    }
+
+    private void addWrite(
+            Context context,
+            CodeBlock.Builder writes,
+            ColumnProperty property,
+            CodeBlock value,
+            ImmutableMap<Property, FieldSpec> columnAdapters,
+            boolean sharedMembersElsewhere) {
+        if (!property.validColumnAdapter()) {
+            error(context, property, "Column adapter doesn't implement a supported interface.");
+            return;
+        }
+        if (property.groupedBy() != null) {
+            error(context, property, "Grouped properties can't be written to a ByteBuffer.");
+            return;
+        }
+        if (property.embedded()) {
+            for (ColumnProperty embeddedProperty : property.embeddedProperties()) {
+                CodeBlock embeddedValue =
+                        CodeBlock.of("$L.$N()", value, embeddedProperty.methodName());
+                addWrite(
+                        context,
+                        writes,
+                        embeddedProperty,
+                        embeddedValue,
+                        columnAdapters,
+                        sharedMembersElsewhere);
+            }
+            return;
+        }
+
+        ColumnType columnType = getColumnType(context, property, true);
+        if (columnType == null) {
+            return;
+        }
+        CodeBlock storedValue;
+        if (property.primitiveColumnAdapter()) {
+            CodeBlock adapter =
+                    getColumnAdapter(context, columnAdapters.get(property), sharedMembersElsewhere);
+            storedValue = CodeBlock.of("$L.$L($L)", adapter, property.toPrimitiveMethod(), value);
+        } else if (property.enumType()) {
+            String method = property.enumOrdinal() ? "ordinal" : "name";
+            storedValue = CodeBlock.of("$L.$L()", value, method);
+        } else {
+            storedValue = value;
+        }
+
+        if (property.nullable()) {
+            // null values are only marked in the bitmap
+            writes.beginControlFlow("if ($L != null)", value);
+        }
+        writes.addStatement("$L", columnType.putInBuffer(storedValue));
+        if (property.nullable()) {
+            writes.endControlFlow();
+        }
+    }
+
+    private MethodSpec createReadFromMethod(
+            Context context,
+            ImmutableList<ColumnProperty> properties,
+            ImmutableMap<Property, FieldSpec> columnAdapters,
+            ImmutableMap<Property, String> enumLookups,
+            boolean sharedMembersElsewhere,
+            boolean reportErrors) {
+        MethodSpec.Builder readMethod =
+                MethodSpec.methodBuilder(READ_METHOD_NAME)
+                        .addModifiers(STATIC)
+                        .returns(getFinalClassClassName(context))
+                        .addParameter(BYTE_BUFFER, "buffer");
+        addColumnAdaptersToMethod(readMethod, properties, columnAdapters);
+
+        int nullableCount = getNullableValues(properties).size();
+        for (int i = 0; i < nullableCount; i += 8) {
+            readMethod.addStatement("byte $N = buffer.get()", NULLS_LOCAL_NAME + i / 8);
+        }
+
+        CodeBlock.Builder reads = CodeBlock.builder();
+        int[] nullableIndex = new int[1];
+        List<String> names = new ArrayList<>(properties.size());
+        for (ColumnProperty property : properties) {
+            addRead(
+                    context,
+                    reads,
+                    property,
+                    nullableIndex,
+                    columnAdapters,
+                    enumLookups,
+                    sharedMembersElsewhere,
+                    reportErrors);
+            names.add(property.humanName());
+        }
+        return readMethod
+                .addCode(reads.build())
+                .addCode("return ")
+                .addCode(newFinalClassConstructorCall(context, names.toArray()))
+                .build();
+    }
+
+    /**
+     * Adds a statement that reads {@code property} into a local variable with its name.
+     * {@code nullableIndex} holds the index of the next nullable property in the bitmap.
+     */
+    private void addRead(
+            Context context,
+            CodeBlock.Builder reads,
+            ColumnProperty property,
+            int[] nullableIndex,
+            ImmutableMap<Property, FieldSpec> columnAdapters,
+            ImmutableMap<Property, String> enumLookups,
+            boolean sharedMembersElsewhere,
+            boolean reportErrors) {
+        if (!property.validColumnAdapter() || property.groupedBy() != null) {
+            if (reportErrors) {
+                error(context, property, property.groupedBy() != null
+                        ? "Grouped properties can't be read from a ByteBuffer."
+                        : "Column adapter doesn't implement a supported interface.");
+            }
+            reads.addStatement("$T $N = null", property.type(), property.humanName());
+            return;
+        }
+        if (property.embedded()) {
+            List<String> names = new ArrayList<>();
+            for (ColumnProperty embeddedProperty : property.embeddedProperties()) {
+                addRead(
+                        context,
+                        reads,
+                        embeddedProperty,
+                        nullableIndex,
+                        columnAdapters,
+                        enumLookups,
+                        sharedMembersElsewhere,
+                        reportErrors);
+                names.add(embeddedProperty.humanName());
+            }
+            reads.addStatement(
+                    "$T $N = new $T($L)",
+                    property.type(),
+                    property.humanName(),
+                    property.embeddedClass(),
+                    Joiner.on(", ").join(names));
+            return;
+        }
+
+        ColumnType columnType = getColumnType(context, property, reportErrors);
+        if (columnType == null) {
+            reads.addStatement("$T $N = null", property.type(), property.humanName());
+            return;
+        }
+        CodeBlock storedValue = columnType.getFromBuffer();
+
+        CodeBlock value;
+        if (property.primitiveColumnAdapter()) {
+            CodeBlock adapter =
+                    getColumnAdapter(context, columnAdapters.get(property), sharedMembersElsewhere);
+            value = CodeBlock.of("$L.$L($L)", adapter, property.fromPrimitiveMethod(), storedValue);
+        } else if (property.enumType()) {
+            CodeBlock lookup = getSharedMember(
+                    context, enumLookups.get(property), sharedMembersElsewhere);
+            value = CodeBlock.of("$L($L)", lookup, storedValue);
+        } else {
+            value = storedValue;
+        }
+
+        if (property.nullable()) {
+            int index = nullableIndex[0]++;
+            reads.addStatement(
+                    "$T $N = ($N & $L) != 0 ? null : $L",
+                    property.type(),
+                    property.humanName(),
+                    NULLS_LOCAL_NAME + index / 8,
+                    1 << (index % 8),
+                    value);
+        } else {
+            reads.addStatement("$T $N = $L", property.type(), property.humanName(), value);
+        }
+    }
+
+    /**
+     * Returns the type of the column the value of a property is stored as or {@code null} if the
+     * property can't be written to a {@code ByteBuffer}.
+     */
+    private ColumnType getColumnType(
+            Context context, ColumnProperty property, boolean reportErrors) {
+        if (property.columnTypeAdapter()) {
+            if (reportErrors) {
+                error(context, property, "Properties with a ColumnTypeAdapter can't be written to "
+                        + "a ByteBuffer, use one of the primitive column adapters.");
+            }
+            return null;
+        }
+        ColumnType columnType = property.columnType();
+        if (columnType == null || columnType.getFromBuffer() == null) {
+            if (reportErrors) {
+                error(context, property,
+                        "Property has type that can't be written to a ByteBuffer.");
+            }
+            return null;
+        }
+        return columnType;
+    }
+}
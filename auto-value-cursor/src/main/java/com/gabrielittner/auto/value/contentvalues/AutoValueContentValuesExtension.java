@@ -1,97 +1,801 @@
 package com.gabrielittner.auto.value.contentvalues;
 
 import com.gabrielittner.auto.value.ColumnProperty;
+import com.gabrielittner.auto.value.ColumnType;
+import com.gabrielittner.auto.value.MethodSize;
+import com.gabrielittner.auto.value.bytebuffer.AutoValueByteBufferExtension;
+import com.gabrielittner.auto.value.cursor.AutoValueCursorExtension;
+import com.gabrielittner.auto.value.cursor.TableName;
 import com.gabrielittner.auto.value.util.Property;
 import com.google.auto.service.AutoService;
 import com.google.auto.value.extension.AutoValueExtension;
+import com.google.common.base.Joiner;
 import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.squareup.javapoet.ArrayTypeName;
 import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
 import com.squareup.javapoet.FieldSpec;
 import com.squareup.javapoet.JavaFile;
 import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.NameAllocator;
+import com.squareup.javapoet.ParameterSpec;
+import com.squareup.javapoet.ParameterizedTypeName;
+import com.squareup.javapoet.TypeName;
 import com.squareup.javapoet.TypeSpec;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import javax.lang.model.element.ExecutableElement;
-import javax.lang.model.type.TypeMirror;
+import javax.lang.model.element.TypeElement;
 
 import static com.gabrielittner.auto.value.cursor.AutoValueCursorExtension.addColumnAdaptersToMethod;
+import static com.gabrielittner.auto.value.cursor.AutoValueCursorExtension.addEnumLookups;
+import static com.gabrielittner.auto.value.cursor.AutoValueCursorExtension.addSharedColumnAdapters;
+import static com.gabrielittner.auto.value.cursor.AutoValueCursorExtension.declaresSharedMembers;
+import static com.gabrielittner.auto.value.cursor.AutoValueCursorExtension.getColumnAdapter;
 import static com.gabrielittner.auto.value.cursor.AutoValueCursorExtension.getColumnAdapters;
+import static com.gabrielittner.auto.value.cursor.AutoValueCursorExtension.getEnumLookups;
+import static com.gabrielittner.auto.value.cursor.AutoValueCursorExtension.getLocalColumnAdapters;
 import static com.gabrielittner.auto.value.util.AutoValueUtil.error;
+import static com.gabrielittner.auto.value.util.AutoValueUtil.getAutoValueClassClassName;
+import static com.gabrielittner.auto.value.util.AutoValueUtil.getFinalClassClassName;
 import static com.gabrielittner.auto.value.util.AutoValueUtil.newTypeSpecBuilder;
+import static com.gabrielittner.auto.value.util.ElementUtil.getAnnotationValue;
 import static com.gabrielittner.auto.value.util.ElementUtil.getMatchingAbstractMethod;
+import static com.gabrielittner.auto.value.util.ElementUtil.getMatchingStaticMethod;
+import static javax.lang.model.element.Modifier.FINAL;
+import static javax.lang.model.element.Modifier.PRIVATE;
 import static javax.lang.model.element.Modifier.PUBLIC;
+import static javax.lang.model.element.Modifier.STATIC;
 
 @AutoService(AutoValueExtension.class)
 public class AutoValueContentValuesExtension extends AutoValueExtension {
 
     private static final ClassName CONTENT_VALUES =
             ClassName.get("android.content", "ContentValues");
+    private static final ClassName SQLITE_STATEMENT =
+            ClassName.get("android.database.sqlite", "SQLiteStatement");
+
+    private static final String ARRAY_METHOD_NAME = "toContentValuesArray";
+    private static final String BIND_METHOD_NAME = "bindTo";
+    private static final String INSERT_SQL_FIELD_NAME = "INSERT_SQL";
+    private static final String WRITE_COLUMNS_METHOD_NAME = "writeColumns";
+    private static final String DIFF_COLUMNS_METHOD_NAME = "diffColumns";
+    private static final String BIND_COLUMNS_METHOD_NAME = "bindColumns";
+    // parameters and locals of the methods the writes from createWrites are added to
+    private static final ImmutableList<String> WRITE_NAMES =
+            ImmutableList.of("values", "value", "items", "item", "array", "i");
+    private static final ImmutableList<String> DIFF_NAMES =
+            ImmutableList.of("values", "value", "previous");
+    private static final ImmutableList<String> BIND_NAMES = ImmutableList.of("statement", "value");
 
     @Override
     public boolean applicable(Context context) {
-        return getMatchingAbstractMethod(context.abstractMethods(), CONTENT_VALUES).isPresent();
+        return getToContentValuesMethod(context).isPresent()
+                || getWriteIntoMethod(context).isPresent()
+                || getDiffMethod(context).isPresent()
+                || hasBindMethod(context)
+                || hasArrayMethod(context);
     }
 
     @Override
     public Set<ExecutableElement> consumeMethods(Context context) {
-        Optional<ExecutableElement> method =
-                getMatchingAbstractMethod(context.abstractMethods(), CONTENT_VALUES);
-        if (method.isPresent()) {
-            return Collections.singleton(method.get());
-        }
-        return Collections.emptySet();
+        Set<ExecutableElement> methods = new HashSet<>();
+        methods.addAll(getToContentValuesMethod(context).asSet());
+        methods.addAll(getWriteIntoMethod(context).asSet());
+        methods.addAll(getDiffMethod(context).asSet());
+        return methods;
+    }
+
+    private static Optional<ExecutableElement> getToContentValuesMethod(Context context) {
+        return getMatchingAbstractMethod(context.abstractMethods(), CONTENT_VALUES);
+    }
+
+    private static Optional<ExecutableElement> getWriteIntoMethod(Context context) {
+        return getMatchingAbstractMethod(context.abstractMethods(), TypeName.VOID, CONTENT_VALUES);
+    }
+
+    private static Optional<ExecutableElement> getDiffMethod(Context context) {
+        return getMatchingAbstractMethod(
+                context.abstractMethods(),
+                CONTENT_VALUES,
+                ClassName.get(context.autoValueClass()));
+    }
+
+    private static boolean hasBindMethod(Context context) {
+        TypeElement valueClass = context.autoValueClass();
+        return getMatchingStaticMethod(
+                        valueClass, TypeName.VOID, SQLITE_STATEMENT, ClassName.get(valueClass))
+                .isPresent();
+    }
+
+    private static boolean hasArrayMethod(Context context) {
+        return getMatchingStaticMethod(
+                        context.autoValueClass(),
+                        ArrayTypeName.of(CONTENT_VALUES),
+                        getCollectionTypeName(context))
+                .isPresent();
+    }
+
+    private static TypeName getCollectionTypeName(Context context) {
+        return ParameterizedTypeName.get(
+                ClassName.get(Collection.class), getAutoValueClassClassName(context));
     }
 
     @Override
     public String generateClass(
             Context context, String className, String classToExtend,boolean isFinal) {
-        Optional<ExecutableElement> method =
-                getMatchingAbstractMethod(context.abstractMethods(), CONTENT_VALUES);
-        if (!method.isPresent()) throw new AssertionError("Method is null");
         ImmutableList<ColumnProperty> properties = ColumnProperty.from(context);
+        // finding the owner runs applicable() of the other extensions, so it is only done once
+        boolean sharedMembersElsewhere = !declaresSharedMembers(context, this);
+        if (!sharedMembersElsewhere) {
+            ColumnProperty.checkEmbedded(context, properties);
+        }
+        ImmutableMap<Property, FieldSpec> columnAdapters = getColumnAdapters(properties);
 
-        TypeSpec.Builder subclass =
-                newTypeSpecBuilder(context, className, classToExtend, isFinal)
-                        .addMethod(createToContentValuesMethod(context, method.get(), properties));
+        TypeSpec.Builder subclass = newTypeSpecBuilder(context, className, classToExtend, isFinal);
+        Optional<ExecutableElement> toContentValues = getToContentValuesMethod(context);
+        Optional<ExecutableElement> writeInto = getWriteIntoMethod(context);
+        boolean array = hasArrayMethod(context);
+        boolean errorsReported = false;
+        // wide models are written in helper methods to stay below HotSpot's limit
+        List<MethodSpec> writeHelpers = null;
+        if ((toContentValues.isPresent() || writeInto.isPresent() || array)
+                && MethodSize.WRITE.exceedsThreshold(properties)) {
+            writeHelpers = createWriteHelperMethods(
+                    context, properties, columnAdapters, sharedMembersElsewhere);
+            subclass.addMethods(writeHelpers);
+            errorsReported = true;
+        }
+        if (toContentValues.isPresent() || writeInto.isPresent()) {
+            CodeBlock writes = writeHelpers != null
+                    ? callHelperMethods(writeHelpers, "values", "this")
+                    : createWrites(
+                            context,
+                            properties,
+                            columnAdapters,
+                            null,
+                            sharedMembersElsewhere,
+                            true);
+            errorsReported = true;
+            if (toContentValues.isPresent()) {
+                subclass.addMethod(
+                        createToContentValuesMethod(
+                                toContentValues.get(), properties, columnAdapters, writes));
+            }
+            if (writeInto.isPresent()) {
+                subclass.addMethod(
+                        createWriteIntoMethod(writeInto.get(), properties, columnAdapters, writes));
+            }
+        }
+        Optional<ExecutableElement> diff = getDiffMethod(context);
+        if (diff.isPresent()) {
+            CodeBlock writes;
+            if (MethodSize.DIFF.exceedsThreshold(properties)) {
+                List<MethodSpec> diffHelpers = createDiffHelperMethods(
+                        context,
+                        properties,
+                        columnAdapters,
+                        sharedMembersElsewhere,
+                        !errorsReported);
+                subclass.addMethods(diffHelpers);
+                writes = callHelperMethods(diffHelpers, "values", "this", "previous");
+            } else {
+                writes = createDiffWrites(
+                        context,
+                        properties,
+                        columnAdapters,
+                        null,
+                        sharedMembersElsewhere,
+                        !errorsReported);
+            }
+            errorsReported = true;
+            subclass.addMethod(
+                    createDiffMethod(context, diff.get(), properties, columnAdapters, writes));
+        }
+        if (array) {
+            CodeBlock writes = writeHelpers != null
+                    ? callHelperMethods(writeHelpers, "values", "item")
+                    : createWrites(
+                            context,
+                            properties,
+                            columnAdapters,
+                            "item",
+                            sharedMembersElsewhere,
+                            !errorsReported);
+            subclass.addMethod(createArrayMethod(context, properties, columnAdapters, writes));
+        }
+
+        if (hasBindMethod(context)) {
+            List<String> columns = new ArrayList<>();
+            CodeBlock binds;
+            if (MethodSize.BIND.exceedsThreshold(properties)) {
+                List<MethodSpec> bindHelpers = createBindHelperMethods(
+                        context, properties, columnAdapters, columns, sharedMembersElsewhere);
+                subclass.addMethods(bindHelpers);
+                binds = callHelperMethods(bindHelpers, "statement", "value");
+            } else {
+                binds = createBinds(
+                        context, properties, columnAdapters, columns, sharedMembersElsewhere);
+            }
+            subclass.addMethod(createBindMethod(context, properties, columnAdapters, binds));
+            String table =
+                    (String) getAnnotationValue(context.autoValueClass(), TableName.class, "value");
+            if (table != null) {
+                subclass.addField(createInsertSqlField(table, columns));
+            }
+        }
+
+        // only one class of the hierarchy declares the shared adapters and enum lookups, the
+        // latter are only used by the ByteBuffer extension
+        if (!sharedMembersElsewhere) {
+            addSharedColumnAdapters(subclass, properties, columnAdapters);
+            if (new AutoValueByteBufferExtension().applicable(context)) {
+                addEnumLookups(subclass, properties, getEnumLookups(properties));
+            }
+        }
 
         return JavaFile.builder(context.packageName(), subclass.build()).build().toString();
     }
 
     private MethodSpec createToContentValuesMethod(
-            Context context,
             ExecutableElement methodToImplement,
-            ImmutableList<ColumnProperty> properties) {
-        String methodName = methodToImplement.getSimpleName().toString();
-
+            ImmutableList<ColumnProperty> properties,
+            ImmutableMap<Property, FieldSpec> columnAdapters,
+            CodeBlock writes) {
         MethodSpec.Builder writeMethod =
-                MethodSpec.methodBuilder(methodName)
+                MethodSpec.methodBuilder(methodToImplement.getSimpleName().toString())
                         .addAnnotation(Override.class)
                         .addModifiers(PUBLIC)
                         .returns(CONTENT_VALUES)
                         .addStatement(
-                                "$1T values = new $1T($2L)", CONTENT_VALUES, properties.size());
+                                "$1T values = new $1T($2L)",
+                                CONTENT_VALUES,
+                                getColumnCount(properties));
+        addColumnAdaptersToMethod(writeMethod, properties, columnAdapters);
+        return writeMethod.addCode(writes).addStatement("return values").build();
+    }
 
-        ImmutableMap<Property, FieldSpec> columnAdapters = getColumnAdapters(properties);
+    private static int getColumnCount(List<ColumnProperty> properties) {
+        int columnCount = 0;
+        for (ColumnProperty property : properties) {
+            columnCount += property.columnCount();
+        }
+        return columnCount;
+    }
+
+    /**
+     * Implements an abstract method that takes {@code ContentValues} and returns nothing by
+     * clearing the given instance and putting all columns into it.
+     */
+    private MethodSpec createWriteIntoMethod(
+            ExecutableElement methodToImplement,
+            ImmutableList<ColumnProperty> properties,
+            ImmutableMap<Property, FieldSpec> columnAdapters,
+            CodeBlock writes) {
+        MethodSpec.Builder writeMethod =
+                MethodSpec.methodBuilder(methodToImplement.getSimpleName().toString())
+                        .addAnnotation(Override.class)
+                        .addModifiers(PUBLIC)
+                        .addParameter(CONTENT_VALUES, "values")
+                        .addStatement("values.clear()");
         addColumnAdaptersToMethod(writeMethod, properties, columnAdapters);
+        return writeMethod.addCode(writes).build();
+    }
 
+    /**
+     * Implements an abstract method that takes another instance and returns {@code ContentValues}
+     * with only the columns whose values differ from it.
+     */
+    private MethodSpec createDiffMethod(
+            Context context,
+            ExecutableElement methodToImplement,
+            ImmutableList<ColumnProperty> properties,
+            ImmutableMap<Property, FieldSpec> columnAdapters,
+            CodeBlock writes) {
+        MethodSpec.Builder diffMethod =
+                MethodSpec.methodBuilder(methodToImplement.getSimpleName().toString())
+                        .addAnnotation(Override.class)
+                        .addModifiers(PUBLIC)
+                        .returns(CONTENT_VALUES)
+                        .addParameter(getAutoValueClassClassName(context), "previous")
+                        .addStatement("$1T values = new $1T()", CONTENT_VALUES);
+        addColumnAdaptersToMethod(diffMethod, properties, columnAdapters);
+        return diffMethod.addCode(writes).addStatement("return values").build();
+    }
+
+    /**
+     * Returns the statements putting every property that isn't equal to the one of
+     * {@code previous} into a {@code ContentValues} called {@code values}. The properties are
+     * read from {@code receiver} or from this object if it's {@code null}.
+     */
+    private CodeBlock createDiffWrites(
+            Context context,
+            ImmutableList<ColumnProperty> properties,
+            ImmutableMap<Property, FieldSpec> columnAdapters,
+            String receiver,
+            boolean sharedMembersElsewhere,
+            boolean reportErrors) {
+        NameAllocator nameAllocator = newLocalNameAllocator(DIFF_NAMES, columnAdapters);
+
+        CodeBlock.Builder writes = CodeBlock.builder();
         for (ColumnProperty property : properties) {
-            TypeMirror factory = property.columnAdapter();
-            if (factory != null) {
+            CodeBlock value = receiver == null
+                    ? CodeBlock.of("$N()", property.methodName())
+                    : CodeBlock.of("$N.$N()", receiver, property.methodName());
+            addDiffWrite(
+                    context,
+                    writes,
+                    property,
+                    value,
+                    CodeBlock.of("previous.$N()", property.methodName()),
+                    columnAdapters,
+                    sharedMembersElsewhere,
+                    nameAllocator,
+                    reportErrors);
+        }
+        return writes.build();
+    }
+
+    /**
+     * Creates static methods that each put the properties of a chunk of {@code value} that differ
+     * from {@code previous} into {@code values}, like {@link #createWriteHelperMethods}.
+     */
+    private List<MethodSpec> createDiffHelperMethods(
+            Context context,
+            ImmutableList<ColumnProperty> properties,
+            ImmutableMap<Property, FieldSpec> columnAdapters,
+            boolean sharedMembersElsewhere,
+            boolean reportErrors) {
+        TypeName valueClass = getAutoValueClassClassName(context);
+        List<List<ColumnProperty>> chunks = MethodSize.DIFF.chunk(properties);
+        List<MethodSpec> methods = new ArrayList<>(chunks.size());
+        for (int i = 0; i < chunks.size(); i++) {
+            List<ColumnProperty> chunk = chunks.get(i);
+            MethodSpec.Builder method =
+                    MethodSpec.methodBuilder(DIFF_COLUMNS_METHOD_NAME + i)
+                            .addModifiers(PRIVATE, STATIC)
+                            .addParameter(CONTENT_VALUES, "values")
+                            .addParameter(valueClass, "value")
+                            .addParameter(valueClass, "previous");
+            for (FieldSpec adapter : getLocalColumnAdapters(chunk, columnAdapters)) {
+                method.addParameter(adapter.type, adapter.name);
+            }
+            methods.add(
+                    method.addCode(
+                                    createDiffWrites(
+                                            context,
+                                            ImmutableList.copyOf(chunk),
+                                            columnAdapters,
+                                            "value",
+                                            sharedMembersElsewhere,
+                                            reportErrors))
+                            .build());
+        }
+        return methods;
+    }
+
+    private void addDiffWrite(
+            Context context,
+            CodeBlock.Builder writes,
+            ColumnProperty property,
+            CodeBlock value,
+            CodeBlock previousValue,
+            ImmutableMap<Property, FieldSpec> columnAdapters,
+            boolean sharedMembersElsewhere,
+            NameAllocator nameAllocator,
+            boolean reportErrors) {
+        if (property.groupedBy() != null) {
+            // the grouped rows are stored in their own table
+        } else if (property.validColumnAdapter() && property.embedded()) {
+            // compare every column of the embedded object on its own
+            for (ColumnProperty embeddedProperty : property.embeddedProperties()) {
+                addDiffWrite(
+                        context,
+                        writes,
+                        embeddedProperty,
+                        CodeBlock.of("$L.$N()", value, embeddedProperty.methodName()),
+                        CodeBlock.of("$L.$N()", previousValue, embeddedProperty.methodName()),
+                        columnAdapters,
+                        sharedMembersElsewhere,
+                        nameAllocator,
+                        reportErrors);
+            }
+        } else {
+            CodeBlock isEqual = AutoValueCursorExtension.isEqual(property, value, previousValue);
+            // primitives are compared with ==, which needs parentheses to be negated
+            String condition = property.type().isPrimitive() ? "if (!($L))" : "if (!$L)";
+            writes.beginControlFlow(condition, isEqual);
+            addWrite(
+                    context,
+                    writes,
+                    property,
+                    value,
+                    columnAdapters,
+                    sharedMembersElsewhere,
+                    nameAllocator,
+                    reportErrors);
+            writes.endControlFlow();
+        }
+    }
+
+    /**
+     * Creates a method that converts every item of a collection to {@code ContentValues}, with
+     * the adapters created once for all of them.
+     */
+    private MethodSpec createArrayMethod(
+            Context context,
+            ImmutableList<ColumnProperty> properties,
+            ImmutableMap<Property, FieldSpec> columnAdapters,
+            CodeBlock writes) {
+        MethodSpec.Builder arrayMethod =
+                MethodSpec.methodBuilder(ARRAY_METHOD_NAME)
+                        .addModifiers(STATIC)
+                        .returns(ArrayTypeName.of(CONTENT_VALUES))
+                        .addParameter(getCollectionTypeName(context), "items")
+                        .addStatement(
+                                "$T[] array = new $T[items.size()]",
+                                CONTENT_VALUES,
+                                CONTENT_VALUES);
+        addColumnAdaptersToMethod(arrayMethod, properties, columnAdapters);
+        return arrayMethod
+                .addStatement("int i = 0")
+                .beginControlFlow("for ($T item : items)", getAutoValueClassClassName(context))
+                .addStatement(
+                        "$1T values = new $1T($2L)", CONTENT_VALUES, getColumnCount(properties))
+                .addCode(writes)
+                .addStatement("array[i++] = values")
+                .endControlFlow()
+                .addStatement("return array")
+                .build();
+    }
+
+    /**
+     * Returns the statements putting every property into a {@code ContentValues} called
+     * {@code values}. The properties are read from {@code receiver} or from this object if it's
+     * {@code null}. Errors are only reported when {@code reportErrors} is true, so that calling
+     * this for several methods doesn't report them more than once.
+     */
+    private CodeBlock createWrites(
+            Context context,
+            ImmutableList<ColumnProperty> properties,
+            ImmutableMap<Property, FieldSpec> columnAdapters,
+            String receiver,
+            boolean sharedMembersElsewhere,
+            boolean reportErrors) {
+        NameAllocator nameAllocator = newLocalNameAllocator(WRITE_NAMES, columnAdapters);
+
+        CodeBlock.Builder writes = CodeBlock.builder();
+        for (ColumnProperty property : properties) {
+            CodeBlock value = receiver == null
+                    ? CodeBlock.of("$N()", property.methodName())
+                    : CodeBlock.of("$N.$N()", receiver, property.methodName());
+            addWrite(
+                    context,
+                    writes,
+                    property,
+                    value,
+                    columnAdapters,
+                    sharedMembersElsewhere,
+                    nameAllocator,
+                    reportErrors);
+        }
+        return writes.build();
+    }
+
+    /**
+     * Returns a {@code NameAllocator} for the locals holding nullable properties that already
+     * contains {@code names} and the column adapters, so a property can't shadow them.
+     */
+    private static NameAllocator newLocalNameAllocator(
+            List<String> names, ImmutableMap<Property, FieldSpec> columnAdapters) {
+        NameAllocator nameAllocator = new NameAllocator();
+        for (String name : names) {
+            nameAllocator.newName(name, name);
+        }
+        for (FieldSpec adapter : new HashSet<>(columnAdapters.values())) {
+            nameAllocator.newName(adapter.name, adapter);
+        }
+        return nameAllocator;
+    }
+
+    /**
+     * Creates static methods that each put a chunk of the properties of {@code value} into
+     * {@code values}. The column adapters they need are passed to them, so that callers can create
+     * them once.
+     */
+    private List<MethodSpec> createWriteHelperMethods(
+            Context context,
+            ImmutableList<ColumnProperty> properties,
+            ImmutableMap<Property, FieldSpec> columnAdapters,
+            boolean sharedMembersElsewhere) {
+        List<List<ColumnProperty>> chunks = MethodSize.WRITE.chunk(properties);
+        List<MethodSpec> methods = new ArrayList<>(chunks.size());
+        for (int i = 0; i < chunks.size(); i++) {
+            List<ColumnProperty> chunk = chunks.get(i);
+            MethodSpec.Builder method =
+                    MethodSpec.methodBuilder(WRITE_COLUMNS_METHOD_NAME + i)
+                            .addModifiers(PRIVATE, STATIC)
+                            .addParameter(CONTENT_VALUES, "values")
+                            .addParameter(getAutoValueClassClassName(context), "value");
+            for (FieldSpec adapter : getLocalColumnAdapters(chunk, columnAdapters)) {
+                method.addParameter(adapter.type, adapter.name);
+            }
+            methods.add(
+                    method.addCode(
+                                    createWrites(
+                                            context,
+                                            ImmutableList.copyOf(chunk),
+                                            columnAdapters,
+                                            "value",
+                                            sharedMembersElsewhere,
+                                            true))
+                            .build());
+        }
+        return methods;
+    }
+
+    /**
+     * Returns the statements calling every method from {@link #createWriteHelperMethods} or
+     * {@link #createDiffHelperMethods} with {@code values} followed by the adapters declared by
+     * the caller.
+     */
+    private static CodeBlock callHelperMethods(List<MethodSpec> helpers, String... values) {
+        CodeBlock.Builder calls = CodeBlock.builder();
+        for (MethodSpec helper : helpers) {
+            List<String> arguments = new ArrayList<>(Arrays.asList(values));
+            for (ParameterSpec adapter :
+                    helper.parameters.subList(values.length, helper.parameters.size())) {
+                arguments.add(adapter.name);
+            }
+            calls.addStatement("$N($L)", helper, Joiner.on(", ").join(arguments));
+        }
+        return calls.build();
+    }
+
+    /**
+     * Creates a method that binds every property of {@code value} to {@code statement} with
+     * {@code binds}.
+     */
+    private MethodSpec createBindMethod(
+            Context context,
+            ImmutableList<ColumnProperty> properties,
+            ImmutableMap<Property, FieldSpec> columnAdapters,
+            CodeBlock binds) {
+        MethodSpec.Builder bindMethod =
+                MethodSpec.methodBuilder(BIND_METHOD_NAME)
+                        .addModifiers(STATIC)
+                        .addParameter(SQLITE_STATEMENT, "statement")
+                        .addParameter(getAutoValueClassClassName(context), "value");
+        addColumnAdaptersToMethod(bindMethod, properties, columnAdapters);
+        return bindMethod.addCode(binds).build();
+    }
+
+    /**
+     * Creates static methods that each bind a chunk of the properties of {@code value} to
+     * {@code statement}, like {@link #createWriteHelperMethods}.
+     */
+    private List<MethodSpec> createBindHelperMethods(
+            Context context,
+            ImmutableList<ColumnProperty> properties,
+            ImmutableMap<Property, FieldSpec> columnAdapters,
+            List<String> columns,
+            boolean sharedMembersElsewhere) {
+        List<List<ColumnProperty>> chunks = MethodSize.BIND.chunk(properties);
+        List<MethodSpec> methods = new ArrayList<>(chunks.size());
+        for (int i = 0; i < chunks.size(); i++) {
+            List<ColumnProperty> chunk = chunks.get(i);
+            MethodSpec.Builder method =
+                    MethodSpec.methodBuilder(BIND_COLUMNS_METHOD_NAME + i)
+                            .addModifiers(PRIVATE, STATIC)
+                            .addParameter(SQLITE_STATEMENT, "statement")
+                            .addParameter(getAutoValueClassClassName(context), "value");
+            for (FieldSpec adapter : getLocalColumnAdapters(chunk, columnAdapters)) {
+                method.addParameter(adapter.type, adapter.name);
+            }
+            methods.add(
+                    method.addCode(
+                                    createBinds(
+                                            context,
+                                            ImmutableList.copyOf(chunk),
+                                            columnAdapters,
+                                            columns,
+                                            sharedMembersElsewhere))
+                            .build());
+        }
+        return methods;
+    }
+
+    /**
+     * Returns the statements binding every property of {@code value} to {@code statement} by its
+     * position. The bound column names are added to {@code columns}, their positions continue
+     * after the ones already in it.
+     */
+    private CodeBlock createBinds(
+            Context context,
+            ImmutableList<ColumnProperty> properties,
+            ImmutableMap<Property, FieldSpec> columnAdapters,
+            List<String> columns,
+            boolean sharedMembersElsewhere) {
+        NameAllocator nameAllocator = newLocalNameAllocator(BIND_NAMES, columnAdapters);
+
+        CodeBlock.Builder binds = CodeBlock.builder();
+        for (ColumnProperty property : properties) {
+            CodeBlock value = CodeBlock.of("value.$N()", property.methodName());
+            addBind(
+                    context,
+                    binds,
+                    property,
+                    value,
+                    columnAdapters,
+                    sharedMembersElsewhere,
+                    nameAllocator,
+                    columns);
+        }
+        return binds.build();
+    }
+
+    private void addBind(
+            Context context,
+            CodeBlock.Builder binds,
+            ColumnProperty property,
+            CodeBlock value,
+            ImmutableMap<Property, FieldSpec> columnAdapters,
+            boolean sharedMembersElsewhere,
+            NameAllocator nameAllocator,
+            List<String> columns) {
+        if (property.groupedBy() != null) {
+            // the grouped rows are stored in their own table
+            return;
+        }
+        if (property.embedded()) {
+            for (ColumnProperty embeddedProperty : property.embeddedProperties()) {
+                CodeBlock embeddedValue =
+                        CodeBlock.of("$L.$N()", value, embeddedProperty.methodName());
+                addBind(
+                        context,
+                        binds,
+                        embeddedProperty,
+                        embeddedValue,
+                        columnAdapters,
+                        sharedMembersElsewhere,
+                        nameAllocator,
+                        columns);
+            }
+            return;
+        }
+
+        String local = property.nullable() ? nameAllocator.newName(property.humanName()) : null;
+        CodeBlock source = local != null ? CodeBlock.of("$N", local) : value;
+        ColumnType columnType = property.columnType();
+        CodeBlock bindValue;
+        if (!property.validColumnAdapter()) {
+            error(context, property, "Column adapter doesn't implement a supported interface.");
+            return;
+        } else if (property.columnTypeAdapter()) {
+            error(context, property, "Properties with a ColumnTypeAdapter can't be bound to "
+                    + "SQLiteStatement.");
+            return;
+        } else if (property.primitiveColumnAdapter()) {
+            CodeBlock adapter =
+                    getColumnAdapter(context, columnAdapters.get(property), sharedMembersElsewhere);
+            bindValue = CodeBlock.of("$L.$L($L)", adapter, property.toPrimitiveMethod(), source);
+        } else if (property.enumType()) {
+            bindValue = CodeBlock.of(
+                    "$L.$L()", source, property.enumOrdinal() ? "ordinal" : "name");
+        } else if (columnType != null && columnType.bindMethod() != null) {
+            bindValue = columnType.bindValue(source);
+        } else {
+            error(context, property, "Property has type that can't be bound to SQLiteStatement.");
+            return;
+        }
+
+        columns.add(property.columnName());
+        int index = columns.size();
+        if (property.nullable()) {
+            binds.addStatement("$T $N = $L", property.type(), local, value)
+                    .beginControlFlow("if ($N == null)", local)
+                    .addStatement("statement.bindNull($L)", index)
+                    .nextControlFlow("else")
+                    .addStatement("statement.$L($L, $L)", columnType.bindMethod(), index, bindValue)
+                    .endControlFlow();
+        } else {
+            binds.addStatement("statement.$L($L, $L)", columnType.bindMethod(), index, bindValue);
+        }
+    }
+
+    private FieldSpec createInsertSqlField(String table, List<String> columns) {
+        String placeholders = Joiner.on(", ").join(Collections.nCopies(columns.size(), "?"));
+        String sql = "INSERT INTO " + table + " (" + Joiner.on(", ").join(columns) + ") VALUES ("
+                + placeholders + ")";
+        return FieldSpec.builder(String.class, INSERT_SQL_FIELD_NAME, STATIC, FINAL)
+                .initializer("$S", sql)
+                .build();
+    }
+
+    private void addWrite(
+            Context context,
+            CodeBlock.Builder writeMethod,
+            ColumnProperty property,
+            CodeBlock value,
+            ImmutableMap<Property, FieldSpec> columnAdapters,
+            boolean sharedMembersElsewhere,
+            NameAllocator nameAllocator,
+            boolean reportErrors) {
+        if (!property.validColumnAdapter()) {
+            if (reportErrors) {
+                error(context, property, "Column adapter doesn't implement a supported interface.");
+            }
+        } else if (property.columnTypeAdapter()) {
+            writeMethod.addStatement(
+                    "$L.toContentValues(values, $S, $L)",
+                    getColumnAdapter(context, columnAdapters.get(property), sharedMembersElsewhere),
+                    property.columnName(),
+                    value);
+        } else if (property.primitiveColumnAdapter()) {
+            CodeBlock adapter =
+                    getColumnAdapter(context, columnAdapters.get(property), sharedMembersElsewhere);
+            if (property.nullable()) {
+                String local = nameAllocator.newName(property.humanName());
+                writeMethod
+                        .addStatement("$T $N = $L", property.type(), local, value)
+                        .beginControlFlow("if ($N == null)", local)
+                        .addStatement("values.putNull($S)", property.columnName())
+                        .nextControlFlow("else")
+                        .addStatement(
+                                "values.put($S, $L.$L($N))",
+                                property.columnName(),
+                                adapter,
+                                property.toPrimitiveMethod(),
+                                local)
+                        .endControlFlow();
+            } else {
                 writeMethod.addStatement(
-                        "$N.toContentValues(values, $S, $L())",
-                        columnAdapters.get(property),
+                        "values.put($S, $L.$L($L))",
                         property.columnName(),
-                        property.methodName());
-            } else if (property.supportedType()) {
+                        adapter,
+                        property.toPrimitiveMethod(),
+                        value);
+            }
+        } else if (property.groupedBy() != null) {
+            // the grouped rows are stored in their own table
+        } else if (property.embedded()) {
+            for (ColumnProperty embeddedProperty : property.embeddedProperties()) {
+                CodeBlock embeddedValue =
+                        CodeBlock.of("$L.$N()", value, embeddedProperty.methodName());
+                addWrite(
+                        context,
+                        writeMethod,
+                        embeddedProperty,
+                        embeddedValue,
+                        columnAdapters,
+                        sharedMembersElsewhere,
+                        nameAllocator,
+                        reportErrors);
+            }
+        } else if (property.enumType()) {
+            String toColumn = property.enumOrdinal() ? "ordinal" : "name";
+            if (property.nullable()) {
                 writeMethod.addStatement(
-                        "values.put($S, $L())", property.columnName(), property.methodName());
+                        "values.put($S, $L == null ? null : $L.$L())",
+                        property.columnName(),
+                        value,
+                        value,
+                        toColumn);
             } else {
-                error(context, property, "Property has type that can't be put into ContentValues.");
+                writeMethod.addStatement(
+                        "values.put($S, $L.$L())", property.columnName(), value, toColumn);
             }
+        } else if (property.supportedType()) {
+            writeMethod.addStatement("values.put($S, $L)", property.columnName(), value);
+        } else if (reportErrors) {
+            error(context, property, "Property has type that can't be put into ContentValues.");
         }
-        return writeMethod.addStatement("return values").build();
     }
 }
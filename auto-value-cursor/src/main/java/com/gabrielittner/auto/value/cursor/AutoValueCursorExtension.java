@@ -1,12 +1,19 @@
 package com.gabrielittner.auto.value.cursor;
 
 import com.gabrielittner.auto.value.ColumnProperty;
+import com.gabrielittner.auto.value.MethodSize;
+import com.gabrielittner.auto.value.bytebuffer.AutoValueByteBufferExtension;
+import com.gabrielittner.auto.value.contentvalues.AutoValueContentValuesExtension;
 import com.gabrielittner.auto.value.util.ElementUtil;
 import com.gabrielittner.auto.value.util.Property;
 import com.google.auto.service.AutoService;
 import com.google.auto.value.extension.AutoValueExtension;
+import com.google.common.base.Joiner;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.squareup.javapoet.AnnotationSpec;
+import com.squareup.javapoet.ArrayTypeName;
 import com.squareup.javapoet.ClassName;
 import com.squareup.javapoet.CodeBlock;
 import com.squareup.javapoet.FieldSpec;
@@ -16,11 +23,27 @@ import com.squareup.javapoet.NameAllocator;
 import com.squareup.javapoet.ParameterizedTypeName;
 import com.squareup.javapoet.TypeName;
 import com.squareup.javapoet.TypeSpec;
+import com.squareup.javapoet.TypeVariableName;
+import java.io.Closeable;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
 import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
 
 import static com.gabrielittner.auto.value.util.AutoValueUtil.error;
 import static com.gabrielittner.auto.value.util.AutoValueUtil.getAutoValueClassClassName;
@@ -28,9 +51,16 @@ import static com.gabrielittner.auto.value.util.AutoValueUtil.getFinalClassClass
 import static com.gabrielittner.auto.value.util.AutoValueUtil.newFinalClassConstructorCall;
 import static com.gabrielittner.auto.value.util.AutoValueUtil.newTypeSpecBuilder;
 import static com.gabrielittner.auto.value.util.ElementUtil.getMatchingStaticMethod;
+import static com.google.auto.common.MoreElements.isAnnotationPresent;
+import static com.google.common.base.CaseFormat.LOWER_CAMEL;
+import static com.google.common.base.CaseFormat.UPPER_CAMEL;
+import static com.google.common.base.CaseFormat.UPPER_UNDERSCORE;
+import static javax.lang.model.element.Modifier.ABSTRACT;
 import static javax.lang.model.element.Modifier.FINAL;
+import static javax.lang.model.element.Modifier.PRIVATE;
 import static javax.lang.model.element.Modifier.PUBLIC;
 import static javax.lang.model.element.Modifier.STATIC;
+import static javax.lang.model.element.Modifier.VOLATILE;
 
 @AutoService(AutoValueExtension.class)
 public class AutoValueCursorExtension extends AutoValueExtension {
@@ -38,17 +68,54 @@ public class AutoValueCursorExtension extends AutoValueExtension {
     private static final ClassName CURSOR = ClassName.get("android.database", "Cursor");
     private static final ClassName FUNC1 = ClassName.get("rx.functions", "Func1");
     private static final ClassName FUNCTION = ClassName.get("io.reactivex.functions", "Function");
+    private static final ClassName LIST = ClassName.get(List.class);
+    private static final ClassName ITERATOR = ClassName.get(Iterator.class);
+    private static final Set<TypeName> INTEGER_KEY_TYPES =
+            ImmutableSet.of(TypeName.LONG, TypeName.INT, TypeName.SHORT);
 
     private static final String METHOD_NAME = "createFromCursor";
+    private static final String BIND_METHOD_NAME = "bind";
+    private static final String READER_CLASS_NAME = "CursorReader";
+    private static final String READER_METHOD_NAME = "read";
+    private static final String READER_REUSE_METHOD_NAME = "readOrReuse";
+    private static final String READER_GROUP_METHOD_NAME = "readGroup";
+    private static final String READ_COLUMNS_METHOD_NAME = "readColumns";
+    private static final String FIND_COLUMNS_METHOD_NAME = "findColumns";
+    private static final String LIST_METHOD_NAME = "createListFromCursor";
+    private static final String REREAD_LIST_METHOD_NAME = "rereadList";
+    private static final String ITERATOR_METHOD_NAME = "iterateFromCursor";
+    private static final String ITERATOR_CLASS_NAME = "CursorIterator";
+    private static final String VISITOR_CLASS_NAME = "RowVisitor";
+    private static final String VISITOR_METHOD_NAME = "visit";
+    private static final String FOR_EACH_ROW_METHOD_NAME = "forEachRow";
+    private static final String VISITED_ROW_CLASS_NAME = "VisitedRow";
+    private static final String BATCH_CLASS_NAME = "ColumnBatch";
+    private static final String BATCH_METHOD_NAME = "readBatch";
+    private static final String PROJECTION_FIELD_NAME = "PROJECTION";
+    private static final String PROJECTION_OPT_IN_METHOD_NAME = "projection";
+    private static final String PROJECTION_METHOD_NAME = "createFromProjection";
+    private static final String CHECK_PROJECTION_METHOD_NAME = "checkProjection";
+    private static final String IDENTITY_MAP_FIELD_NAME = "IDENTITY_MAP";
+    private static final String CREATE_OR_REUSE_METHOD_NAME = "createOrReuse";
+    private static final String UNCHANGED_METHOD_NAME = "isUnchanged";
     private static final String FUNC1_FIELD_NAME = "MAPPER";
     private static final String FUNC1_METHOD_NAME = "call";
     private static final String FUNCTION_FIELD_NAME = "MAPPER_FUNCTION";
     private static final String FUNCTION_METHOD_NAME = "apply";
+    private static final String ENUM_FROM_ORDINAL_SUFFIX = "FromOrdinal";
 
     @Override
     public boolean applicable(Context context) {
         TypeElement valueClass = context.autoValueClass();
         return getMatchingStaticMethod(valueClass, ClassName.get(valueClass), CURSOR).isPresent()
+                || getMatchingStaticMethod(valueClass, getListTypeName(context), CURSOR).isPresent()
+                || hasRereadListMethod(context)
+                || getMatchingStaticMethod(valueClass, getIteratorTypeName(context), CURSOR)
+                        .isPresent()
+                || hasStaticMethodTakingGeneratedType(context, VISITOR_CLASS_NAME)
+                || hasStaticMethodReturningGeneratedType(context, BATCH_CLASS_NAME)
+                || hasProjectionMethod(context)
+                || !getPartialProjections(valueClass).isEmpty()
                 || getMatchingStaticMethod(valueClass, getFunc1TypeName(context)).isPresent()
                 || getMatchingStaticMethod(valueClass, getFunctionTypeName(context)).isPresent();
     }
@@ -57,85 +124,641 @@ public class AutoValueCursorExtension extends AutoValueExtension {
     public String generateClass(
             Context context, String className, String classToExtend, boolean isFinal) {
         ImmutableList<ColumnProperty> properties = ColumnProperty.from(context);
+        // this extension declares the shared members whenever it's applied, see
+        // declaresSharedMembers, and reports the errors common to all extensions with them
+        ColumnProperty.checkEmbedded(context, properties);
+        // wide models are read and compared in helper methods to stay below HotSpot's limit
+        boolean splitReads = MethodSize.READ.exceedsThreshold(properties);
+        boolean splitComparisons =
+                MethodSize.READ.of(properties) + MethodSize.COMPARISON.of(properties)
+                        > MethodSize.SPLIT_THRESHOLD;
+
+        ColumnProperty primaryKey = getPrimaryKey(context, properties);
+        // with a primary key embedded objects are only created once the cached object differs
+        ImmutableMap<ColumnProperty, String> readValues =
+                getComparedValues(properties, primaryKey != null);
+        ImmutableList<ColumnProperty> readProperties = readValues.keySet().asList();
+
+        TypeElement valueClass = context.autoValueClass();
+        boolean list =
+                getMatchingStaticMethod(valueClass, getListTypeName(context), CURSOR).isPresent();
+        boolean projection = hasProjectionMethod(context);
+        ColumnProperty grouped = getGroupedProperty(context, properties);
+        boolean reread = hasRereadListMethod(context);
+        if (reread && grouped != null) {
+            // reusing a grouped object would mean comparing every row of its group with it
+            error(context, grouped, "rereadList can't be used with a @GroupedBy property.");
+            reread = false;
+        }
+        ImmutableList<List<ColumnProperty>> readChunks =
+                splitReads ? getReadChunks(readProperties, grouped) : null;
+        ClassName readerClass = ClassName.get(context.packageName(), className, READER_CLASS_NAME);
+        ImmutableMap<Property, FieldSpec> columnAdapters = getColumnAdapters(properties);
+        ImmutableMap<Property, String> enumLookups = getEnumLookups(properties);
 
         TypeSpec.Builder subclass =
                 newTypeSpecBuilder(context, className, classToExtend, isFinal)
-                        .addMethod(createReadMethod(context, properties));
+                        .addMethod(
+                                createReadMethod(
+                                        context,
+                                        readProperties,
+                                        readerClass,
+                                        splitReads,
+                                        columnAdapters,
+                                        enumLookups));
+        addSharedColumnAdapters(subclass, properties, columnAdapters);
+        addEnumLookups(subclass, properties, enumLookups);
+
+        if (primaryKey != null) {
+            subclass.addField(createIdentityMapField(context, primaryKey))
+                    .addMethod(
+                            createCreateOrReuseMethod(
+                                    context, properties, primaryKey, splitComparisons));
+        }
+
+        if (splitComparisons && (primaryKey != null || reread)) {
+            subclass.addMethods(createUnchangedMethods(context, readValues));
+        }
+        subclass.addMethod(createBindMethod(readerClass))
+                .addType(
+                        createReaderClass(
+                                context,
+                                readerClass,
+                                readValues,
+                                reread,
+                                primaryKey,
+                                grouped,
+                                readChunks,
+                                projection && splitReads,
+                                splitComparisons,
+                                columnAdapters,
+                                enumLookups));
+
+        if (list) {
+            subclass.addMethod(createListMethod(context, readerClass, grouped != null));
+        }
+
+        if (reread) {
+            subclass.addMethod(createRereadListMethod(context, readerClass, primaryKey));
+        }
+
+        if (getMatchingStaticMethod(valueClass, getIteratorTypeName(context), CURSOR).isPresent()) {
+            ClassName iteratorClass =
+                    ClassName.get(context.packageName(), className, ITERATOR_CLASS_NAME);
+            subclass.addMethod(createIteratorMethod(iteratorClass))
+                    .addType(createIteratorClass(context, iteratorClass, readerClass));
+        }
+
+        if (hasStaticMethodTakingGeneratedType(context, VISITOR_CLASS_NAME)) {
+            ClassName visitorClass =
+                    ClassName.get(context.packageName(), className, VISITOR_CLASS_NAME);
+            subclass.addType(createVisitorInterface(visitorClass, properties));
+            if (splitReads) {
+                ClassName visitedRowClass =
+                        ClassName.get(context.packageName(), className, VISITED_ROW_CLASS_NAME);
+                subclass.addMethod(
+                                createSplitForEachRowMethod(
+                                        visitorClass, visitedRowClass, properties))
+                        .addType(
+                                createVisitedRowClass(visitedRowClass, properties, enumLookups));
+            } else {
+                subclass.addMethod(createForEachRowMethod(visitorClass, properties, enumLookups));
+            }
+        }
+
+        if (hasStaticMethodReturningGeneratedType(context, BATCH_CLASS_NAME)) {
+            ClassName batchClass = ClassName.get(context.packageName(), className, BATCH_CLASS_NAME);
+            subclass.addMethod(
+                            createReadBatchMethod(
+                                    batchClass,
+                                    readerClass,
+                                    readProperties,
+                                    readChunks,
+                                    columnAdapters,
+                                    enumLookups))
+                    .addType(createBatchClass(context, batchClass, readProperties));
+        }
+
+        if (projection) {
+            checkProjectedColumns(context, properties);
+            subclass.addField(createProjectionField(PROJECTION_FIELD_NAME, properties))
+                    .addMethod(
+                            createProjectionReadMethod(
+                                    context,
+                                    readProperties,
+                                    readerClass,
+                                    splitReads,
+                                    columnAdapters,
+                                    enumLookups))
+                    .addMethod(createCheckProjectionMethod());
+        }
+
+        addPartialProjections(
+                context, subclass, className, properties, columnAdapters, enumLookups);
 
         if (ElementUtil.typeExists(context.processingEnvironment().getElementUtils(), FUNC1)) {
-            subclass.addField(createRxJava1Mapper(context));
+            subclass.addField(createRxJava1Mapper(context, readerClass));
         }
 
         if (ElementUtil.typeExists(context.processingEnvironment().getElementUtils(), FUNCTION)) {
-            subclass.addField(createRxJava2Mapper(context));
+            subclass.addField(createRxJava2Mapper(context, readerClass));
         }
 
         return JavaFile.builder(context.packageName(), subclass.build()).build().toString();
     }
 
-    private MethodSpec createReadMethod(Context context, ImmutableList<ColumnProperty> properties) {
+    /**
+     * Creates {@code createFromCursor}. When {@code split} is true the row is read by the reader,
+     * whose {@code readColumns} methods keep the reads of wide models below HotSpot's limit.
+     */
+    private MethodSpec createReadMethod(
+            Context context,
+            ImmutableList<ColumnProperty> properties,
+            ClassName readerClass,
+            boolean split,
+            ImmutableMap<Property, FieldSpec> columnAdapters,
+            ImmutableMap<Property, String> enumLookups) {
         MethodSpec.Builder readMethod =
                 MethodSpec.methodBuilder(METHOD_NAME)
                         .addModifiers(STATIC)
                         .returns(getFinalClassClassName(context))
                         .addParameter(CURSOR, "cursor");
 
-        ImmutableMap<Property, FieldSpec> columnAdapters = getColumnAdapters(properties);
+        if (split) {
+            // the reader relies on the errors being reported here
+            for (ColumnProperty property : getAllProperties(properties)) {
+                isReadable(context, property);
+            }
+            return readMethod
+                    .addStatement("return new $T(cursor).$L()", readerClass, READER_METHOD_NAME)
+                    .build();
+        }
+
         addColumnAdaptersToMethod(readMethod, properties, columnAdapters);
 
         String[] names = new String[properties.size()];
         for (int i = 0; i < properties.size(); i++) {
             ColumnProperty property = properties.get(i);
             names[i] = property.humanName();
+            addRead(context, readMethod, property, columnAdapters, enumLookups);
+        }
+        return readMethod
+                .addCode("return ")
+                .addCode(newInstance(context, properties, names))
+                .build();
+    }
 
-            if (property.columnAdapter() != null) {
-                readMethod.addStatement(
-                        "$T $N = $N.fromCursor(cursor, $S)",
-                        property.type(),
-                        property.humanName(),
-                        columnAdapters.get(property),
-                        property.columnName());
-            } else if (property.supportedType()) {
-                if (property.nullable()) {
-                    readMethod.addCode(readNullableProperty(property));
-                } else {
-                    readMethod.addCode(readProperty(property));
-                }
+    /**
+     * Reports an error and returns false if {@code property} can't be read from a cursor. The
+     * properties of an embedded property are checked on their own.
+     */
+    private boolean isReadable(Context context, ColumnProperty property) {
+        if (!property.validColumnAdapter()) {
+            error(context, property, "Column adapter doesn't implement a supported interface.");
+        } else if (property.columnTypeAdapter()
+                || property.embedded()
+                || property.cursorMethod() != null) {
+            return true;
+        } else if (property.columnPrefix() != null) {
+            error(context, property, "@ColumnPrefix can only be used for AutoValue classes.");
+        } else if (property.nullable()) {
+            return true;
+        } else {
+            error(context, property, "Property has type that can't be read from Cursor.");
+        }
+        return false;
+    }
+
+    private void addRead(
+            Context context,
+            MethodSpec.Builder readMethod,
+            ColumnProperty property,
+            ImmutableMap<Property, FieldSpec> columnAdapters,
+            ImmutableMap<Property, String> enumLookups) {
+        if (!isReadable(context, property)) {
+            return;
+        }
+        if (property.columnTypeAdapter()) {
+            readMethod.addStatement(
+                    "$T $N = $N.fromCursor(cursor, $S)",
+                    property.type(),
+                    property.humanName(),
+                    columnAdapters.get(property),
+                    property.columnName());
+        } else if (property.groupedBy() != null) {
+            // the column indices are needed to check whether the row holds an element
+            for (ColumnProperty embedded : getAllProperties(property.embeddedProperties())) {
+                isReadable(context, embedded);
+            }
+            CodeBlock.Builder read = CodeBlock.builder();
+            addEmbeddedRead(readMethod, read, property, columnAdapters, enumLookups);
+            readMethod.addCode(read.build());
+        } else if (property.embedded()) {
+            for (ColumnProperty embeddedProperty : property.embeddedProperties()) {
+                addRead(context, readMethod, embeddedProperty, columnAdapters, enumLookups);
+            }
+            readMethod.addStatement(
+                    "$T $N = $L", property.type(), property.humanName(), newEmbedded(property));
+        } else if (property.cursorMethod() != null) {
+            if (property.nullable()) {
+                readMethod.addCode(readNullableProperty(property, columnAdapters, enumLookups));
+            } else {
+                readMethod.addCode(readProperty(property, columnAdapters, enumLookups));
+            }
+        } else {
+            readMethod.addCode(
+                    "$T $N = null; // can't be read from cursor\n",
+                    property.type(),
+                    property.humanName());
+        }
+    }
+
+    /**
+     * Returns the code that creates the value of an embedded property from the local variables
+     * holding its properties.
+     */
+    private static CodeBlock newEmbedded(ColumnProperty property) {
+        List<String> names = new ArrayList<>();
+        for (ColumnProperty embeddedProperty : property.embeddedProperties()) {
+            names.add(embeddedProperty.humanName());
+        }
+        CodeBlock value =
+                CodeBlock.of("new $T($L)", property.embeddedClass(), Joiner.on(", ").join(names));
+        if (property.groupedBy() != null) {
+            // a single row only holds one element, createListFromCursor reads all of them
+            return CodeBlock.of("$T.singletonList($L)", Collections.class, value);
+        }
+        return value;
+    }
+
+    /**
+     * Returns {@code embeddedReads}, which declare the local variables of the properties of the
+     * embedded property, followed by the local variable holding its value. A grouped property is
+     * empty for the row of a LEFT JOIN without an element, its columns are only read when {@link
+     * #hasGroupedRow(ColumnProperty, List)} with {@code projected} is true.
+     */
+    private static CodeBlock readEmbedded(
+            ColumnProperty property, CodeBlock embeddedReads, List<ColumnProperty> projected) {
+        CodeBlock hasGroupedRow =
+                property.groupedBy() != null ? hasGroupedRow(property, projected) : null;
+        if (hasGroupedRow == null) {
+            return CodeBlock.builder()
+                    .add(embeddedReads)
+                    .addStatement(
+                            "$T $N = $L",
+                            property.type(),
+                            property.humanName(),
+                            newEmbedded(property))
+                    .build();
+        }
+        return CodeBlock.builder()
+                .addStatement("$T $N", property.type(), property.humanName())
+                .beginControlFlow("if ($L)", hasGroupedRow)
+                .add(embeddedReads)
+                .addStatement("$N = $L", property.humanName(), newEmbedded(property))
+                .nextControlFlow("else")
+                .addStatement("$N = $T.emptyList()", property.humanName(), Collections.class)
+                .endControlFlow()
+                .build();
+    }
+
+    /**
+     * Returns the property annotated with {@code @PrimaryKey} or {@code null} when there is none.
+     */
+    private ColumnProperty getPrimaryKey(Context context, List<ColumnProperty> properties) {
+        ColumnProperty primaryKey = null;
+        for (ColumnProperty property : properties) {
+            if (!property.primaryKey()) {
+                continue;
+            }
+            if (primaryKey != null) {
+                error(context, property, "Only one property can be annotated with @PrimaryKey.");
             } else if (property.nullable()) {
-                readMethod.addCode(
-                        "$T $N = null; // can't be read from cursor\n",
-                        property.type(),
-                        property.humanName());
+                error(context, property, "@PrimaryKey property can't be @Nullable.");
             } else {
-                error(context, property, "Property has type that can't be read from Cursor.");
+                primaryKey = property;
             }
         }
-        return readMethod
-                .addCode("return ")
-                .addCode(newFinalClassConstructorCall(context, names))
+        return primaryKey;
+    }
+
+    /**
+     * Creates the map caching the objects by their primary key. Integer keys are looked up in a
+     * {@link LongIdentityMap}, which doesn't box them.
+     */
+    private FieldSpec createIdentityMapField(Context context, ColumnProperty primaryKey) {
+        TypeName finalClass = getFinalClassClassName(context);
+        TypeName type;
+        ClassName mapClass;
+        if (INTEGER_KEY_TYPES.contains(primaryKey.type())) {
+            mapClass = ClassName.get(LongIdentityMap.class);
+            type = ParameterizedTypeName.get(mapClass, finalClass);
+        } else {
+            mapClass = ClassName.get(IdentityMap.class);
+            type = ParameterizedTypeName.get(mapClass, primaryKey.type().box(), finalClass);
+        }
+        return FieldSpec.builder(type, IDENTITY_MAP_FIELD_NAME, STATIC, FINAL)
+                .initializer("new $T<>($L)", mapClass, primaryKey.primaryKeyCacheSize())
+                .build();
+    }
+
+    /**
+     * Creates a method that returns the cached object for the primary key if all of its properties
+     * are equal to the given values and otherwise creates a new one and caches it. Embedded
+     * properties are passed as the values of their columns and only created for a new object.
+     */
+    private MethodSpec createCreateOrReuseMethod(
+            Context context,
+            List<ColumnProperty> properties,
+            ColumnProperty primaryKey,
+            boolean splitComparisons) {
+        TypeName finalClass = getFinalClassClassName(context);
+        MethodSpec.Builder method =
+                MethodSpec.methodBuilder(CREATE_OR_REUSE_METHOD_NAME)
+                        .addModifiers(STATIC)
+                        .returns(finalClass);
+        // the values and embedded objects keep their names, the locals must not clash with them
+        NameAllocator nameAllocator = new NameAllocator();
+        for (ColumnProperty property : getAllProperties(properties)) {
+            nameAllocator.newName(property.humanName(), property);
+        }
+        ImmutableMap<ColumnProperty, String> values = getComparedValues(properties, true);
+        String[] names = new String[values.size()];
+        int i = 0;
+        for (ColumnProperty property : values.keySet()) {
+            names[i++] = property.humanName();
+            method.addParameter(property.type(), property.humanName());
+        }
+        String cached = nameAllocator.newName("cached");
+        String value = nameAllocator.newName("value");
+        String key = primaryKey.humanName();
+
+        method.addStatement(
+                "$T $N = $N.get($N)", finalClass, cached, IDENTITY_MAP_FIELD_NAME, key);
+        method.beginControlFlow(
+                        "if ($L)",
+                        isUnchanged(values, names, cached, primaryKey, splitComparisons))
+                .addStatement("return $N", cached)
+                .endControlFlow();
+        String[] arguments = new String[properties.size()];
+        for (int j = 0; j < properties.size(); j++) {
+            ColumnProperty property = properties.get(j);
+            arguments[j] = property.humanName();
+            if (isComparedByColumns(property)) {
+                addNewEmbedded(method, property);
+            }
+        }
+        return method.addCode("$T $N = ", finalClass, value)
+                .addCode(newFinalClassConstructorCall(context, arguments))
+                .addStatement("$N.put($N, $N)", IDENTITY_MAP_FIELD_NAME, key, value)
+                .addStatement("return $N", value)
                 .build();
     }
 
-    private CodeBlock readProperty(ColumnProperty property) {
-        CodeBlock getValue = CodeBlock.of(property.cursorMethod(), getColumnIndexOrThrow(property));
+    /**
+     * Returns the values a row is compared with mapped to the getters returning them from an
+     * existing object. With {@code flatten} embedded properties are replaced by their columns, so
+     * that the embedded objects only have to be created when something changed.
+     */
+    private static ImmutableMap<ColumnProperty, String> getComparedValues(
+            List<ColumnProperty> properties, boolean flatten) {
+        ImmutableMap.Builder<ColumnProperty, String> values = ImmutableMap.builder();
+        addComparedValues(values, properties, "", flatten);
+        return values.build();
+    }
+
+    private static void addComparedValues(
+            ImmutableMap.Builder<ColumnProperty, String> values,
+            List<ColumnProperty> properties,
+            String prefix,
+            boolean flatten) {
+        for (ColumnProperty property : properties) {
+            String getter = prefix + property.methodName();
+            if (flatten && isComparedByColumns(property)) {
+                addComparedValues(values, property.embeddedProperties(), getter + "().", true);
+            } else {
+                values.put(property, getter);
+            }
+        }
+    }
+
+    /**
+     * Returns true for embedded properties holding a single object, grouped ones are compared as
+     * a whole.
+     */
+    private static boolean isComparedByColumns(ColumnProperty property) {
+        return property.embedded() && property.groupedBy() == null;
+    }
+
+    /**
+     * Returns {@code properties} and the properties of all embedded types.
+     */
+    private static List<ColumnProperty> getAllProperties(List<ColumnProperty> properties) {
+        List<ColumnProperty> all = new ArrayList<>(properties);
+        for (ColumnProperty property : properties) {
+            if (property.embedded()) {
+                all.addAll(getAllProperties(property.embeddedProperties()));
+            }
+        }
+        return all;
+    }
+
+    /**
+     * Adds a local variable holding the value of the embedded property, created from the local
+     * variables holding the values of its columns.
+     */
+    private static void addNewEmbedded(MethodSpec.Builder method, ColumnProperty property) {
+        for (ColumnProperty embeddedProperty : property.embeddedProperties()) {
+            if (isComparedByColumns(embeddedProperty)) {
+                addNewEmbedded(method, embeddedProperty);
+            }
+        }
+        method.addStatement(
+                "$T $N = $L", property.type(), property.humanName(), newEmbedded(property));
+    }
+
+    /**
+     * Returns a condition that is true when {@code target} isn't null and all of the {@code
+     * values} returned by its getters, except for {@code skip}, are equal to the local variables
+     * in {@code names}. When {@code split} is true the values are compared by the methods from
+     * {@link #createUnchangedMethods(Context, ImmutableMap)}, which don't skip any value.
+     */
+    private CodeBlock isUnchanged(
+            ImmutableMap<ColumnProperty, String> values,
+            String[] names,
+            String target,
+            ColumnProperty skip,
+            boolean split) {
+        CodeBlock.Builder condition = CodeBlock.builder().add("$N != null$>$>", target);
+        List<ColumnProperty> properties = values.keySet().asList();
+        if (split) {
+            int start = 0;
+            List<List<ColumnProperty>> chunks = MethodSize.COMPARISON.chunk(properties);
+            for (int i = 0; i < chunks.size(); i++) {
+                int end = start + chunks.get(i).size();
+                String arguments = Joiner.on(", ")
+                        .join(Arrays.asList(names).subList(start, end));
+                condition.add("\n&& $N$L($N, $L)", UNCHANGED_METHOD_NAME, i, target, arguments);
+                start = end;
+            }
+            return condition.add("$<$<").build();
+        }
+        for (int i = 0; i < properties.size(); i++) {
+            ColumnProperty property = properties.get(i);
+            if (property != skip) {
+                CodeBlock other = CodeBlock.of("$N.$L()", target, values.get(property));
+                CodeBlock value = CodeBlock.of("$N", names[i]);
+                condition.add("\n&& $L", isEqual(property, value, other));
+            }
+        }
+        return condition.add("$<$<").build();
+    }
+
+    /**
+     * Creates static methods that each compare a chunk of the {@code values} of an instance to
+     * their parameters. Together they replace the single condition of {@link #isUnchanged} for
+     * models with many properties.
+     */
+    private List<MethodSpec> createUnchangedMethods(
+            Context context, ImmutableMap<ColumnProperty, String> values) {
+        List<List<ColumnProperty>> chunks =
+                MethodSize.COMPARISON.chunk(values.keySet().asList());
+        List<MethodSpec> methods = new ArrayList<>(chunks.size());
+        for (int i = 0; i < chunks.size(); i++) {
+            List<ColumnProperty> chunk = chunks.get(i);
+            NameAllocator nameAllocator = new NameAllocator();
+            String target = nameAllocator.newName("previous");
+            MethodSpec.Builder method =
+                    MethodSpec.methodBuilder(UNCHANGED_METHOD_NAME + i)
+                            .addModifiers(PRIVATE, STATIC)
+                            .returns(TypeName.BOOLEAN)
+                            .addParameter(getAutoValueClassClassName(context), target);
+            CodeBlock.Builder condition = CodeBlock.builder();
+            for (int j = 0; j < chunk.size(); j++) {
+                ColumnProperty property = chunk.get(j);
+                String name = nameAllocator.newName(property.humanName(), property);
+                method.addParameter(property.type(), name);
+                CodeBlock other = CodeBlock.of("$N.$L()", target, values.get(property));
+                CodeBlock value = CodeBlock.of("$N", name);
+                condition.add(j == 0 ? "$L$>$>" : "\n&& $L", isEqual(property, value, other));
+            }
+            methods.add(method.addStatement("return $L$<$<", condition.build()).build());
+        }
+        return methods;
+    }
+
+    /**
+     * Compares {@code value} to {@code other} the same way the equals method generated by
+     * AutoValue does.
+     */
+    public static CodeBlock isEqual(ColumnProperty property, CodeBlock value, CodeBlock other) {
+        TypeName type = property.type();
+        if (type.equals(TypeName.FLOAT)) {
+            return CodeBlock.of(
+                    "$1T.floatToIntBits($2L) == $1T.floatToIntBits($3L)", Float.class, value, other);
+        } else if (type.equals(TypeName.DOUBLE)) {
+            return CodeBlock.of(
+                    "$1T.doubleToLongBits($2L) == $1T.doubleToLongBits($3L)",
+                    Double.class,
+                    value,
+                    other);
+        } else if (type.isPrimitive()) {
+            return CodeBlock.of("$L == $L", value, other);
+        } else if (type instanceof ArrayTypeName) {
+            return CodeBlock.of("$T.equals($L, $L)", Arrays.class, value, other);
+        } else if (property.nullable()) {
+            return CodeBlock.of("($1L == null ? $2L == null : $1L.equals($2L))", value, other);
+        }
+        return CodeBlock.of("$L.equals($L)", value, other);
+    }
+
+    /**
+     * Returns the code that creates the value object, going through {@code createOrReuse} when
+     * there is a primary key.
+     */
+    private CodeBlock newInstance(
+            Context context, List<ColumnProperty> properties, String... values) {
+        for (ColumnProperty property : properties) {
+            if (property.primaryKey()) {
+                return CodeBlock.of(
+                        "$N($L);\n", CREATE_OR_REUSE_METHOD_NAME, Joiner.on(", ").join(values));
+            }
+        }
+        return newFinalClassConstructorCall(context, values);
+    }
+
+    private CodeBlock readProperty(
+            ColumnProperty property,
+            ImmutableMap<Property, FieldSpec> columnAdapters,
+            ImmutableMap<Property, String> enumLookups) {
+        CodeBlock getValue =
+                readValue(property, getColumnIndexOrThrow(property), columnAdapters, enumLookups);
         return CodeBlock.builder()
                 .addStatement("$T $N = $L", property.type(), property.humanName(), getValue)
                 .build();
     }
 
-    private CodeBlock readNullableProperty(ColumnProperty property) {
+    private CodeBlock readNullableProperty(
+            ColumnProperty property,
+            ImmutableMap<Property, FieldSpec> columnAdapters,
+            ImmutableMap<Property, String> enumLookups) {
         String columnIndexVar = property.humanName() + "ColumnIndex";
-        CodeBlock getValue =
-                CodeBlock.builder()
-                        .add("($L == -1 || cursor.isNull($L)) ? null : ", columnIndexVar, columnIndexVar)
-                        .add(property.cursorMethod(), columnIndexVar)
-                        .build();
         return CodeBlock.builder()
                 .addStatement("int $L = $L", columnIndexVar, getColumnIndex(property))
-                .addStatement("$T $N = $L", property.type(), property.humanName(), getValue)
+                .addStatement(
+                        "$T $N = $L",
+                        property.type(),
+                        property.humanName(),
+                        readNullableValue(property, columnIndexVar, columnAdapters, enumLookups))
+                .build();
+    }
+
+    private CodeBlock readNullableValue(
+            ColumnProperty property,
+            String columnIndexVar,
+            ImmutableMap<Property, FieldSpec> columnAdapters,
+            ImmutableMap<Property, String> enumLookups) {
+        return CodeBlock.builder()
+                .add("($L == -1 || cursor.isNull($L)) ? null : ", columnIndexVar, columnIndexVar)
+                .add(readValue(property, columnIndexVar, columnAdapters, enumLookups))
                 .build();
     }
 
+    /**
+     * Reads the column at {@code columnIndex} with the property's cursor method and converts it
+     * to an enum or with the property's primitive column adapter if needed.
+     */
+    private CodeBlock readValue(
+            ColumnProperty property,
+            Object columnIndex,
+            ImmutableMap<Property, FieldSpec> columnAdapters,
+            ImmutableMap<Property, String> enumLookups) {
+        CodeBlock value = CodeBlock.of(property.cursorMethod(), columnIndex);
+        if (property.enumType()) {
+            return fromEnumColumn(property, value, enumLookups);
+        }
+        if (property.primitiveColumnAdapter()) {
+            return CodeBlock.of(
+                    "$N.$L($L)",
+                    columnAdapters.get(property),
+                    property.fromPrimitiveMethod(),
+                    value);
+        }
+        return value;
+    }
+
+    /**
+     * Adds a local variable holding the column index of {@code property} to {@code method} and
+     * returns its name.
+     */
+    private String declareColumnIndex(MethodSpec.Builder method, ColumnProperty property) {
+        String columnIndexVar = property.humanName() + "ColumnIndex";
+        CodeBlock columnIndex =
+                property.nullable() ? getColumnIndex(property) : getColumnIndexOrThrow(property);
+        method.addStatement("int $L = $L", columnIndexVar, columnIndex);
+        return columnIndexVar;
+    }
+
     private CodeBlock getColumnIndexOrThrow(ColumnProperty property) {
         return CodeBlock.of("cursor.getColumnIndexOrThrow($S)", property.columnName());
     }
@@ -144,46 +767,1656 @@ public class AutoValueCursorExtension extends AutoValueExtension {
         return CodeBlock.of("cursor.getColumnIndex($S)", property.columnName());
     }
 
-    private FieldSpec createRxJava1Mapper(Context context) {
-        TypeName func1Name = getFunc1TypeName(context);
-        MethodSpec func1Method =
-                MethodSpec.methodBuilder(FUNC1_METHOD_NAME)
+    /**
+     * Returns the name of the method every enum property is converted with: one that looks the
+     * ordinal up in a copy of {@code values()} for enums stored by ordinal and one that switches
+     * over the constant names for enums stored by name. Properties of the same enum share a
+     * lookup, enums whose simple names are the same get unique names.
+     */
+    public static ImmutableMap<Property, String> getEnumLookups(List<ColumnProperty> properties) {
+        Map<Property, String> enumLookups = new HashMap<>();
+        Map<ClassName, String> fromOrdinalMethods = new HashMap<>();
+        Map<ClassName, String> fromNameMethods = new HashMap<>();
+        NameAllocator nameAllocator = new NameAllocator();
+        for (ColumnProperty property : ColumnProperty.flatten(properties)) {
+            if (!property.enumType()) {
+                continue;
+            }
+            ClassName enumClass = (ClassName) property.type();
+            Map<ClassName, String> names =
+                    property.enumOrdinal() ? fromOrdinalMethods : fromNameMethods;
+            String name = names.get(enumClass);
+            if (name == null) {
+                String suggestion = toLowerCase(enumClass.simpleName())
+                        + (property.enumOrdinal() ? ENUM_FROM_ORDINAL_SUFFIX : "FromName");
+                name = nameAllocator.newName(suggestion, property);
+                names.put(enumClass, name);
+            }
+            enumLookups.put(property, name);
+        }
+        return ImmutableMap.copyOf(enumLookups);
+    }
+
+    /**
+     * Adds the lookups from {@link #getEnumLookups(List)}. Both avoid {@code Enum.valueOf(String)}
+     * and the array copy made by every call to {@code values()}, and both throw an {@link
+     * IllegalArgumentException} naming the enum for a value without a constant. Like shared column
+     * adapters they should only be declared by one class in the generated hierarchy.
+     */
+    public static void addEnumLookups(
+            TypeSpec.Builder type,
+            List<ColumnProperty> properties,
+            ImmutableMap<Property, String> enumLookups) {
+        Set<String> handled = new HashSet<>();
+        for (ColumnProperty property : ColumnProperty.flatten(properties)) {
+            String name = enumLookups.get(property);
+            if (name == null || !handled.add(name)) {
+                continue;
+            }
+            ClassName enumClass = (ClassName) property.type();
+            if (property.enumOrdinal()) {
+                // named after the method, so it's unique as well: kindFromOrdinal_ -> KIND_VALUES_
+                int fromOrdinal = name.lastIndexOf(ENUM_FROM_ORDINAL_SUFFIX);
+                String values = LOWER_CAMEL.to(UPPER_UNDERSCORE, name.substring(0, fromOrdinal))
+                        + "_VALUES"
+                        + name.substring(fromOrdinal + ENUM_FROM_ORDINAL_SUFFIX.length());
+                type.addField(
+                        FieldSpec.builder(ArrayTypeName.of(enumClass), values)
+                                .addModifiers(PRIVATE, STATIC, FINAL)
+                                .initializer("$T.values()", enumClass)
+                                .build());
+                type.addMethod(createEnumFromOrdinalMethod(name, values, enumClass));
+            } else {
+                type.addMethod(createEnumFromNameMethod(name, enumClass, property));
+            }
+        }
+    }
+
+    private static MethodSpec createEnumFromOrdinalMethod(
+            String methodName, String valuesField, ClassName enumClass) {
+        return MethodSpec.methodBuilder(methodName)
+                .addModifiers(STATIC)
+                .returns(enumClass)
+                .addParameter(TypeName.INT, "ordinal")
+                .beginControlFlow("if (ordinal < 0 || ordinal >= $N.length)", valuesField)
+                .addStatement(
+                        "throw new $T($S + ordinal)",
+                        IllegalArgumentException.class,
+                        "No enum constant " + enumClass.simpleName() + " with ordinal ")
+                .endControlFlow()
+                .addStatement("return $N[ordinal]", valuesField)
+                .build();
+    }
+
+    private static MethodSpec createEnumFromNameMethod(
+            String methodName, ClassName enumClass, ColumnProperty property) {
+        MethodSpec.Builder method =
+                MethodSpec.methodBuilder(methodName)
+                        .addModifiers(STATIC)
+                        .returns(enumClass)
+                        .addParameter(String.class, "name")
+                        .beginControlFlow("switch (name)");
+        for (String constant : property.enumConstants()) {
+            method.addStatement("case $S: return $T.$L", constant, enumClass, constant);
+        }
+        return method.addStatement(
+                        "default: throw new $T($S + name)",
+                        IllegalArgumentException.class,
+                        "No enum constant " + enumClass.simpleName() + ".")
+                .endControlFlow()
+                .build();
+    }
+
+    /**
+     * Returns the code that converts {@code value}, the ordinal or name stored for an enum
+     * property, to the enum with its lookup from {@link #getEnumLookups(List)}.
+     */
+    public static CodeBlock fromEnumColumn(
+            ColumnProperty property, CodeBlock value, ImmutableMap<Property, String> enumLookups) {
+        return CodeBlock.of("$N($L)", enumLookups.get(property), value);
+    }
+
+    private MethodSpec createBindMethod(ClassName readerClass) {
+        return MethodSpec.methodBuilder(BIND_METHOD_NAME)
+                .addModifiers(STATIC)
+                .returns(readerClass)
+                .addParameter(CURSOR, "cursor")
+                .addStatement("return new $T(cursor)", readerClass)
+                .build();
+    }
+
+    /**
+     * Creates a reader that resolves all column indices of {@code cursor} once in its constructor
+     * and then reads every row by index. When {@code readChunks} isn't null every chunk is read by
+     * its own method into fields of the reader, which {@code readBatch} uses as well. With
+     * {@code byPosition} a second constructor of such a reader can take the indices from the
+     * position of the columns in {@code PROJECTION}.
+     */
+    private TypeSpec createReaderClass(
+            Context context,
+            ClassName readerClass,
+            ImmutableMap<ColumnProperty, String> values,
+            boolean reuse,
+            ColumnProperty primaryKey,
+            ColumnProperty grouped,
+            ImmutableList<List<ColumnProperty>> readChunks,
+            boolean byPosition,
+            boolean splitComparisons,
+            ImmutableMap<Property, FieldSpec> columnAdapters,
+            ImmutableMap<Property, String> enumLookups) {
+        ImmutableList<ColumnProperty> properties = values.keySet().asList();
+        TypeSpec.Builder reader =
+                TypeSpec.classBuilder(readerClass)
+                        .addModifiers(STATIC, FINAL)
+                        .addField(CURSOR, "cursor", PRIVATE, FINAL);
+
+        List<FieldSpec> handledAdapters = new ArrayList<>(columnAdapters.size());
+        for (ColumnProperty property : ColumnProperty.flatten(properties)) {
+            FieldSpec adapter = columnAdapters.get(property);
+            if (adapter != null
+                    && !adapter.hasModifier(STATIC)
+                    && !handledAdapters.contains(adapter)) {
+                reader.addField(
+                        FieldSpec.builder(adapter.type, adapter.name, PRIVATE, FINAL)
+                                .initializer("new $T()", adapter.type)
+                                .build());
+                handledAdapters.add(adapter);
+            }
+        }
+
+        String[] names = new String[properties.size()];
+        Map<ColumnProperty, CodeBlock> propertyReads = new HashMap<>();
+        CodeBlock groupedReads = null;
+        for (int i = 0; i < properties.size(); i++) {
+            ColumnProperty property = properties.get(i);
+            names[i] = property.humanName();
+            if (property == grouped) {
+                CodeBlock.Builder embeddedReads = CodeBlock.builder();
+                for (ColumnProperty embeddedProperty : property.embeddedProperties()) {
+                    addReaderRead(embeddedReads, embeddedProperty, columnAdapters, enumLookups);
+                }
+                groupedReads = embeddedReads.build();
+            }
+            CodeBlock.Builder read = CodeBlock.builder();
+            addReaderRead(read, property, columnAdapters, enumLookups);
+            propertyReads.put(property, read.build());
+        }
+
+        MethodSpec.Builder constructor =
+                MethodSpec.constructorBuilder()
+                        .addParameter(CURSOR, "cursor")
+                        .addStatement("this.cursor = cursor");
+        CodeBlock.Builder reads = CodeBlock.builder();
+        CodeBlock.Builder groupReads = CodeBlock.builder();
+        if (readChunks == null) {
+            CodeBlock.Builder columnIndices = CodeBlock.builder();
+            addColumnIndices(reader, columnIndices, properties, null, PRIVATE, FINAL);
+            constructor.addCode(columnIndices.build());
+            for (ColumnProperty property : properties) {
+                reads.add(propertyReads.get(property));
+                if (property != grouped) {
+                    groupReads.add(propertyReads.get(property));
+                }
+            }
+        } else {
+            // the column indices are resolved in chunks as well, so they can't be final
+            List<ColumnProperty> projected = byPosition ? getProjectedProperties(properties) : null;
+            if (byPosition) {
+                reader.addMethod(
+                        MethodSpec.constructorBuilder()
+                                .addParameter(CURSOR, "cursor")
+                                .addStatement("this(cursor, false)")
+                                .build());
+                constructor.addParameter(TypeName.BOOLEAN, "byPosition");
+            }
+            for (int i = 0; i < readChunks.size(); i++) {
+                List<ColumnProperty> chunk = readChunks.get(i);
+                CodeBlock.Builder columnIndices = CodeBlock.builder();
+                addColumnIndices(reader, columnIndices, chunk, projected, PRIVATE);
+                MethodSpec.Builder findColumns =
+                        MethodSpec.methodBuilder(FIND_COLUMNS_METHOD_NAME + i)
+                                .addModifiers(PRIVATE)
+                                .addCode(columnIndices.build());
+                if (byPosition) {
+                    findColumns.addParameter(TypeName.BOOLEAN, "byPosition");
+                }
+                reader.addMethod(findColumns.build());
+                constructor.addStatement(
+                        "$N$L($L)", FIND_COLUMNS_METHOD_NAME, i, byPosition ? "byPosition" : "");
+
+                MethodSpec.Builder readColumns =
+                        MethodSpec.methodBuilder(READ_COLUMNS_METHOD_NAME + i);
+                for (ColumnProperty property : chunk) {
+                    // not private since readBatch reads them as well
+                    reader.addField(property.type(), property.humanName());
+                    readColumns.addCode(propertyReads.get(property))
+                            .addStatement("this.$1N = $1N", property.humanName());
+                }
+                reader.addMethod(readColumns.build());
+                reads.addStatement("$N$L()", READ_COLUMNS_METHOD_NAME, i);
+                if (!chunk.contains(grouped)) {
+                    groupReads.addStatement("$N$L()", READ_COLUMNS_METHOD_NAME, i);
+                }
+            }
+        }
+        reader.addMethod(constructor.build())
+                .addMethod(
+                        MethodSpec.methodBuilder(READER_METHOD_NAME)
+                                .returns(getFinalClassClassName(context))
+                                .addCode(reads.build())
+                                .addCode("return ")
+                                .addCode(newInstance(context, properties, names))
+                                .build());
+        if (reuse) {
+            reader.addMethod(
+                    createReadOrReuseMethod(
+                            context,
+                            values,
+                            names,
+                            reads.build(),
+                            primaryKey,
+                            splitComparisons));
+        }
+        if (grouped != null) {
+            reader.addMethod(
+                    createReadGroupMethod(
+                            context,
+                            reader,
+                            properties,
+                            names,
+                            grouped,
+                            groupReads,
+                            groupedReads,
+                            enumLookups));
+        }
+        return reader.build();
+    }
+
+    /**
+     * Returns the chunks of {@code properties} the reader of a wide model reads with one method
+     * each. The grouped property gets the last chunk on its own, {@code readGroup} reads it from
+     * every row of the group instead.
+     */
+    private static ImmutableList<List<ColumnProperty>> getReadChunks(
+            List<ColumnProperty> properties, ColumnProperty grouped) {
+        List<ColumnProperty> ungrouped = new ArrayList<>(properties);
+        ungrouped.remove(grouped);
+        ImmutableList.Builder<List<ColumnProperty>> chunks = ImmutableList.builder();
+        chunks.addAll(MethodSize.READ.chunk(ungrouped));
+        if (grouped != null) {
+            chunks.add(ImmutableList.of(grouped));
+        }
+        return chunks.build();
+    }
+
+    /**
+     * Creates a method that reads the current row and returns the previous object for it if none
+     * of its values changed. Without a primary key the previous object is passed in, with one it's
+     * looked up by the key of the row in a map of the previous objects.
+     */
+    private MethodSpec createReadOrReuseMethod(
+            Context context,
+            ImmutableMap<ColumnProperty, String> values,
+            String[] names,
+            CodeBlock reads,
+            ColumnProperty primaryKey,
+            boolean splitComparisons) {
+        ImmutableList<ColumnProperty> properties = values.keySet().asList();
+        // the parameter and the local variable must not clash with the values read from the row
+        NameAllocator nameAllocator = new NameAllocator();
+        for (String name : names) {
+            nameAllocator.newName(name);
+        }
+        for (ColumnProperty property : ColumnProperty.flatten(properties)) {
+            nameAllocator.newName(property.humanName());
+        }
+        String previous = nameAllocator.newName("previous");
+
+        ClassName valueClass = getAutoValueClassClassName(context);
+        MethodSpec.Builder method =
+                MethodSpec.methodBuilder(READER_REUSE_METHOD_NAME).returns(valueClass);
+        if (primaryKey == null) {
+            method.addParameter(valueClass, previous).addCode(reads);
+        } else {
+            String previousByKey = nameAllocator.newName("previousByKey");
+            method.addParameter(
+                            ParameterizedTypeName.get(
+                                    ClassName.get(Map.class), primaryKey.type().box(), valueClass),
+                            previousByKey)
+                    .addCode(reads)
+                    .addStatement(
+                            "$T $N = $N.get($N)",
+                            valueClass,
+                            previous,
+                            previousByKey,
+                            primaryKey.humanName());
+        }
+        return method.beginControlFlow(
+                        "if ($L)",
+                        isUnchanged(values, names, previous, primaryKey, splitComparisons))
+                .addStatement("return $N", previous)
+                .endControlFlow()
+                .addCode("return ")
+                .addCode(newInstance(context, properties, names))
+                .build();
+    }
+
+    /**
+     * Returns the property annotated with {@code @GroupedBy} or {@code null} when there is none.
+     */
+    private ColumnProperty getGroupedProperty(Context context, List<ColumnProperty> properties) {
+        ColumnProperty grouped = null;
+        for (ColumnProperty property : properties) {
+            if (property.groupedBy() == null) {
+                continue;
+            }
+            if (!property.embedded()) {
+                error(context, property, "@GroupedBy can only be used for a List of AutoValue "
+                        + "classes annotated with @ColumnPrefix.");
+            } else if (grouped != null) {
+                error(context, property, "Only one property can be annotated with @GroupedBy.");
+            } else if (getGroupKey(properties, property) == null) {
+                error(context, property, "@GroupedBy column has to be a non null property that "
+                        + "can be read from Cursor.");
+            } else {
+                grouped = property;
+            }
+        }
+        return grouped;
+    }
+
+    private static ColumnProperty getGroupKey(
+            List<ColumnProperty> properties, ColumnProperty grouped) {
+        for (ColumnProperty property : properties) {
+            if (property.columnName().equals(grouped.groupedBy())
+                    && property.cursorMethod() != null
+                    && property.columnAdapter() == null
+                    && !property.nullable()) {
+                return property;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Creates a method that reads the current row and all following rows with the same key. The
+     * rows of the grouped property are collected in a list that is reused for every group and
+     * copied into an exactly sized list at the end. The cursor is left on the first row of the
+     * next group.
+     */
+    private MethodSpec createReadGroupMethod(
+            Context context,
+            TypeSpec.Builder reader,
+            List<ColumnProperty> properties,
+            String[] names,
+            ColumnProperty grouped,
+            CodeBlock.Builder groupReads,
+            CodeBlock groupedReads,
+            ImmutableMap<Property, String> enumLookups) {
+        ColumnProperty key = getGroupKey(properties, grouped);
+        TypeName bufferType =
+                ParameterizedTypeName.get(ClassName.get(ArrayList.class), grouped.embeddedType());
+        String buffer = grouped.humanName() + "Buffer";
+        reader.addField(
+                FieldSpec.builder(bufferType, buffer, PRIVATE, FINAL)
+                        .initializer("new $T<>()", ArrayList.class)
+                        .build());
+
+        CodeBlock nextKey =
+                readValue(key, key.humanName() + "ColumnIndex", null, enumLookups);
+        CodeBlock sameKey = key.type().isPrimitive()
+                ? CodeBlock.of("$L == $N", nextKey, key.humanName())
+                : CodeBlock.of("$N.equals($L)", key.humanName(), nextKey);
+        List<String> embeddedNames = new ArrayList<>();
+        for (ColumnProperty embeddedProperty : grouped.embeddedProperties()) {
+            embeddedNames.add(embeddedProperty.humanName());
+        }
+        CodeBlock.Builder groupedRead = CodeBlock.builder()
+                .add(groupedReads)
+                .addStatement(
+                        "$N.add(new $T($L))",
+                        buffer,
+                        grouped.embeddedClass(),
+                        Joiner.on(", ").join(embeddedNames));
+        CodeBlock hasGroupedRow = hasGroupedRow(grouped, null);
+        if (hasGroupedRow != null) {
+            groupedRead = CodeBlock.builder()
+                    .beginControlFlow("if ($L)", hasGroupedRow)
+                    .add(groupedRead.build())
+                    .endControlFlow();
+        }
+        return MethodSpec.methodBuilder(READER_GROUP_METHOD_NAME)
+                .returns(getFinalClassClassName(context))
+                .addCode(groupReads.build())
+                .beginControlFlow("do")
+                .addCode(groupedRead.build())
+                .endControlFlow("while (cursor.moveToNext() && $L)", sameKey)
+                .addStatement(
+                        "$T $N = $T.unmodifiableList(new $T<>($N))",
+                        grouped.type(),
+                        grouped.humanName(),
+                        Collections.class,
+                        ArrayList.class,
+                        buffer)
+                .addStatement("$N.clear()", buffer)
+                .addCode("return ")
+                .addCode(newInstance(context, properties, names))
+                .build();
+    }
+
+    /**
+     * Returns the condition that is true when the current row holds an element of the grouped
+     * property or {@code null} when none of its columns can tell. A LEFT JOIN returns one row with
+     * all grouped columns set to NULL for a parent without elements, so either the first column
+     * that can't be NULL for an element or all columns have to be NULL. The column indices are
+     * the positions in {@code projected} or, when it's null, in the {@code ColumnIndex} variables.
+     */
+    private static CodeBlock hasGroupedRow(
+            ColumnProperty grouped, List<ColumnProperty> projected) {
+        List<String> nullChecks = new ArrayList<>();
+        for (ColumnProperty property : ColumnProperty.flatten(grouped.embeddedProperties())) {
+            if (property.columnTypeAdapter() || property.cursorMethod() == null) {
+                continue;
+            }
+            CodeBlock isNull;
+            if (projected != null) {
+                isNull = CodeBlock.of("cursor.isNull($L)", projected.indexOf(property));
+            } else {
+                String columnIndexVar = property.humanName() + "ColumnIndex";
+                isNull = property.nullable()
+                        ? CodeBlock.of(
+                                "($N == -1 || cursor.isNull($N))", columnIndexVar, columnIndexVar)
+                        : CodeBlock.of("cursor.isNull($N)", columnIndexVar);
+            }
+            if (!property.nullable()) {
+                return CodeBlock.of("!$L", isNull);
+            }
+            nullChecks.add(isNull.toString());
+        }
+        return nullChecks.isEmpty()
+                ? null
+                : CodeBlock.of("!($L)", Joiner.on(" && ").join(nullChecks));
+    }
+
+    private void addReaderRead(
+            CodeBlock.Builder reads,
+            ColumnProperty property,
+            ImmutableMap<Property, FieldSpec> columnAdapters,
+            ImmutableMap<Property, String> enumLookups) {
+        if (property.columnTypeAdapter()) {
+            reads.addStatement(
+                    "$T $N = $N.fromCursor(cursor, $S)",
+                    property.type(),
+                    property.humanName(),
+                    columnAdapters.get(property),
+                    property.columnName());
+        } else if (property.embedded()) {
+            CodeBlock.Builder embeddedReads = CodeBlock.builder();
+            for (ColumnProperty embeddedProperty : property.embeddedProperties()) {
+                addReaderRead(embeddedReads, embeddedProperty, columnAdapters, enumLookups);
+            }
+            reads.add(readEmbedded(property, embeddedReads.build(), null));
+        } else if (property.cursorMethod() != null) {
+            String columnIndexVar = property.humanName() + "ColumnIndex";
+            CodeBlock getValue = property.nullable()
+                    ? readNullableValue(property, columnIndexVar, columnAdapters, enumLookups)
+                    : readValue(property, columnIndexVar, columnAdapters, enumLookups);
+            reads.addStatement("$T $N = $L", property.type(), property.humanName(), getValue);
+        } else {
+            // non-nullable unsupported properties were already reported by createReadMethod
+            reads.add(
+                    "$T $N = null; // can't be read from cursor\n",
+                    property.type(),
+                    property.humanName());
+        }
+    }
+
+    /**
+     * Adds a field to the reader for the index of every column of {@code properties} that is read
+     * by index and adds the statements resolving them to {@code columnIndices}. With
+     * {@code projected} the position of a column in it is used instead when a parameter called
+     * {@code byPosition} is true.
+     */
+    private void addColumnIndices(
+            TypeSpec.Builder reader,
+            CodeBlock.Builder columnIndices,
+            List<ColumnProperty> properties,
+            List<ColumnProperty> projected,
+            Modifier... modifiers) {
+        for (ColumnProperty property : ColumnProperty.flatten(properties)) {
+            if (property.columnTypeAdapter() || property.cursorMethod() == null) {
+                continue;
+            }
+            String columnIndexVar = property.humanName() + "ColumnIndex";
+            reader.addField(TypeName.INT, columnIndexVar, modifiers);
+            CodeBlock columnIndex = property.nullable()
+                    ? getColumnIndex(property)
+                    : getColumnIndexOrThrow(property);
+            if (projected != null) {
+                columnIndex = CodeBlock.of(
+                        "byPosition ? $L : $L", projected.indexOf(property), columnIndex);
+            }
+            columnIndices.addStatement("$L = $L", columnIndexVar, columnIndex);
+        }
+    }
+
+    /**
+     * Returns the properties that are part of the projection. Unsupported nullable properties
+     * can't be read and are left out, properties with an adapter use their column name.
+     */
+    private List<ColumnProperty> getProjectedProperties(List<ColumnProperty> properties) {
+        List<ColumnProperty> projected = new ArrayList<>(properties.size());
+        for (ColumnProperty property : ColumnProperty.flatten(properties)) {
+            if (property.columnAdapter() != null || property.cursorMethod() != null) {
+                projected.add(property);
+            }
+        }
+        return projected;
+    }
+
+    /**
+     * Reports an error for every property whose column adapter reads more than one column. The
+     * names of those columns are only known to the adapter, so they can't be part of a projection.
+     */
+    private void checkProjectedColumns(Context context, List<ColumnProperty> properties) {
+        for (ColumnProperty property : ColumnProperty.flatten(properties)) {
+            if (property.columnTypeAdapter() && property.columnCount() != 1) {
+                error(context, property, "Column adapters with more than one column can't be "
+                        + "used in a projection.");
+            }
+        }
+    }
+
+    private FieldSpec createProjectionField(String name, List<ColumnProperty> properties) {
+        CodeBlock.Builder columns = CodeBlock.builder().add("{");
+        List<ColumnProperty> projected = getProjectedProperties(properties);
+        for (int i = 0; i < projected.size(); i++) {
+            columns.add(i == 0 ? "$S" : ", $S", projected.get(i).columnName());
+        }
+        return FieldSpec.builder(ArrayTypeName.of(String.class), name)
+                .addModifiers(PUBLIC, STATIC, FINAL)
+                .initializer(columns.add("}").build())
+                .build();
+    }
+
+    /**
+     * Returns true if the value class opts in to the fixed projection with a static method
+     * {@code String[] projection()}. The name is part of the opt-in, other static methods
+     * returning a {@code String[]} are unrelated helpers.
+     */
+    private static boolean hasProjectionMethod(Context context) {
+        TypeName projectionType = ArrayTypeName.of(String.class);
+        for (ExecutableElement method :
+                ElementFilter.methodsIn(context.autoValueClass().getEnclosedElements())) {
+            if (method.getModifiers().contains(STATIC)
+                    && method.getSimpleName().contentEquals(PROJECTION_OPT_IN_METHOD_NAME)
+                    && method.getParameters().isEmpty()
+                    && TypeName.get(method.getReturnType()).equals(projectionType)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Creates a method that reads a row from a cursor that was queried with {@code PROJECTION},
+     * every column is accessed by its position in the projection instead of by name. When
+     * {@code split} is true the row is read by the reader, which then takes its column indices
+     * from the projection as well.
+     */
+    private MethodSpec createProjectionReadMethod(
+            Context context,
+            ImmutableList<ColumnProperty> properties,
+            ClassName readerClass,
+            boolean split,
+            ImmutableMap<Property, FieldSpec> columnAdapters,
+            ImmutableMap<Property, String> enumLookups) {
+        MethodSpec.Builder readMethod =
+                MethodSpec.methodBuilder(PROJECTION_METHOD_NAME)
+                        .addModifiers(STATIC)
+                        .returns(getFinalClassClassName(context))
+                        .addParameter(CURSOR, "cursor");
+        if (split) {
+            return readMethod
+                    .addStatement(
+                            "return new $T(cursor, true).$L()", readerClass, READER_METHOD_NAME)
+                    .build();
+        }
+        String[] names = addProjectionReads(readMethod, properties, columnAdapters, enumLookups);
+        return readMethod
+                .addCode("return ")
+                .addCode(newInstance(context, properties, names))
+                .build();
+    }
+
+    /**
+     * Adds a local variable for every property that is read by its position in the projection of
+     * {@code properties} and returns their names.
+     */
+    private String[] addProjectionReads(
+            MethodSpec.Builder method,
+            List<ColumnProperty> properties,
+            ImmutableMap<Property, FieldSpec> columnAdapters,
+            ImmutableMap<Property, String> enumLookups) {
+        addColumnAdaptersToMethod(method, properties, columnAdapters);
+
+        List<ColumnProperty> projected = getProjectedProperties(properties);
+        String[] names = new String[properties.size()];
+        CodeBlock.Builder reads = CodeBlock.builder();
+        for (int i = 0; i < properties.size(); i++) {
+            ColumnProperty property = properties.get(i);
+            names[i] = property.humanName();
+            addProjectionRead(reads, property, projected, columnAdapters, enumLookups);
+        }
+        method.addCode(reads.build());
+        return names;
+    }
+
+    private void addProjectionRead(
+            CodeBlock.Builder reads,
+            ColumnProperty property,
+            List<ColumnProperty> projected,
+            ImmutableMap<Property, FieldSpec> columnAdapters,
+            ImmutableMap<Property, String> enumLookups) {
+        if (property.columnTypeAdapter()) {
+            reads.addStatement(
+                    "$T $N = $N.fromCursor(cursor, $S)",
+                    property.type(),
+                    property.humanName(),
+                    columnAdapters.get(property),
+                    property.columnName());
+        } else if (property.embedded()) {
+            CodeBlock.Builder embeddedReads = CodeBlock.builder();
+            for (ColumnProperty embeddedProperty : property.embeddedProperties()) {
+                addProjectionRead(
+                        embeddedReads, embeddedProperty, projected, columnAdapters, enumLookups);
+            }
+            reads.add(readEmbedded(property, embeddedReads.build(), projected));
+        } else if (property.cursorMethod() != null) {
+            int ordinal = projected.indexOf(property);
+            CodeBlock getValue = readValue(property, ordinal, columnAdapters, enumLookups);
+            if (property.nullable()) {
+                getValue = CodeBlock.of("cursor.isNull($L) ? null : $L", ordinal, getValue);
+            }
+            reads.addStatement("$T $N = $L", property.type(), property.humanName(), getValue);
+        } else {
+            // non-nullable unsupported properties were already reported by createReadMethod
+            reads.add(
+                    "$T $N = null; // can't be read from cursor\n",
+                    property.type(),
+                    property.humanName());
+        }
+    }
+
+    /**
+     * Adds a projection array, a read method and a class implementing the interface for every
+     * interface annotated with {@code @CursorProjection}.
+     */
+    private void addPartialProjections(
+            Context context,
+            TypeSpec.Builder type,
+            String className,
+            ImmutableList<ColumnProperty> properties,
+            ImmutableMap<Property, FieldSpec> columnAdapters,
+            ImmutableMap<Property, String> enumLookups) {
+        for (TypeElement projection : getPartialProjections(context.autoValueClass())) {
+            List<ColumnProperty> projected = new ArrayList<>();
+            boolean valid = true;
+            for (ExecutableElement method :
+                    ElementFilter.methodsIn(projection.getEnclosedElements())) {
+                ColumnProperty property = findProperty(properties, method);
+                if (property == null) {
+                    context.processingEnvironment()
+                            .getMessager()
+                            .printMessage(
+                                    Diagnostic.Kind.ERROR,
+                                    "Projection method doesn't match a property.",
+                                    method);
+                    // keep going to report the errors of all methods and projections at once
+                    valid = false;
+                    continue;
+                }
+                projected.add(property);
+            }
+            if (!valid) {
+                continue;
+            }
+            checkProjectedColumns(context, projected);
+
+            String name = projection.getSimpleName().toString();
+            ClassName interfaceName = ClassName.get(projection);
+            ClassName rowClass = ClassName.get(context.packageName(), className, name + "Row");
+            MethodSpec.Builder readMethod =
+                    MethodSpec.methodBuilder("create" + name + "FromProjection")
+                            .addModifiers(STATIC)
+                            .returns(interfaceName)
+                            .addParameter(CURSOR, "cursor");
+            String[] names =
+                    addProjectionReads(readMethod, projected, columnAdapters, enumLookups);
+            readMethod.addStatement("return new $T($L)", rowClass, Joiner.on(", ").join(names));
+
+            type.addField(
+                            createProjectionField(
+                                    UPPER_CAMEL.to(UPPER_UNDERSCORE, name) + "_PROJECTION",
+                                    projected))
+                    .addMethod(readMethod.build())
+                    .addType(createProjectionRowClass(rowClass, interfaceName, projected));
+        }
+    }
+
+    private static List<TypeElement> getPartialProjections(TypeElement valueClass) {
+        List<TypeElement> projections = new ArrayList<>();
+        for (TypeElement type : ElementFilter.typesIn(valueClass.getEnclosedElements())) {
+            if (type.getKind() == ElementKind.INTERFACE
+                    && isAnnotationPresent(type, CursorProjection.class)) {
+                projections.add(type);
+            }
+        }
+        return projections;
+    }
+
+    private static ColumnProperty findProperty(
+            List<ColumnProperty> properties, ExecutableElement method) {
+        for (ColumnProperty property : properties) {
+            if (property.methodName().equals(method.getSimpleName().toString())
+                    && property.type().equals(TypeName.get(method.getReturnType()))
+                    && method.getParameters().isEmpty()) {
+                return property;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Creates a class holding the values of a partial projection. Like an AutoValue class it
+     * implements {@code equals}, {@code hashCode} and {@code toString} based on those values.
+     */
+    private TypeSpec createProjectionRowClass(
+            ClassName rowClass, ClassName interfaceName, List<ColumnProperty> properties) {
+        TypeSpec.Builder row =
+                TypeSpec.classBuilder(rowClass)
+                        .addModifiers(STATIC, FINAL)
+                        .addSuperinterface(interfaceName);
+        MethodSpec.Builder constructor = MethodSpec.constructorBuilder();
+        for (ColumnProperty property : properties) {
+            String name = property.humanName();
+            row.addField(property.type(), name, PRIVATE, FINAL)
+                    .addMethod(
+                            MethodSpec.methodBuilder(property.methodName())
+                                    .addAnnotation(Override.class)
+                                    .addModifiers(PUBLIC)
+                                    .returns(property.type())
+                                    .addStatement("return $N", name)
+                                    .build());
+            constructor.addParameter(property.type(), name)
+                    .addStatement("this.$N = $N", name, name);
+        }
+        return row.addMethod(constructor.build())
+                .addMethod(createRowEqualsMethod(rowClass, properties))
+                .addMethod(createRowHashCodeMethod(properties))
+                .addMethod(createRowToStringMethod(interfaceName, properties))
+                .build();
+    }
+
+    private MethodSpec createRowEqualsMethod(
+            ClassName rowClass, List<ColumnProperty> properties) {
+        MethodSpec.Builder method =
+                MethodSpec.methodBuilder("equals")
                         .addAnnotation(Override.class)
                         .addModifiers(PUBLIC)
-                        .addParameter(CURSOR, "c")
-                        .returns(getFinalClassClassName(context))
-                        .addStatement("return $L($N)", METHOD_NAME, "c")
+                        .returns(TypeName.BOOLEAN)
+                        .addParameter(Object.class, "o")
+                        .beginControlFlow("if (o == this)")
+                        .addStatement("return true")
+                        .endControlFlow()
+                        .beginControlFlow("if (!(o instanceof $T))", rowClass)
+                        .addStatement("return false")
+                        .endControlFlow();
+        if (properties.isEmpty()) {
+            return method.addStatement("return true").build();
+        }
+        method.addStatement("$1T that = ($1T) o", rowClass);
+        CodeBlock.Builder condition = CodeBlock.builder();
+        for (int i = 0; i < properties.size(); i++) {
+            ColumnProperty property = properties.get(i);
+            CodeBlock value = CodeBlock.of("this.$N", property.humanName());
+            CodeBlock other = CodeBlock.of("that.$N", property.humanName());
+            condition.add(i == 0 ? "$L$>$>" : "\n&& $L", isEqual(property, value, other));
+        }
+        return method.addStatement("return $L$<$<", condition.build()).build();
+    }
+
+    private MethodSpec createRowHashCodeMethod(List<ColumnProperty> properties) {
+        MethodSpec.Builder method =
+                MethodSpec.methodBuilder("hashCode")
+                        .addAnnotation(Override.class)
+                        .addModifiers(PUBLIC)
+                        .returns(TypeName.INT)
+                        .addStatement("int h = 1");
+        for (ColumnProperty property : properties) {
+            method.addStatement("h *= 1000003")
+                    .addStatement(
+                            "h ^= $L",
+                            hashCodeOf(property, CodeBlock.of("this.$N", property.humanName())));
+        }
+        return method.addStatement("return h").build();
+    }
+
+    /**
+     * Returns the hash code of {@code value} the same way the hashCode method generated by
+     * AutoValue computes it.
+     */
+    private static CodeBlock hashCodeOf(ColumnProperty property, CodeBlock value) {
+        TypeName type = property.type();
+        if (type.equals(TypeName.BOOLEAN)) {
+            return CodeBlock.of("$L ? 1231 : 1237", value);
+        } else if (type.equals(TypeName.LONG)) {
+            return CodeBlock.of("(int) (($1L >>> 32) ^ $1L)", value);
+        } else if (type.equals(TypeName.FLOAT)) {
+            return CodeBlock.of("$T.floatToIntBits($L)", Float.class, value);
+        } else if (type.equals(TypeName.DOUBLE)) {
+            return CodeBlock.of(
+                    "(int) (($1T.doubleToLongBits($2L) >>> 32) ^ $1T.doubleToLongBits($2L))",
+                    Double.class,
+                    value);
+        } else if (type.isPrimitive()) {
+            return value;
+        } else if (type instanceof ArrayTypeName) {
+            return CodeBlock.of("$T.hashCode($L)", Arrays.class, value);
+        } else if (property.nullable()) {
+            return CodeBlock.of("($1L == null) ? 0 : $1L.hashCode()", value);
+        }
+        return CodeBlock.of("$L.hashCode()", value);
+    }
+
+    private MethodSpec createRowToStringMethod(
+            ClassName interfaceName, List<ColumnProperty> properties) {
+        CodeBlock.Builder value =
+                CodeBlock.builder().add("$S$>$>", interfaceName.simpleName() + "{");
+        for (int i = 0; i < properties.size(); i++) {
+            ColumnProperty property = properties.get(i);
+            String label = (i == 0 ? "" : ", ") + property.methodName() + "=";
+            if (property.type() instanceof ArrayTypeName) {
+                value.add("\n+ $S + $T.toString($N)", label, Arrays.class, property.humanName());
+            } else {
+                value.add("\n+ $S + $N", label, property.humanName());
+            }
+        }
+        return MethodSpec.methodBuilder("toString")
+                .addAnnotation(Override.class)
+                .addModifiers(PUBLIC)
+                .returns(String.class)
+                .addStatement("return $L\n+ $S$<$<", value.build(), "}")
+                .build();
+    }
+
+    private MethodSpec createCheckProjectionMethod() {
+        return MethodSpec.methodBuilder(CHECK_PROJECTION_METHOD_NAME)
+                .addModifiers(STATIC)
+                .addParameter(CURSOR, "cursor")
+                .addStatement("$T[] columnNames = cursor.getColumnNames()", String.class)
+                .beginControlFlow(
+                        "if (!$T.equals($L, columnNames))", Arrays.class, PROJECTION_FIELD_NAME)
+                .addStatement(
+                        "throw new $T($S + $T.toString(columnNames) + $S + $T.toString($L))",
+                        IllegalArgumentException.class,
+                        "Cursor columns ",
+                        Arrays.class,
+                        " don't match ",
+                        Arrays.class,
+                        PROJECTION_FIELD_NAME)
+                .endControlFlow()
+                .build();
+    }
+
+    private MethodSpec createListMethod(Context context, ClassName readerClass, boolean grouped) {
+        ClassName valueClass = getAutoValueClassClassName(context);
+        if (grouped) {
+            return createGroupedListMethod(context, readerClass);
+        }
+        return MethodSpec.methodBuilder(LIST_METHOD_NAME)
+                .addModifiers(STATIC)
+                .returns(getListTypeName(context))
+                .addParameter(CURSOR, "cursor")
+                .addStatement(
+                        "$T<$T> list = new $T<>(cursor.getCount())",
+                        LIST,
+                        valueClass,
+                        ArrayList.class)
+                .addStatement("$1T reader = new $1T(cursor)", readerClass)
+                .beginControlFlow("while (cursor.moveToNext())")
+                .addStatement("list.add(reader.$L())", READER_METHOD_NAME)
+                .endControlFlow()
+                .addStatement("return $T.unmodifiableList(list)", Collections.class)
+                .build();
+    }
+
+    /**
+     * Creates a method that reads one object for every group of rows with the same key.
+     */
+    private MethodSpec createGroupedListMethod(Context context, ClassName readerClass) {
+        ClassName valueClass = getAutoValueClassClassName(context);
+        return MethodSpec.methodBuilder(LIST_METHOD_NAME)
+                .addModifiers(STATIC)
+                .returns(getListTypeName(context))
+                .addParameter(CURSOR, "cursor")
+                .addStatement("$T<$T> list = new $T<>()", LIST, valueClass, ArrayList.class)
+                .addStatement("$1T reader = new $1T(cursor)", readerClass)
+                .beginControlFlow("if (cursor.moveToNext())")
+                .beginControlFlow("while (!cursor.isAfterLast())")
+                .addStatement("list.add(reader.$L())", READER_GROUP_METHOD_NAME)
+                .endControlFlow()
+                .endControlFlow()
+                .addStatement("return $T.unmodifiableList(list)", Collections.class)
+                .build();
+    }
+
+    private boolean hasRereadListMethod(Context context) {
+        TypeName listType = getListTypeName(context);
+        return getMatchingStaticMethod(context.autoValueClass(), listType, CURSOR, listType)
+                .isPresent();
+    }
+
+    /**
+     * Creates a method that reads all rows of a cursor and reuses the objects of {@code previous}
+     * whose values didn't change. With a primary key the previous object of a row is the one with
+     * the same key, so rows that moved are reused as well. Without one it's the object at the same
+     * position, an inserted or removed row stops the reuse of all rows after it.
+     */
+    private MethodSpec createRereadListMethod(
+            Context context, ClassName readerClass, ColumnProperty primaryKey) {
+        ClassName valueClass = getAutoValueClassClassName(context);
+        MethodSpec.Builder method =
+                MethodSpec.methodBuilder(REREAD_LIST_METHOD_NAME)
+                        .addModifiers(STATIC)
+                        .returns(getListTypeName(context))
+                        .addParameter(CURSOR, "cursor")
+                        .addParameter(getListTypeName(context), "previous")
+                        .addStatement(
+                                "$T<$T> list = new $T<>(cursor.getCount())",
+                                LIST,
+                                valueClass,
+                                ArrayList.class)
+                        .addStatement("$1T reader = new $1T(cursor)", readerClass);
+        if (primaryKey == null) {
+            return method.addStatement("int previousSize = previous.size()")
+                    .beginControlFlow("while (cursor.moveToNext())")
+                    .addStatement("int position = list.size()")
+                    .addStatement(
+                            "$T old = position < previousSize ? previous.get(position) : null",
+                            valueClass)
+                    .addStatement("list.add(reader.$L(old))", READER_REUSE_METHOD_NAME)
+                    .endControlFlow()
+                    .addStatement("return $T.unmodifiableList(list)", Collections.class)
+                    .build();
+        }
+        return method.addStatement(
+                        "$T<$T, $T> previousByKey = new $T<>(previous.size() * 4 / 3 + 1)",
+                        Map.class,
+                        primaryKey.type().box(),
+                        valueClass,
+                        HashMap.class)
+                .beginControlFlow("for ($T item : previous)", valueClass)
+                .addStatement("previousByKey.put(item.$N(), item)", primaryKey.methodName())
+                .endControlFlow()
+                .beginControlFlow("while (cursor.moveToNext())")
+                .addStatement("list.add(reader.$L(previousByKey))", READER_REUSE_METHOD_NAME)
+                .endControlFlow()
+                .addStatement("return $T.unmodifiableList(list)", Collections.class)
+                .build();
+    }
+
+    private MethodSpec createIteratorMethod(ClassName iteratorClass) {
+        return MethodSpec.methodBuilder(ITERATOR_METHOD_NAME)
+                .addModifiers(STATIC)
+                .returns(iteratorClass)
+                .addParameter(CURSOR, "cursor")
+                .addStatement("return new $T(cursor)", iteratorClass)
+                .build();
+    }
+
+    /**
+     * Creates an iterator that reads one row per call to {@code next()} and closes the cursor
+     * when all rows were read.
+     */
+    private TypeSpec createIteratorClass(
+            Context context, ClassName iteratorClass, ClassName readerClass) {
+        TypeName valueClass = getAutoValueClassClassName(context);
+        MethodSpec constructor =
+                MethodSpec.constructorBuilder()
+                        .addParameter(CURSOR, "cursor")
+                        .addStatement("this.cursor = cursor")
+                        .addStatement("this.reader = new $T(cursor)", readerClass)
+                        .build();
+        MethodSpec hasNext =
+                MethodSpec.methodBuilder("hasNext")
+                        .addAnnotation(Override.class)
+                        .addModifiers(PUBLIC)
+                        .returns(TypeName.BOOLEAN)
+                        .beginControlFlow("if (!moved)")
+                        .addStatement("hasNext = cursor.moveToNext()")
+                        .addStatement("moved = true")
+                        .beginControlFlow("if (!hasNext)")
+                        .addStatement("cursor.close()")
+                        .endControlFlow()
+                        .endControlFlow()
+                        .addStatement("return hasNext")
+                        .build();
+        MethodSpec next =
+                MethodSpec.methodBuilder("next")
+                        .addAnnotation(Override.class)
+                        .addModifiers(PUBLIC)
+                        .returns(valueClass)
+                        .beginControlFlow("if (!hasNext())")
+                        .addStatement("throw new $T()", NoSuchElementException.class)
+                        .endControlFlow()
+                        .addStatement("moved = false")
+                        .addStatement("return reader.$L()", READER_METHOD_NAME)
+                        .build();
+        MethodSpec remove =
+                MethodSpec.methodBuilder("remove")
+                        .addAnnotation(Override.class)
+                        .addModifiers(PUBLIC)
+                        .addStatement("throw new $T()", UnsupportedOperationException.class)
+                        .build();
+        MethodSpec close =
+                MethodSpec.methodBuilder("close")
+                        .addAnnotation(Override.class)
+                        .addModifiers(PUBLIC)
+                        .addStatement("cursor.close()")
                         .build();
+        return TypeSpec.classBuilder(iteratorClass)
+                .addModifiers(STATIC, FINAL)
+                .addSuperinterface(ParameterizedTypeName.get(ITERATOR, valueClass))
+                .addSuperinterface(Closeable.class)
+                .addField(CURSOR, "cursor", PRIVATE, FINAL)
+                .addField(readerClass, "reader", PRIVATE, FINAL)
+                .addField(TypeName.BOOLEAN, "moved", PRIVATE)
+                .addField(TypeName.BOOLEAN, "hasNext", PRIVATE)
+                .addMethod(constructor)
+                .addMethod(hasNext)
+                .addMethod(next)
+                .addMethod(remove)
+                .addMethod(close)
+                .build();
+    }
+
+    /**
+     * Returns the properties passed to the row visitor, those that can be read from the cursor
+     * directly without a column adapter. Embedded properties aren't visited, creating them would
+     * allocate.
+     */
+    private static List<ColumnProperty> getVisitedProperties(List<ColumnProperty> properties) {
+        List<ColumnProperty> visited = new ArrayList<>(properties.size());
+        for (ColumnProperty property : properties) {
+            if (property.columnAdapter() == null && property.cursorMethod() != null) {
+                visited.add(property);
+            }
+        }
+        return visited;
+    }
+
+    /**
+     * Returns the type {@code property} is passed to the row visitor as. Boxed primitives are
+     * unboxed so that visiting a row doesn't allocate.
+     */
+    private static TypeName getVisitedType(ColumnProperty property) {
+        TypeName type = property.type();
+        return type.isBoxedPrimitive() ? type.unbox() : type;
+    }
+
+    /**
+     * Returns the names of the flags that are passed to the row visitor after every nullable
+     * property of a boxed type, which is true when the column is {@code null}.
+     */
+    private static ImmutableMap<ColumnProperty, String> getVisitorNullFlags(
+            List<ColumnProperty> visited) {
+        NameAllocator nameAllocator = new NameAllocator();
+        nameAllocator.newName("cursor");
+        nameAllocator.newName("visitor");
+        for (ColumnProperty property : visited) {
+            nameAllocator.newName(property.humanName());
+        }
+        ImmutableMap.Builder<ColumnProperty, String> flags = ImmutableMap.builder();
+        for (ColumnProperty property : visited) {
+            if (property.nullable() && property.type().isBoxedPrimitive()) {
+                flags.put(property, nameAllocator.newName(property.humanName() + "IsNull"));
+            }
+        }
+        return flags.build();
+    }
+
+    private TypeSpec createVisitorInterface(
+            ClassName visitorClass, List<ColumnProperty> properties) {
+        MethodSpec.Builder visit =
+                MethodSpec.methodBuilder(VISITOR_METHOD_NAME).addModifiers(PUBLIC, ABSTRACT);
+        List<ColumnProperty> visited = getVisitedProperties(properties);
+        ImmutableMap<ColumnProperty, String> nullFlags = getVisitorNullFlags(visited);
+        for (ColumnProperty property : visited) {
+            visit.addParameter(getVisitedType(property), property.humanName());
+            if (nullFlags.containsKey(property)) {
+                visit.addParameter(TypeName.BOOLEAN, nullFlags.get(property));
+            }
+        }
+        return TypeSpec.interfaceBuilder(visitorClass).addMethod(visit.build()).build();
+    }
+
+    /**
+     * Creates a method that passes the columns of every row to a visitor without creating
+     * an instance of the value class or boxing a value. Only the indices of the visited columns
+     * are resolved, once before the loop.
+     */
+    private MethodSpec createForEachRowMethod(
+            ClassName visitorClass,
+            List<ColumnProperty> properties,
+            ImmutableMap<Property, String> enumLookups) {
+        MethodSpec.Builder method =
+                MethodSpec.methodBuilder(FOR_EACH_ROW_METHOD_NAME)
+                        .addModifiers(STATIC)
+                        .addParameter(CURSOR, "cursor")
+                        .addParameter(visitorClass, "visitor");
+
+        List<ColumnProperty> visited = getVisitedProperties(properties);
+        ImmutableMap<ColumnProperty, String> nullFlags = getVisitorNullFlags(visited);
+        CodeBlock.Builder loop = CodeBlock.builder();
+        List<String> arguments = new ArrayList<>();
+        for (ColumnProperty property : visited) {
+            String columnIndexVar = declareColumnIndex(method, property);
+            String nullFlag = nullFlags.get(property);
+            CodeBlock isNull = null;
+            if (nullFlag != null) {
+                loop.addStatement(
+                        "boolean $N = $L == -1 || cursor.isNull($L)",
+                        nullFlag,
+                        columnIndexVar,
+                        columnIndexVar);
+                isNull = CodeBlock.of("$N", nullFlag);
+            }
+            loop.addStatement(
+                    "$T $N = $L",
+                    getVisitedType(property),
+                    property.humanName(),
+                    readVisitedValue(property, columnIndexVar, isNull, enumLookups));
+            arguments.add(property.humanName());
+            if (nullFlag != null) {
+                arguments.add(nullFlag);
+            }
+        }
+        return method.beginControlFlow("while (cursor.moveToNext())")
+                .addCode(loop.build())
+                .addStatement(
+                        "visitor.$L($L)", VISITOR_METHOD_NAME, Joiner.on(", ").join(arguments))
+                .endControlFlow()
+                .build();
+    }
+
+    /**
+     * Creates {@code forEachRow} for wide models. The visited columns of every row are read into
+     * a row from {@link #createVisitedRowClass}, which is created once per call so
+     * that visiting a row still doesn't allocate.
+     */
+    private MethodSpec createSplitForEachRowMethod(
+            ClassName visitorClass, ClassName visitedRowClass, List<ColumnProperty> properties) {
+        MethodSpec.Builder method =
+                MethodSpec.methodBuilder(FOR_EACH_ROW_METHOD_NAME)
+                        .addModifiers(STATIC)
+                        .addParameter(CURSOR, "cursor")
+                        .addParameter(visitorClass, "visitor")
+                        .addStatement("$1T row = new $1T(cursor)", visitedRowClass)
+                        .beginControlFlow("while (cursor.moveToNext())");
+
+        List<ColumnProperty> visited = getVisitedProperties(properties);
+        ImmutableMap<ColumnProperty, String> nullFlags = getVisitorNullFlags(visited);
+        for (int i = 0; i < MethodSize.READ.chunk(visited).size(); i++) {
+            method.addStatement("row.$N$L()", READ_COLUMNS_METHOD_NAME, i);
+        }
+        List<String> arguments = new ArrayList<>();
+        for (ColumnProperty property : visited) {
+            arguments.add("row." + property.humanName());
+            if (nullFlags.containsKey(property)) {
+                arguments.add("row." + nullFlags.get(property));
+            }
+        }
+        return method.addStatement(
+                        "visitor.$L($L)", VISITOR_METHOD_NAME, Joiner.on(", ").join(arguments))
+                .endControlFlow()
+                .build();
+    }
+
+    /**
+     * Creates a class holding the visited columns of a row. Its constructor resolves their
+     * indices and every {@code readColumns} method reads a chunk of them from the current row.
+     */
+    private TypeSpec createVisitedRowClass(
+            ClassName visitedRowClass,
+            List<ColumnProperty> properties,
+            ImmutableMap<Property, String> enumLookups) {
+        TypeSpec.Builder row =
+                TypeSpec.classBuilder(visitedRowClass)
+                        .addModifiers(STATIC, FINAL)
+                        .addField(CURSOR, "cursor", PRIVATE, FINAL);
+        MethodSpec.Builder constructor =
+                MethodSpec.constructorBuilder()
+                        .addParameter(CURSOR, "cursor")
+                        .addStatement("this.cursor = cursor");
+
+        List<ColumnProperty> visited = getVisitedProperties(properties);
+        ImmutableMap<ColumnProperty, String> nullFlags = getVisitorNullFlags(visited);
+        List<List<ColumnProperty>> chunks = MethodSize.READ.chunk(visited);
+        for (int i = 0; i < chunks.size(); i++) {
+            MethodSpec.Builder method = MethodSpec.methodBuilder(READ_COLUMNS_METHOD_NAME + i);
+            for (ColumnProperty property : chunks.get(i)) {
+                String columnIndexVar = property.humanName() + "ColumnIndex";
+                CodeBlock columnIndex = property.nullable()
+                        ? getColumnIndex(property)
+                        : getColumnIndexOrThrow(property);
+                row.addField(TypeName.INT, columnIndexVar, PRIVATE, FINAL);
+                constructor.addStatement("$L = $L", columnIndexVar, columnIndex);
+
+                // not private since forEachRow passes them to the visitor
+                row.addField(getVisitedType(property), property.humanName());
+                String nullFlag = nullFlags.get(property);
+                CodeBlock isNull = null;
+                if (nullFlag != null) {
+                    row.addField(TypeName.BOOLEAN, nullFlag);
+                    method.addStatement(
+                            "$N = $L == -1 || cursor.isNull($L)",
+                            nullFlag,
+                            columnIndexVar,
+                            columnIndexVar);
+                    isNull = CodeBlock.of("$N", nullFlag);
+                }
+                method.addStatement(
+                        "$N = $L",
+                        property.humanName(),
+                        readVisitedValue(property, columnIndexVar, isNull, enumLookups));
+            }
+            row.addMethod(method.build());
+        }
+        return row.addMethod(constructor.build()).build();
+    }
+
+    /**
+     * Returns the code reading the visited column of {@code property} at {@code columnIndex}.
+     * Nullable properties of a boxed type are read as {@code 0} or {@code false} when
+     * {@code isNull} is true.
+     */
+    private CodeBlock readVisitedValue(
+            ColumnProperty property,
+            String columnIndex,
+            CodeBlock isNull,
+            ImmutableMap<Property, String> enumLookups) {
+        ImmutableMap<Property, FieldSpec> noAdapters = ImmutableMap.of();
+        CodeBlock value = readValue(property, columnIndex, noAdapters, enumLookups);
+        if (isNull != null) {
+            String defaultValue = getVisitedType(property).equals(TypeName.BOOLEAN) ? "false" : "0";
+            return CodeBlock.of("$L ? $L : $L", isNull, defaultValue, value);
+        }
+        if (property.nullable()) {
+            return readNullableValue(property, columnIndex, noAdapters, enumLookups);
+        }
+        return value;
+    }
+
+    /**
+     * Returns the type of the array holding the values of {@code property} in a column batch.
+     * Primitives and their boxed types are stored unboxed, nullable ones get a separate bit set
+     * for their null values.
+     */
+    private TypeName getBatchArrayType(ColumnProperty property) {
+        TypeName type = property.type();
+        if (property.columnAdapter() == null && type.isBoxedPrimitive()) {
+            return ArrayTypeName.of(type.unbox());
+        }
+        if (type instanceof ParameterizedTypeName || type instanceof TypeVariableName) {
+            // generic arrays can't be created
+            return ArrayTypeName.of(Object.class);
+        }
+        return ArrayTypeName.of(type);
+    }
+
+    private boolean hasBatchNulls(ColumnProperty property) {
+        return property.nullable() && property.columnAdapter() == null
+                && property.type().isBoxedPrimitive();
+    }
+
+    private boolean isBatchColumn(ColumnProperty property) {
+        return property.columnAdapter() != null || property.supportedType() || property.embedded();
+    }
+
+    /**
+     * Creates a class that stores all rows of a cursor in one array per property.
+     */
+    private TypeSpec createBatchClass(
+            Context context, ClassName batchClass, List<ColumnProperty> properties) {
+        TypeSpec.Builder batch =
+                TypeSpec.classBuilder(batchClass)
+                        .addModifiers(STATIC, FINAL)
+                        .addField(TypeName.INT, "size", FINAL);
+        MethodSpec.Builder constructor =
+                MethodSpec.constructorBuilder()
+                        .addParameter(TypeName.INT, "size")
+                        .addStatement("this.size = size");
+        MethodSpec.Builder get =
+                MethodSpec.methodBuilder("get")
+                        .returns(getFinalClassClassName(context))
+                        .addParameter(TypeName.INT, "row");
+
+        boolean unchecked = false;
+        String[] values = new String[properties.size()];
+        for (int i = 0; i < properties.size(); i++) {
+            ColumnProperty property = properties.get(i);
+            String name = property.humanName();
+            if (!isBatchColumn(property)) {
+                values[i] = "null";
+                continue;
+            }
+            TypeName arrayType = getBatchArrayType(property);
+            batch.addField(arrayType, name, FINAL);
+            constructor.addStatement("this.$N = $L", name, newBatchArray(arrayType));
+            if (hasBatchNulls(property)) {
+                batch.addField(BitSet.class, name + "Nulls", FINAL);
+                constructor.addStatement("this.$N = new $T(size)", name + "Nulls", BitSet.class);
+                values[i] = CodeBlock.of("$NNulls.get(row) ? null : $N[row]", name, name).toString();
+            } else if (arrayType.equals(ArrayTypeName.of(Object.class))
+                    && !property.type().equals(TypeName.OBJECT)) {
+                unchecked = true;
+                values[i] = CodeBlock.of("($T) $N[row]", property.type(), name).toString();
+            } else {
+                values[i] = CodeBlock.of("$N[row]", name).toString();
+            }
+        }
+        if (unchecked) {
+            get.addAnnotation(
+                    AnnotationSpec.builder(SuppressWarnings.class)
+                            .addMember("value", "$S", "unchecked")
+                            .build());
+        }
+        get.addCode("return ").addCode(newInstance(context, properties, values));
+        return batch.addMethod(constructor.build()).addMethod(get.build()).build();
+    }
+
+    /**
+     * Returns the code that creates an array of {@code arrayType} with one element per row. The
+     * row dimension has to come first, a {@code byte[][]} is created with {@code new byte[size][]}.
+     */
+    private CodeBlock newBatchArray(TypeName arrayType) {
+        TypeName elementType = ((ArrayTypeName) arrayType).componentType;
+        StringBuilder dimensions = new StringBuilder();
+        while (elementType instanceof ArrayTypeName) {
+            elementType = ((ArrayTypeName) elementType).componentType;
+            dimensions.append("[]");
+        }
+        return CodeBlock.of("new $T[size]$L", elementType, dimensions);
+    }
+
+    /**
+     * Creates a method that reads all rows of a cursor into a column batch in a single pass. When
+     * {@code readChunks} isn't null the rows are read with the {@code readColumns} methods of the
+     * reader.
+     */
+    private MethodSpec createReadBatchMethod(
+            ClassName batchClass,
+            ClassName readerClass,
+            ImmutableList<ColumnProperty> properties,
+            ImmutableList<List<ColumnProperty>> readChunks,
+            ImmutableMap<Property, FieldSpec> columnAdapters,
+            ImmutableMap<Property, String> enumLookups) {
+        MethodSpec.Builder method =
+                MethodSpec.methodBuilder(BATCH_METHOD_NAME)
+                        .addModifiers(STATIC)
+                        .returns(batchClass)
+                        .addParameter(CURSOR, "cursor")
+                        .addStatement("$1T batch = new $1T(cursor.getCount())", batchClass);
+
+        CodeBlock loop;
+        if (readChunks != null) {
+            method.addStatement("$1T reader = new $1T(cursor)", readerClass);
+            loop = createSplitBatchReads(properties, readChunks.size());
+        } else {
+            loop = createBatchReads(method, properties, columnAdapters, enumLookups);
+        }
+        return method.beginControlFlow(
+                        "for (int row = 0; row < batch.size && cursor.moveToNext(); row++)")
+                .addCode(loop)
+                .endControlFlow()
+                .addStatement("return batch")
+                .build();
+    }
+
+    /**
+     * Returns the statements that put the values of the current row into {@code batch}, the
+     * column indices and adapters they need are added to {@code method}.
+     */
+    private CodeBlock createBatchReads(
+            MethodSpec.Builder method,
+            ImmutableList<ColumnProperty> properties,
+            ImmutableMap<Property, FieldSpec> columnAdapters,
+            ImmutableMap<Property, String> enumLookups) {
+        addColumnAdaptersToMethod(method, properties, columnAdapters);
+
+        CodeBlock.Builder loop = CodeBlock.builder();
+        for (ColumnProperty property : properties) {
+            String name = property.humanName();
+            if (!isBatchColumn(property)) {
+                continue;
+            }
+            if (property.columnTypeAdapter()) {
+                loop.addStatement(
+                        "batch.$N[row] = $N.fromCursor(cursor, $S)",
+                        name,
+                        columnAdapters.get(property),
+                        property.columnName());
+                continue;
+            }
+            if (property.embedded()) {
+                addEmbeddedRead(method, loop, property, columnAdapters, enumLookups);
+                loop.addStatement("batch.$N[row] = $N", name, name);
+                continue;
+            }
+            String columnIndexVar = declareColumnIndex(method, property);
+            if (hasBatchNulls(property)) {
+                loop.beginControlFlow(
+                                "if ($L == -1 || cursor.isNull($L))", columnIndexVar, columnIndexVar)
+                        .addStatement("batch.$NNulls.set(row)", name)
+                        .nextControlFlow("else")
+                        .addStatement(
+                                "batch.$N[row] = $L",
+                                name,
+                                readValue(property, columnIndexVar, columnAdapters, enumLookups))
+                        .endControlFlow();
+            } else if (property.nullable()) {
+                loop.addStatement(
+                        "batch.$N[row] = $L",
+                        name,
+                        readNullableValue(property, columnIndexVar, columnAdapters, enumLookups));
+            } else {
+                loop.addStatement(
+                        "batch.$N[row] = $L",
+                        name,
+                        readValue(property, columnIndexVar, columnAdapters, enumLookups));
+            }
+        }
+        return loop.build();
+    }
+
+    /**
+     * Returns the statements that read the current row with the {@code readColumns} methods of a
+     * reader called {@code reader} and put the values from its fields into {@code batch}.
+     */
+    private CodeBlock createSplitBatchReads(
+            ImmutableList<ColumnProperty> properties, int readChunks) {
+        CodeBlock.Builder loop = CodeBlock.builder();
+        for (int i = 0; i < readChunks; i++) {
+            loop.addStatement("reader.$N$L()", READ_COLUMNS_METHOD_NAME, i);
+        }
+        for (ColumnProperty property : properties) {
+            String name = property.humanName();
+            if (!isBatchColumn(property)) {
+                continue;
+            }
+            if (hasBatchNulls(property)) {
+                loop.beginControlFlow("if (reader.$N == null)", name)
+                        .addStatement("batch.$NNulls.set(row)", name)
+                        .nextControlFlow("else")
+                        .addStatement("batch.$1N[row] = reader.$1N", name)
+                        .endControlFlow();
+            } else {
+                loop.addStatement("batch.$1N[row] = reader.$1N", name);
+            }
+        }
+        return loop.build();
+    }
+
+    /**
+     * Adds a local variable holding the value of the embedded property to {@code reads}, the
+     * column indices of its properties are resolved in {@code method} before. {@code readBatch}
+     * does that before its loop, {@code createFromCursor} for a grouped property whose row is
+     * checked with these indices.
+     */
+    private void addEmbeddedRead(
+            MethodSpec.Builder method,
+            CodeBlock.Builder reads,
+            ColumnProperty property,
+            ImmutableMap<Property, FieldSpec> columnAdapters,
+            ImmutableMap<Property, String> enumLookups) {
+        CodeBlock.Builder embeddedReads = CodeBlock.builder();
+        for (ColumnProperty embeddedProperty : property.embeddedProperties()) {
+            if (embeddedProperty.columnTypeAdapter()) {
+                embeddedReads.addStatement(
+                        "$T $N = $N.fromCursor(cursor, $S)",
+                        embeddedProperty.type(),
+                        embeddedProperty.humanName(),
+                        columnAdapters.get(embeddedProperty),
+                        embeddedProperty.columnName());
+            } else if (embeddedProperty.embedded()) {
+                addEmbeddedRead(
+                        method, embeddedReads, embeddedProperty, columnAdapters, enumLookups);
+            } else if (embeddedProperty.cursorMethod() != null) {
+                String columnIndexVar = declareColumnIndex(method, embeddedProperty);
+                CodeBlock getValue = embeddedProperty.nullable()
+                        ? readNullableValue(
+                                embeddedProperty, columnIndexVar, columnAdapters, enumLookups)
+                        : readValue(embeddedProperty, columnIndexVar, columnAdapters, enumLookups);
+                embeddedReads.addStatement(
+                        "$T $N = $L",
+                        embeddedProperty.type(),
+                        embeddedProperty.humanName(),
+                        getValue);
+            } else {
+                embeddedReads.addStatement(
+                        "$T $N = null", embeddedProperty.type(), embeddedProperty.humanName());
+            }
+        }
+        reads.add(readEmbedded(property, embeddedReads.build(), null));
+    }
+
+    /**
+     * Returns true if the value class has a static method that takes a {@code Cursor} and the
+     * generated nested type {@code simpleName}. That type doesn't exist before this extension ran,
+     * so the parameter is matched by its name.
+     */
+    private static boolean hasStaticMethodTakingGeneratedType(Context context, String simpleName) {
+        TypeElement valueClass = context.autoValueClass();
+        for (ExecutableElement method : ElementFilter.methodsIn(valueClass.getEnclosedElements())) {
+            List<? extends VariableElement> parameters = method.getParameters();
+            if (method.getModifiers().contains(STATIC)
+                    && parameters.size() == 2
+                    && TypeName.get(parameters.get(0).asType()).equals(CURSOR)
+                    && isGeneratedType(context, parameters.get(1).asType(), simpleName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns true if the value class has a static method that takes a {@code Cursor} and returns
+     * the generated nested type {@code simpleName}.
+     */
+    private static boolean hasStaticMethodReturningGeneratedType(
+            Context context, String simpleName) {
+        TypeElement valueClass = context.autoValueClass();
+        for (ExecutableElement method : ElementFilter.methodsIn(valueClass.getEnclosedElements())) {
+            List<? extends VariableElement> parameters = method.getParameters();
+            if (method.getModifiers().contains(STATIC)
+                    && parameters.size() == 1
+                    && TypeName.get(parameters.get(0).asType()).equals(CURSOR)
+                    && isGeneratedType(context, method.getReturnType(), simpleName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns true if {@code type} is the type {@code simpleName} nested in the generated final
+     * class, like {@code AutoValue_User.RowVisitor}. Types of the same name nested in other
+     * classes don't match.
+     */
+    private static boolean isGeneratedType(Context context, TypeMirror type, String simpleName) {
+        String generatedType = getFinalClassClassName(context).simpleName() + "." + simpleName;
+        String typeName = type.toString();
+        return typeName.equals(generatedType) || typeName.endsWith("." + generatedType);
+    }
+
+    private FieldSpec createRxJava1Mapper(Context context, ClassName readerClass) {
+        TypeName func1Name = getFunc1TypeName(context);
         TypeSpec func1 =
                 TypeSpec.anonymousClassBuilder("")
                         .addSuperinterface(func1Name)
-                        .addMethod(func1Method)
+                        .addField(readerClass, "reader", PRIVATE, VOLATILE)
+                        .addMethod(createMapperMethod(context, readerClass, FUNC1_METHOD_NAME))
                         .build();
         return FieldSpec.builder(func1Name, FUNC1_FIELD_NAME, STATIC, FINAL)
                 .initializer("$L", func1)
                 .build();
     }
 
-    private FieldSpec createRxJava2Mapper(Context context) {
+    private FieldSpec createRxJava2Mapper(Context context, ClassName readerClass) {
         TypeName functionName = getFunctionTypeName(context);
-        MethodSpec functionMethod =
-                MethodSpec.methodBuilder(FUNCTION_METHOD_NAME)
-                        .addAnnotation(Override.class)
-                        .addModifiers(PUBLIC)
-                        .addParameter(CURSOR, "c")
-                        .returns(getFinalClassClassName(context))
-                        .addStatement("return $L($N)", METHOD_NAME, "c")
-                        .build();
         TypeSpec function =
                 TypeSpec.anonymousClassBuilder("")
                         .addSuperinterface(functionName)
-                        .addMethod(functionMethod)
+                        .addField(readerClass, "reader", PRIVATE, VOLATILE)
+                        .addMethod(createMapperMethod(context, readerClass, FUNCTION_METHOD_NAME))
                         .build();
         return FieldSpec.builder(functionName, FUNCTION_FIELD_NAME, STATIC, FINAL)
                 .initializer("$L", function)
                 .build();
     }
 
+    /**
+     * Creates the method of a mapper that keeps the reader of the last cursor it has seen, column
+     * indices are only resolved again when it's called with a different cursor. The mapper lives
+     * as long as the process, so the reader is replaced once its cursor was closed and at most one
+     * cursor is kept alive by it.
+     */
+    private MethodSpec createMapperMethod(
+            Context context, ClassName readerClass, String methodName) {
+        return MethodSpec.methodBuilder(methodName)
+                .addAnnotation(Override.class)
+                .addModifiers(PUBLIC)
+                .addParameter(CURSOR, "c")
+                .returns(getFinalClassClassName(context))
+                .addStatement("$T reader = this.reader", readerClass)
+                .beginControlFlow(
+                        "if (reader == null || reader.cursor != c || reader.cursor.isClosed())")
+                .addStatement("reader = new $T(c)", readerClass)
+                .addStatement("this.reader = reader")
+                .endControlFlow()
+                .addStatement("return reader.$L()", READER_METHOD_NAME)
+                .build();
+    }
+
+    private TypeName getListTypeName(Context context) {
+        return ParameterizedTypeName.get(LIST, getAutoValueClassClassName(context));
+    }
+
+    private TypeName getIteratorTypeName(Context context) {
+        return ParameterizedTypeName.get(ITERATOR, getAutoValueClassClassName(context));
+    }
+
     private TypeName getFunc1TypeName(Context context) {
         return ParameterizedTypeName.get(FUNC1, CURSOR, getAutoValueClassClassName(context));
     }
@@ -192,16 +2425,43 @@ public class AutoValueCursorExtension extends AutoValueExtension {
         return ParameterizedTypeName.get(FUNCTION, CURSOR, getAutoValueClassClassName(context));
     }
 
+    /**
+     * Returns the field or local variable holding the column adapter of every property that has
+     * one. Properties using the same adapter class share it, adapters whose simple names are the
+     * same get unique names.
+     */
     public static ImmutableMap<Property, FieldSpec> getColumnAdapters(
             List<ColumnProperty> properties) {
         Map<Property, FieldSpec> columnAdapters = new HashMap<>();
-        for (ColumnProperty property : properties) {
-            if (property.columnAdapter() != null && !columnAdapters.containsKey(property)) {
-                ClassName clsName = (ClassName) TypeName.get(property.columnAdapter());
-                String name = NameAllocator.toJavaIdentifier(toLowerCase(clsName.simpleName()));
-                FieldSpec field = FieldSpec.builder(clsName, name).build();
-                columnAdapters.put(property, field);
+        Map<ClassName, FieldSpec> sharedAdapters = new HashMap<>();
+        Map<ClassName, FieldSpec> localAdapters = new HashMap<>();
+        NameAllocator sharedNames = new NameAllocator();
+        NameAllocator localNames = new NameAllocator();
+        for (ColumnProperty property : ColumnProperty.flatten(properties)) {
+            if (property.columnAdapter() == null) {
+                continue;
             }
+            ClassName clsName = (ClassName) TypeName.get(property.columnAdapter());
+            FieldSpec field;
+            if (property.sharedColumnAdapter()) {
+                field = sharedAdapters.get(clsName);
+                if (field == null) {
+                    String name = sharedNames.newName(
+                            UPPER_CAMEL.to(UPPER_UNDERSCORE, clsName.simpleName()), clsName);
+                    field = FieldSpec.builder(clsName, name, STATIC, FINAL)
+                            .initializer("new $T()", clsName)
+                            .build();
+                    sharedAdapters.put(clsName, field);
+                }
+            } else {
+                field = localAdapters.get(clsName);
+                if (field == null) {
+                    String name = localNames.newName(toLowerCase(clsName.simpleName()), clsName);
+                    field = FieldSpec.builder(clsName, name).build();
+                    localAdapters.put(clsName, field);
+                }
+            }
+            columnAdapters.put(property, field);
         }
         return ImmutableMap.copyOf(columnAdapters);
     }
@@ -214,15 +2474,89 @@ public class AutoValueCursorExtension extends AutoValueExtension {
             MethodSpec.Builder method,
             List<ColumnProperty> properties,
             ImmutableMap<Property, FieldSpec> columnAdapters) {
-        if (columnAdapters.size() == 0) {
-            return;
+        for (FieldSpec adapter : getLocalColumnAdapters(properties, columnAdapters)) {
+            method.addStatement("$1T $2N = new $1T()", adapter.type, adapter);
         }
+    }
 
+    /**
+     * Returns the adapters of {@code properties} that aren't shared and have to be created by the
+     * generated methods, without duplicates.
+     */
+    public static List<FieldSpec> getLocalColumnAdapters(
+            List<ColumnProperty> properties, ImmutableMap<Property, FieldSpec> columnAdapters) {
+        List<FieldSpec> adapters = new ArrayList<>(columnAdapters.size());
+        for (Property property : ColumnProperty.flatten(properties)) {
+            FieldSpec adapter = columnAdapters.get(property);
+            if (adapter != null && !adapter.hasModifier(STATIC) && !adapters.contains(adapter)) {
+                adapters.add(adapter);
+            }
+        }
+        return adapters;
+    }
+
+    /**
+     * Returns true if {@code extension} declares the shared column adapters and enum lookups of
+     * the generated class hierarchy. That's the first applicable one of the cursor, ContentValues
+     * and ByteBuffer extensions, the others reference the members through the final class. It
+     * also reports the errors from {@link ColumnProperty#checkEmbedded}, so they appear once.
+     */
+    public static boolean declaresSharedMembers(Context context, AutoValueExtension extension) {
+        List<AutoValueExtension> extensions =
+                Arrays.asList(
+                        new AutoValueCursorExtension(),
+                        new AutoValueContentValuesExtension(),
+                        new AutoValueByteBufferExtension());
+        for (AutoValueExtension owner : extensions) {
+            if (owner.applicable(context)) {
+                return owner.getClass() == extension.getClass();
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns a reference to a static field or method shared by the extensions, like a column
+     * adapter or an enum lookup. When {@code sharedMembersElsewhere} it's declared in the class of
+     * another extension, which might be a subclass of the generated one, so it's referenced
+     * through the final class.
+     */
+    public static CodeBlock getSharedMember(
+            Context context, String name, boolean sharedMembersElsewhere) {
+        if (sharedMembersElsewhere) {
+            return CodeBlock.of("$T.$N", getFinalClassClassName(context), name);
+        }
+        return CodeBlock.of("$N", name);
+    }
+
+    /**
+     * Returns a reference to {@code adapter}, going through {@link #getSharedMember(Context,
+     * String, boolean)} for a shared one.
+     */
+    public static CodeBlock getColumnAdapter(
+            Context context, FieldSpec adapter, boolean sharedMembersElsewhere) {
+        if (adapter.hasModifier(STATIC)) {
+            return getSharedMember(context, adapter.name, sharedMembersElsewhere);
+        }
+        return CodeBlock.of("$N", adapter);
+    }
+
+    /**
+     * Adds a static field for every adapter that was declared with {@code shared = true}. Only one
+     * class in the generated hierarchy should declare them, see {@link
+     * #declaresSharedMembers(Context, AutoValueExtension)}.
+     */
+    public static void addSharedColumnAdapters(
+            TypeSpec.Builder type,
+            List<ColumnProperty> properties,
+            ImmutableMap<Property, FieldSpec> columnAdapters) {
         List<FieldSpec> handledAdapters = new ArrayList<>(columnAdapters.size());
-        for (Property property : properties) {
+        for (Property property : ColumnProperty.flatten(properties)) {
             FieldSpec adapter = columnAdapters.get(property);
-            if (adapter != null && !handledAdapters.contains(adapter)) {
-                method.addStatement("$1T $2N = new $1T()", adapter.type, adapter);
+            if (adapter != null
+                    && adapter.hasModifier(STATIC)
+                    && !handledAdapters.contains(adapter)) {
+                type.addField(adapter);
                 handledAdapters.add(adapter);
             }
         }
@@ -26,6 +26,31 @@ import java.io.Closeable;
  * </p>
  */
 public interface Cursor extends Closeable {
+    /**
+     * Returns the numbers of rows in the cursor.
+     *
+     * @return the number of rows in the cursor.
+     */
+    int getCount();
+
+    /**
+     * Move the cursor to the next row.
+     *
+     * <p>This method will return false if the cursor is already past the
+     * last entry in the result set.
+     *
+     * @return whether the move succeeded.
+     */
+    boolean moveToNext();
+
+    /**
+     * Returns whether the cursor is pointing to the position after the last
+     * row.
+     *
+     * @return whether the cursor is after the last result.
+     */
+    boolean isAfterLast();
+
     /**
      * Returns the zero-based index for the given column name, or -1 if the column doesn't exist.
      * If you expect the column to exist use {@link #getColumnIndexOrThrow(String)} instead, which
@@ -50,6 +75,14 @@ public interface Cursor extends Closeable {
      */
     int getColumnIndexOrThrow(String columnName) throws IllegalArgumentException;
     
+    /**
+     * Returns a string array holding the names of all of the columns in the
+     * result set in the order in which they were listed in the result.
+     *
+     * @return the names of the columns returned in this query.
+     */
+    String[] getColumnNames();
+
     /**
      * Returns the value of the requested column as a byte array.
      *
@@ -135,4 +168,15 @@ public interface Cursor extends Closeable {
     double getDouble(int columnIndex);
 
     boolean isNull (int columnIndex);
+
+    /**
+     * Closes the Cursor, releasing all of its resources and making it completely invalid.
+     */
+    void close();
+
+    /**
+     * return true if the cursor is closed
+     * @return true if the cursor is closed.
+     */
+    boolean isClosed();
 }
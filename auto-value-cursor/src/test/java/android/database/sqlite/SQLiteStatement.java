@@ -0,0 +1,25 @@
+package android.database.sqlite;
+
+public final class SQLiteStatement {
+    public void bindNull(int index) {
+    }
+
+    public void bindLong(int index, long value) {
+    }
+
+    public void bindDouble(int index, double value) {
+    }
+
+    public void bindString(int index, String value) {
+    }
+
+    public void bindBlob(int index, byte[] value) {
+    }
+
+    public void clearBindings() {
+    }
+
+    public long executeInsert() {
+        return -1;
+    }
+}
@@ -0,0 +1,329 @@
+package com.gabrielittner.auto.value;
+
+import com.google.auto.value.processor.AutoValueProcessor;
+import com.google.testing.compile.JavaFileObjects;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.tools.JavaFileObject;
+import org.junit.Test;
+
+import static com.google.common.truth.Truth.assertAbout;
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth.assertWithMessage;
+import static com.google.testing.compile.JavaSourcesSubjectFactory.javaSources;
+
+/**
+ * Compiles models with hundreds of columns and checks that no generated method gets past HotSpot's
+ * huge method limit, methods with more than 8000 bytes of bytecode are never compiled by the JIT.
+ */
+public class GeneratedMethodSizeTest {
+
+    private static final int HUGE_METHOD_LIMIT = 8000;
+
+    // ColumnTypeAdapters can't be bound to a SQLiteStatement or written to a ByteBuffer
+    private static final List<String> STATEMENT_AND_BUFFER_METHODS = Arrays.asList(
+            "public static void bind(SQLiteStatement statement, Test value) {"
+                    + " AutoValue_Test.bindTo(statement, value); }",
+            "public static Test read(ByteBuffer buffer) {"
+                    + " return AutoValue_Test.readFrom(buffer); }",
+            "public abstract void writeTo(ByteBuffer buffer);");
+
+    @Test
+    public void nullableColumns() {
+        List<String> properties = new ArrayList<>();
+        for (int i = 0; i < 250; i++) {
+            properties.add("@Nullable public abstract String p" + i + "();");
+        }
+        properties.addAll(STATEMENT_AND_BUFFER_METHODS);
+        assertMethodsBelowLimit(model(properties));
+    }
+
+    @Test
+    public void mixedColumns() {
+        List<String> properties = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            switch (i % 8) {
+                case 0:
+                    properties.add("public abstract long p" + i + "();");
+                    break;
+                case 1:
+                    properties.add("@ColumnName(\"column_" + i + "\") public abstract String p"
+                            + i + "();");
+                    break;
+                case 2:
+                    properties.add("@Nullable public abstract Integer p" + i + "();");
+                    break;
+                case 3:
+                    properties.add("public abstract boolean p" + i + "();");
+                    break;
+                case 4:
+                    properties.add("public abstract State p" + i + "();");
+                    break;
+                case 5:
+                    properties.add("@ColumnAdapter(DateAdapter.class) public abstract Date p"
+                            + i + "();");
+                    break;
+                case 6:
+                    properties.add("@ColumnAdapter(PointAdapter.class) public abstract Point p"
+                            + i + "();");
+                    break;
+                default:
+                    properties.add("@Nullable public abstract Double p" + i + "();");
+                    break;
+            }
+        }
+        assertMethodsBelowLimit(model(properties));
+    }
+
+    @Test
+    public void embeddedColumns() {
+        StringBuilder inner = new StringBuilder()
+                .append("package test;\n")
+                .append("import com.google.auto.value.AutoValue;\n")
+                .append("@AutoValue public abstract class Inner {\n");
+        for (int i = 0; i < 180; i++) {
+            inner.append("  public abstract String p").append(i).append("();\n");
+        }
+        inner.append("}\n");
+        List<String> properties = new ArrayList<>(Arrays.asList(
+                "@ColumnPrefix(\"a_\") public abstract Inner a();",
+                "@ColumnPrefix(\"b_\") public abstract Inner b();",
+                "@ColumnPrefix(\"c_\") public abstract Inner c();"));
+        properties.addAll(STATEMENT_AND_BUFFER_METHODS);
+        assertMethodsBelowLimit(
+                model(properties),
+                JavaFileObjects.forSourceString("test.Inner", inner.toString()));
+    }
+
+    @Test
+    public void groupedColumns() {
+        StringBuilder chapter = new StringBuilder()
+                .append("package test;\n")
+                .append("import com.google.auto.value.AutoValue;\n")
+                .append("import javax.annotation.Nullable;\n")
+                .append("@AutoValue public abstract class Chapter {\n")
+                .append("  public abstract long id();\n");
+        for (int i = 0; i < 120; i++) {
+            chapter.append("  @Nullable public abstract String p").append(i).append("();\n");
+        }
+        chapter.append("}\n");
+        List<String> properties = new ArrayList<>();
+        properties.add("public abstract long id();");
+        for (int i = 0; i < 120; i++) {
+            properties.add("@Nullable public abstract String p" + i + "();");
+        }
+        properties.add("@ColumnPrefix(\"chapter_\") @GroupedBy(\"id\")"
+                + " public abstract List<Chapter> chapters();");
+        // rereadList can't be used with a grouped property
+        assertMethodsBelowLimit(
+                model(properties, false),
+                JavaFileObjects.forSourceString("test.Chapter", chapter.toString()));
+    }
+
+    private static JavaFileObject model(List<String> properties) {
+        return model(properties, true);
+    }
+
+    private static JavaFileObject model(List<String> properties, boolean reread) {
+        StringBuilder source = new StringBuilder()
+                .append("package test;\n")
+                .append("import android.content.ContentValues;\n")
+                .append("import android.database.Cursor;\n")
+                .append("import com.gabrielittner.auto.value.cursor.ColumnAdapter;\n")
+                .append("import com.gabrielittner.auto.value.cursor.ColumnName;\n")
+                .append("import android.database.sqlite.SQLiteStatement;\n")
+                .append("import com.gabrielittner.auto.value.cursor.ColumnPrefix;\n")
+                .append("import com.gabrielittner.auto.value.cursor.GroupedBy;\n")
+                .append("import com.google.auto.value.AutoValue;\n")
+                .append("import java.nio.ByteBuffer;\n")
+                .append("import java.util.Collection;\n")
+                .append("import java.util.Date;\n")
+                .append("import java.util.List;\n")
+                .append("import javax.annotation.Nullable;\n")
+                .append("@AutoValue public abstract class Test {\n");
+        for (String property : properties) {
+            source.append("  ").append(property).append("\n");
+        }
+        source.append("  public static Test create(Cursor cursor) {"
+                        + " return AutoValue_Test.createFromCursor(cursor); }\n")
+                .append("  public static List<Test> createList(Cursor cursor) {"
+                        + " return AutoValue_Test.createListFromCursor(cursor); }\n");
+        if (reread) {
+            source.append("  public static List<Test> reread(Cursor cursor, List<Test> previous) {"
+                    + " return AutoValue_Test.rereadList(cursor, previous); }\n");
+        }
+        source.append("  public static ContentValues[] toArray(Collection<Test> items) {"
+                        + " return AutoValue_Test.toContentValuesArray(items); }\n")
+                .append("  public static void visit(Cursor cursor, AutoValue_Test.RowVisitor visitor) {"
+                        + " AutoValue_Test.forEachRow(cursor, visitor); }\n")
+                .append("  public static AutoValue_Test.ColumnBatch readAll(Cursor cursor) {"
+                        + " return AutoValue_Test.readBatch(cursor); }\n")
+                .append("  public static String[] projection() {"
+                        + " return AutoValue_Test.PROJECTION; }\n")
+                .append("  public abstract ContentValues toContentValues();\n")
+                .append("  public abstract void writeInto(ContentValues values);\n")
+                .append("  public abstract ContentValues toContentValuesDiff(Test previous);\n")
+                .append("}\n");
+        return JavaFileObjects.forSourceString("test.Test", source.toString());
+    }
+
+    private static void assertMethodsBelowLimit(JavaFileObject... models) {
+        List<JavaFileObject> sources = new ArrayList<>(Arrays.asList(models));
+        sources.addAll(Arrays.asList(
+                JavaFileObjects.forSourceString("test.State", ""
+                        + "package test;\n"
+                        + "public enum State { ON, OFF }\n"),
+                JavaFileObjects.forSourceString("test.DateAdapter", ""
+                        + "package test;\n"
+                        + "import com.gabrielittner.auto.value.cursor.LongColumnAdapter;\n"
+                        + "import java.util.Date;\n"
+                        + "public class DateAdapter implements LongColumnAdapter<Date> {\n"
+                        + "  public Date fromLong(long value) { return new Date(value); }\n"
+                        + "  public long toLong(Date value) { return value.getTime(); }\n"
+                        + "}\n"),
+                JavaFileObjects.forSourceString("test.Point", ""
+                        + "package test;\n"
+                        + "public class Point {}\n"),
+                JavaFileObjects.forSourceString("test.PointAdapter", ""
+                        + "package test;\n"
+                        + "import android.content.ContentValues;\n"
+                        + "import android.database.Cursor;\n"
+                        + "import com.gabrielittner.auto.value.cursor.ColumnTypeAdapter;\n"
+                        + "public class PointAdapter implements ColumnTypeAdapter<Point> {\n"
+                        + "  public Point fromCursor(Cursor cursor, String columnName) {"
+                        + " return new Point(); }\n"
+                        + "  public void toContentValues(ContentValues values, String columnName,"
+                        + " Point value) {}\n"
+                        + "}\n")));
+
+        assertAbout(javaSources())
+                .that(sources)
+                .processedWith(new AutoValueProcessor())
+                .compilesWithoutError();
+
+        Map<String, Integer> sizes = compileAndMeasure(sources);
+        // a model with a grouped property reads groups instead of rereading lists
+        String rereadMethod = sizes.containsKey("AutoValue_Test$CursorReader.readGroup")
+                ? "AutoValue_Test$CursorReader.readGroup"
+                : "AutoValue_Test$CursorReader.readOrReuse";
+        assertThat(sizes.keySet()).containsAllOf(
+                "AutoValue_Test.createFromCursor",
+                "AutoValue_Test$CursorReader.read",
+                rereadMethod,
+                "AutoValue_Test.toContentValues");
+        for (Map.Entry<String, Integer> size : sizes.entrySet()) {
+            assertWithMessage(size.getKey() + " has " + size.getValue() + " bytes of bytecode")
+                    .that(size.getValue())
+                    .isLessThan(HUGE_METHOD_LIMIT);
+        }
+    }
+
+    /**
+     * Compiles {@code sources} with AutoValue and returns the bytecode size of every method of the
+     * generated classes, keyed by class and method name. The {@code $} prefixes of the classes in
+     * the generated hierarchy are dropped since they depend on which extensions are applied.
+     */
+    private static Map<String, Integer> compileAndMeasure(List<JavaFileObject> sources) {
+        Map<String, Integer> sizes = new LinkedHashMap<>();
+        for (Map.Entry<String, byte[]> classFile : InMemoryCompiler.compile(sources).entrySet()) {
+            String className = classFile.getKey();
+            String simpleName = className.substring(className.lastIndexOf('.') + 1);
+            if (simpleName.contains("AutoValue_")) {
+                simpleName = simpleName.substring(simpleName.indexOf("AutoValue_"));
+                try {
+                    readMethodSizes(simpleName, classFile.getValue(), sizes);
+                } catch (IOException e) {
+                    throw new AssertionError(e);
+                }
+            }
+        }
+        return sizes;
+    }
+
+    /** Reads the length of the code attribute of every method in a class file. */
+    private static void readMethodSizes(String className, byte[] classFile,
+            Map<String, Integer> sizes) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(classFile));
+        in.readInt(); // magic
+        in.readUnsignedShort(); // minor version
+        in.readUnsignedShort(); // major version
+        int constantPoolCount = in.readUnsignedShort();
+        String[] utf8 = new String[constantPoolCount];
+        for (int i = 1; i < constantPoolCount; i++) {
+            int tag = in.readUnsignedByte();
+            switch (tag) {
+                case 1: // Utf8
+                    utf8[i] = in.readUTF();
+                    break;
+                case 5: // Long
+                case 6: // Double
+                    in.readLong();
+                    i++;
+                    break;
+                case 7: // Class
+                case 8: // String
+                case 16: // MethodType
+                    in.readUnsignedShort();
+                    break;
+                case 15: // MethodHandle
+                    in.readUnsignedByte();
+                    in.readUnsignedShort();
+                    break;
+                default: // Integer, Float, references, NameAndType and InvokeDynamic
+                    in.readInt();
+                    break;
+            }
+        }
+        in.readUnsignedShort(); // access flags
+        in.readUnsignedShort(); // this class
+        in.readUnsignedShort(); // super class
+        int interfaces = in.readUnsignedShort();
+        for (int i = 0; i < interfaces; i++) {
+            in.readUnsignedShort();
+        }
+        int fields = in.readUnsignedShort();
+        for (int i = 0; i < fields; i++) {
+            in.readUnsignedShort(); // access flags
+            in.readUnsignedShort(); // name
+            in.readUnsignedShort(); // descriptor
+            skipAttributes(in);
+        }
+        int methods = in.readUnsignedShort();
+        for (int i = 0; i < methods; i++) {
+            in.readUnsignedShort(); // access flags
+            String name = utf8[in.readUnsignedShort()];
+            in.readUnsignedShort(); // descriptor
+            int attributes = in.readUnsignedShort();
+            for (int j = 0; j < attributes; j++) {
+                String attributeName = utf8[in.readUnsignedShort()];
+                int length = in.readInt();
+                byte[] attribute = new byte[length];
+                in.readFully(attribute);
+                if ("Code".equals(attributeName)) {
+                    // max_stack and max_locals are followed by the code length
+                    int codeLength = ((attribute[4] & 0xff) << 24) | ((attribute[5] & 0xff) << 16)
+                            | ((attribute[6] & 0xff) << 8) | (attribute[7] & 0xff);
+                    String key = className + "." + name;
+                    Integer previous = sizes.get(key);
+                    if (previous == null || previous < codeLength) {
+                        sizes.put(key, codeLength);
+                    }
+                }
+            }
+        }
+    }
+
+    private static void skipAttributes(DataInputStream in) throws IOException {
+        int attributes = in.readUnsignedShort();
+        for (int i = 0; i < attributes; i++) {
+            in.readUnsignedShort();
+            in.skipBytes(in.readInt());
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.gabrielittner.auto.value;
+
+import com.google.auto.value.processor.AutoValueProcessor;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+
+/**
+ * Compiles sources with AutoValue and the extensions in memory. compile-testing doesn't give access
+ * to the class files, this is used by tests that look at the bytecode or run the generated code.
+ */
+public final class InMemoryCompiler {
+
+    /**
+     * Compiles {@code sources} and returns the class files of all classes, keyed by their binary
+     * name.
+     */
+    public static Map<String, byte[]> compile(List<JavaFileObject> sources) {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        final Map<String, ByteArrayOutputStream> classFiles = new LinkedHashMap<>();
+        JavaFileManager fileManager =
+                new ForwardingJavaFileManager<JavaFileManager>(
+                        compiler.getStandardFileManager(diagnostics, Locale.US, null)) {
+                    @Override
+                    public boolean isSameFile(FileObject a, FileObject b) {
+                        return a.toUri().equals(b.toUri());
+                    }
+
+                    @Override
+                    public JavaFileObject getJavaFileForOutput(
+                            Location location,
+                            final String className,
+                            JavaFileObject.Kind kind,
+                            FileObject sibling) {
+                        URI uri = URI.create(
+                                "mem:///" + className.replace('.', '/') + kind.extension);
+                        final ByteArrayOutputStream content = new ByteArrayOutputStream();
+                        if (kind == JavaFileObject.Kind.CLASS) {
+                            classFiles.put(className, content);
+                        }
+                        return new SimpleJavaFileObject(uri, kind) {
+                            @Override
+                            public OutputStream openOutputStream() {
+                                return content;
+                            }
+
+                            @Override
+                            public CharSequence getCharContent(boolean ignoreEncodingErrors)
+                                    throws IOException {
+                                return content.toString("UTF-8");
+                            }
+                        };
+                    }
+                };
+        List<String> options = Collections.singletonList("-nowarn");
+        JavaCompiler.CompilationTask task =
+                compiler.getTask(null, fileManager, diagnostics, options, null, sources);
+        task.setProcessors(Collections.singletonList(new AutoValueProcessor()));
+        if (!task.call()) {
+            StringBuilder errors = new StringBuilder();
+            for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+                errors.append(diagnostic.getMessage(Locale.US)).append('\n');
+            }
+            throw new AssertionError("Compilation failed:\n" + errors);
+        }
+
+        Map<String, byte[]> result = new LinkedHashMap<>();
+        for (Map.Entry<String, ByteArrayOutputStream> classFile : classFiles.entrySet()) {
+            result.put(classFile.getKey(), classFile.getValue().toByteArray());
+        }
+        return result;
+    }
+
+    /**
+     * Compiles {@code sources} and returns a class loader for the compiled classes. Other classes,
+     * like the {@code Cursor} stub, are loaded from the test class path.
+     */
+    public static ClassLoader load(List<JavaFileObject> sources) {
+        final Map<String, byte[]> classFiles = compile(sources);
+        return new ClassLoader(InMemoryCompiler.class.getClassLoader()) {
+            @Override
+            protected Class<?> findClass(String name) throws ClassNotFoundException {
+                byte[] classFile = classFiles.get(name);
+                if (classFile == null) {
+                    throw new ClassNotFoundException(name);
+                }
+                return defineClass(name, classFile, 0, classFile.length);
+            }
+        };
+    }
+
+    private InMemoryCompiler() {
+    }
+}
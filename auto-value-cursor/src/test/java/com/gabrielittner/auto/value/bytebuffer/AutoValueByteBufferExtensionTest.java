@@ -0,0 +1,275 @@
+package com.gabrielittner.auto.value.bytebuffer;
+
+import com.google.auto.value.processor.AutoValueProcessor;
+import com.google.testing.compile.JavaFileObjects;
+import java.util.Arrays;
+import java.util.Collections;
+import javax.tools.JavaFileObject;
+import org.junit.Test;
+
+import static com.google.common.truth.Truth.assertAbout;
+import static com.google.testing.compile.JavaSourcesSubjectFactory.javaSources;
+
+public class AutoValueByteBufferExtensionTest {
+
+    @Test
+    public void simple() {
+        JavaFileObject inner = JavaFileObjects.forSourceString("test.Inner", ""
+                + "package test;\n"
+                + "import com.google.auto.value.AutoValue;\n"
+                + "import javax.annotation.Nullable;\n"
+                + "@AutoValue public abstract class Inner {\n"
+                + "  public abstract short x();\n"
+                + "  @Nullable public abstract Float y();\n"
+                + "}\n");
+        JavaFileObject state = JavaFileObjects.forSourceString("test.State", ""
+                + "package test;\n"
+                + "public enum State { ON, OFF }\n");
+        JavaFileObject source = JavaFileObjects.forSourceString("test.Test", ""
+                + "package test;\n"
+                + "import com.gabrielittner.auto.value.cursor.ColumnPrefix;\n"
+                + "import com.gabrielittner.auto.value.cursor.EnumOrdinal;\n"
+                + "import com.google.auto.value.AutoValue;\n"
+                + "import java.nio.ByteBuffer;\n"
+                + "import javax.annotation.Nullable;\n"
+                + "@AutoValue public abstract class Test {\n"
+                + "  public abstract int a();\n"
+                + "  @Nullable public abstract String b();\n"
+                + "  public abstract double c();\n"
+                + "  @Nullable public abstract Long d();\n"
+                + "  public abstract boolean e();\n"
+                + "  public abstract byte[] f();\n"
+                + "  public abstract State g();\n"
+                + "  @EnumOrdinal public abstract State h();\n"
+                + "  @ColumnPrefix(\"i_\") public abstract Inner i();\n"
+                + "  public abstract void writeTo(ByteBuffer buffer);\n"
+                + "  public static Test fromBuffer(ByteBuffer buffer) { return AutoValue_Test.readFrom(buffer); }\n"
+                + "}\n");
+        JavaFileObject expected = JavaFileObjects.forSourceString("test.AutoValue_Test", ""
+                + "package test;\n"
+                + "import com.gabrielittner.auto.value.cursor.ByteBuffers;\n"
+                + "import java.lang.Float;\n"
+                + "import java.lang.IllegalArgumentException;\n"
+                + "import java.lang.Long;\n"
+                + "import java.lang.Override;\n"
+                + "import java.lang.String;\n"
+                + "import java.nio.ByteBuffer;\n"
+                + "final class AutoValue_Test extends $AutoValue_Test {\n"
+                + "  private static final State[] STATE_VALUES = State.values();\n"
+                + "  AutoValue_Test(int a, String b, double c, Long d, boolean e, byte[] f, State g, State h,\n"
+                + "      Inner i) {\n"
+                + "    super(a, b, c, d, e, f, g, h, i);\n"
+                + "  }\n"
+                + "  @Override\n"
+                + "  public void writeTo(ByteBuffer buffer) {\n"
+                + "    buffer.put((byte) ((b() == null ? 1 : 0) | (d() == null ? 2 : 0) | (i().y() == null ? 4 : 0)));\n"
+                + "    ByteBuffers.putVarint(buffer, a());\n"
+                + "    if (b() != null) {\n"
+                + "      ByteBuffers.putString(buffer, b());\n"
+                + "    }\n"
+                + "    buffer.putDouble(c());\n"
+                + "    if (d() != null) {\n"
+                + "      ByteBuffers.putVarint(buffer, d());\n"
+                + "    }\n"
+                + "    buffer.put((byte) (e() ? 1 : 0));\n"
+                + "    ByteBuffers.putBytes(buffer, f());\n"
+                + "    ByteBuffers.putString(buffer, g().name());\n"
+                + "    ByteBuffers.putVarint(buffer, h().ordinal());\n"
+                + "    ByteBuffers.putVarint(buffer, i().x());\n"
+                + "    if (i().y() != null) {\n"
+                + "      buffer.putFloat(i().y());\n"
+                + "    }\n"
+                + "  }\n"
+                + "  static AutoValue_Test readFrom(ByteBuffer buffer) {\n"
+                + "    byte nulls0 = buffer.get();\n"
+                + "    int a = (int) ByteBuffers.getVarint(buffer);\n"
+                + "    String b = (nulls0 & 1) != 0 ? null : ByteBuffers.getString(buffer);\n"
+                + "    double c = buffer.getDouble();\n"
+                + "    Long d = (nulls0 & 2) != 0 ? null : ByteBuffers.getVarint(buffer);\n"
+                + "    boolean e = buffer.get() != 0;\n"
+                + "    byte[] f = ByteBuffers.getBytes(buffer);\n"
+                + "    State g = stateFromName(ByteBuffers.getString(buffer));\n"
+                + "    State h = stateFromOrdinal((int) ByteBuffers.getVarint(buffer));\n"
+                + "    short iX = (short) ByteBuffers.getVarint(buffer);\n"
+                + "    Float iY = (nulls0 & 4) != 0 ? null : buffer.getFloat();\n"
+                + "    Inner i = new AutoValue_Inner(iX, iY);\n"
+                + "    return new AutoValue_Test(a, b, c, d, e, f, g, h, i);\n"
+                + "  }\n"
+                + "  static State stateFromName(String name) {\n"
+                + "    switch (name) {\n"
+                + "      case \"ON\": return State.ON;\n"
+                + "      case \"OFF\": return State.OFF;\n"
+                + "      default: throw new IllegalArgumentException(\"No enum constant State.\" + name);\n"
+                + "    }\n"
+                + "  }\n"
+                + "  static State stateFromOrdinal(int ordinal) {\n"
+                + "    if (ordinal < 0 || ordinal >= STATE_VALUES.length) {\n"
+                + "      throw new IllegalArgumentException(\"No enum constant State with ordinal \" + ordinal);\n"
+                + "    }\n"
+                + "    return STATE_VALUES[ordinal];\n"
+                + "  }\n"
+                + "}\n");
+
+        assertAbout(javaSources())
+                .that(Arrays.asList(inner, state, source))
+                .processedWith(new AutoValueProcessor())
+                .compilesWithoutError()
+                .and()
+                .generatesSources(expected);
+    }
+
+
+    @Test
+    public void enumLookupsSharedWithCursor() {
+        JavaFileObject state = JavaFileObjects.forSourceString("test.State", ""
+                + "package test;\n"
+                + "public enum State { ON, OFF }\n");
+        JavaFileObject source = JavaFileObjects.forSourceString("test.Test", ""
+                + "package test;\n"
+                + "import android.database.Cursor;\n"
+                + "import com.gabrielittner.auto.value.cursor.EnumOrdinal;\n"
+                + "import com.google.auto.value.AutoValue;\n"
+                + "import java.nio.ByteBuffer;\n"
+                + "@AutoValue public abstract class Test {\n"
+                + "  public abstract State a();\n"
+                + "  @EnumOrdinal public abstract State b();\n"
+                + "  public abstract void writeTo(ByteBuffer buffer);\n"
+                + "  public static Test create(Cursor cursor) { return null; }\n"
+                + "  public static Test read(ByteBuffer buffer) { return null; }\n"
+                + "}\n");
+        JavaFileObject expected = JavaFileObjects.forSourceString("test.AutoValue_Test", ""
+                + "package test;\n"
+                + "import com.gabrielittner.auto.value.cursor.ByteBuffers;\n"
+                + "import java.lang.Override;\n"
+                + "import java.nio.ByteBuffer;\n"
+                + "final class AutoValue_Test extends $AutoValue_Test {\n"
+                + "  AutoValue_Test(State a, State b) {\n"
+                + "    super(a, b);\n"
+                + "  }\n"
+                + "  @Override\n"
+                + "  public void writeTo(ByteBuffer buffer) {\n"
+                + "    ByteBuffers.putString(buffer, a().name());\n"
+                + "    ByteBuffers.putVarint(buffer, b().ordinal());\n"
+                + "  }\n"
+                + "  static AutoValue_Test readFrom(ByteBuffer buffer) {\n"
+                + "    State a = AutoValue_Test.stateFromName(ByteBuffers.getString(buffer));\n"
+                + "    State b = AutoValue_Test.stateFromOrdinal((int) ByteBuffers.getVarint(buffer));\n"
+                + "    return new AutoValue_Test(a, b);\n"
+                + "  }\n"
+                + "}\n");
+
+        assertAbout(javaSources())
+                .that(Arrays.asList(state, source))
+                .processedWith(new AutoValueProcessor())
+                .compilesWithoutError()
+                .and()
+                .generatesSources(expected);
+    }
+
+    @Test
+    public void sharedMembersDeclaredOnceWithContentValues() {
+        JavaFileObject state = JavaFileObjects.forSourceString("test.State", ""
+                + "package test;\n"
+                + "public enum State { ON, OFF }\n");
+        JavaFileObject adapter = JavaFileObjects.forSourceString("test.DateAdapter", ""
+                + "package test;\n"
+                + "import com.gabrielittner.auto.value.cursor.LongColumnAdapter;\n"
+                + "import java.util.Date;\n"
+                + "public class DateAdapter implements LongColumnAdapter<Date> {\n"
+                + "  public Date fromLong(long value) { return new Date(value); }\n"
+                + "  public long toLong(Date value) { return value.getTime(); }\n"
+                + "}\n");
+        JavaFileObject source = JavaFileObjects.forSourceString("test.Test", ""
+                + "package test;\n"
+                + "import android.content.ContentValues;\n"
+                + "import com.gabrielittner.auto.value.cursor.ColumnAdapter;\n"
+                + "import com.google.auto.value.AutoValue;\n"
+                + "import java.nio.ByteBuffer;\n"
+                + "import java.util.Date;\n"
+                + "@AutoValue public abstract class Test {\n"
+                + "  public abstract State a();\n"
+                + "  @ColumnAdapter(value = DateAdapter.class, shared = true) public abstract Date b();\n"
+                + "  public abstract ContentValues toContentValues();\n"
+                + "  public abstract void writeTo(ByteBuffer buffer);\n"
+                + "  public static Test read(ByteBuffer buffer) { return null; }\n"
+                + "}\n");
+        // the ContentValues extension declares the shared adapter and the enum lookup
+        JavaFileObject expected = JavaFileObjects.forSourceString("test.AutoValue_Test", ""
+                + "package test;\n"
+                + "import com.gabrielittner.auto.value.cursor.ByteBuffers;\n"
+                + "import java.lang.Override;\n"
+                + "import java.nio.ByteBuffer;\n"
+                + "import java.util.Date;\n"
+                + "final class AutoValue_Test extends $AutoValue_Test {\n"
+                + "  AutoValue_Test(State a, Date b) {\n"
+                + "    super(a, b);\n"
+                + "  }\n"
+                + "  @Override\n"
+                + "  public void writeTo(ByteBuffer buffer) {\n"
+                + "    ByteBuffers.putString(buffer, a().name());\n"
+                + "    ByteBuffers.putVarint(buffer, AutoValue_Test.DATE_ADAPTER.toLong(b()));\n"
+                + "  }\n"
+                + "  static AutoValue_Test readFrom(ByteBuffer buffer) {\n"
+                + "    State a = AutoValue_Test.stateFromName(ByteBuffers.getString(buffer));\n"
+                + "    Date b = AutoValue_Test.DATE_ADAPTER.fromLong(ByteBuffers.getVarint(buffer));\n"
+                + "    return new AutoValue_Test(a, b);\n"
+                + "  }\n"
+                + "}\n");
+        JavaFileObject expectedContentValues =
+                JavaFileObjects.forSourceString("test.$AutoValue_Test", ""
+                + "package test;\n"
+                + "import android.content.ContentValues;\n"
+                + "import java.lang.IllegalArgumentException;\n"
+                + "import java.lang.Override;\n"
+                + "import java.lang.String;\n"
+                + "import java.util.Date;\n"
+                + "abstract class $AutoValue_Test extends $$AutoValue_Test {\n"
+                + "  static final DateAdapter DATE_ADAPTER = new DateAdapter();\n"
+                + "  $AutoValue_Test(State a, Date b) {\n"
+                + "    super(a, b);\n"
+                + "  }\n"
+                + "  @Override\n"
+                + "  public ContentValues toContentValues() {\n"
+                + "    ContentValues values = new ContentValues(2);\n"
+                + "    values.put(\"a\", a().name());\n"
+                + "    values.put(\"b\", DATE_ADAPTER.toLong(b()));\n"
+                + "    return values;\n"
+                + "  }\n"
+                + "  static State stateFromName(String name) {\n"
+                + "    switch (name) {\n"
+                + "      case \"ON\": return State.ON;\n"
+                + "      case \"OFF\": return State.OFF;\n"
+                + "      default: throw new IllegalArgumentException(\"No enum constant State.\" + name);\n"
+                + "    }\n"
+                + "  }\n"
+                + "}\n");
+
+        assertAbout(javaSources())
+                .that(Arrays.asList(state, adapter, source))
+                .processedWith(new AutoValueProcessor())
+                .compilesWithoutError()
+                .and()
+                .generatesSources(expected, expectedContentValues);
+    }
+
+    @Test
+    public void unsupportedType() {
+        JavaFileObject source = JavaFileObjects.forSourceString("test.Test", ""
+                + "package test;\n"
+                + "import com.google.auto.value.AutoValue;\n"
+                + "import java.nio.ByteBuffer;\n"
+                + "@AutoValue public abstract class Test {\n"
+                + "  public abstract int[] a();\n"
+                + "  public abstract void writeTo(ByteBuffer buffer);\n"
+                + "  public static Test fromBuffer(ByteBuffer buffer) {\n"
+                + "    return AutoValue_Test.readFrom(buffer);\n"
+                + "  }\n"
+                + "}\n");
+
+        assertAbout(javaSources())
+                .that(Collections.singletonList(source))
+                .processedWith(new AutoValueProcessor())
+                .failsToCompile()
+                .withErrorContaining("Property has type that can't be written to a ByteBuffer.");
+    }
+}
@@ -177,6 +177,55 @@ public class AutoValueContentValuesExtensionTest {
                 .generatesSources(expected);
     }
 
+    @Test
+    public void enums() {
+        JavaFileObject status = JavaFileObjects.forSourceString("test.Status", ""
+                + "package test;\n"
+                + "public enum Status {\n"
+                + "  ACTIVE,\n"
+                + "  BLOCKED\n"
+                + "}\n");
+        JavaFileObject source = JavaFileObjects.forSourceString("test.Test", ""
+                + "package test;\n"
+                + "import android.content.ContentValues;\n"
+                + "import com.gabrielittner.auto.value.cursor.EnumOrdinal;\n"
+                + "import com.google.auto.value.AutoValue;\n"
+                + "import javax.annotation.Nullable;\n"
+                + "@AutoValue public abstract class Test {\n"
+                + "  public abstract ContentValues toContentValues();\n"
+                + "  public abstract Status a();\n"
+                + "  @Nullable public abstract Status b();\n"
+                + "  @EnumOrdinal public abstract Status c();\n"
+                + "  @Nullable @EnumOrdinal public abstract Status d();\n"
+                + "}\n");
+        JavaFileObject expected = JavaFileObjects.forSourceString("test.AutoValue_Test", ""
+                + "package test;\n"
+                + "import android.content.ContentValues;\n"
+                + "import java.lang.Override;\n"
+                + "final class AutoValue_Test extends $AutoValue_Test {\n"
+                + "  AutoValue_Test(Status a, Status b, Status c, Status d) {\n"
+                + "    super(a, b, c, d);\n"
+                + "  }\n"
+                + "  @Override\n"
+                + "  public ContentValues toContentValues() {\n"
+                + "    ContentValues values = new ContentValues(4);\n"
+                + "    values.put(\"a\", a().name());\n"
+                + "    values.put(\"b\", b() == null ? null : b().name());\n"
+                + "    values.put(\"c\", c().ordinal());\n"
+                + "    values.put(\"d\", d() == null ? null : d().ordinal());\n"
+                + "    return values;\n"
+                + "  }\n"
+                + "}\n");
+
+        assertAbout(javaSources())
+                .that(Arrays.asList(status, source))
+                .processedWith(new AutoValueProcessor())
+                .compilesWithoutError()
+                .and()
+                .generatesSources(expected);
+    }
+
+
     @Test
     public void valuesAdapter() {
         JavaFileObject fooClass = JavaFileObjects.forSourceString("test.Foo", ""
@@ -255,6 +304,598 @@ public class AutoValueContentValuesExtensionTest {
                 .generatesSources(expected);
     }
 
+    @Test
+    public void valuesAdapterShared() {
+        JavaFileObject fooClass = JavaFileObjects.forSourceString("test.Foo", ""
+                + "package test;\n"
+                + "public class Foo {\n"
+                + "  public final String data;\n"
+                + "  public Foo(String data) {\n"
+                + "    this.data = data;\n"
+                + "  }\n"
+                + "}\n");
+        JavaFileObject fooFactorySource = JavaFileObjects.forSourceString("test.FooAdapter", ""
+                + "package test;\n"
+                + "import android.content.ContentValues;\n"
+                + "import android.database.Cursor;\n"
+                + "import com.gabrielittner.auto.value.cursor.ColumnTypeAdapter;\n"
+                + "public class FooAdapter implements ColumnTypeAdapter<Foo> {\n"
+                + "  public Foo fromCursor(Cursor cursor, String columnName) {\n"
+                + "    return new Foo(cursor.getString(cursor.getColumnIndex(columnName)));\n"
+                + "  }\n"
+                + "  public void toContentValues(ContentValues values, String columnName, Foo value) {\n"
+                + "    values.put(columnName, value.data);\n"
+                + "  }\n"
+                + "}\n");
+        JavaFileObject stringFactorySource = JavaFileObjects.forSourceString("test.StringAdapter", ""
+                + "package test;\n"
+                + "import android.content.ContentValues;\n"
+                + "import android.database.Cursor;\n"
+                + "import com.gabrielittner.auto.value.cursor.ColumnTypeAdapter;\n"
+                + "public class StringAdapter implements ColumnTypeAdapter<String> {\n"
+                + "  public String fromCursor(Cursor cursor, String columnName) {\n"
+                + "    return cursor.getString(cursor.getColumnIndex(columnName));\n"
+                + "  }\n"
+                + "  public void toContentValues(ContentValues values, String columnName, String value) {\n"
+                + "    values.put(columnName, value);\n"
+                + "  }\n"
+                + "}\n");
+        JavaFileObject source = JavaFileObjects.forSourceString("test.Test", ""
+                + "package test;\n"
+                + "import android.content.ContentValues;\n"
+                + "import com.gabrielittner.auto.value.cursor.ColumnName;\n"
+                + "import com.gabrielittner.auto.value.cursor.ColumnAdapter;\n"
+                + "import com.google.auto.value.AutoValue;\n"
+                + "import javax.annotation.Nullable;\n"
+                + "@AutoValue public abstract class Test {\n"
+                + "  public abstract ContentValues toContentValues();\n"
+                + "  @ColumnAdapter(value = FooAdapter.class, shared = true) public abstract Foo foo();\n"
+                + "  @ColumnAdapter(StringAdapter.class) public abstract String bar();\n"
+                + "  @ColumnAdapter(StringAdapter.class) @ColumnName(\"column\") public abstract String columnName();\n"
+                + "}\n");
+        JavaFileObject expected = JavaFileObjects.forSourceString("test.AutoValue_Test", ""
+                + "package test;\n"
+                + "import android.content.ContentValues;\n"
+                + "import java.lang.Override;\n"
+                + "import java.lang.String;\n"
+                + "final class AutoValue_Test extends $AutoValue_Test {\n"
+                + "  static final FooAdapter FOO_ADAPTER = new FooAdapter();\n"
+                + "  AutoValue_Test(Foo foo, String bar, String columnName) {\n"
+                + "    super(foo, bar, columnName);\n"
+                + "  }\n"
+                + "  @Override\n"
+                + "  public ContentValues toContentValues() {\n"
+                + "    ContentValues values = new ContentValues(3);\n"
+                + "    StringAdapter stringAdapter = new StringAdapter();\n"
+                + "    FOO_ADAPTER.toContentValues(values, \"foo\", foo());\n"
+                + "    stringAdapter.toContentValues(values,  \"bar\", bar());\n"
+                + "    stringAdapter.toContentValues(values, \"column\", columnName());\n"
+                + "    return values;\n"
+                + "  }\n"
+                + "}\n");
+
+        assertAbout(javaSources())
+                .that(Arrays.asList(fooClass, stringFactorySource, fooFactorySource, source))
+                .processedWith(new AutoValueProcessor())
+                .compilesWithoutError()
+                .and()
+                .generatesSources(expected);
+    }
+
+    @Test
+    public void valuesAdapterSharedWithCursor() {
+        JavaFileObject fooClass = JavaFileObjects.forSourceString("test.Foo", ""
+                + "package test;\n"
+                + "public class Foo {\n"
+                + "}\n");
+        JavaFileObject fooFactorySource = JavaFileObjects.forSourceString("test.FooAdapter", ""
+                + "package test;\n"
+                + "import android.content.ContentValues;\n"
+                + "import android.database.Cursor;\n"
+                + "import com.gabrielittner.auto.value.cursor.ColumnTypeAdapter;\n"
+                + "public class FooAdapter implements ColumnTypeAdapter<Foo> {\n"
+                + "  public Foo fromCursor(Cursor cursor, String columnName) {\n"
+                + "    return new Foo();\n"
+                + "  }\n"
+                + "  public void toContentValues(ContentValues values, String columnName, Foo value) {\n"
+                + "  }\n"
+                + "}\n");
+        JavaFileObject source = JavaFileObjects.forSourceString("test.Test", ""
+                + "package test;\n"
+                + "import android.content.ContentValues;\n"
+                + "import android.database.Cursor;\n"
+                + "import com.gabrielittner.auto.value.cursor.ColumnAdapter;\n"
+                + "import com.google.auto.value.AutoValue;\n"
+                + "@AutoValue public abstract class Test {\n"
+                + "  public static Test blah(Cursor cursor) { return null; }\n"
+                + "  public abstract ContentValues toContentValues();\n"
+                + "  @ColumnAdapter(value = FooAdapter.class, shared = true) public abstract Foo foo();\n"
+                + "  public abstract String bar();\n"
+                + "}\n");
+        // the adapter is declared by the cursor extension's class
+        JavaFileObject expected = JavaFileObjects.forSourceString("test.AutoValue_Test", ""
+                + "package test;\n"
+                + "import android.content.ContentValues;\n"
+                + "import java.lang.Override;\n"
+                + "import java.lang.String;\n"
+                + "final class AutoValue_Test extends $AutoValue_Test {\n"
+                + "  AutoValue_Test(Foo foo, String bar) {\n"
+                + "    super(foo, bar);\n"
+                + "  }\n"
+                + "  @Override\n"
+                + "  public ContentValues toContentValues() {\n"
+                + "    ContentValues values = new ContentValues(2);\n"
+                + "    AutoValue_Test.FOO_ADAPTER.toContentValues(values, \"foo\", foo());\n"
+                + "    values.put(\"bar\", bar());\n"
+                + "    return values;\n"
+                + "  }\n"
+                + "}\n");
+
+        assertAbout(javaSources())
+                .that(Arrays.asList(fooClass, fooFactorySource, source))
+                .processedWith(new AutoValueProcessor())
+                .compilesWithoutError()
+                .and()
+                .generatesSources(expected);
+    }
+
+    @Test
+    public void primitiveValuesAdapter() {
+        JavaFileObject timestamp = JavaFileObjects.forSourceString("test.Timestamp", ""
+                + "package test;\n"
+                + "public class Timestamp {\n"
+                + "  public final long millis;\n"
+                + "  public Timestamp(long millis) {\n"
+                + "    this.millis = millis;\n"
+                + "  }\n"
+                + "}\n");
+        JavaFileObject timestampAdapter = JavaFileObjects.forSourceString("test.TimestampAdapter", ""
+                + "package test;\n"
+                + "import com.gabrielittner.auto.value.cursor.LongColumnAdapter;\n"
+                + "public class TimestampAdapter implements LongColumnAdapter<Timestamp> {\n"
+                + "  public Timestamp fromLong(long value) {\n"
+                + "    return new Timestamp(value);\n"
+                + "  }\n"
+                + "  public long toLong(Timestamp value) {\n"
+                + "    return value.millis;\n"
+                + "  }\n"
+                + "}\n");
+        JavaFileObject source = JavaFileObjects.forSourceString("test.Test", ""
+                + "package test;\n"
+                + "import android.content.ContentValues;\n"
+                + "import com.gabrielittner.auto.value.cursor.ColumnAdapter;\n"
+                + "import com.google.auto.value.AutoValue;\n"
+                + "import javax.annotation.Nullable;\n"
+                + "@AutoValue public abstract class Test {\n"
+                + "  public abstract ContentValues toContentValues();\n"
+                + "  @ColumnAdapter(TimestampAdapter.class) public abstract Timestamp a();\n"
+                + "  @Nullable @ColumnAdapter(TimestampAdapter.class) public abstract Timestamp b();\n"
+                + "}\n");
+        JavaFileObject expected = JavaFileObjects.forSourceString("test.AutoValue_Test", ""
+                + "package test;\n"
+                + "import android.content.ContentValues;\n"
+                + "import java.lang.Override;\n"
+                + "final class AutoValue_Test extends $AutoValue_Test {\n"
+                + "  AutoValue_Test(Timestamp a, Timestamp b) {\n"
+                + "    super(a, b);\n"
+                + "  }\n"
+                + "  @Override\n"
+                + "  public ContentValues toContentValues() {\n"
+                + "    ContentValues values = new ContentValues(2);\n"
+                + "    TimestampAdapter timestampAdapter = new TimestampAdapter();\n"
+                + "    values.put(\"a\", timestampAdapter.toLong(a()));\n"
+                + "    Timestamp b = b();\n"
+                + "    if (b == null) {\n"
+                + "      values.putNull(\"b\");\n"
+                + "    } else {\n"
+                + "      values.put(\"b\", timestampAdapter.toLong(b));\n"
+                + "    }\n"
+                + "    return values;\n"
+                + "  }\n"
+                + "}\n");
+
+        assertAbout(javaSources())
+                .that(Arrays.asList(timestamp, timestampAdapter, source))
+                .processedWith(new AutoValueProcessor())
+                .compilesWithoutError()
+                .and()
+                .generatesSources(expected);
+    }
+
+
+    @Test
+    public void writeInto() {
+        JavaFileObject foo = JavaFileObjects.forSourceString("test.Foo", ""
+                + "package test;\n"
+                + "public class Foo {\n"
+                + "  public final String first;\n"
+                + "  public final String second;\n"
+                + "  public Foo(String first, String second) {\n"
+                + "    this.first = first;\n"
+                + "    this.second = second;\n"
+                + "  }\n"
+                + "}\n");
+        JavaFileObject fooAdapter = JavaFileObjects.forSourceString("test.FooAdapter", ""
+                + "package test;\n"
+                + "import android.content.ContentValues;\n"
+                + "import android.database.Cursor;\n"
+                + "import com.gabrielittner.auto.value.cursor.ColumnTypeAdapter;\n"
+                + "public class FooAdapter implements ColumnTypeAdapter<Foo> {\n"
+                + "  public Foo fromCursor(Cursor cursor, String columnName) {\n"
+                + "    return new Foo(cursor.getString(cursor.getColumnIndex(\"first\")), cursor.getString(cursor.getColumnIndex(\"second\")));\n"
+                + "  }\n"
+                + "  public void toContentValues(ContentValues values, String columnName, Foo value) {\n"
+                + "    values.put(\"first\", value.first);\n"
+                + "    values.put(\"second\", value.second);\n"
+                + "  }\n"
+                + "}\n");
+        JavaFileObject source = JavaFileObjects.forSourceString("test.Test", ""
+                + "package test;\n"
+                + "import android.content.ContentValues;\n"
+                + "import com.gabrielittner.auto.value.cursor.ColumnAdapter;\n"
+                + "import com.google.auto.value.AutoValue;\n"
+                + "@AutoValue public abstract class Test {\n"
+                + "  public abstract int a();\n"
+                + "  @ColumnAdapter(value = FooAdapter.class, columns = 2) public abstract Foo foo();\n"
+                + "  public abstract ContentValues toContentValues();\n"
+                + "  public abstract void writeInto(ContentValues values);\n"
+                + "}\n");
+        JavaFileObject expected = JavaFileObjects.forSourceString("test.AutoValue_Test", ""
+                + "package test;\n"
+                + "import android.content.ContentValues;\n"
+                + "import java.lang.Override;\n"
+                + "final class AutoValue_Test extends $AutoValue_Test {\n"
+                + "  AutoValue_Test(int a, Foo foo) {\n"
+                + "    super(a, foo);\n"
+                + "  }\n"
+                + "  @Override\n"
+                + "  public ContentValues toContentValues() {\n"
+                + "    ContentValues values = new ContentValues(3);\n"
+                + "    FooAdapter fooAdapter = new FooAdapter();\n"
+                + "    values.put(\"a\", a());\n"
+                + "    fooAdapter.toContentValues(values, \"foo\", foo());\n"
+                + "    return values;\n"
+                + "  }\n"
+                + "  @Override\n"
+                + "  public void writeInto(ContentValues values) {\n"
+                + "    values.clear();\n"
+                + "    FooAdapter fooAdapter = new FooAdapter();\n"
+                + "    values.put(\"a\", a());\n"
+                + "    fooAdapter.toContentValues(values, \"foo\", foo());\n"
+                + "  }\n"
+                + "}\n");
+
+        assertAbout(javaSources())
+                .that(Arrays.asList(foo, fooAdapter, source))
+                .processedWith(new AutoValueProcessor())
+                .compilesWithoutError()
+                .and()
+                .generatesSources(expected);
+    }
+
+
+    @Test
+    public void contentValuesDiff() {
+        JavaFileObject foo = JavaFileObjects.forSourceString("test.Foo", ""
+                + "package test;\n"
+                + "public class Foo {\n"
+                + "  public final String first;\n"
+                + "  public final String second;\n"
+                + "  public Foo(String first, String second) {\n"
+                + "    this.first = first;\n"
+                + "    this.second = second;\n"
+                + "  }\n"
+                + "}\n");
+        JavaFileObject fooAdapter = JavaFileObjects.forSourceString("test.FooAdapter", ""
+                + "package test;\n"
+                + "import android.content.ContentValues;\n"
+                + "import android.database.Cursor;\n"
+                + "import com.gabrielittner.auto.value.cursor.ColumnTypeAdapter;\n"
+                + "public class FooAdapter implements ColumnTypeAdapter<Foo> {\n"
+                + "  public Foo fromCursor(Cursor cursor, String columnName) {\n"
+                + "    return new Foo(cursor.getString(cursor.getColumnIndex(\"first\")), cursor.getString(cursor.getColumnIndex(\"second\")));\n"
+                + "  }\n"
+                + "  public void toContentValues(ContentValues values, String columnName, Foo value) {\n"
+                + "    values.put(\"first\", value.first);\n"
+                + "    values.put(\"second\", value.second);\n"
+                + "  }\n"
+                + "}\n");
+        JavaFileObject source = JavaFileObjects.forSourceString("test.Test", ""
+                + "package test;\n"
+                + "import android.content.ContentValues;\n"
+                + "import com.gabrielittner.auto.value.cursor.ColumnAdapter;\n"
+                + "import com.google.auto.value.AutoValue;\n"
+                + "import javax.annotation.Nullable;\n"
+                + "@AutoValue public abstract class Test {\n"
+                + "  public abstract int a();\n"
+                + "  public abstract double b();\n"
+                + "  @Nullable public abstract String c();\n"
+                + "  public abstract byte[] d();\n"
+                + "  @ColumnAdapter(FooAdapter.class) public abstract Foo foo();\n"
+                + "  public abstract ContentValues toContentValuesDiff(Test previous);\n"
+                + "}\n");
+        JavaFileObject expected = JavaFileObjects.forSourceString("test.AutoValue_Test", ""
+                + "package test;\n"
+                + "import android.content.ContentValues;\n"
+                + "import java.lang.Double;\n"
+                + "import java.lang.Override;\n"
+                + "import java.lang.String;\n"
+                + "import java.util.Arrays;\n"
+                + "final class AutoValue_Test extends $AutoValue_Test {\n"
+                + "  AutoValue_Test(int a, double b, String c, byte[] d, Foo foo) {\n"
+                + "    super(a, b, c, d, foo);\n"
+                + "  }\n"
+                + "  @Override\n"
+                + "  public ContentValues toContentValuesDiff(Test previous) {\n"
+                + "    ContentValues values = new ContentValues();\n"
+                + "    FooAdapter fooAdapter = new FooAdapter();\n"
+                + "    if (!(a() == previous.a())) {\n"
+                + "      values.put(\"a\", a());\n"
+                + "    }\n"
+                + "    if (!(Double.doubleToLongBits(b()) == Double.doubleToLongBits(previous.b()))) {\n"
+                + "      values.put(\"b\", b());\n"
+                + "    }\n"
+                + "    if (!(c() == null ? previous.c() == null : c().equals(previous.c()))) {\n"
+                + "      values.put(\"c\", c());\n"
+                + "    }\n"
+                + "    if (!Arrays.equals(d(), previous.d())) {\n"
+                + "      values.put(\"d\", d());\n"
+                + "    }\n"
+                + "    if (!foo().equals(previous.foo())) {\n"
+                + "      fooAdapter.toContentValues(values, \"foo\", foo());\n"
+                + "    }\n"
+                + "    return values;\n"
+                + "  }\n"
+                + "}\n");
+
+        assertAbout(javaSources())
+                .that(Arrays.asList(foo, fooAdapter, source))
+                .processedWith(new AutoValueProcessor())
+                .compilesWithoutError()
+                .and()
+                .generatesSources(expected);
+    }
+
+
+    @Test
+    public void contentValuesArray() {
+        JavaFileObject foo = JavaFileObjects.forSourceString("test.Foo", ""
+                + "package test;\n"
+                + "public class Foo {\n"
+                + "  public final String first;\n"
+                + "  public final String second;\n"
+                + "  public Foo(String first, String second) {\n"
+                + "    this.first = first;\n"
+                + "    this.second = second;\n"
+                + "  }\n"
+                + "}\n");
+        JavaFileObject fooAdapter = JavaFileObjects.forSourceString("test.FooAdapter", ""
+                + "package test;\n"
+                + "import android.content.ContentValues;\n"
+                + "import android.database.Cursor;\n"
+                + "import com.gabrielittner.auto.value.cursor.ColumnTypeAdapter;\n"
+                + "public class FooAdapter implements ColumnTypeAdapter<Foo> {\n"
+                + "  public Foo fromCursor(Cursor cursor, String columnName) {\n"
+                + "    return new Foo(cursor.getString(cursor.getColumnIndex(\"first\")), cursor.getString(cursor.getColumnIndex(\"second\")));\n"
+                + "  }\n"
+                + "  public void toContentValues(ContentValues values, String columnName, Foo value) {\n"
+                + "    values.put(\"first\", value.first);\n"
+                + "    values.put(\"second\", value.second);\n"
+                + "  }\n"
+                + "}\n");
+        JavaFileObject source = JavaFileObjects.forSourceString("test.Test", ""
+                + "package test;\n"
+                + "import android.content.ContentValues;\n"
+                + "import com.gabrielittner.auto.value.cursor.ColumnAdapter;\n"
+                + "import com.google.auto.value.AutoValue;\n"
+                + "import java.util.Collection;\n"
+                + "import javax.annotation.Nullable;\n"
+                + "@AutoValue public abstract class Test {\n"
+                + "  public abstract int a();\n"
+                + "  @Nullable public abstract String b();\n"
+                + "  @ColumnAdapter(value = FooAdapter.class, columns = 2) public abstract Foo foo();\n"
+                + "  public static ContentValues[] toArray(Collection<Test> tests) { return null; }\n"
+                + "}\n");
+        JavaFileObject expected = JavaFileObjects.forSourceString("test.AutoValue_Test", ""
+                + "package test;\n"
+                + "import android.content.ContentValues;\n"
+                + "import java.lang.String;\n"
+                + "import java.util.Collection;\n"
+                + "final class AutoValue_Test extends $AutoValue_Test {\n"
+                + "  AutoValue_Test(int a, String b, Foo foo) {\n"
+                + "    super(a, b, foo);\n"
+                + "  }\n"
+                + "  static ContentValues[] toContentValuesArray(Collection<Test> items) {\n"
+                + "    ContentValues[] array = new ContentValues[items.size()];\n"
+                + "    FooAdapter fooAdapter = new FooAdapter();\n"
+                + "    int i = 0;\n"
+                + "    for (Test item : items) {\n"
+                + "      ContentValues values = new ContentValues(4);\n"
+                + "      values.put(\"a\", item.a());\n"
+                + "      values.put(\"b\", item.b());\n"
+                + "      fooAdapter.toContentValues(values, \"foo\", item.foo());\n"
+                + "      array[i++] = values;\n"
+                + "    }\n"
+                + "    return array;\n"
+                + "  }\n"
+                + "}\n");
+
+        assertAbout(javaSources())
+                .that(Arrays.asList(foo, fooAdapter, source))
+                .processedWith(new AutoValueProcessor())
+                .compilesWithoutError()
+                .and()
+                .generatesSources(expected);
+    }
+
+
+    @Test
+    public void nullablePropertyNamedLikeParameter() {
+        JavaFileObject timestamp = JavaFileObjects.forSourceString("test.Timestamp", ""
+                + "package test;\n"
+                + "public class Timestamp {\n"
+                + "  public final long millis;\n"
+                + "  public Timestamp(long millis) {\n"
+                + "    this.millis = millis;\n"
+                + "  }\n"
+                + "}\n");
+        JavaFileObject timestampAdapter = JavaFileObjects.forSourceString("test.TimestampAdapter", ""
+                + "package test;\n"
+                + "import com.gabrielittner.auto.value.cursor.LongColumnAdapter;\n"
+                + "public class TimestampAdapter implements LongColumnAdapter<Timestamp> {\n"
+                + "  public Timestamp fromLong(long value) {\n"
+                + "    return new Timestamp(value);\n"
+                + "  }\n"
+                + "  public long toLong(Timestamp value) {\n"
+                + "    return value.millis;\n"
+                + "  }\n"
+                + "}\n");
+        JavaFileObject source = JavaFileObjects.forSourceString("test.Test", ""
+                + "package test;\n"
+                + "import android.content.ContentValues;\n"
+                + "import com.gabrielittner.auto.value.cursor.ColumnAdapter;\n"
+                + "import com.google.auto.value.AutoValue;\n"
+                + "import javax.annotation.Nullable;\n"
+                + "@AutoValue public abstract class Test {\n"
+                + "  public abstract ContentValues toContentValues();\n"
+                + "  public abstract void writeInto(ContentValues values);\n"
+                + "  @Nullable @ColumnAdapter(TimestampAdapter.class) public abstract Timestamp values();\n"
+                + "}\n");
+        JavaFileObject expected = JavaFileObjects.forSourceString("test.AutoValue_Test", ""
+                + "package test;\n"
+                + "import android.content.ContentValues;\n"
+                + "import java.lang.Override;\n"
+                + "final class AutoValue_Test extends $AutoValue_Test {\n"
+                + "  AutoValue_Test(Timestamp values) {\n"
+                + "    super(values);\n"
+                + "  }\n"
+                + "  @Override\n"
+                + "  public ContentValues toContentValues() {\n"
+                + "    ContentValues values = new ContentValues(1);\n"
+                + "    TimestampAdapter timestampAdapter = new TimestampAdapter();\n"
+                + "    Timestamp values_ = values();\n"
+                + "    if (values_ == null) {\n"
+                + "      values.putNull(\"values\");\n"
+                + "    } else {\n"
+                + "      values.put(\"values\", timestampAdapter.toLong(values_));\n"
+                + "    }\n"
+                + "    return values;\n"
+                + "  }\n"
+                + "  @Override\n"
+                + "  public void writeInto(ContentValues values) {\n"
+                + "    values.clear();\n"
+                + "    TimestampAdapter timestampAdapter = new TimestampAdapter();\n"
+                + "    Timestamp values_ = values();\n"
+                + "    if (values_ == null) {\n"
+                + "      values.putNull(\"values\");\n"
+                + "    } else {\n"
+                + "      values.put(\"values\", timestampAdapter.toLong(values_));\n"
+                + "    }\n"
+                + "  }\n"
+                + "}\n");
+
+        assertAbout(javaSources())
+                .that(Arrays.asList(timestamp, timestampAdapter, source))
+                .processedWith(new AutoValueProcessor())
+                .compilesWithoutError()
+                .and()
+                .generatesSources(expected);
+    }
+
+    @Test
+    public void sqliteStatement() {
+        JavaFileObject source = JavaFileObjects.forSourceString("test.Test", ""
+                + "package test;\n"
+                + "import android.database.sqlite.SQLiteStatement;\n"
+                + "import com.gabrielittner.auto.value.cursor.ColumnName;\n"
+                + "import com.gabrielittner.auto.value.cursor.EnumOrdinal;\n"
+                + "import com.gabrielittner.auto.value.cursor.TableName;\n"
+                + "import com.google.auto.value.AutoValue;\n"
+                + "import javax.annotation.Nullable;\n"
+                + "@AutoValue @TableName(\"test\") public abstract class Test {\n"
+                + "  public abstract long id();\n"
+                + "  @ColumnName(\"full_name\") public abstract String name();\n"
+                + "  @Nullable public abstract Double score();\n"
+                + "  public abstract boolean active();\n"
+                + "  public abstract byte[] data();\n"
+                + "  @EnumOrdinal public abstract Status status();\n"
+                + "  public static void bind(SQLiteStatement statement, Test test) {}\n"
+                + "  public enum Status { ACTIVE, DELETED }\n"
+                + "}\n");
+        JavaFileObject expected = JavaFileObjects.forSourceString("test.AutoValue_Test", ""
+                + "package test;\n"
+                + "import android.database.sqlite.SQLiteStatement;\n"
+                + "import java.lang.Double;\n"
+                + "import java.lang.String;\n"
+                + "final class AutoValue_Test extends $AutoValue_Test {\n"
+                + "  static final String INSERT_SQL = \"INSERT INTO test (id, full_name, score, active, data, status) VALUES (?, ?, ?, ?, ?, ?)\";\n"
+                + "  AutoValue_Test(long id, String name, Double score, boolean active, byte[] data,\n"
+                + "      Test.Status status) {\n"
+                + "    super(id, name, score, active, data, status);\n"
+                + "  }\n"
+                + "  static void bindTo(SQLiteStatement statement, Test value) {\n"
+                + "    statement.bindLong(1, value.id());\n"
+                + "    statement.bindString(2, value.name());\n"
+                + "    Double score = value.score();\n"
+                + "    if (score == null) {\n"
+                + "      statement.bindNull(3);\n"
+                + "    } else {\n"
+                + "      statement.bindDouble(3, score);\n"
+                + "    }\n"
+                + "    statement.bindLong(4, value.active() ? 1 : 0);\n"
+                + "    statement.bindBlob(5, value.data());\n"
+                + "    statement.bindLong(6, value.status().ordinal());\n"
+                + "  }\n"
+                + "}\n");
+
+        assertAbout(javaSources())
+                .that(Collections.singletonList(source))
+                .processedWith(new AutoValueProcessor())
+                .compilesWithoutError()
+                .and()
+                .generatesSources(expected);
+    }
+
+
+    @Test
+    public void sqliteStatementPropertyNamedLikeParameter() {
+        JavaFileObject source = JavaFileObjects.forSourceString("test.Test", ""
+                + "package test;\n"
+                + "import android.database.sqlite.SQLiteStatement;\n"
+                + "import com.google.auto.value.AutoValue;\n"
+                + "import javax.annotation.Nullable;\n"
+                + "@AutoValue public abstract class Test {\n"
+                + "  public abstract long statement();\n"
+                + "  @Nullable public abstract String value();\n"
+                + "  public static void bind(SQLiteStatement statement, Test test) {}\n"
+                + "}\n");
+        JavaFileObject expected = JavaFileObjects.forSourceString("test.AutoValue_Test", ""
+                + "package test;\n"
+                + "import android.database.sqlite.SQLiteStatement;\n"
+                + "import java.lang.String;\n"
+                + "final class AutoValue_Test extends $AutoValue_Test {\n"
+                + "  AutoValue_Test(long statement, String value) {\n"
+                + "    super(statement, value);\n"
+                + "  }\n"
+                + "  static void bindTo(SQLiteStatement statement, Test value) {\n"
+                + "    statement.bindLong(1, value.statement());\n"
+                + "    String value_ = value.value();\n"
+                + "    if (value_ == null) {\n"
+                + "      statement.bindNull(2);\n"
+                + "    } else {\n"
+                + "      statement.bindString(2, value_);\n"
+                + "    }\n"
+                + "  }\n"
+                + "}\n");
+
+        assertAbout(javaSources())
+                .that(Collections.singletonList(source))
+                .processedWith(new AutoValueProcessor())
+                .compilesWithoutError()
+                .and()
+                .generatesSources(expected);
+    }
+
     @Test
     public void baseClass() {
         JavaFileObject source = JavaFileObjects.forSourceString("test.BaseTest", ""
@@ -334,4 +975,145 @@ public class AutoValueContentValuesExtensionTest {
                 .and()
                 .generatesSources(expected);
     }
+
+    @Test
+    public void embeddedValues() {
+        JavaFileObject author = JavaFileObjects.forSourceString("test.Author", ""
+                + "package test;\n"
+                + "import android.database.Cursor;\n"
+                + "import com.google.auto.value.AutoValue;\n"
+                + "import javax.annotation.Nullable;\n"
+                + "@AutoValue public abstract class Author {\n"
+                + "  public abstract long id();\n"
+                + "  @Nullable public abstract String name();\n"
+                + "  public static Author create(Cursor cursor) { return null; }\n"
+                + "}\n");
+        JavaFileObject source = JavaFileObjects.forSourceString("test.Test", ""
+                + "package test;\n"
+                + "import android.content.ContentValues;\n"
+                + "import com.gabrielittner.auto.value.cursor.ColumnPrefix;\n"
+                + "import com.google.auto.value.AutoValue;\n"
+                + "@AutoValue public abstract class Test {\n"
+                + "  public abstract long id();\n"
+                + "  @ColumnPrefix(\"author_\") public abstract Author author();\n"
+                + "  public abstract ContentValues toContentValues();\n"
+                + "}\n");
+        JavaFileObject expected = JavaFileObjects.forSourceString("test.AutoValue_Test", ""
+                + "package test;\n"
+                + "import android.content.ContentValues;\n"
+                + "import java.lang.Override;\n"
+                + "final class AutoValue_Test extends $AutoValue_Test {\n"
+                + "  AutoValue_Test(long id, Author author) {\n"
+                + "    super(id, author);\n"
+                + "  }\n"
+                + "  @Override\n"
+                + "  public ContentValues toContentValues() {\n"
+                + "    ContentValues values = new ContentValues(3);\n"
+                + "    values.put(\"id\", id());\n"
+                + "    values.put(\"author_id\", author().id());\n"
+                + "    values.put(\"author_name\", author().name());\n"
+                + "    return values;\n"
+                + "  }\n"
+                + "}\n");
+
+        assertAbout(javaSources())
+                .that(Arrays.asList(author, source))
+                .processedWith(new AutoValueProcessor())
+                .compilesWithoutError()
+                .and()
+                .generatesSources(expected);
+    }
+
+    @Test
+    public void embeddedNullable() {
+        JavaFileObject author = JavaFileObjects.forSourceString("test.Author", ""
+                + "package test;\n"
+                + "import com.google.auto.value.AutoValue;\n"
+                + "@AutoValue public abstract class Author {\n"
+                + "  public abstract long id();\n"
+                + "  public abstract String name();\n"
+                + "}\n");
+        JavaFileObject source = JavaFileObjects.forSourceString("test.Test", ""
+                + "package test;\n"
+                + "import android.content.ContentValues;\n"
+                + "import com.gabrielittner.auto.value.cursor.ColumnPrefix;\n"
+                + "import com.google.auto.value.AutoValue;\n"
+                + "import javax.annotation.Nullable;\n"
+                + "@AutoValue public abstract class Test {\n"
+                + "  public abstract long id();\n"
+                + "  @Nullable @ColumnPrefix(\"author_\") public abstract Author author();\n"
+                + "  public abstract ContentValues toContentValues();\n"
+                + "}\n");
+
+        assertAbout(javaSources())
+                .that(Arrays.asList(author, source))
+                .processedWith(new AutoValueProcessor())
+                .failsToCompile()
+                .withErrorCount(1)
+                .withErrorContaining("@ColumnPrefix can't be used for @Nullable properties.")
+                .in(source)
+                .onLine(8);
+    }
+
+    @Test
+    public void unaffectedByOtherClasses() {
+        // a changed class has to be the only one whose generated class changes for
+        // incremental annotation processing
+        JavaFileObject source = JavaFileObjects.forSourceString("test.Test", ""
+                + "package test;\n"
+                + "import com.google.auto.value.AutoValue;\n"
+                + "import android.content.ContentValues;\n"
+                + "@AutoValue public abstract class Test {\n"
+                + "  public abstract int a();\n"
+                + "  public abstract String b();\n"
+                + "  public abstract ContentValues toContentValues();\n"
+                + "}\n");
+
+        JavaFileObject expected = JavaFileObjects.forSourceString("test.AutoValue_Test", ""
+                + "package test;\n"
+                + "import android.content.ContentValues;\n"
+                + "import java.lang.Override;\n"
+                + "import java.lang.String;\n"
+                + "final class AutoValue_Test extends $AutoValue_Test {\n"
+                + "  AutoValue_Test(int a, String b) {\n"
+                + "    super(a, b);\n"
+                + "  }\n"
+                + "  @Override\n"
+                + "  public ContentValues toContentValues() {\n"
+                + "    ContentValues values = new ContentValues(2);\n"
+                + "    values.put(\"a\", a());\n"
+                + "    values.put(\"b\", b());\n"
+                + "    return values;\n"
+                + "  }\n"
+                + "}\n");
+
+        JavaFileObject other = JavaFileObjects.forSourceString("test.Other", ""
+                + "package test;\n"
+                + "import com.gabrielittner.auto.value.cursor.TableName;\n"
+                + "import com.google.auto.value.AutoValue;\n"
+                + "import android.content.ContentValues;\n"
+                + "import android.database.sqlite.SQLiteStatement;\n"
+                + "@AutoValue @TableName(\"other\") public abstract class Other {\n"
+                + "  public abstract long id();\n"
+                + "  public abstract void writeInto(ContentValues values);\n"
+                + "  public static void bind(SQLiteStatement statement, Other other) {}\n"
+                + "}\n");
+        JavaFileObject changedOther = JavaFileObjects.forSourceString("test.Other", ""
+                + "package test;\n"
+                + "import com.google.auto.value.AutoValue;\n"
+                + "import android.content.ContentValues;\n"
+                + "@AutoValue public abstract class Other {\n"
+                + "  public abstract String name();\n"
+                + "  public abstract ContentValues toContentValuesDiff(Other previous);\n"
+                + "}\n");
+
+        for (JavaFileObject otherVersion : Arrays.asList(other, changedOther)) {
+            assertAbout(javaSources())
+                    .that(Arrays.asList(source, otherVersion))
+                    .processedWith(new AutoValueProcessor())
+                    .compilesWithoutError()
+                    .and()
+                    .generatesSources(expected);
+        }
+    }
 }
@@ -38,6 +38,24 @@ public class AutoValueCursorExtensionTest {
                 + "    String b = cursor.getString(cursor.getColumnIndexOrThrow(\"b\"));\n"
                 + "    return new AutoValue_Test(a, b);\n"
                 + "  }\n"
+                + "  static CursorReader bind(Cursor cursor) {\n"
+                + "    return new CursorReader(cursor);\n"
+                + "  }\n"
+                + "  static final class CursorReader {\n"
+                + "    private final Cursor cursor;\n"
+                + "    private final int aColumnIndex;\n"
+                + "    private final int bColumnIndex;\n"
+                + "    CursorReader(Cursor cursor) {\n"
+                + "      this.cursor = cursor;\n"
+                + "      aColumnIndex = cursor.getColumnIndexOrThrow(\"a\");\n"
+                + "      bColumnIndex = cursor.getColumnIndexOrThrow(\"b\");\n"
+                + "    }\n"
+                + "    AutoValue_Test read() {\n"
+                + "      int a = cursor.getInt(aColumnIndex);\n"
+                + "      String b = cursor.getString(bColumnIndex);\n"
+                + "      return new AutoValue_Test(a, b);\n"
+                + "    }\n"
+                + "  }\n"
                 + "}\n");
 
         assertAbout(javaSources())
@@ -74,6 +92,24 @@ public class AutoValueCursorExtensionTest {
                 + "    String b = cursor.getString(cursor.getColumnIndexOrThrow(\"column_b\"));\n"
                 + "    return new AutoValue_Test(a, b);\n"
                 + "  }\n"
+                + "  static CursorReader bind(Cursor cursor) {\n"
+                + "    return new CursorReader(cursor);\n"
+                + "  }\n"
+                + "  static final class CursorReader {\n"
+                + "    private final Cursor cursor;\n"
+                + "    private final int aColumnIndex;\n"
+                + "    private final int bColumnIndex;\n"
+                + "    CursorReader(Cursor cursor) {\n"
+                + "      this.cursor = cursor;\n"
+                + "      aColumnIndex = cursor.getColumnIndexOrThrow(\"a\");\n"
+                + "      bColumnIndex = cursor.getColumnIndexOrThrow(\"column_b\");\n"
+                + "    }\n"
+                + "    AutoValue_Test read() {\n"
+                + "      int a = cursor.getInt(aColumnIndex);\n"
+                + "      String b = cursor.getString(bColumnIndex);\n"
+                + "      return new AutoValue_Test(a, b);\n"
+                + "    }\n"
+                + "  }\n"
                 + "}\n");
 
         assertAbout(javaSources())
@@ -111,6 +147,24 @@ public class AutoValueCursorExtensionTest {
                 + "    String b = (bColumnIndex == -1 || cursor.isNull(bColumnIndex)) ? null : cursor.getString(bColumnIndex);\n"
                 + "    return new AutoValue_Test(a, b);\n"
                 + "  }\n"
+                + "  static CursorReader bind(Cursor cursor) {\n"
+                + "    return new CursorReader(cursor);\n"
+                + "  }\n"
+                + "  static final class CursorReader {\n"
+                + "    private final Cursor cursor;\n"
+                + "    private final int aColumnIndex;\n"
+                + "    private final int bColumnIndex;\n"
+                + "    CursorReader(Cursor cursor) {\n"
+                + "      this.cursor = cursor;\n"
+                + "      aColumnIndex = cursor.getColumnIndexOrThrow(\"a\");\n"
+                + "      bColumnIndex = cursor.getColumnIndex(\"b\");\n"
+                + "    }\n"
+                + "    AutoValue_Test read() {\n"
+                + "      int a = cursor.getInt(aColumnIndex);\n"
+                + "      String b = (bColumnIndex == -1 || cursor.isNull(bColumnIndex)) ? null : cursor.getString(bColumnIndex);\n"
+                + "      return new AutoValue_Test(a, b);\n"
+                + "    }\n"
+                + "  }\n"
                 + "}\n");
 
         assertAbout(javaSources())
@@ -149,6 +203,24 @@ public class AutoValueCursorExtensionTest {
                 + "    String b = (bColumnIndex == -1 || cursor.isNull(bColumnIndex)) ? null : cursor.getString(bColumnIndex);\n"
                 + "    return new AutoValue_Test(a, b);\n"
                 + "  }\n"
+                + "  static CursorReader bind(Cursor cursor) {\n"
+                + "    return new CursorReader(cursor);\n"
+                + "  }\n"
+                + "  static final class CursorReader {\n"
+                + "    private final Cursor cursor;\n"
+                + "    private final int aColumnIndex;\n"
+                + "    private final int bColumnIndex;\n"
+                + "    CursorReader(Cursor cursor) {\n"
+                + "      this.cursor = cursor;\n"
+                + "      aColumnIndex = cursor.getColumnIndexOrThrow(\"a\");\n"
+                + "      bColumnIndex = cursor.getColumnIndex(\"column_b\");\n"
+                + "    }\n"
+                + "    AutoValue_Test read() {\n"
+                + "      int a = cursor.getInt(aColumnIndex);\n"
+                + "      String b = (bColumnIndex == -1 || cursor.isNull(bColumnIndex)) ? null : cursor.getString(bColumnIndex);\n"
+                + "      return new AutoValue_Test(a, b);\n"
+                + "    }\n"
+                + "  }\n"
                 + "}\n");
 
         assertAbout(javaSources())
@@ -204,6 +276,22 @@ public class AutoValueCursorExtensionTest {
                 + "    String b = cursor.getString(cursor.getColumnIndexOrThrow(\"b\"));\n"
                 + "    return new AutoValue_Test(a, b);\n"
                 + "  }\n"
+                + "  static CursorReader bind(Cursor cursor) {\n"
+                + "    return new CursorReader(cursor);\n"
+                + "  }\n"
+                + "  static final class CursorReader {\n"
+                + "    private final Cursor cursor;\n"
+                + "    private final int bColumnIndex;\n"
+                + "    CursorReader(Cursor cursor) {\n"
+                + "      this.cursor = cursor;\n"
+                + "      bColumnIndex = cursor.getColumnIndexOrThrow(\"b\");\n"
+                + "    }\n"
+                + "    AutoValue_Test read() {\n"
+                + "      int[] a = null; // can't be read from cursor\n"
+                + "      String b = cursor.getString(bColumnIndex);\n"
+                + "      return new AutoValue_Test(a, b);\n"
+                + "    }\n"
+                + "  }\n"
                 + "}\n");
 
         assertAbout(javaSources())
@@ -214,6 +302,25 @@ public class AutoValueCursorExtensionTest {
                 .generatesSources(expected);
     }
 
+    @Test
+    public void invalidAdapter() {
+        JavaFileObject source = JavaFileObjects.forSourceString("test.Test", ""
+                + "package test;\n"
+                + "import com.gabrielittner.auto.value.cursor.ColumnAdapter;\n"
+                + "import com.google.auto.value.AutoValue;\n"
+                + "import android.database.Cursor;\n"
+                + "@AutoValue public abstract class Test {\n"
+                + "  public static Test blah(Cursor cursor) { return null; }\n"
+                + "  @ColumnAdapter(Object.class) public abstract String a();\n"
+                + "}\n");
+
+        assertAbout(javaSources())
+                .that(Collections.singletonList(source))
+                .processedWith(new AutoValueProcessor())
+                .failsToCompile()
+                .withErrorContaining("Column adapter doesn't implement a supported interface.");
+    }
+
     @Test
     public void allCursorTypes() {
         JavaFileObject source = JavaFileObjects.forSourceString("test.Test", ""
@@ -269,6 +376,60 @@ public class AutoValueCursorExtensionTest {
                 + "    byte[] n = cursor.getBlob(cursor.getColumnIndexOrThrow(\"n\"));\n"
                 + "    return new AutoValue_Test(a, b, c, d, e, f, g, h, i, j, k, l, m, n);\n"
                 + "  }\n"
+                + "  static CursorReader bind(Cursor cursor) {\n"
+                + "    return new CursorReader(cursor);\n"
+                + "  }\n"
+                + "  static final class CursorReader {\n"
+                + "    private final Cursor cursor;\n"
+                + "    private final int aColumnIndex;\n"
+                + "    private final int bColumnIndex;\n"
+                + "    private final int cColumnIndex;\n"
+                + "    private final int dColumnIndex;\n"
+                + "    private final int eColumnIndex;\n"
+                + "    private final int fColumnIndex;\n"
+                + "    private final int gColumnIndex;\n"
+                + "    private final int hColumnIndex;\n"
+                + "    private final int iColumnIndex;\n"
+                + "    private final int jColumnIndex;\n"
+                + "    private final int kColumnIndex;\n"
+                + "    private final int lColumnIndex;\n"
+                + "    private final int mColumnIndex;\n"
+                + "    private final int nColumnIndex;\n"
+                + "    CursorReader(Cursor cursor) {\n"
+                + "      this.cursor = cursor;\n"
+                + "      aColumnIndex = cursor.getColumnIndexOrThrow(\"a\");\n"
+                + "      bColumnIndex = cursor.getColumnIndexOrThrow(\"b\");\n"
+                + "      cColumnIndex = cursor.getColumnIndexOrThrow(\"c\");\n"
+                + "      dColumnIndex = cursor.getColumnIndexOrThrow(\"d\");\n"
+                + "      eColumnIndex = cursor.getColumnIndexOrThrow(\"e\");\n"
+                + "      fColumnIndex = cursor.getColumnIndexOrThrow(\"f\");\n"
+                + "      gColumnIndex = cursor.getColumnIndexOrThrow(\"g\");\n"
+                + "      hColumnIndex = cursor.getColumnIndexOrThrow(\"h\");\n"
+                + "      iColumnIndex = cursor.getColumnIndexOrThrow(\"i\");\n"
+                + "      jColumnIndex = cursor.getColumnIndexOrThrow(\"j\");\n"
+                + "      kColumnIndex = cursor.getColumnIndexOrThrow(\"k\");\n"
+                + "      lColumnIndex = cursor.getColumnIndexOrThrow(\"l\");\n"
+                + "      mColumnIndex = cursor.getColumnIndexOrThrow(\"m\");\n"
+                + "      nColumnIndex = cursor.getColumnIndexOrThrow(\"n\");\n"
+                + "    }\n"
+                + "    AutoValue_Test read() {\n"
+                + "      String a = cursor.getString(aColumnIndex);\n"
+                + "      int b = cursor.getInt(bColumnIndex);\n"
+                + "      Integer c = cursor.getInt(cColumnIndex);\n"
+                + "      long d = cursor.getLong(dColumnIndex);\n"
+                + "      Long e = cursor.getLong(eColumnIndex);\n"
+                + "      short f = cursor.getShort(fColumnIndex);\n"
+                + "      Short g = cursor.getShort(gColumnIndex);\n"
+                + "      double h = cursor.getDouble(hColumnIndex);\n"
+                + "      Double i = cursor.getDouble(iColumnIndex);\n"
+                + "      float j = cursor.getFloat(jColumnIndex);\n"
+                + "      Float k = cursor.getFloat(kColumnIndex);\n"
+                + "      boolean l = cursor.getInt(lColumnIndex) == 1;\n"
+                + "      Boolean m = cursor.getInt(mColumnIndex) == 1;\n"
+                + "      byte[] n = cursor.getBlob(nColumnIndex);\n"
+                + "      return new AutoValue_Test(a, b, c, d, e, f, g, h, i, j, k, l, m, n);\n"
+                + "    }\n"
+                + "  }\n"
                 + "}\n");
 
         assertAbout(javaSources())
@@ -279,6 +440,193 @@ public class AutoValueCursorExtensionTest {
                 .generatesSources(expected);
     }
 
+    @Test
+    public void enums() {
+        JavaFileObject status = JavaFileObjects.forSourceString("test.Status", ""
+                + "package test;\n"
+                + "public enum Status {\n"
+                + "  ACTIVE,\n"
+                + "  BLOCKED\n"
+                + "}\n");
+        JavaFileObject source = JavaFileObjects.forSourceString("test.Test", ""
+                + "package test;\n"
+                + "import android.database.Cursor;\n"
+                + "import com.gabrielittner.auto.value.cursor.EnumOrdinal;\n"
+                + "import com.google.auto.value.AutoValue;\n"
+                + "import javax.annotation.Nullable;\n"
+                + "@AutoValue public abstract class Test {\n"
+                + "  public static Test blah(Cursor cursor) { return null; }\n"
+                + "  public abstract Status a();\n"
+                + "  @Nullable public abstract Status b();\n"
+                + "  @EnumOrdinal public abstract Status c();\n"
+                + "  @Nullable @EnumOrdinal public abstract Status d();\n"
+                + "}\n");
+        JavaFileObject expected = JavaFileObjects.forSourceString("test.AutoValue_Test", ""
+                + "package test;\n"
+                + "import android.database.Cursor;\n"
+                + "import java.lang.IllegalArgumentException;\n"
+                + "import java.lang.String;\n"
+                + "final class AutoValue_Test extends $AutoValue_Test {\n"
+                + "  private static final Status[] STATUS_VALUES = Status.values();\n"
+                + "  AutoValue_Test(Status a, Status b, Status c, Status d) {\n"
+                + "    super(a, b, c, d);\n"
+                + "  }\n"
+                + "  static AutoValue_Test createFromCursor(Cursor cursor) {\n"
+                + "    Status a = statusFromName(cursor.getString(cursor.getColumnIndexOrThrow(\"a\")));\n"
+                + "    int bColumnIndex = cursor.getColumnIndex(\"b\");\n"
+                + "    Status b = (bColumnIndex == -1 || cursor.isNull(bColumnIndex)) ? null : statusFromName(cursor.getString(bColumnIndex));\n"
+                + "    Status c = statusFromOrdinal(cursor.getInt(cursor.getColumnIndexOrThrow(\"c\")));\n"
+                + "    int dColumnIndex = cursor.getColumnIndex(\"d\");\n"
+                + "    Status d = (dColumnIndex == -1 || cursor.isNull(dColumnIndex)) ? null : statusFromOrdinal(cursor.getInt(dColumnIndex));\n"
+                + "    return new AutoValue_Test(a, b, c, d);\n"
+                + "  }\n"
+                + "  static Status statusFromName(String name) {\n"
+                + "    switch (name) {\n"
+                + "      case \"ACTIVE\": return Status.ACTIVE;\n"
+                + "      case \"BLOCKED\": return Status.BLOCKED;\n"
+                + "      default: throw new IllegalArgumentException(\"No enum constant Status.\" + name);\n"
+                + "    }\n"
+                + "  }\n"
+                + "  static Status statusFromOrdinal(int ordinal) {\n"
+                + "    if (ordinal < 0 || ordinal >= STATUS_VALUES.length) {\n"
+                + "      throw new IllegalArgumentException(\"No enum constant Status with ordinal \" + ordinal);\n"
+                + "    }\n"
+                + "    return STATUS_VALUES[ordinal];\n"
+                + "  }\n"
+                + "  static CursorReader bind(Cursor cursor) {\n"
+                + "    return new CursorReader(cursor);\n"
+                + "  }\n"
+                + "  static final class CursorReader {\n"
+                + "    private final Cursor cursor;\n"
+                + "    private final int aColumnIndex;\n"
+                + "    private final int bColumnIndex;\n"
+                + "    private final int cColumnIndex;\n"
+                + "    private final int dColumnIndex;\n"
+                + "    CursorReader(Cursor cursor) {\n"
+                + "      this.cursor = cursor;\n"
+                + "      aColumnIndex = cursor.getColumnIndexOrThrow(\"a\");\n"
+                + "      bColumnIndex = cursor.getColumnIndex(\"b\");\n"
+                + "      cColumnIndex = cursor.getColumnIndexOrThrow(\"c\");\n"
+                + "      dColumnIndex = cursor.getColumnIndex(\"d\");\n"
+                + "    }\n"
+                + "    AutoValue_Test read() {\n"
+                + "      Status a = statusFromName(cursor.getString(aColumnIndex));\n"
+                + "      Status b = (bColumnIndex == -1 || cursor.isNull(bColumnIndex)) ? null : statusFromName(cursor.getString(bColumnIndex));\n"
+                + "      Status c = statusFromOrdinal(cursor.getInt(cColumnIndex));\n"
+                + "      Status d = (dColumnIndex == -1 || cursor.isNull(dColumnIndex)) ? null : statusFromOrdinal(cursor.getInt(dColumnIndex));\n"
+                + "      return new AutoValue_Test(a, b, c, d);\n"
+                + "    }\n"
+                + "  }\n"
+                + "}\n");
+
+        assertAbout(javaSources())
+                .that(Arrays.asList(status, source))
+                .processedWith(new AutoValueProcessor())
+                .compilesWithoutError()
+                .and()
+                .generatesSources(expected);
+    }
+
+
+    @Test
+    public void enumsWithSameSimpleName() {
+        JavaFileObject aKind = JavaFileObjects.forSourceString("test.a.Kind", ""
+                + "package test.a;\n"
+                + "public enum Kind { X, Y }\n");
+        JavaFileObject bKind = JavaFileObjects.forSourceString("test.b.Kind", ""
+                + "package test.b;\n"
+                + "public enum Kind { Y, Z }\n");
+        JavaFileObject source = JavaFileObjects.forSourceString("test.Test", ""
+                + "package test;\n"
+                + "import android.database.Cursor;\n"
+                + "import com.gabrielittner.auto.value.cursor.EnumOrdinal;\n"
+                + "import com.google.auto.value.AutoValue;\n"
+                + "@AutoValue public abstract class Test {\n"
+                + "  public static Test blah(Cursor cursor) { return null; }\n"
+                + "  public abstract test.a.Kind a();\n"
+                + "  public abstract test.b.Kind b();\n"
+                + "  @EnumOrdinal public abstract test.a.Kind c();\n"
+                + "  @EnumOrdinal public abstract test.b.Kind d();\n"
+                + "}\n");
+        JavaFileObject expected = JavaFileObjects.forSourceString("test.AutoValue_Test", ""
+                + "package test;\n"
+                + "import android.database.Cursor;\n"
+                + "import java.lang.IllegalArgumentException;\n"
+                + "import java.lang.String;\n"
+                + "import test.a.Kind;\n"
+                + "final class AutoValue_Test extends $AutoValue_Test {\n"
+                + "  private static final Kind[] KIND_VALUES = Kind.values();\n"
+                + "  private static final test.b.Kind[] KIND_VALUES_ = test.b.Kind.values();\n"
+                + "  AutoValue_Test(Kind a, test.b.Kind b, Kind c, test.b.Kind d) {\n"
+                + "    super(a, b, c, d);\n"
+                + "  }\n"
+                + "  static AutoValue_Test createFromCursor(Cursor cursor) {\n"
+                + "    Kind a = kindFromName(cursor.getString(cursor.getColumnIndexOrThrow(\"a\")));\n"
+                + "    test.b.Kind b = kindFromName_(cursor.getString(cursor.getColumnIndexOrThrow(\"b\")));\n"
+                + "    Kind c = kindFromOrdinal(cursor.getInt(cursor.getColumnIndexOrThrow(\"c\")));\n"
+                + "    test.b.Kind d = kindFromOrdinal_(cursor.getInt(cursor.getColumnIndexOrThrow(\"d\")));\n"
+                + "    return new AutoValue_Test(a, b, c, d);\n"
+                + "  }\n"
+                + "  static Kind kindFromName(String name) {\n"
+                + "    switch (name) {\n"
+                + "      case \"X\": return Kind.X;\n"
+                + "      case \"Y\": return Kind.Y;\n"
+                + "      default: throw new IllegalArgumentException(\"No enum constant Kind.\" + name);\n"
+                + "    }\n"
+                + "  }\n"
+                + "  static test.b.Kind kindFromName_(String name) {\n"
+                + "    switch (name) {\n"
+                + "      case \"Y\": return test.b.Kind.Y;\n"
+                + "      case \"Z\": return test.b.Kind.Z;\n"
+                + "      default: throw new IllegalArgumentException(\"No enum constant Kind.\" + name);\n"
+                + "    }\n"
+                + "  }\n"
+                + "  static Kind kindFromOrdinal(int ordinal) {\n"
+                + "    if (ordinal < 0 || ordinal >= KIND_VALUES.length) {\n"
+                + "      throw new IllegalArgumentException(\"No enum constant Kind with ordinal \" + ordinal);\n"
+                + "    }\n"
+                + "    return KIND_VALUES[ordinal];\n"
+                + "  }\n"
+                + "  static test.b.Kind kindFromOrdinal_(int ordinal) {\n"
+                + "    if (ordinal < 0 || ordinal >= KIND_VALUES_.length) {\n"
+                + "      throw new IllegalArgumentException(\"No enum constant Kind with ordinal \" + ordinal);\n"
+                + "    }\n"
+                + "    return KIND_VALUES_[ordinal];\n"
+                + "  }\n"
+                + "  static CursorReader bind(Cursor cursor) {\n"
+                + "    return new CursorReader(cursor);\n"
+                + "  }\n"
+                + "  static final class CursorReader {\n"
+                + "    private final Cursor cursor;\n"
+                + "    private final int aColumnIndex;\n"
+                + "    private final int bColumnIndex;\n"
+                + "    private final int cColumnIndex;\n"
+                + "    private final int dColumnIndex;\n"
+                + "    CursorReader(Cursor cursor) {\n"
+                + "      this.cursor = cursor;\n"
+                + "      aColumnIndex = cursor.getColumnIndexOrThrow(\"a\");\n"
+                + "      bColumnIndex = cursor.getColumnIndexOrThrow(\"b\");\n"
+                + "      cColumnIndex = cursor.getColumnIndexOrThrow(\"c\");\n"
+                + "      dColumnIndex = cursor.getColumnIndexOrThrow(\"d\");\n"
+                + "    }\n"
+                + "    AutoValue_Test read() {\n"
+                + "      Kind a = kindFromName(cursor.getString(aColumnIndex));\n"
+                + "      test.b.Kind b = kindFromName_(cursor.getString(bColumnIndex));\n"
+                + "      Kind c = kindFromOrdinal(cursor.getInt(cColumnIndex));\n"
+                + "      test.b.Kind d = kindFromOrdinal_(cursor.getInt(dColumnIndex));\n"
+                + "      return new AutoValue_Test(a, b, c, d);\n"
+                + "    }\n"
+                + "  }\n"
+                + "}\n");
+
+        assertAbout(javaSources())
+                .that(Arrays.asList(aKind, bKind, source))
+                .processedWith(new AutoValueProcessor())
+                .compilesWithoutError()
+                .and()
+                .generatesSources(expected);
+    }
+
     @Test
     public void cursorAdapter() {
         JavaFileObject fooClass = JavaFileObjects.forSourceString("test.Foo", ""
@@ -342,6 +690,23 @@ public class AutoValueCursorExtensionTest {
                 + "    String columnName = stringAdapter.fromCursor(cursor, \"column\");\n"
                 + "    return new AutoValue_Test(foo, bar, columnName);\n"
                 + "  }\n"
+                + "  static CursorReader bind(Cursor cursor) {\n"
+                + "    return new CursorReader(cursor);\n"
+                + "  }\n"
+                + "  static final class CursorReader {\n"
+                + "    private final Cursor cursor;\n"
+                + "    private final FooAdapter fooAdapter = new FooAdapter();\n"
+                + "    private final StringAdapter stringAdapter = new StringAdapter();\n"
+                + "    CursorReader(Cursor cursor) {\n"
+                + "      this.cursor = cursor;\n"
+                + "    }\n"
+                + "    AutoValue_Test read() {\n"
+                + "      Foo foo = fooAdapter.fromCursor(cursor, \"foo\");\n"
+                + "      String bar = stringAdapter.fromCursor(cursor, \"bar\");\n"
+                + "      String columnName = stringAdapter.fromCursor(cursor, \"column\");\n"
+                + "      return new AutoValue_Test(foo, bar, columnName);\n"
+                + "    }\n"
+                + "  }\n"
                 + "}\n");
 
         assertAbout(javaSources())
@@ -353,42 +718,88 @@ public class AutoValueCursorExtensionTest {
     }
 
     @Test
-    public void rxjava2() {
-        JavaFileObject source = JavaFileObjects.forSourceString("test.Test", ""
+    public void cursorAdapterShared() {
+        JavaFileObject fooClass = JavaFileObjects.forSourceString("test.Foo", ""
+                + "package test;\n"
+                + "public class Foo {\n"
+                + "  public final String data;\n"
+                + "  public Foo(String data) {\n"
+                + "    this.data = data;\n"
+                + "  }\n"
+                + "}\n");
+        JavaFileObject fooFactorySource = JavaFileObjects.forSourceString("test.FooAdapter", ""
+                + "package test;\n"
+                + "import android.content.ContentValues;\n"
+                + "import android.database.Cursor;\n"
+                + "import com.gabrielittner.auto.value.cursor.ColumnTypeAdapter;\n"
+                + "public class FooAdapter implements ColumnTypeAdapter<Foo> {\n"
+                + "  public Foo fromCursor(Cursor cursor, String columnName) {\n"
+                + "    return new Foo(cursor.getString(cursor.getColumnIndex(columnName)));\n"
+                + "  }\n"
+                + "  public void toContentValues(ContentValues values, String columnName, Foo value) {\n"
+                + "  }\n"
+                + "}\n");
+        JavaFileObject stringFactorySource = JavaFileObjects.forSourceString("test.StringAdapter", ""
                 + "package test;\n"
+                + "import android.content.ContentValues;\n"
                 + "import android.database.Cursor;\n"
+                + "import com.gabrielittner.auto.value.cursor.ColumnTypeAdapter;\n"
+                + "public class StringAdapter implements ColumnTypeAdapter<String> {\n"
+                + "  public String fromCursor(Cursor cursor, String columnName) {\n"
+                + "    return cursor.getString(cursor.getColumnIndex(columnName));\n"
+                + "  }\n"
+                + "  public void toContentValues(ContentValues values, String columnName, String value) {\n"
+                + "  }\n"
+                + "}\n");
+        JavaFileObject source = JavaFileObjects.forSourceString("test.Test", ""
+                + "package test;\n"
+                + "import com.gabrielittner.auto.value.cursor.ColumnName;\n"
+                + "import com.gabrielittner.auto.value.cursor.ColumnAdapter;\n"
                 + "import com.google.auto.value.AutoValue;\n"
+                + "import javax.annotation.Nullable;\n"
+                + "import android.database.Cursor;\n"
                 + "@AutoValue public abstract class Test {\n"
                 + "  public static Test blah(Cursor cursor) { return null; }\n"
-                + "  public abstract int a();\n"
-                + "  public abstract String b();\n"
+                + "  @ColumnAdapter(value = FooAdapter.class, shared = true) public abstract Foo foo();\n"
+                + "  @ColumnAdapter(StringAdapter.class) public abstract String bar();\n"
+                + "  @ColumnAdapter(StringAdapter.class) @ColumnName(\"column\") public abstract String columnName();\n"
                 + "}\n");
-
         JavaFileObject expected = JavaFileObjects.forSourceString("test.AutoValue_Test", ""
                 + "package test;\n"
                 + "import android.database.Cursor;\n"
-                + "import io.reactivex.functions.Function;\n"
-                + "import java.lang.Override;\n"
                 + "import java.lang.String;\n"
                 + "final class AutoValue_Test extends $AutoValue_Test {\n"
-                + "  static final Function<Cursor, Test> MAPPER_FUNCTION = new Function<Cursor, Test>() {\n"
-                + "    @Override\n"
-                + "    public AutoValue_Test apply(Cursor c) {\n"
-                + "      return createFromCursor(c);\n"
-                + "    }\n"
-                + "  };\n"
-                + "  AutoValue_Test(int a, String b) {\n"
-                + "    super(a, b);\n"
+                + "  static final FooAdapter FOO_ADAPTER = new FooAdapter();\n"
+                + "  AutoValue_Test(Foo foo, String bar, String columnName) {\n"
+                + "    super(foo, bar, columnName);\n"
                 + "  }\n"
                 + "  static AutoValue_Test createFromCursor(Cursor cursor) {\n"
-                + "    int a = cursor.getInt(cursor.getColumnIndexOrThrow(\"a\"));\n"
-                + "    String b = cursor.getString(cursor.getColumnIndexOrThrow(\"b\"));\n"
-                + "    return new AutoValue_Test(a, b);\n"
+                + "    StringAdapter stringAdapter = new StringAdapter();\n"
+                + "    Foo foo = FOO_ADAPTER.fromCursor(cursor, \"foo\");\n"
+                + "    String bar = stringAdapter.fromCursor(cursor, \"bar\");\n"
+                + "    String columnName = stringAdapter.fromCursor(cursor, \"column\");\n"
+                + "    return new AutoValue_Test(foo, bar, columnName);\n"
+                + "  }\n"
+                + "  static CursorReader bind(Cursor cursor) {\n"
+                + "    return new CursorReader(cursor);\n"
+                + "  }\n"
+                + "  static final class CursorReader {\n"
+                + "    private final Cursor cursor;\n"
+                + "    private final StringAdapter stringAdapter = new StringAdapter();\n"
+                + "    CursorReader(Cursor cursor) {\n"
+                + "      this.cursor = cursor;\n"
+                + "    }\n"
+                + "    AutoValue_Test read() {\n"
+                + "      Foo foo = FOO_ADAPTER.fromCursor(cursor, \"foo\");\n"
+                + "      String bar = stringAdapter.fromCursor(cursor, \"bar\");\n"
+                + "      String columnName = stringAdapter.fromCursor(cursor, \"column\");\n"
+                + "      return new AutoValue_Test(foo, bar, columnName);\n"
+                + "    }\n"
                 + "  }\n"
                 + "}\n");
 
         assertAbout(javaSources())
-                .that(Arrays.asList(function(), source))
+                .that(Arrays.asList(fooClass, stringFactorySource, fooFactorySource, source))
                 .processedWith(new AutoValueProcessor())
                 .compilesWithoutError()
                 .and()
@@ -396,66 +807,101 @@ public class AutoValueCursorExtensionTest {
     }
 
     @Test
-    public void rxjava2OptIn() {
+    public void cursorAdaptersWithSameSimpleName() {
+        JavaFileObject aAdapter = JavaFileObjects.forSourceString("test.a.FooAdapter", ""
+                + "package test.a;\n"
+                + "import android.content.ContentValues;\n"
+                + "import android.database.Cursor;\n"
+                + "import com.gabrielittner.auto.value.cursor.ColumnTypeAdapter;\n"
+                + "public class FooAdapter implements ColumnTypeAdapter<String> {\n"
+                + "  public String fromCursor(Cursor cursor, String columnName) {\n"
+                + "    return cursor.getString(cursor.getColumnIndex(columnName));\n"
+                + "  }\n"
+                + "  public void toContentValues(ContentValues values, String columnName, String value) {\n"
+                + "  }\n"
+                + "}\n");
+        JavaFileObject bAdapter = JavaFileObjects.forSourceString("test.b.FooAdapter", ""
+                + "package test.b;\n"
+                + "import android.content.ContentValues;\n"
+                + "import android.database.Cursor;\n"
+                + "import com.gabrielittner.auto.value.cursor.ColumnTypeAdapter;\n"
+                + "public class FooAdapter implements ColumnTypeAdapter<String> {\n"
+                + "  public String fromCursor(Cursor cursor, String columnName) {\n"
+                + "    return cursor.getString(cursor.getColumnIndex(columnName));\n"
+                + "  }\n"
+                + "  public void toContentValues(ContentValues values, String columnName, String value) {\n"
+                + "  }\n"
+                + "}\n");
         JavaFileObject source = JavaFileObjects.forSourceString("test.Test", ""
                 + "package test;\n"
-                + "import android.database.Cursor;\n"
+                + "import com.gabrielittner.auto.value.cursor.ColumnAdapter;\n"
                 + "import com.google.auto.value.AutoValue;\n"
-                + "import io.reactivex.functions.Function;\n"
+                + "import android.database.Cursor;\n"
                 + "@AutoValue public abstract class Test {\n"
-                + "  public static Function<Cursor, Test> blahMap() { return null; }\n"
-                + "  public abstract int a();\n"
-                + "  public abstract String b();\n"
+                + "  public static Test blah(Cursor cursor) { return null; }\n"
+                + "  @ColumnAdapter(test.a.FooAdapter.class) public abstract String a();\n"
+                + "  @ColumnAdapter(test.b.FooAdapter.class) public abstract String b();\n"
+                + "  @ColumnAdapter(value = test.a.FooAdapter.class, shared = true) public abstract String c();\n"
+                + "  @ColumnAdapter(value = test.b.FooAdapter.class, shared = true) public abstract String d();\n"
                 + "}\n");
-
         JavaFileObject expected = JavaFileObjects.forSourceString("test.AutoValue_Test", ""
                 + "package test;\n"
                 + "import android.database.Cursor;\n"
-                + "import io.reactivex.functions.Function;\n"
-                + "import java.lang.Override;\n"
                 + "import java.lang.String;\n"
+                + "import test.a.FooAdapter;\n"
                 + "final class AutoValue_Test extends $AutoValue_Test {\n"
-                + "  static final Function<Cursor, Test> MAPPER_FUNCTION = new Function<Cursor, Test>() {\n"
-                + "    @Override\n"
-                + "    public AutoValue_Test apply(Cursor c) {\n"
-                + "      return createFromCursor(c);\n"
-                + "    }\n"
-                + "  };\n"
-                + "  AutoValue_Test(int a, String b) {\n"
-                + "    super(a, b);\n"
+                + "  static final FooAdapter FOO_ADAPTER = new FooAdapter();\n"
+                + "  static final test.b.FooAdapter FOO_ADAPTER_ = new test.b.FooAdapter();\n"
+                + "  AutoValue_Test(String a, String b, String c, String d) {\n"
+                + "    super(a, b, c, d);\n"
                 + "  }\n"
                 + "  static AutoValue_Test createFromCursor(Cursor cursor) {\n"
-                + "    int a = cursor.getInt(cursor.getColumnIndexOrThrow(\"a\"));\n"
-                + "    String b = cursor.getString(cursor.getColumnIndexOrThrow(\"b\"));\n"
-                + "    return new AutoValue_Test(a, b);\n"
+                + "    FooAdapter fooAdapter = new FooAdapter();\n"
+                + "    test.b.FooAdapter fooAdapter_ = new test.b.FooAdapter();\n"
+                + "    String a = fooAdapter.fromCursor(cursor, \"a\");\n"
+                + "    String b = fooAdapter_.fromCursor(cursor, \"b\");\n"
+                + "    String c = FOO_ADAPTER.fromCursor(cursor, \"c\");\n"
+                + "    String d = FOO_ADAPTER_.fromCursor(cursor, \"d\");\n"
+                + "    return new AutoValue_Test(a, b, c, d);\n"
+                + "  }\n"
+                + "  static CursorReader bind(Cursor cursor) {\n"
+                + "    return new CursorReader(cursor);\n"
+                + "  }\n"
+                + "  static final class CursorReader {\n"
+                + "    private final Cursor cursor;\n"
+                + "    private final FooAdapter fooAdapter = new FooAdapter();\n"
+                + "    private final test.b.FooAdapter fooAdapter_ = new test.b.FooAdapter();\n"
+                + "    CursorReader(Cursor cursor) {\n"
+                + "      this.cursor = cursor;\n"
+                + "    }\n"
+                + "    AutoValue_Test read() {\n"
+                + "      String a = fooAdapter.fromCursor(cursor, \"a\");\n"
+                + "      String b = fooAdapter_.fromCursor(cursor, \"b\");\n"
+                + "      String c = FOO_ADAPTER.fromCursor(cursor, \"c\");\n"
+                + "      String d = FOO_ADAPTER_.fromCursor(cursor, \"d\");\n"
+                + "      return new AutoValue_Test(a, b, c, d);\n"
+                + "    }\n"
                 + "  }\n"
                 + "}\n");
 
         assertAbout(javaSources())
-                .that(Arrays.asList(function(), source))
+                .that(Arrays.asList(aAdapter, bAdapter, source))
                 .processedWith(new AutoValueProcessor())
                 .compilesWithoutError()
                 .and()
                 .generatesSources(expected);
     }
 
-    private JavaFileObject function() {
-        return JavaFileObjects.forSourceString(
-                "io.reactivex.functions.Function", ""
-                        + "package io.reactivex.functions;\n"
-                        + "public interface Function<T, R> {\n"
-                        + "  R apply(T t);\n"
-                        + "}\n");
-    }
-
     @Test
-    public void rxjava() {
+    public void list() {
         JavaFileObject source = JavaFileObjects.forSourceString("test.Test", ""
                 + "package test;\n"
                 + "import com.google.auto.value.AutoValue;\n"
                 + "import android.database.Cursor;\n"
+                + "import java.util.List;\n"
                 + "@AutoValue public abstract class Test {\n"
                 + "  public static Test blah(Cursor cursor) { return null; }\n"
+                + "  public static List<Test> blahList(Cursor cursor) { return null; }\n"
                 + "  public abstract int a();\n"
                 + "  public abstract String b();\n"
                 + "}\n");
@@ -463,16 +909,11 @@ public class AutoValueCursorExtensionTest {
         JavaFileObject expected = JavaFileObjects.forSourceString("test.AutoValue_Test", ""
                 + "package test;\n"
                 + "import android.database.Cursor;\n"
-                + "import java.lang.Override;\n"
                 + "import java.lang.String;\n"
-                + "import rx.functions.Func1;\n"
+                + "import java.util.ArrayList;\n"
+                + "import java.util.Collections;\n"
+                + "import java.util.List;\n"
                 + "final class AutoValue_Test extends $AutoValue_Test {\n"
-                + "  static final Func1<Cursor, Test> MAPPER = new Func1<Cursor, Test>() {\n"
-                + "    @Override\n"
-                + "    public AutoValue_Test call(Cursor c) {\n"
-                + "      return createFromCursor(c);\n"
-                + "    }\n"
-                + "  };\n"
                 + "  AutoValue_Test(int a, String b) {\n"
                 + "    super(a, b);\n"
                 + "  }\n"
@@ -481,10 +922,1816 @@ public class AutoValueCursorExtensionTest {
                 + "    String b = cursor.getString(cursor.getColumnIndexOrThrow(\"b\"));\n"
                 + "    return new AutoValue_Test(a, b);\n"
                 + "  }\n"
+                + "  static CursorReader bind(Cursor cursor) {\n"
+                + "    return new CursorReader(cursor);\n"
+                + "  }\n"
+                + "  static List<Test> createListFromCursor(Cursor cursor) {\n"
+                + "    List<Test> list = new ArrayList<>(cursor.getCount());\n"
+                + "    CursorReader reader = new CursorReader(cursor);\n"
+                + "    while (cursor.moveToNext()) {\n"
+                + "      list.add(reader.read());\n"
+                + "    }\n"
+                + "    return Collections.unmodifiableList(list);\n"
+                + "  }\n"
+                + "  static final class CursorReader {\n"
+                + "    private final Cursor cursor;\n"
+                + "    private final int aColumnIndex;\n"
+                + "    private final int bColumnIndex;\n"
+                + "    CursorReader(Cursor cursor) {\n"
+                + "      this.cursor = cursor;\n"
+                + "      aColumnIndex = cursor.getColumnIndexOrThrow(\"a\");\n"
+                + "      bColumnIndex = cursor.getColumnIndexOrThrow(\"b\");\n"
+                + "    }\n"
+                + "    AutoValue_Test read() {\n"
+                + "      int a = cursor.getInt(aColumnIndex);\n"
+                + "      String b = cursor.getString(bColumnIndex);\n"
+                + "      return new AutoValue_Test(a, b);\n"
+                + "    }\n"
+                + "  }\n"
                 + "}\n");
 
         assertAbout(javaSources())
-                .that(Arrays.asList(func1(), source))
+                .that(Collections.singletonList(source))
+                .processedWith(new AutoValueProcessor())
+                .compilesWithoutError()
+                .and()
+                .generatesSources(expected);
+    }
+
+    @Test
+    public void listOptIn() {
+        JavaFileObject source = JavaFileObjects.forSourceString("test.Test", ""
+                + "package test;\n"
+                + "import com.google.auto.value.AutoValue;\n"
+                + "import android.database.Cursor;\n"
+                + "import java.util.List;\n"
+                + "@AutoValue public abstract class Test {\n"
+                + "  public static List<Test> blahList(Cursor cursor) { return null; }\n"
+                + "  public abstract int a();\n"
+                + "  public abstract String b();\n"
+                + "}\n");
+
+        JavaFileObject expected = JavaFileObjects.forSourceString("test.AutoValue_Test", ""
+                + "package test;\n"
+                + "import android.database.Cursor;\n"
+                + "import java.lang.String;\n"
+                + "import java.util.ArrayList;\n"
+                + "import java.util.Collections;\n"
+                + "import java.util.List;\n"
+                + "final class AutoValue_Test extends $AutoValue_Test {\n"
+                + "  AutoValue_Test(int a, String b) {\n"
+                + "    super(a, b);\n"
+                + "  }\n"
+                + "  static AutoValue_Test createFromCursor(Cursor cursor) {\n"
+                + "    int a = cursor.getInt(cursor.getColumnIndexOrThrow(\"a\"));\n"
+                + "    String b = cursor.getString(cursor.getColumnIndexOrThrow(\"b\"));\n"
+                + "    return new AutoValue_Test(a, b);\n"
+                + "  }\n"
+                + "  static CursorReader bind(Cursor cursor) {\n"
+                + "    return new CursorReader(cursor);\n"
+                + "  }\n"
+                + "  static List<Test> createListFromCursor(Cursor cursor) {\n"
+                + "    List<Test> list = new ArrayList<>(cursor.getCount());\n"
+                + "    CursorReader reader = new CursorReader(cursor);\n"
+                + "    while (cursor.moveToNext()) {\n"
+                + "      list.add(reader.read());\n"
+                + "    }\n"
+                + "    return Collections.unmodifiableList(list);\n"
+                + "  }\n"
+                + "  static final class CursorReader {\n"
+                + "    private final Cursor cursor;\n"
+                + "    private final int aColumnIndex;\n"
+                + "    private final int bColumnIndex;\n"
+                + "    CursorReader(Cursor cursor) {\n"
+                + "      this.cursor = cursor;\n"
+                + "      aColumnIndex = cursor.getColumnIndexOrThrow(\"a\");\n"
+                + "      bColumnIndex = cursor.getColumnIndexOrThrow(\"b\");\n"
+                + "    }\n"
+                + "    AutoValue_Test read() {\n"
+                + "      int a = cursor.getInt(aColumnIndex);\n"
+                + "      String b = cursor.getString(bColumnIndex);\n"
+                + "      return new AutoValue_Test(a, b);\n"
+                + "    }\n"
+                + "  }\n"
+                + "}\n");
+
+        assertAbout(javaSources())
+                .that(Collections.singletonList(source))
+                .processedWith(new AutoValueProcessor())
+                .compilesWithoutError()
+                .and()
+                .generatesSources(expected);
+    }
+
+    @Test
+    public void rereadList() {
+        JavaFileObject source = JavaFileObjects.forSourceString("test.Test", ""
+                + "package test;\n"
+                + "import android.database.Cursor;\n"
+                + "import com.google.auto.value.AutoValue;\n"
+                + "import java.util.List;\n"
+                + "import javax.annotation.Nullable;\n"
+                + "@AutoValue public abstract class Test {\n"
+                + "  public abstract int a();\n"
+                + "  @Nullable public abstract String b();\n"
+                + "  public abstract byte[] c();\n"
+                + "  public static List<Test> reread(Cursor cursor, List<Test> previous) { return null; }\n"
+                + "}\n");
+        JavaFileObject expected = JavaFileObjects.forSourceString("test.AutoValue_Test", ""
+                + "package test;\n"
+                + "import android.database.Cursor;\n"
+                + "import java.lang.String;\n"
+                + "import java.util.ArrayList;\n"
+                + "import java.util.Arrays;\n"
+                + "import java.util.Collections;\n"
+                + "import java.util.List;\n"
+                + "final class AutoValue_Test extends $AutoValue_Test {\n"
+                + "  AutoValue_Test(int a, String b, byte[] c) {\n"
+                + "    super(a, b, c);\n"
+                + "  }\n"
+                + "  static AutoValue_Test createFromCursor(Cursor cursor) {\n"
+                + "    int a = cursor.getInt(cursor.getColumnIndexOrThrow(\"a\"));\n"
+                + "    int bColumnIndex = cursor.getColumnIndex(\"b\");\n"
+                + "    String b = (bColumnIndex == -1 || cursor.isNull(bColumnIndex)) ? null : cursor.getString(bColumnIndex);\n"
+                + "    byte[] c = cursor.getBlob(cursor.getColumnIndexOrThrow(\"c\"));\n"
+                + "    return new AutoValue_Test(a, b, c);\n"
+                + "  }\n"
+                + "  static CursorReader bind(Cursor cursor) {\n"
+                + "    return new CursorReader(cursor);\n"
+                + "  }\n"
+                + "  static List<Test> rereadList(Cursor cursor, List<Test> previous) {\n"
+                + "    List<Test> list = new ArrayList<>(cursor.getCount());\n"
+                + "    CursorReader reader = new CursorReader(cursor);\n"
+                + "    int previousSize = previous.size();\n"
+                + "    while (cursor.moveToNext()) {\n"
+                + "      int position = list.size();\n"
+                + "      Test old = position < previousSize ? previous.get(position) : null;\n"
+                + "      list.add(reader.readOrReuse(old));\n"
+                + "    }\n"
+                + "    return Collections.unmodifiableList(list);\n"
+                + "  }\n"
+                + "  static final class CursorReader {\n"
+                + "    private final Cursor cursor;\n"
+                + "    private final int aColumnIndex;\n"
+                + "    private final int bColumnIndex;\n"
+                + "    private final int cColumnIndex;\n"
+                + "    CursorReader(Cursor cursor) {\n"
+                + "      this.cursor = cursor;\n"
+                + "      aColumnIndex = cursor.getColumnIndexOrThrow(\"a\");\n"
+                + "      bColumnIndex = cursor.getColumnIndex(\"b\");\n"
+                + "      cColumnIndex = cursor.getColumnIndexOrThrow(\"c\");\n"
+                + "    }\n"
+                + "    AutoValue_Test read() {\n"
+                + "      int a = cursor.getInt(aColumnIndex);\n"
+                + "      String b = (bColumnIndex == -1 || cursor.isNull(bColumnIndex)) ? null : cursor.getString(bColumnIndex);\n"
+                + "      byte[] c = cursor.getBlob(cColumnIndex);\n"
+                + "      return new AutoValue_Test(a, b, c);\n"
+                + "    }\n"
+                + "    Test readOrReuse(Test previous) {\n"
+                + "      int a = cursor.getInt(aColumnIndex);\n"
+                + "      String b = (bColumnIndex == -1 || cursor.isNull(bColumnIndex)) ? null : cursor.getString(bColumnIndex);\n"
+                + "      byte[] c = cursor.getBlob(cColumnIndex);\n"
+                + "      if (previous != null\n"
+                + "          && a == previous.a()\n"
+                + "          && (b == null ? previous.b() == null : b.equals(previous.b()))\n"
+                + "          && Arrays.equals(c, previous.c())) {\n"
+                + "        return previous;\n"
+                + "      }\n"
+                + "      return new AutoValue_Test(a, b, c);\n"
+                + "    }\n"
+                + "  }\n"
+                + "}\n");
+
+        assertAbout(javaSources())
+                .that(Collections.singletonList(source))
+                .processedWith(new AutoValueProcessor())
+                .compilesWithoutError()
+                .and()
+                .generatesSources(expected);
+    }
+
+
+    @Test
+    public void rereadListPrimaryKey() {
+        JavaFileObject source = JavaFileObjects.forSourceString("test.Test", ""
+                + "package test;\n"
+                + "import android.database.Cursor;\n"
+                + "import com.gabrielittner.auto.value.cursor.PrimaryKey;\n"
+                + "import com.google.auto.value.AutoValue;\n"
+                + "import java.util.List;\n"
+                + "import javax.annotation.Nullable;\n"
+                + "@AutoValue public abstract class Test {\n"
+                + "  @PrimaryKey public abstract long id();\n"
+                + "  @Nullable public abstract String name();\n"
+                + "  public static List<Test> reread(Cursor cursor, List<Test> previous) { return null; }\n"
+                + "}\n");
+        JavaFileObject expected = JavaFileObjects.forSourceString("test.AutoValue_Test", ""
+                + "package test;\n"
+                + "import android.database.Cursor;\n"
+                + "import com.gabrielittner.auto.value.cursor.LongIdentityMap;\n"
+                + "import java.lang.Long;\n"
+                + "import java.lang.String;\n"
+                + "import java.util.ArrayList;\n"
+                + "import java.util.Collections;\n"
+                + "import java.util.HashMap;\n"
+                + "import java.util.List;\n"
+                + "import java.util.Map;\n"
+                + "final class AutoValue_Test extends $AutoValue_Test {\n"
+                + "  static final LongIdentityMap<AutoValue_Test> IDENTITY_MAP = new LongIdentityMap<>(256);\n"
+                + "  AutoValue_Test(long id, String name) {\n"
+                + "    super(id, name);\n"
+                + "  }\n"
+                + "  static AutoValue_Test createFromCursor(Cursor cursor) {\n"
+                + "    long id = cursor.getLong(cursor.getColumnIndexOrThrow(\"id\"));\n"
+                + "    int nameColumnIndex = cursor.getColumnIndex(\"name\");\n"
+                + "    String name = (nameColumnIndex == -1 || cursor.isNull(nameColumnIndex)) ? null : cursor.getString(nameColumnIndex);\n"
+                + "    return createOrReuse(id, name);\n"
+                + "  }\n"
+                + "  static AutoValue_Test createOrReuse(long id, String name) {\n"
+                + "    AutoValue_Test cached = IDENTITY_MAP.get(id);\n"
+                + "    if (cached != null\n"
+                + "        && (name == null ? cached.name() == null : name.equals(cached.name()))) {\n"
+                + "      return cached;\n"
+                + "    }\n"
+                + "    AutoValue_Test value = new AutoValue_Test(id, name);\n"
+                + "    IDENTITY_MAP.put(id, value);\n"
+                + "    return value;\n"
+                + "  }\n"
+                + "  static CursorReader bind(Cursor cursor) {\n"
+                + "    return new CursorReader(cursor);\n"
+                + "  }\n"
+                + "  static List<Test> rereadList(Cursor cursor, List<Test> previous) {\n"
+                + "    List<Test> list = new ArrayList<>(cursor.getCount());\n"
+                + "    CursorReader reader = new CursorReader(cursor);\n"
+                + "    Map<Long, Test> previousByKey = new HashMap<>(previous.size() * 4 / 3 + 1);\n"
+                + "    for (Test item : previous) {\n"
+                + "      previousByKey.put(item.id(), item);\n"
+                + "    }\n"
+                + "    while (cursor.moveToNext()) {\n"
+                + "      list.add(reader.readOrReuse(previousByKey));\n"
+                + "    }\n"
+                + "    return Collections.unmodifiableList(list);\n"
+                + "  }\n"
+                + "  static final class CursorReader {\n"
+                + "    private final Cursor cursor;\n"
+                + "    private final int idColumnIndex;\n"
+                + "    private final int nameColumnIndex;\n"
+                + "    CursorReader(Cursor cursor) {\n"
+                + "      this.cursor = cursor;\n"
+                + "      idColumnIndex = cursor.getColumnIndexOrThrow(\"id\");\n"
+                + "      nameColumnIndex = cursor.getColumnIndex(\"name\");\n"
+                + "    }\n"
+                + "    AutoValue_Test read() {\n"
+                + "      long id = cursor.getLong(idColumnIndex);\n"
+                + "      String name = (nameColumnIndex == -1 || cursor.isNull(nameColumnIndex)) ? null : cursor.getString(nameColumnIndex);\n"
+                + "      return createOrReuse(id, name);\n"
+                + "    }\n"
+                + "    Test readOrReuse(Map<Long, Test> previousByKey) {\n"
+                + "      long id = cursor.getLong(idColumnIndex);\n"
+                + "      String name = (nameColumnIndex == -1 || cursor.isNull(nameColumnIndex)) ? null : cursor.getString(nameColumnIndex);\n"
+                + "      Test previous = previousByKey.get(id);\n"
+                + "      if (previous != null\n"
+                + "          && (name == null ? previous.name() == null : name.equals(previous.name()))) {\n"
+                + "        return previous;\n"
+                + "      }\n"
+                + "      return createOrReuse(id, name);\n"
+                + "    }\n"
+                + "  }\n"
+                + "}\n");
+
+        assertAbout(javaSources())
+                .that(Collections.singletonList(source))
+                .processedWith(new AutoValueProcessor())
+                .compilesWithoutError()
+                .and()
+                .generatesSources(expected);
+    }
+
+    @Test
+    public void iterator() {
+        JavaFileObject source = JavaFileObjects.forSourceString("test.Test", ""
+                + "package test;\n"
+                + "import android.database.Cursor;\n"
+                + "import com.google.auto.value.AutoValue;\n"
+                + "import java.util.Iterator;\n"
+                + "@AutoValue public abstract class Test {\n"
+                + "  public static Iterator<Test> blahIterator(Cursor cursor) { return null; }\n"
+                + "  public abstract int a();\n"
+                + "  public abstract String b();\n"
+                + "}\n");
+        JavaFileObject expected = JavaFileObjects.forSourceString("test.AutoValue_Test", ""
+                + "package test;\n"
+                + "import android.database.Cursor;\n"
+                + "import java.io.Closeable;\n"
+                + "import java.lang.Override;\n"
+                + "import java.lang.String;\n"
+                + "import java.lang.UnsupportedOperationException;\n"
+                + "import java.util.Iterator;\n"
+                + "import java.util.NoSuchElementException;\n"
+                + "final class AutoValue_Test extends $AutoValue_Test {\n"
+                + "  AutoValue_Test(int a, String b) {\n"
+                + "    super(a, b);\n"
+                + "  }\n"
+                + "  static AutoValue_Test createFromCursor(Cursor cursor) {\n"
+                + "    int a = cursor.getInt(cursor.getColumnIndexOrThrow(\"a\"));\n"
+                + "    String b = cursor.getString(cursor.getColumnIndexOrThrow(\"b\"));\n"
+                + "    return new AutoValue_Test(a, b);\n"
+                + "  }\n"
+                + "  static CursorReader bind(Cursor cursor) {\n"
+                + "    return new CursorReader(cursor);\n"
+                + "  }\n"
+                + "  static CursorIterator iterateFromCursor(Cursor cursor) {\n"
+                + "    return new CursorIterator(cursor);\n"
+                + "  }\n"
+                + "  static final class CursorReader {\n"
+                + "    private final Cursor cursor;\n"
+                + "    private final int aColumnIndex;\n"
+                + "    private final int bColumnIndex;\n"
+                + "    CursorReader(Cursor cursor) {\n"
+                + "      this.cursor = cursor;\n"
+                + "      aColumnIndex = cursor.getColumnIndexOrThrow(\"a\");\n"
+                + "      bColumnIndex = cursor.getColumnIndexOrThrow(\"b\");\n"
+                + "    }\n"
+                + "    AutoValue_Test read() {\n"
+                + "      int a = cursor.getInt(aColumnIndex);\n"
+                + "      String b = cursor.getString(bColumnIndex);\n"
+                + "      return new AutoValue_Test(a, b);\n"
+                + "    }\n"
+                + "  }\n"
+                + "  static final class CursorIterator implements Iterator<Test>, Closeable {\n"
+                + "    private final Cursor cursor;\n"
+                + "    private final CursorReader reader;\n"
+                + "    private boolean moved;\n"
+                + "    private boolean hasNext;\n"
+                + "    CursorIterator(Cursor cursor) {\n"
+                + "      this.cursor = cursor;\n"
+                + "      this.reader = new CursorReader(cursor);\n"
+                + "    }\n"
+                + "    @Override\n"
+                + "    public boolean hasNext() {\n"
+                + "      if (!moved) {\n"
+                + "        hasNext = cursor.moveToNext();\n"
+                + "        moved = true;\n"
+                + "        if (!hasNext) {\n"
+                + "          cursor.close();\n"
+                + "        }\n"
+                + "      }\n"
+                + "      return hasNext;\n"
+                + "    }\n"
+                + "    @Override\n"
+                + "    public Test next() {\n"
+                + "      if (!hasNext()) {\n"
+                + "        throw new NoSuchElementException();\n"
+                + "      }\n"
+                + "      moved = false;\n"
+                + "      return reader.read();\n"
+                + "    }\n"
+                + "    @Override\n"
+                + "    public void remove() {\n"
+                + "      throw new UnsupportedOperationException();\n"
+                + "    }\n"
+                + "    @Override\n"
+                + "    public void close() {\n"
+                + "      cursor.close();\n"
+                + "    }\n"
+                + "  }\n"
+                + "}\n");
+
+        assertAbout(javaSources())
+                .that(Collections.singletonList(source))
+                .processedWith(new AutoValueProcessor())
+                .compilesWithoutError()
+                .and()
+                .generatesSources(expected);
+    }
+
+
+    @Test
+    public void rowVisitor() {
+        JavaFileObject timestamp = JavaFileObjects.forSourceString("test.Timestamp", ""
+                + "package test;\n"
+                + "public class Timestamp {\n"
+                + "  public final long millis;\n"
+                + "  public Timestamp(long millis) {\n"
+                + "    this.millis = millis;\n"
+                + "  }\n"
+                + "}\n");
+        JavaFileObject timestampAdapter = JavaFileObjects.forSourceString("test.TimestampAdapter", ""
+                + "package test;\n"
+                + "import com.gabrielittner.auto.value.cursor.LongColumnAdapter;\n"
+                + "public class TimestampAdapter implements LongColumnAdapter<Timestamp> {\n"
+                + "  public Timestamp fromLong(long value) {\n"
+                + "    return new Timestamp(value);\n"
+                + "  }\n"
+                + "  public long toLong(Timestamp value) {\n"
+                + "    return value.millis;\n"
+                + "  }\n"
+                + "}\n");
+        JavaFileObject source = JavaFileObjects.forSourceString("test.Test", ""
+                + "package test;\n"
+                + "import android.database.Cursor;\n"
+                + "import com.gabrielittner.auto.value.cursor.ColumnAdapter;\n"
+                + "import com.google.auto.value.AutoValue;\n"
+                + "import javax.annotation.Nullable;\n"
+                + "@AutoValue public abstract class Test {\n"
+                + "  public static void visitRows(Cursor cursor, AutoValue_Test.RowVisitor visitor) {\n"
+                + "    AutoValue_Test.forEachRow(cursor, visitor);\n"
+                + "  }\n"
+                + "  public abstract long a();\n"
+                + "  @Nullable public abstract Double b();\n"
+                + "  @ColumnAdapter(TimestampAdapter.class) public abstract Timestamp c();\n"
+                + "}\n");
+        JavaFileObject expected = JavaFileObjects.forSourceString("test.AutoValue_Test", ""
+                + "package test;\n"
+                + "import android.database.Cursor;\n"
+                + "import java.lang.Double;\n"
+                + "final class AutoValue_Test extends $AutoValue_Test {\n"
+                + "  AutoValue_Test(long a, Double b, Timestamp c) {\n"
+                + "    super(a, b, c);\n"
+                + "  }\n"
+                + "  static AutoValue_Test createFromCursor(Cursor cursor) {\n"
+                + "    TimestampAdapter timestampAdapter = new TimestampAdapter();\n"
+                + "    long a = cursor.getLong(cursor.getColumnIndexOrThrow(\"a\"));\n"
+                + "    int bColumnIndex = cursor.getColumnIndex(\"b\");\n"
+                + "    Double b = (bColumnIndex == -1 || cursor.isNull(bColumnIndex)) ? null : cursor.getDouble(bColumnIndex);\n"
+                + "    Timestamp c = timestampAdapter.fromLong(cursor.getLong(cursor.getColumnIndexOrThrow(\"c\")));\n"
+                + "    return new AutoValue_Test(a, b, c);\n"
+                + "  }\n"
+                + "  static CursorReader bind(Cursor cursor) {\n"
+                + "    return new CursorReader(cursor);\n"
+                + "  }\n"
+                + "  static void forEachRow(Cursor cursor, RowVisitor visitor) {\n"
+                + "    int aColumnIndex = cursor.getColumnIndexOrThrow(\"a\");\n"
+                + "    int bColumnIndex = cursor.getColumnIndex(\"b\");\n"
+                + "    while (cursor.moveToNext()) {\n"
+                + "      long a = cursor.getLong(aColumnIndex);\n"
+                + "      boolean bIsNull = bColumnIndex == -1 || cursor.isNull(bColumnIndex);\n"
+                + "      double b = bIsNull ? 0 : cursor.getDouble(bColumnIndex);\n"
+                + "      visitor.visit(a, b, bIsNull);\n"
+                + "    }\n"
+                + "  }\n"
+                + "  static final class CursorReader {\n"
+                + "    private final Cursor cursor;\n"
+                + "    private final TimestampAdapter timestampAdapter = new TimestampAdapter();\n"
+                + "    private final int aColumnIndex;\n"
+                + "    private final int bColumnIndex;\n"
+                + "    private final int cColumnIndex;\n"
+                + "    CursorReader(Cursor cursor) {\n"
+                + "      this.cursor = cursor;\n"
+                + "      aColumnIndex = cursor.getColumnIndexOrThrow(\"a\");\n"
+                + "      bColumnIndex = cursor.getColumnIndex(\"b\");\n"
+                + "      cColumnIndex = cursor.getColumnIndexOrThrow(\"c\");\n"
+                + "    }\n"
+                + "    AutoValue_Test read() {\n"
+                + "      long a = cursor.getLong(aColumnIndex);\n"
+                + "      Double b = (bColumnIndex == -1 || cursor.isNull(bColumnIndex)) ? null : cursor.getDouble(bColumnIndex);\n"
+                + "      Timestamp c = timestampAdapter.fromLong(cursor.getLong(cColumnIndex));\n"
+                + "      return new AutoValue_Test(a, b, c);\n"
+                + "    }\n"
+                + "  }\n"
+                + "  interface RowVisitor {\n"
+                + "    void visit(long a, double b, boolean bIsNull);\n"
+                + "  }\n"
+                + "}\n");
+
+        assertAbout(javaSources())
+                .that(Arrays.asList(timestamp, timestampAdapter, source))
+                .processedWith(new AutoValueProcessor())
+                .compilesWithoutError()
+                .and()
+                .generatesSources(expected);
+    }
+
+
+    @Test
+    public void columnBatch() {
+        JavaFileObject timestamp = JavaFileObjects.forSourceString("test.Timestamp", ""
+                + "package test;\n"
+                + "public class Timestamp {\n"
+                + "  public final long millis;\n"
+                + "  public Timestamp(long millis) {\n"
+                + "    this.millis = millis;\n"
+                + "  }\n"
+                + "}\n");
+        JavaFileObject timestampAdapter = JavaFileObjects.forSourceString("test.TimestampAdapter", ""
+                + "package test;\n"
+                + "import com.gabrielittner.auto.value.cursor.LongColumnAdapter;\n"
+                + "public class TimestampAdapter implements LongColumnAdapter<Timestamp> {\n"
+                + "  public Timestamp fromLong(long value) {\n"
+                + "    return new Timestamp(value);\n"
+                + "  }\n"
+                + "  public long toLong(Timestamp value) {\n"
+                + "    return value.millis;\n"
+                + "  }\n"
+                + "}\n");
+        JavaFileObject source = JavaFileObjects.forSourceString("test.Test", ""
+                + "package test;\n"
+                + "import android.database.Cursor;\n"
+                + "import com.gabrielittner.auto.value.cursor.ColumnAdapter;\n"
+                + "import com.google.auto.value.AutoValue;\n"
+                + "import javax.annotation.Nullable;\n"
+                + "@AutoValue public abstract class Test {\n"
+                + "  public static AutoValue_Test.ColumnBatch readAll(Cursor cursor) {\n"
+                + "    return AutoValue_Test.readBatch(cursor);\n"
+                + "  }\n"
+                + "  public abstract long a();\n"
+                + "  @Nullable public abstract Double b();\n"
+                + "  @Nullable public abstract String c();\n"
+                + "  public abstract boolean d();\n"
+                + "  @ColumnAdapter(TimestampAdapter.class) public abstract Timestamp e();\n"
+                + "  @Nullable public abstract int[] f();\n"
+                + "}\n");
+        JavaFileObject expected = JavaFileObjects.forSourceString("test.AutoValue_Test", ""
+                + "package test;\n"
+                + "import android.database.Cursor;\n"
+                + "import java.lang.Double;\n"
+                + "import java.lang.String;\n"
+                + "import java.util.BitSet;\n"
+                + "final class AutoValue_Test extends $AutoValue_Test {\n"
+                + "  AutoValue_Test(long a, Double b, String c, boolean d, Timestamp e, int[] f) {\n"
+                + "    super(a, b, c, d, e, f);\n"
+                + "  }\n"
+                + "  static AutoValue_Test createFromCursor(Cursor cursor) {\n"
+                + "    TimestampAdapter timestampAdapter = new TimestampAdapter();\n"
+                + "    long a = cursor.getLong(cursor.getColumnIndexOrThrow(\"a\"));\n"
+                + "    int bColumnIndex = cursor.getColumnIndex(\"b\");\n"
+                + "    Double b = (bColumnIndex == -1 || cursor.isNull(bColumnIndex)) ? null : cursor.getDouble(bColumnIndex);\n"
+                + "    int cColumnIndex = cursor.getColumnIndex(\"c\");\n"
+                + "    String c = (cColumnIndex == -1 || cursor.isNull(cColumnIndex)) ? null : cursor.getString(cColumnIndex);\n"
+                + "    boolean d = cursor.getInt(cursor.getColumnIndexOrThrow(\"d\")) == 1;\n"
+                + "    Timestamp e = timestampAdapter.fromLong(cursor.getLong(cursor.getColumnIndexOrThrow(\"e\")));\n"
+                + "    int[] f = null; // can't be read from cursor\n"
+                + "    return new AutoValue_Test(a, b, c, d, e, f);\n"
+                + "  }\n"
+                + "  static CursorReader bind(Cursor cursor) {\n"
+                + "    return new CursorReader(cursor);\n"
+                + "  }\n"
+                + "  static ColumnBatch readBatch(Cursor cursor) {\n"
+                + "    ColumnBatch batch = new ColumnBatch(cursor.getCount());\n"
+                + "    TimestampAdapter timestampAdapter = new TimestampAdapter();\n"
+                + "    int aColumnIndex = cursor.getColumnIndexOrThrow(\"a\");\n"
+                + "    int bColumnIndex = cursor.getColumnIndex(\"b\");\n"
+                + "    int cColumnIndex = cursor.getColumnIndex(\"c\");\n"
+                + "    int dColumnIndex = cursor.getColumnIndexOrThrow(\"d\");\n"
+                + "    int eColumnIndex = cursor.getColumnIndexOrThrow(\"e\");\n"
+                + "    for (int row = 0; row < batch.size && cursor.moveToNext(); row++) {\n"
+                + "      batch.a[row] = cursor.getLong(aColumnIndex);\n"
+                + "      if (bColumnIndex == -1 || cursor.isNull(bColumnIndex)) {\n"
+                + "        batch.bNulls.set(row);\n"
+                + "      } else {\n"
+                + "        batch.b[row] = cursor.getDouble(bColumnIndex);\n"
+                + "      }\n"
+                + "      batch.c[row] = (cColumnIndex == -1 || cursor.isNull(cColumnIndex)) ? null : cursor.getString(cColumnIndex);\n"
+                + "      batch.d[row] = cursor.getInt(dColumnIndex) == 1;\n"
+                + "      batch.e[row] = timestampAdapter.fromLong(cursor.getLong(eColumnIndex));\n"
+                + "    }\n"
+                + "    return batch;\n"
+                + "  }\n"
+                + "  static final class CursorReader {\n"
+                + "    private final Cursor cursor;\n"
+                + "    private final TimestampAdapter timestampAdapter = new TimestampAdapter();\n"
+                + "    private final int aColumnIndex;\n"
+                + "    private final int bColumnIndex;\n"
+                + "    private final int cColumnIndex;\n"
+                + "    private final int dColumnIndex;\n"
+                + "    private final int eColumnIndex;\n"
+                + "    CursorReader(Cursor cursor) {\n"
+                + "      this.cursor = cursor;\n"
+                + "      aColumnIndex = cursor.getColumnIndexOrThrow(\"a\");\n"
+                + "      bColumnIndex = cursor.getColumnIndex(\"b\");\n"
+                + "      cColumnIndex = cursor.getColumnIndex(\"c\");\n"
+                + "      dColumnIndex = cursor.getColumnIndexOrThrow(\"d\");\n"
+                + "      eColumnIndex = cursor.getColumnIndexOrThrow(\"e\");\n"
+                + "    }\n"
+                + "    AutoValue_Test read() {\n"
+                + "      long a = cursor.getLong(aColumnIndex);\n"
+                + "      Double b = (bColumnIndex == -1 || cursor.isNull(bColumnIndex)) ? null : cursor.getDouble(bColumnIndex);\n"
+                + "      String c = (cColumnIndex == -1 || cursor.isNull(cColumnIndex)) ? null : cursor.getString(cColumnIndex);\n"
+                + "      boolean d = cursor.getInt(dColumnIndex) == 1;\n"
+                + "      Timestamp e = timestampAdapter.fromLong(cursor.getLong(eColumnIndex));\n"
+                + "      int[] f = null; // can't be read from cursor\n"
+                + "      return new AutoValue_Test(a, b, c, d, e, f);\n"
+                + "    }\n"
+                + "  }\n"
+                + "  static final class ColumnBatch {\n"
+                + "    final int size;\n"
+                + "    final long[] a;\n"
+                + "    final double[] b;\n"
+                + "    final BitSet bNulls;\n"
+                + "    final String[] c;\n"
+                + "    final boolean[] d;\n"
+                + "    final Timestamp[] e;\n"
+                + "    ColumnBatch(int size) {\n"
+                + "      this.size = size;\n"
+                + "      this.a = new long[size];\n"
+                + "      this.b = new double[size];\n"
+                + "      this.bNulls = new BitSet(size);\n"
+                + "      this.c = new String[size];\n"
+                + "      this.d = new boolean[size];\n"
+                + "      this.e = new Timestamp[size];\n"
+                + "    }\n"
+                + "    AutoValue_Test get(int row) {\n"
+                + "      return new AutoValue_Test(a[row], bNulls.get(row) ? null : b[row], c[row], d[row], e[row], null);\n"
+                + "    }\n"
+                + "  }\n"
+                + "}\n");
+
+        assertAbout(javaSources())
+                .that(Arrays.asList(timestamp, timestampAdapter, source))
+                .processedWith(new AutoValueProcessor())
+                .compilesWithoutError()
+                .and()
+                .generatesSources(expected);
+    }
+
+
+    @Test
+    public void columnBatchBlob() {
+        JavaFileObject source = JavaFileObjects.forSourceString("test.Test", ""
+                + "package test;\n"
+                + "import android.database.Cursor;\n"
+                + "import com.google.auto.value.AutoValue;\n"
+                + "import javax.annotation.Nullable;\n"
+                + "@AutoValue public abstract class Test {\n"
+                + "  public static AutoValue_Test.ColumnBatch readAll(Cursor cursor) {\n"
+                + "    return AutoValue_Test.readBatch(cursor);\n"
+                + "  }\n"
+                + "  public abstract long id();\n"
+                + "  public abstract byte[] data();\n"
+                + "  @Nullable public abstract byte[] thumbnail();\n"
+                + "}\n");
+        JavaFileObject expected = JavaFileObjects.forSourceString("test.AutoValue_Test", ""
+                + "package test;\n"
+                + "import android.database.Cursor;\n"
+                + "final class AutoValue_Test extends $AutoValue_Test {\n"
+                + "  AutoValue_Test(long id, byte[] data, byte[] thumbnail) {\n"
+                + "    super(id, data, thumbnail);\n"
+                + "  }\n"
+                + "  static AutoValue_Test createFromCursor(Cursor cursor) {\n"
+                + "    long id = cursor.getLong(cursor.getColumnIndexOrThrow(\"id\"));\n"
+                + "    byte[] data = cursor.getBlob(cursor.getColumnIndexOrThrow(\"data\"));\n"
+                + "    int thumbnailColumnIndex = cursor.getColumnIndex(\"thumbnail\");\n"
+                + "    byte[] thumbnail = (thumbnailColumnIndex == -1 || cursor.isNull(thumbnailColumnIndex)) ? null : cursor.getBlob(thumbnailColumnIndex);\n"
+                + "    return new AutoValue_Test(id, data, thumbnail);\n"
+                + "  }\n"
+                + "  static CursorReader bind(Cursor cursor) {\n"
+                + "    return new CursorReader(cursor);\n"
+                + "  }\n"
+                + "  static ColumnBatch readBatch(Cursor cursor) {\n"
+                + "    ColumnBatch batch = new ColumnBatch(cursor.getCount());\n"
+                + "    int idColumnIndex = cursor.getColumnIndexOrThrow(\"id\");\n"
+                + "    int dataColumnIndex = cursor.getColumnIndexOrThrow(\"data\");\n"
+                + "    int thumbnailColumnIndex = cursor.getColumnIndex(\"thumbnail\");\n"
+                + "    for (int row = 0; row < batch.size && cursor.moveToNext(); row++) {\n"
+                + "      batch.id[row] = cursor.getLong(idColumnIndex);\n"
+                + "      batch.data[row] = cursor.getBlob(dataColumnIndex);\n"
+                + "      batch.thumbnail[row] = (thumbnailColumnIndex == -1 || cursor.isNull(thumbnailColumnIndex)) ? null : cursor.getBlob(thumbnailColumnIndex);\n"
+                + "    }\n"
+                + "    return batch;\n"
+                + "  }\n"
+                + "  static final class CursorReader {\n"
+                + "    private final Cursor cursor;\n"
+                + "    private final int idColumnIndex;\n"
+                + "    private final int dataColumnIndex;\n"
+                + "    private final int thumbnailColumnIndex;\n"
+                + "    CursorReader(Cursor cursor) {\n"
+                + "      this.cursor = cursor;\n"
+                + "      idColumnIndex = cursor.getColumnIndexOrThrow(\"id\");\n"
+                + "      dataColumnIndex = cursor.getColumnIndexOrThrow(\"data\");\n"
+                + "      thumbnailColumnIndex = cursor.getColumnIndex(\"thumbnail\");\n"
+                + "    }\n"
+                + "    AutoValue_Test read() {\n"
+                + "      long id = cursor.getLong(idColumnIndex);\n"
+                + "      byte[] data = cursor.getBlob(dataColumnIndex);\n"
+                + "      byte[] thumbnail = (thumbnailColumnIndex == -1 || cursor.isNull(thumbnailColumnIndex)) ? null : cursor.getBlob(thumbnailColumnIndex);\n"
+                + "      return new AutoValue_Test(id, data, thumbnail);\n"
+                + "    }\n"
+                + "  }\n"
+                + "  static final class ColumnBatch {\n"
+                + "    final int size;\n"
+                + "    final long[] id;\n"
+                + "    final byte[][] data;\n"
+                + "    final byte[][] thumbnail;\n"
+                + "    ColumnBatch(int size) {\n"
+                + "      this.size = size;\n"
+                + "      this.id = new long[size];\n"
+                + "      this.data = new byte[size][];\n"
+                + "      this.thumbnail = new byte[size][];\n"
+                + "    }\n"
+                + "    AutoValue_Test get(int row) {\n"
+                + "      return new AutoValue_Test(id[row], data[row], thumbnail[row]);\n"
+                + "    }\n"
+                + "  }\n"
+                + "}\n");
+
+        assertAbout(javaSources())
+                .that(Collections.singletonList(source))
+                .processedWith(new AutoValueProcessor())
+                .compilesWithoutError()
+                .and()
+                .generatesSources(expected);
+    }
+
+    @Test
+    public void projection() {
+        JavaFileObject source = JavaFileObjects.forSourceString("test.Test", ""
+                + "package test;\n"
+                + "import android.database.Cursor;\n"
+                + "import com.google.auto.value.AutoValue;\n"
+                + "import javax.annotation.Nullable;\n"
+                + "import com.gabrielittner.auto.value.cursor.ColumnName;\n"
+                + "@AutoValue public abstract class Test {\n"
+                + "  public static Test blah(Cursor cursor) { return null; }\n"
+                + "  public static String[] projection() { return AutoValue_Test.PROJECTION; }\n"
+                + "  public abstract int a();\n"
+                + "  @Nullable @ColumnName(\"column_b\") public abstract String b();\n"
+                + "  @Nullable public abstract int[] c();\n"
+                + "  public abstract boolean d();\n"
+                + "}\n");
+
+        JavaFileObject expected = JavaFileObjects.forSourceString("test.AutoValue_Test", ""
+                + "package test;\n"
+                + "import android.database.Cursor;\n"
+                + "import java.lang.IllegalArgumentException;\n"
+                + "import java.lang.String;\n"
+                + "import java.util.Arrays;\n"
+                + "final class AutoValue_Test extends $AutoValue_Test {\n"
+                + "  public static final String[] PROJECTION = {\"a\", \"column_b\", \"d\"};\n"
+                + "  AutoValue_Test(int a, String b, int[] c, boolean d) {\n"
+                + "    super(a, b, c, d);\n"
+                + "  }\n"
+                + "  static AutoValue_Test createFromCursor(Cursor cursor) {\n"
+                + "    int a = cursor.getInt(cursor.getColumnIndexOrThrow(\"a\"));\n"
+                + "    int bColumnIndex = cursor.getColumnIndex(\"column_b\");\n"
+                + "    String b = (bColumnIndex == -1 || cursor.isNull(bColumnIndex)) ? null : cursor.getString(bColumnIndex);\n"
+                + "    int[] c = null; // can't be read from cursor\n"
+                + "    boolean d = cursor.getInt(cursor.getColumnIndexOrThrow(\"d\")) == 1;\n"
+                + "    return new AutoValue_Test(a, b, c, d);\n"
+                + "  }\n"
+                + "  static CursorReader bind(Cursor cursor) {\n"
+                + "    return new CursorReader(cursor);\n"
+                + "  }\n"
+                + "  static AutoValue_Test createFromProjection(Cursor cursor) {\n"
+                + "    int a = cursor.getInt(0);\n"
+                + "    String b = cursor.isNull(1) ? null : cursor.getString(1);\n"
+                + "    int[] c = null; // can't be read from cursor\n"
+                + "    boolean d = cursor.getInt(2) == 1;\n"
+                + "    return new AutoValue_Test(a, b, c, d);\n"
+                + "  }\n"
+                + "  static void checkProjection(Cursor cursor) {\n"
+                + "    String[] columnNames = cursor.getColumnNames();\n"
+                + "    if (!Arrays.equals(PROJECTION, columnNames)) {\n"
+                + "      throw new IllegalArgumentException(\"Cursor columns \" + Arrays.toString(columnNames) + \" don't match \" + Arrays.toString(PROJECTION));\n"
+                + "    }\n"
+                + "  }\n"
+                + "  static final class CursorReader {\n"
+                + "    private final Cursor cursor;\n"
+                + "    private final int aColumnIndex;\n"
+                + "    private final int bColumnIndex;\n"
+                + "    private final int dColumnIndex;\n"
+                + "    CursorReader(Cursor cursor) {\n"
+                + "      this.cursor = cursor;\n"
+                + "      aColumnIndex = cursor.getColumnIndexOrThrow(\"a\");\n"
+                + "      bColumnIndex = cursor.getColumnIndex(\"column_b\");\n"
+                + "      dColumnIndex = cursor.getColumnIndexOrThrow(\"d\");\n"
+                + "    }\n"
+                + "    AutoValue_Test read() {\n"
+                + "      int a = cursor.getInt(aColumnIndex);\n"
+                + "      String b = (bColumnIndex == -1 || cursor.isNull(bColumnIndex)) ? null : cursor.getString(bColumnIndex);\n"
+                + "      int[] c = null; // can't be read from cursor\n"
+                + "      boolean d = cursor.getInt(dColumnIndex) == 1;\n"
+                + "      return new AutoValue_Test(a, b, c, d);\n"
+                + "    }\n"
+                + "  }\n"
+                + "}\n");
+
+        assertAbout(javaSources())
+                .that(Collections.singletonList(source))
+                .processedWith(new AutoValueProcessor())
+                .compilesWithoutError()
+                .and()
+                .generatesSources(expected);
+    }
+
+    @Test
+    public void projectionMultiColumnAdapter() {
+        JavaFileObject adapter = JavaFileObjects.forSourceString("test.RangeAdapter", ""
+                + "package test;\n"
+                + "import android.content.ContentValues;\n"
+                + "import android.database.Cursor;\n"
+                + "import com.gabrielittner.auto.value.cursor.ColumnTypeAdapter;\n"
+                + "public class RangeAdapter implements ColumnTypeAdapter<int[]> {\n"
+                + "  public int[] fromCursor(Cursor cursor, String columnName) {\n"
+                + "    return new int[] {\n"
+                + "        cursor.getInt(cursor.getColumnIndex(columnName + \"_start\")),\n"
+                + "        cursor.getInt(cursor.getColumnIndex(columnName + \"_end\"))};\n"
+                + "  }\n"
+                + "  public void toContentValues(ContentValues values, String columnName, int[] value) {\n"
+                + "  }\n"
+                + "}\n");
+        JavaFileObject source = JavaFileObjects.forSourceString("test.Test", ""
+                + "package test;\n"
+                + "import android.database.Cursor;\n"
+                + "import com.gabrielittner.auto.value.cursor.ColumnAdapter;\n"
+                + "import com.google.auto.value.AutoValue;\n"
+                + "@AutoValue public abstract class Test {\n"
+                + "  public static Test blah(Cursor cursor) { return null; }\n"
+                + "  public static String[] projection() { return null; }\n"
+                + "  public abstract int a();\n"
+                + "  @ColumnAdapter(value = RangeAdapter.class, columns = 2) public abstract int[] range();\n"
+                + "}\n");
+
+        assertAbout(javaSources())
+                .that(Arrays.asList(adapter, source))
+                .processedWith(new AutoValueProcessor())
+                .failsToCompile()
+                .withErrorContaining(
+                        "Column adapters with more than one column can't be used in a projection.");
+    }
+
+    @Test
+    public void projectionIsOnlyOptIn() {
+        JavaFileObject source = JavaFileObjects.forSourceString("test.Test", ""
+                + "package test;\n"
+                + "import com.google.auto.value.AutoValue;\n"
+                + "@AutoValue public abstract class Test {\n"
+                + "  public static String[] projection() { return AutoValue_Test.PROJECTION; }\n"
+                + "  public abstract int a();\n"
+                + "}\n");
+
+        assertAbout(javaSources())
+                .that(Collections.singletonList(source))
+                .processedWith(new AutoValueProcessor())
+                .compilesWithoutError();
+    }
+
+    @Test
+    public void otherStringArrayMethodIsNoProjection() {
+        JavaFileObject adapter = JavaFileObjects.forSourceString("test.RangeAdapter", ""
+                + "package test;\n"
+                + "import android.content.ContentValues;\n"
+                + "import android.database.Cursor;\n"
+                + "import com.gabrielittner.auto.value.cursor.ColumnTypeAdapter;\n"
+                + "public class RangeAdapter implements ColumnTypeAdapter<int[]> {\n"
+                + "  public int[] fromCursor(Cursor cursor, String columnName) {\n"
+                + "    return new int[] {\n"
+                + "        cursor.getInt(cursor.getColumnIndex(columnName + \"_start\")),\n"
+                + "        cursor.getInt(cursor.getColumnIndex(columnName + \"_end\"))};\n"
+                + "  }\n"
+                + "  public void toContentValues(ContentValues values, String columnName, int[] value) {\n"
+                + "  }\n"
+                + "}\n");
+        JavaFileObject source = JavaFileObjects.forSourceString("test.Test", ""
+                + "package test;\n"
+                + "import android.database.Cursor;\n"
+                + "import com.gabrielittner.auto.value.cursor.ColumnAdapter;\n"
+                + "import com.google.auto.value.AutoValue;\n"
+                + "@AutoValue public abstract class Test {\n"
+                + "  public static Test blah(Cursor cursor) { return null; }\n"
+                + "  public static String[] columns() { return new String[] {\"a\"}; }\n"
+                + "  public abstract int a();\n"
+                + "  @ColumnAdapter(value = RangeAdapter.class, columns = 2) public abstract int[] range();\n"
+                + "}\n");
+        JavaFileObject expected = JavaFileObjects.forSourceString("test.AutoValue_Test", ""
+                + "package test;\n"
+                + "import android.database.Cursor;\n"
+                + "final class AutoValue_Test extends $AutoValue_Test {\n"
+                + "  AutoValue_Test(int a, int[] range) {\n"
+                + "    super(a, range);\n"
+                + "  }\n"
+                + "  static AutoValue_Test createFromCursor(Cursor cursor) {\n"
+                + "    RangeAdapter rangeAdapter = new RangeAdapter();\n"
+                + "    int a = cursor.getInt(cursor.getColumnIndexOrThrow(\"a\"));\n"
+                + "    int[] range = rangeAdapter.fromCursor(cursor, \"range\");\n"
+                + "    return new AutoValue_Test(a, range);\n"
+                + "  }\n"
+                + "  static CursorReader bind(Cursor cursor) {\n"
+                + "    return new CursorReader(cursor);\n"
+                + "  }\n"
+                + "  static final class CursorReader {\n"
+                + "    private final Cursor cursor;\n"
+                + "    private final RangeAdapter rangeAdapter = new RangeAdapter();\n"
+                + "    private final int aColumnIndex;\n"
+                + "    CursorReader(Cursor cursor) {\n"
+                + "      this.cursor = cursor;\n"
+                + "      aColumnIndex = cursor.getColumnIndexOrThrow(\"a\");\n"
+                + "    }\n"
+                + "    AutoValue_Test read() {\n"
+                + "      int a = cursor.getInt(aColumnIndex);\n"
+                + "      int[] range = rangeAdapter.fromCursor(cursor, \"range\");\n"
+                + "      return new AutoValue_Test(a, range);\n"
+                + "    }\n"
+                + "  }\n"
+                + "}\n");
+
+        assertAbout(javaSources())
+                .that(Arrays.asList(adapter, source))
+                .processedWith(new AutoValueProcessor())
+                .compilesWithoutError()
+                .and()
+                .generatesSources(expected);
+    }
+
+    @Test
+    public void partialProjection() {
+        JavaFileObject source = JavaFileObjects.forSourceString("test.Test", ""
+                + "package test;\n"
+                + "import android.database.Cursor;\n"
+                + "import com.gabrielittner.auto.value.cursor.ColumnName;\n"
+                + "import com.gabrielittner.auto.value.cursor.CursorProjection;\n"
+                + "import com.google.auto.value.AutoValue;\n"
+                + "import javax.annotation.Nullable;\n"
+                + "@AutoValue public abstract class Test {\n"
+                + "  public abstract long id();\n"
+                + "  @ColumnName(\"full_name\") public abstract String name();\n"
+                + "  @Nullable public abstract String email();\n"
+                + "  public abstract byte[] avatar();\n"
+                + "  public static Test blah(Cursor cursor) { return null; }\n"
+                + "  @CursorProjection public interface Summary {\n"
+                + "    String name();\n"
+                + "    @Nullable String email();\n"
+                + "  }\n"
+                + "}\n");
+        JavaFileObject expected = JavaFileObjects.forSourceString("test.AutoValue_Test", ""
+                + "package test;\n"
+                + "import android.database.Cursor;\n"
+                + "import java.lang.Object;\n"
+                + "import java.lang.Override;\n"
+                + "import java.lang.String;\n"
+                + "final class AutoValue_Test extends $AutoValue_Test {\n"
+                + "  public static final String[] SUMMARY_PROJECTION = {\"full_name\", \"email\"};\n"
+                + "  AutoValue_Test(long id, String name, String email, byte[] avatar) {\n"
+                + "    super(id, name, email, avatar);\n"
+                + "  }\n"
+                + "  static AutoValue_Test createFromCursor(Cursor cursor) {\n"
+                + "    long id = cursor.getLong(cursor.getColumnIndexOrThrow(\"id\"));\n"
+                + "    String name = cursor.getString(cursor.getColumnIndexOrThrow(\"full_name\"));\n"
+                + "    int emailColumnIndex = cursor.getColumnIndex(\"email\");\n"
+                + "    String email = (emailColumnIndex == -1 || cursor.isNull(emailColumnIndex)) ? null : cursor.getString(emailColumnIndex);\n"
+                + "    byte[] avatar = cursor.getBlob(cursor.getColumnIndexOrThrow(\"avatar\"));\n"
+                + "    return new AutoValue_Test(id, name, email, avatar);\n"
+                + "  }\n"
+                + "  static CursorReader bind(Cursor cursor) {\n"
+                + "    return new CursorReader(cursor);\n"
+                + "  }\n"
+                + "  static Test.Summary createSummaryFromProjection(Cursor cursor) {\n"
+                + "    String name = cursor.getString(0);\n"
+                + "    String email = cursor.isNull(1) ? null : cursor.getString(1);\n"
+                + "    return new SummaryRow(name, email);\n"
+                + "  }\n"
+                + "  static final class CursorReader {\n"
+                + "    private final Cursor cursor;\n"
+                + "    private final int idColumnIndex;\n"
+                + "    private final int nameColumnIndex;\n"
+                + "    private final int emailColumnIndex;\n"
+                + "    private final int avatarColumnIndex;\n"
+                + "    CursorReader(Cursor cursor) {\n"
+                + "      this.cursor = cursor;\n"
+                + "      idColumnIndex = cursor.getColumnIndexOrThrow(\"id\");\n"
+                + "      nameColumnIndex = cursor.getColumnIndexOrThrow(\"full_name\");\n"
+                + "      emailColumnIndex = cursor.getColumnIndex(\"email\");\n"
+                + "      avatarColumnIndex = cursor.getColumnIndexOrThrow(\"avatar\");\n"
+                + "    }\n"
+                + "    AutoValue_Test read() {\n"
+                + "      long id = cursor.getLong(idColumnIndex);\n"
+                + "      String name = cursor.getString(nameColumnIndex);\n"
+                + "      String email = (emailColumnIndex == -1 || cursor.isNull(emailColumnIndex)) ? null : cursor.getString(emailColumnIndex);\n"
+                + "      byte[] avatar = cursor.getBlob(avatarColumnIndex);\n"
+                + "      return new AutoValue_Test(id, name, email, avatar);\n"
+                + "    }\n"
+                + "  }\n"
+                + "  static final class SummaryRow implements Test.Summary {\n"
+                + "    private final String name;\n"
+                + "    private final String email;\n"
+                + "    SummaryRow(String name, String email) {\n"
+                + "      this.name = name;\n"
+                + "      this.email = email;\n"
+                + "    }\n"
+                + "    @Override\n"
+                + "    public String name() {\n"
+                + "      return name;\n"
+                + "    }\n"
+                + "    @Override\n"
+                + "    public String email() {\n"
+                + "      return email;\n"
+                + "    }\n"
+                + "    @Override\n"
+                + "    public boolean equals(Object o) {\n"
+                + "      if (o == this) {\n"
+                + "        return true;\n"
+                + "      }\n"
+                + "      if (!(o instanceof SummaryRow)) {\n"
+                + "        return false;\n"
+                + "      }\n"
+                + "      SummaryRow that = (SummaryRow) o;\n"
+                + "      return this.name.equals(that.name)\n"
+                + "          && (this.email == null ? that.email == null : this.email.equals(that.email));\n"
+                + "    }\n"
+                + "    @Override\n"
+                + "    public int hashCode() {\n"
+                + "      int h = 1;\n"
+                + "      h *= 1000003;\n"
+                + "      h ^= this.name.hashCode();\n"
+                + "      h *= 1000003;\n"
+                + "      h ^= (this.email == null) ? 0 : this.email.hashCode();\n"
+                + "      return h;\n"
+                + "    }\n"
+                + "    @Override\n"
+                + "    public String toString() {\n"
+                + "      return \"Summary{\"\n"
+                + "          + \"name=\" + name\n"
+                + "          + \", email=\" + email\n"
+                + "          + \"}\";\n"
+                + "    }\n"
+                + "  }\n"
+                + "}\n");
+
+        assertAbout(javaSources())
+                .that(Collections.singletonList(source))
+                .processedWith(new AutoValueProcessor())
+                .compilesWithoutError()
+                .and()
+                .generatesSources(expected);
+    }
+
+
+    @Test
+    public void partialProjectionUnknownProperty() {
+        JavaFileObject source = JavaFileObjects.forSourceString("test.Test", ""
+                + "package test;\n"
+                + "import com.gabrielittner.auto.value.cursor.CursorProjection;\n"
+                + "import com.google.auto.value.AutoValue;\n"
+                + "import android.database.Cursor;\n"
+                + "@AutoValue public abstract class Test {\n"
+                + "  public static Test blah(Cursor cursor) { return null; }\n"
+                + "  public abstract String a();\n"
+                + "  @CursorProjection public interface Summary {\n"
+                + "    int a();\n"
+                + "  }\n"
+                + "}\n");
+
+        assertAbout(javaSources())
+                .that(Collections.singletonList(source))
+                .processedWith(new AutoValueProcessor())
+                .failsToCompile()
+                .withErrorContaining("Projection method doesn't match a property.");
+    }
+
+
+    @Test
+    public void partialProjectionReportsAllUnknownProperties() {
+        JavaFileObject source = JavaFileObjects.forSourceString("test.Test", ""
+                + "package test;\n"
+                + "import com.gabrielittner.auto.value.cursor.CursorProjection;\n"
+                + "import com.google.auto.value.AutoValue;\n"
+                + "import android.database.Cursor;\n"
+                + "@AutoValue public abstract class Test {\n"
+                + "  public static Test blah(Cursor cursor) { return null; }\n"
+                + "  public abstract String a();\n"
+                + "  @CursorProjection public interface Summary {\n"
+                + "    int a();\n"
+                + "    long b();\n"
+                + "  }\n"
+                + "  @CursorProjection public interface Detail {\n"
+                + "    String a();\n"
+                + "    String c();\n"
+                + "  }\n"
+                + "}\n");
+
+        assertAbout(javaSources())
+                .that(Collections.singletonList(source))
+                .processedWith(new AutoValueProcessor())
+                .failsToCompile()
+                .withErrorCount(3)
+                .withErrorContaining("Projection method doesn't match a property.")
+                .in(source).onLine(9)
+                .and()
+                .withErrorContaining("Projection method doesn't match a property.")
+                .in(source).onLine(10)
+                .and()
+                .withErrorContaining("Projection method doesn't match a property.")
+                .in(source).onLine(14);
+    }
+
+
+    @Test
+    public void embedded() {
+        JavaFileObject author = JavaFileObjects.forSourceString("test.Author", ""
+                + "package test;\n"
+                + "import android.database.Cursor;\n"
+                + "import com.google.auto.value.AutoValue;\n"
+                + "import javax.annotation.Nullable;\n"
+                + "@AutoValue public abstract class Author {\n"
+                + "  public abstract long id();\n"
+                + "  @Nullable public abstract String name();\n"
+                + "  public static Author create(Cursor cursor) { return null; }\n"
+                + "}\n");
+        JavaFileObject source = JavaFileObjects.forSourceString("test.Test", ""
+                + "package test;\n"
+                + "import android.database.Cursor;\n"
+                + "import com.gabrielittner.auto.value.cursor.ColumnPrefix;\n"
+                + "import com.google.auto.value.AutoValue;\n"
+                + "@AutoValue public abstract class Test {\n"
+                + "  public abstract long id();\n"
+                + "  public abstract String title();\n"
+                + "  @ColumnPrefix(\"author_\") public abstract Author author();\n"
+                + "  public static Test blah(Cursor cursor) { return null; }\n"
+                + "  public static String[] projection() { return null; }\n"
+                + "}\n");
+        JavaFileObject expected = JavaFileObjects.forSourceString("test.AutoValue_Test", ""
+                + "package test;\n"
+                + "import android.database.Cursor;\n"
+                + "import java.lang.IllegalArgumentException;\n"
+                + "import java.lang.String;\n"
+                + "import java.util.Arrays;\n"
+                + "final class AutoValue_Test extends $AutoValue_Test {\n"
+                + "  public static final String[] PROJECTION = {\"id\", \"title\", \"author_id\", \"author_name\"};\n"
+                + "  AutoValue_Test(long id, String title, Author author) {\n"
+                + "    super(id, title, author);\n"
+                + "  }\n"
+                + "  static AutoValue_Test createFromCursor(Cursor cursor) {\n"
+                + "    long id = cursor.getLong(cursor.getColumnIndexOrThrow(\"id\"));\n"
+                + "    String title = cursor.getString(cursor.getColumnIndexOrThrow(\"title\"));\n"
+                + "    long authorId = cursor.getLong(cursor.getColumnIndexOrThrow(\"author_id\"));\n"
+                + "    int authorNameColumnIndex = cursor.getColumnIndex(\"author_name\");\n"
+                + "    String authorName = (authorNameColumnIndex == -1 || cursor.isNull(authorNameColumnIndex)) ? null : cursor.getString(authorNameColumnIndex);\n"
+                + "    Author author = new AutoValue_Author(authorId, authorName);\n"
+                + "    return new AutoValue_Test(id, title, author);\n"
+                + "  }\n"
+                + "  static CursorReader bind(Cursor cursor) {\n"
+                + "    return new CursorReader(cursor);\n"
+                + "  }\n"
+                + "  static AutoValue_Test createFromProjection(Cursor cursor) {\n"
+                + "    long id = cursor.getLong(0);\n"
+                + "    String title = cursor.getString(1);\n"
+                + "    long authorId = cursor.getLong(2);\n"
+                + "    String authorName = cursor.isNull(3) ? null : cursor.getString(3);\n"
+                + "    Author author = new AutoValue_Author(authorId, authorName);\n"
+                + "    return new AutoValue_Test(id, title, author);\n"
+                + "  }\n"
+                + "  static void checkProjection(Cursor cursor) {\n"
+                + "    String[] columnNames = cursor.getColumnNames();\n"
+                + "    if (!Arrays.equals(PROJECTION, columnNames)) {\n"
+                + "      throw new IllegalArgumentException(\"Cursor columns \" + Arrays.toString(columnNames) + \" don't match \" + Arrays.toString(PROJECTION));\n"
+                + "    }\n"
+                + "  }\n"
+                + "  static final class CursorReader {\n"
+                + "    private final Cursor cursor;\n"
+                + "    private final int idColumnIndex;\n"
+                + "    private final int titleColumnIndex;\n"
+                + "    private final int authorIdColumnIndex;\n"
+                + "    private final int authorNameColumnIndex;\n"
+                + "    CursorReader(Cursor cursor) {\n"
+                + "      this.cursor = cursor;\n"
+                + "      idColumnIndex = cursor.getColumnIndexOrThrow(\"id\");\n"
+                + "      titleColumnIndex = cursor.getColumnIndexOrThrow(\"title\");\n"
+                + "      authorIdColumnIndex = cursor.getColumnIndexOrThrow(\"author_id\");\n"
+                + "      authorNameColumnIndex = cursor.getColumnIndex(\"author_name\");\n"
+                + "    }\n"
+                + "    AutoValue_Test read() {\n"
+                + "      long id = cursor.getLong(idColumnIndex);\n"
+                + "      String title = cursor.getString(titleColumnIndex);\n"
+                + "      long authorId = cursor.getLong(authorIdColumnIndex);\n"
+                + "      String authorName = (authorNameColumnIndex == -1 || cursor.isNull(authorNameColumnIndex)) ? null : cursor.getString(authorNameColumnIndex);\n"
+                + "      Author author = new AutoValue_Author(authorId, authorName);\n"
+                + "      return new AutoValue_Test(id, title, author);\n"
+                + "    }\n"
+                + "  }\n"
+                + "}\n");
+
+        assertAbout(javaSources())
+                .that(Arrays.asList(author, source))
+                .processedWith(new AutoValueProcessor())
+                .compilesWithoutError()
+                .and()
+                .generatesSources(expected);
+    }
+
+    @Test
+    public void embeddedOtherPackage() {
+        JavaFileObject author = JavaFileObjects.forSourceString("other.Author", ""
+                + "package other;\n"
+                + "import com.google.auto.value.AutoValue;\n"
+                + "@AutoValue public abstract class Author {\n"
+                + "  public abstract long id();\n"
+                + "  public abstract String name();\n"
+                + "}\n");
+        JavaFileObject source = JavaFileObjects.forSourceString("test.Test", ""
+                + "package test;\n"
+                + "import android.database.Cursor;\n"
+                + "import com.gabrielittner.auto.value.cursor.ColumnPrefix;\n"
+                + "import com.google.auto.value.AutoValue;\n"
+                + "import other.Author;\n"
+                + "@AutoValue public abstract class Test {\n"
+                + "  public abstract long id();\n"
+                + "  @ColumnPrefix(\"author_\") public abstract Author author();\n"
+                + "  public static Test blah(Cursor cursor) { return null; }\n"
+                + "}\n");
+
+        assertAbout(javaSources())
+                .that(Arrays.asList(author, source))
+                .processedWith(new AutoValueProcessor())
+                .failsToCompile()
+                .withErrorContaining(
+                        "@ColumnPrefix can only be used for AutoValue classes in the same package");
+    }
+
+
+    @Test
+    public void groupedList() {
+        JavaFileObject chapter = JavaFileObjects.forSourceString("test.Chapter", ""
+                + "package test;\n"
+                + "import android.database.Cursor;\n"
+                + "import com.google.auto.value.AutoValue;\n"
+                + "@AutoValue public abstract class Chapter {\n"
+                + "  public abstract long id();\n"
+                + "  public abstract String title();\n"
+                + "  public static Chapter create(Cursor cursor) { return null; }\n"
+                + "}\n");
+        JavaFileObject source = JavaFileObjects.forSourceString("test.Test", ""
+                + "package test;\n"
+                + "import android.database.Cursor;\n"
+                + "import com.gabrielittner.auto.value.cursor.ColumnPrefix;\n"
+                + "import com.gabrielittner.auto.value.cursor.GroupedBy;\n"
+                + "import com.google.auto.value.AutoValue;\n"
+                + "import java.util.List;\n"
+                + "@AutoValue public abstract class Test {\n"
+                + "  public abstract long id();\n"
+                + "  public abstract String title();\n"
+                + "  @ColumnPrefix(\"chapter_\") @GroupedBy(\"id\") public abstract List<Chapter> chapters();\n"
+                + "  public static List<Test> createList(Cursor cursor) { return null; }\n"
+                + "}\n");
+        JavaFileObject expected = JavaFileObjects.forSourceString("test.AutoValue_Test", ""
+                + "package test;\n"
+                + "import android.database.Cursor;\n"
+                + "import java.lang.String;\n"
+                + "import java.util.ArrayList;\n"
+                + "import java.util.Collections;\n"
+                + "import java.util.List;\n"
+                + "final class AutoValue_Test extends $AutoValue_Test {\n"
+                + "  AutoValue_Test(long id, String title, List<Chapter> chapters) {\n"
+                + "    super(id, title, chapters);\n"
+                + "  }\n"
+                + "  static AutoValue_Test createFromCursor(Cursor cursor) {\n"
+                + "    long id = cursor.getLong(cursor.getColumnIndexOrThrow(\"id\"));\n"
+                + "    String title = cursor.getString(cursor.getColumnIndexOrThrow(\"title\"));\n"
+                + "    int chaptersIdColumnIndex = cursor.getColumnIndexOrThrow(\"chapter_id\");\n"
+                + "    int chaptersTitleColumnIndex = cursor.getColumnIndexOrThrow(\"chapter_title\");\n"
+                + "    List<Chapter> chapters;\n"
+                + "    if (!cursor.isNull(chaptersIdColumnIndex)) {\n"
+                + "      long chaptersId = cursor.getLong(chaptersIdColumnIndex);\n"
+                + "      String chaptersTitle = cursor.getString(chaptersTitleColumnIndex);\n"
+                + "      chapters = Collections.singletonList(new AutoValue_Chapter(chaptersId, chaptersTitle));\n"
+                + "    } else {\n"
+                + "      chapters = Collections.emptyList();\n"
+                + "    }\n"
+                + "    return new AutoValue_Test(id, title, chapters);\n"
+                + "  }\n"
+                + "  static CursorReader bind(Cursor cursor) {\n"
+                + "    return new CursorReader(cursor);\n"
+                + "  }\n"
+                + "  static List<Test> createListFromCursor(Cursor cursor) {\n"
+                + "    List<Test> list = new ArrayList<>();\n"
+                + "    CursorReader reader = new CursorReader(cursor);\n"
+                + "    if (cursor.moveToNext()) {\n"
+                + "      while (!cursor.isAfterLast()) {\n"
+                + "        list.add(reader.readGroup());\n"
+                + "      }\n"
+                + "    }\n"
+                + "    return Collections.unmodifiableList(list);\n"
+                + "  }\n"
+                + "  static final class CursorReader {\n"
+                + "    private final Cursor cursor;\n"
+                + "    private final int idColumnIndex;\n"
+                + "    private final int titleColumnIndex;\n"
+                + "    private final int chaptersIdColumnIndex;\n"
+                + "    private final int chaptersTitleColumnIndex;\n"
+                + "    private final ArrayList<Chapter> chaptersBuffer = new ArrayList<>();\n"
+                + "    CursorReader(Cursor cursor) {\n"
+                + "      this.cursor = cursor;\n"
+                + "      idColumnIndex = cursor.getColumnIndexOrThrow(\"id\");\n"
+                + "      titleColumnIndex = cursor.getColumnIndexOrThrow(\"title\");\n"
+                + "      chaptersIdColumnIndex = cursor.getColumnIndexOrThrow(\"chapter_id\");\n"
+                + "      chaptersTitleColumnIndex = cursor.getColumnIndexOrThrow(\"chapter_title\");\n"
+                + "    }\n"
+                + "    AutoValue_Test read() {\n"
+                + "      long id = cursor.getLong(idColumnIndex);\n"
+                + "      String title = cursor.getString(titleColumnIndex);\n"
+                + "      List<Chapter> chapters;\n"
+                + "      if (!cursor.isNull(chaptersIdColumnIndex)) {\n"
+                + "        long chaptersId = cursor.getLong(chaptersIdColumnIndex);\n"
+                + "        String chaptersTitle = cursor.getString(chaptersTitleColumnIndex);\n"
+                + "        chapters = Collections.singletonList(new AutoValue_Chapter(chaptersId, chaptersTitle));\n"
+                + "      } else {\n"
+                + "        chapters = Collections.emptyList();\n"
+                + "      }\n"
+                + "      return new AutoValue_Test(id, title, chapters);\n"
+                + "    }\n"
+                + "    AutoValue_Test readGroup() {\n"
+                + "      long id = cursor.getLong(idColumnIndex);\n"
+                + "      String title = cursor.getString(titleColumnIndex);\n"
+                + "      do {\n"
+                + "        if (!cursor.isNull(chaptersIdColumnIndex)) {\n"
+                + "          long chaptersId = cursor.getLong(chaptersIdColumnIndex);\n"
+                + "          String chaptersTitle = cursor.getString(chaptersTitleColumnIndex);\n"
+                + "          chaptersBuffer.add(new AutoValue_Chapter(chaptersId, chaptersTitle));\n"
+                + "        }\n"
+                + "      } while (cursor.moveToNext() && cursor.getLong(idColumnIndex) == id);\n"
+                + "      List<Chapter> chapters = Collections.unmodifiableList(new ArrayList<>(chaptersBuffer));\n"
+                + "      chaptersBuffer.clear();\n"
+                + "      return new AutoValue_Test(id, title, chapters);\n"
+                + "    }\n"
+                + "  }\n"
+                + "}\n");
+
+        assertAbout(javaSources())
+                .that(Arrays.asList(chapter, source))
+                .processedWith(new AutoValueProcessor())
+                .compilesWithoutError()
+                .and()
+                .generatesSources(expected);
+    }
+
+
+    @Test
+    public void groupedListCantBeReread() {
+        JavaFileObject chapter = JavaFileObjects.forSourceString("test.Chapter", ""
+                + "package test;\n"
+                + "import com.google.auto.value.AutoValue;\n"
+                + "@AutoValue public abstract class Chapter {\n"
+                + "  public abstract long id();\n"
+                + "}\n");
+        JavaFileObject source = JavaFileObjects.forSourceString("test.Test", ""
+                + "package test;\n"
+                + "import android.database.Cursor;\n"
+                + "import com.gabrielittner.auto.value.cursor.ColumnPrefix;\n"
+                + "import com.gabrielittner.auto.value.cursor.GroupedBy;\n"
+                + "import com.google.auto.value.AutoValue;\n"
+                + "import java.util.List;\n"
+                + "@AutoValue public abstract class Test {\n"
+                + "  public abstract long id();\n"
+                + "  @ColumnPrefix(\"chapter_\") @GroupedBy(\"id\") public abstract List<Chapter> chapters();\n"
+                + "  public static List<Test> createList(Cursor cursor) { return null; }\n"
+                + "  public static List<Test> reread(Cursor cursor, List<Test> previous) { return null; }\n"
+                + "}\n");
+
+        assertAbout(javaSources())
+                .that(Arrays.asList(chapter, source))
+                .processedWith(new AutoValueProcessor())
+                .failsToCompile()
+                .withErrorContaining("rereadList can't be used with a @GroupedBy property.");
+    }
+
+    @Test
+    public void primitiveAdapter() {
+        JavaFileObject timestamp = JavaFileObjects.forSourceString("test.Timestamp", ""
+                + "package test;\n"
+                + "public class Timestamp {\n"
+                + "  public final long millis;\n"
+                + "  public Timestamp(long millis) {\n"
+                + "    this.millis = millis;\n"
+                + "  }\n"
+                + "}\n");
+        JavaFileObject timestampAdapter = JavaFileObjects.forSourceString("test.TimestampAdapter", ""
+                + "package test;\n"
+                + "import com.gabrielittner.auto.value.cursor.LongColumnAdapter;\n"
+                + "public class TimestampAdapter implements LongColumnAdapter<Timestamp> {\n"
+                + "  public Timestamp fromLong(long value) {\n"
+                + "    return new Timestamp(value);\n"
+                + "  }\n"
+                + "  public long toLong(Timestamp value) {\n"
+                + "    return value.millis;\n"
+                + "  }\n"
+                + "}\n");
+        JavaFileObject source = JavaFileObjects.forSourceString("test.Test", ""
+                + "package test;\n"
+                + "import android.database.Cursor;\n"
+                + "import com.gabrielittner.auto.value.cursor.ColumnAdapter;\n"
+                + "import com.google.auto.value.AutoValue;\n"
+                + "import javax.annotation.Nullable;\n"
+                + "@AutoValue public abstract class Test {\n"
+                + "  public static Test blah(Cursor cursor) { return null; }\n"
+                + "  @ColumnAdapter(TimestampAdapter.class) public abstract Timestamp a();\n"
+                + "  @Nullable @ColumnAdapter(TimestampAdapter.class) public abstract Timestamp b();\n"
+                + "}\n");
+        JavaFileObject expected = JavaFileObjects.forSourceString("test.AutoValue_Test", ""
+                + "package test;\n"
+                + "import android.database.Cursor;\n"
+                + "final class AutoValue_Test extends $AutoValue_Test {\n"
+                + "  AutoValue_Test(Timestamp a, Timestamp b) {\n"
+                + "    super(a, b);\n"
+                + "  }\n"
+                + "  static AutoValue_Test createFromCursor(Cursor cursor) {\n"
+                + "    TimestampAdapter timestampAdapter = new TimestampAdapter();\n"
+                + "    Timestamp a = timestampAdapter.fromLong(cursor.getLong(cursor.getColumnIndexOrThrow(\"a\")));\n"
+                + "    int bColumnIndex = cursor.getColumnIndex(\"b\");\n"
+                + "    Timestamp b = (bColumnIndex == -1 || cursor.isNull(bColumnIndex)) ? null : timestampAdapter.fromLong(cursor.getLong(bColumnIndex));\n"
+                + "    return new AutoValue_Test(a, b);\n"
+                + "  }\n"
+                + "  static CursorReader bind(Cursor cursor) {\n"
+                + "    return new CursorReader(cursor);\n"
+                + "  }\n"
+                + "  static final class CursorReader {\n"
+                + "    private final Cursor cursor;\n"
+                + "    private final TimestampAdapter timestampAdapter = new TimestampAdapter();\n"
+                + "    private final int aColumnIndex;\n"
+                + "    private final int bColumnIndex;\n"
+                + "    CursorReader(Cursor cursor) {\n"
+                + "      this.cursor = cursor;\n"
+                + "      aColumnIndex = cursor.getColumnIndexOrThrow(\"a\");\n"
+                + "      bColumnIndex = cursor.getColumnIndex(\"b\");\n"
+                + "    }\n"
+                + "    AutoValue_Test read() {\n"
+                + "      Timestamp a = timestampAdapter.fromLong(cursor.getLong(aColumnIndex));\n"
+                + "      Timestamp b = (bColumnIndex == -1 || cursor.isNull(bColumnIndex)) ? null : timestampAdapter.fromLong(cursor.getLong(bColumnIndex));\n"
+                + "      return new AutoValue_Test(a, b);\n"
+                + "    }\n"
+                + "  }\n"
+                + "}\n");
+
+        assertAbout(javaSources())
+                .that(Arrays.asList(timestamp, timestampAdapter, source))
+                .processedWith(new AutoValueProcessor())
+                .compilesWithoutError()
+                .and()
+                .generatesSources(expected);
+    }
+
+
+    @Test
+    public void primaryKey() {
+        JavaFileObject source = JavaFileObjects.forSourceString("test.Test", ""
+                + "package test;\n"
+                + "import android.database.Cursor;\n"
+                + "import com.gabrielittner.auto.value.cursor.PrimaryKey;\n"
+                + "import com.google.auto.value.AutoValue;\n"
+                + "import javax.annotation.Nullable;\n"
+                + "@AutoValue public abstract class Test {\n"
+                + "  @PrimaryKey(cacheSize = 100) public abstract long id();\n"
+                + "  @Nullable public abstract String name();\n"
+                + "  public abstract String email();\n"
+                + "  public abstract double score();\n"
+                + "  public abstract byte[] data();\n"
+                + "  public static Test blah(Cursor cursor) { return null; }\n"
+                + "}\n");
+        JavaFileObject expected = JavaFileObjects.forSourceString("test.AutoValue_Test", ""
+                + "package test;\n"
+                + "import android.database.Cursor;\n"
+                + "import com.gabrielittner.auto.value.cursor.LongIdentityMap;\n"
+                + "import java.lang.Double;\n"
+                + "import java.lang.String;\n"
+                + "import java.util.Arrays;\n"
+                + "final class AutoValue_Test extends $AutoValue_Test {\n"
+                + "  static final LongIdentityMap<AutoValue_Test> IDENTITY_MAP = new LongIdentityMap<>(100);\n"
+                + "  AutoValue_Test(long id, String name, String email, double score, byte[] data) {\n"
+                + "    super(id, name, email, score, data);\n"
+                + "  }\n"
+                + "  static AutoValue_Test createFromCursor(Cursor cursor) {\n"
+                + "    long id = cursor.getLong(cursor.getColumnIndexOrThrow(\"id\"));\n"
+                + "    int nameColumnIndex = cursor.getColumnIndex(\"name\");\n"
+                + "    String name = (nameColumnIndex == -1 || cursor.isNull(nameColumnIndex)) ? null : cursor.getString(nameColumnIndex);\n"
+                + "    String email = cursor.getString(cursor.getColumnIndexOrThrow(\"email\"));\n"
+                + "    double score = cursor.getDouble(cursor.getColumnIndexOrThrow(\"score\"));\n"
+                + "    byte[] data = cursor.getBlob(cursor.getColumnIndexOrThrow(\"data\"));\n"
+                + "    return createOrReuse(id, name, email, score, data);\n"
+                + "  }\n"
+                + "  static AutoValue_Test createOrReuse(long id, String name, String email, double score,\n"
+                + "      byte[] data) {\n"
+                + "    AutoValue_Test cached = IDENTITY_MAP.get(id);\n"
+                + "    if (cached != null\n"
+                + "        && (name == null ? cached.name() == null : name.equals(cached.name()))\n"
+                + "        && email.equals(cached.email())\n"
+                + "        && Double.doubleToLongBits(score) == Double.doubleToLongBits(cached.score())\n"
+                + "        && Arrays.equals(data, cached.data())) {\n"
+                + "      return cached;\n"
+                + "    }\n"
+                + "    AutoValue_Test value = new AutoValue_Test(id, name, email, score, data);\n"
+                + "    IDENTITY_MAP.put(id, value);\n"
+                + "    return value;\n"
+                + "  }\n"
+                + "  static CursorReader bind(Cursor cursor) {\n"
+                + "    return new CursorReader(cursor);\n"
+                + "  }\n"
+                + "  static final class CursorReader {\n"
+                + "    private final Cursor cursor;\n"
+                + "    private final int idColumnIndex;\n"
+                + "    private final int nameColumnIndex;\n"
+                + "    private final int emailColumnIndex;\n"
+                + "    private final int scoreColumnIndex;\n"
+                + "    private final int dataColumnIndex;\n"
+                + "    CursorReader(Cursor cursor) {\n"
+                + "      this.cursor = cursor;\n"
+                + "      idColumnIndex = cursor.getColumnIndexOrThrow(\"id\");\n"
+                + "      nameColumnIndex = cursor.getColumnIndex(\"name\");\n"
+                + "      emailColumnIndex = cursor.getColumnIndexOrThrow(\"email\");\n"
+                + "      scoreColumnIndex = cursor.getColumnIndexOrThrow(\"score\");\n"
+                + "      dataColumnIndex = cursor.getColumnIndexOrThrow(\"data\");\n"
+                + "    }\n"
+                + "    AutoValue_Test read() {\n"
+                + "      long id = cursor.getLong(idColumnIndex);\n"
+                + "      String name = (nameColumnIndex == -1 || cursor.isNull(nameColumnIndex)) ? null : cursor.getString(nameColumnIndex);\n"
+                + "      String email = cursor.getString(emailColumnIndex);\n"
+                + "      double score = cursor.getDouble(scoreColumnIndex);\n"
+                + "      byte[] data = cursor.getBlob(dataColumnIndex);\n"
+                + "      return createOrReuse(id, name, email, score, data);\n"
+                + "    }\n"
+                + "  }\n"
+                + "}\n");
+
+        assertAbout(javaSources())
+                .that(Collections.singletonList(source))
+                .processedWith(new AutoValueProcessor())
+                .compilesWithoutError()
+                .and()
+                .generatesSources(expected);
+    }
+
+
+    @Test
+    public void primaryKeyComparesEmbeddedColumns() {
+        JavaFileObject author = JavaFileObjects.forSourceString("test.Author", ""
+                + "package test;\n"
+                + "import com.google.auto.value.AutoValue;\n"
+                + "@AutoValue public abstract class Author {\n"
+                + "  public abstract long id();\n"
+                + "  public abstract String name();\n"
+                + "}\n");
+        JavaFileObject source = JavaFileObjects.forSourceString("test.Test", ""
+                + "package test;\n"
+                + "import android.database.Cursor;\n"
+                + "import com.gabrielittner.auto.value.cursor.ColumnPrefix;\n"
+                + "import com.gabrielittner.auto.value.cursor.PrimaryKey;\n"
+                + "import com.google.auto.value.AutoValue;\n"
+                + "@AutoValue public abstract class Test {\n"
+                + "  @PrimaryKey public abstract int id();\n"
+                + "  @ColumnPrefix(\"author_\") public abstract Author author();\n"
+                + "  public static Test blah(Cursor cursor) { return null; }\n"
+                + "}\n");
+        JavaFileObject expected = JavaFileObjects.forSourceString("test.AutoValue_Test", ""
+                + "package test;\n"
+                + "import android.database.Cursor;\n"
+                + "import com.gabrielittner.auto.value.cursor.LongIdentityMap;\n"
+                + "import java.lang.String;\n"
+                + "final class AutoValue_Test extends $AutoValue_Test {\n"
+                + "  static final LongIdentityMap<AutoValue_Test> IDENTITY_MAP = new LongIdentityMap<>(256);\n"
+                + "  AutoValue_Test(int id, Author author) {\n"
+                + "    super(id, author);\n"
+                + "  }\n"
+                + "  static AutoValue_Test createFromCursor(Cursor cursor) {\n"
+                + "    int id = cursor.getInt(cursor.getColumnIndexOrThrow(\"id\"));\n"
+                + "    long authorId = cursor.getLong(cursor.getColumnIndexOrThrow(\"author_id\"));\n"
+                + "    String authorName = cursor.getString(cursor.getColumnIndexOrThrow(\"author_name\"));\n"
+                + "    return createOrReuse(id, authorId, authorName);\n"
+                + "  }\n"
+                + "  static AutoValue_Test createOrReuse(int id, long authorId, String authorName) {\n"
+                + "    AutoValue_Test cached = IDENTITY_MAP.get(id);\n"
+                + "    if (cached != null\n"
+                + "        && authorId == cached.author().id()\n"
+                + "        && authorName.equals(cached.author().name())) {\n"
+                + "      return cached;\n"
+                + "    }\n"
+                + "    Author author = new AutoValue_Author(authorId, authorName);\n"
+                + "    AutoValue_Test value = new AutoValue_Test(id, author);\n"
+                + "    IDENTITY_MAP.put(id, value);\n"
+                + "    return value;\n"
+                + "  }\n"
+                + "  static CursorReader bind(Cursor cursor) {\n"
+                + "    return new CursorReader(cursor);\n"
+                + "  }\n"
+                + "  static final class CursorReader {\n"
+                + "    private final Cursor cursor;\n"
+                + "    private final int idColumnIndex;\n"
+                + "    private final int authorIdColumnIndex;\n"
+                + "    private final int authorNameColumnIndex;\n"
+                + "    CursorReader(Cursor cursor) {\n"
+                + "      this.cursor = cursor;\n"
+                + "      idColumnIndex = cursor.getColumnIndexOrThrow(\"id\");\n"
+                + "      authorIdColumnIndex = cursor.getColumnIndexOrThrow(\"author_id\");\n"
+                + "      authorNameColumnIndex = cursor.getColumnIndexOrThrow(\"author_name\");\n"
+                + "    }\n"
+                + "    AutoValue_Test read() {\n"
+                + "      int id = cursor.getInt(idColumnIndex);\n"
+                + "      long authorId = cursor.getLong(authorIdColumnIndex);\n"
+                + "      String authorName = cursor.getString(authorNameColumnIndex);\n"
+                + "      return createOrReuse(id, authorId, authorName);\n"
+                + "    }\n"
+                + "  }\n"
+                + "}\n");
+
+        assertAbout(javaSources())
+                .that(Arrays.asList(author, source))
+                .processedWith(new AutoValueProcessor())
+                .compilesWithoutError()
+                .and()
+                .generatesSources(expected);
+    }
+
+
+    @Test
+    public void rxjava2() {
+        JavaFileObject source = JavaFileObjects.forSourceString("test.Test", ""
+                + "package test;\n"
+                + "import android.database.Cursor;\n"
+                + "import com.google.auto.value.AutoValue;\n"
+                + "@AutoValue public abstract class Test {\n"
+                + "  public static Test blah(Cursor cursor) { return null; }\n"
+                + "  public abstract int a();\n"
+                + "  public abstract String b();\n"
+                + "}\n");
+
+        JavaFileObject expected = JavaFileObjects.forSourceString("test.AutoValue_Test", ""
+                + "package test;\n"
+                + "import android.database.Cursor;\n"
+                + "import io.reactivex.functions.Function;\n"
+                + "import java.lang.Override;\n"
+                + "import java.lang.String;\n"
+                + "final class AutoValue_Test extends $AutoValue_Test {\n"
+                + "  static final Function<Cursor, Test> MAPPER_FUNCTION = new Function<Cursor, Test>() {\n"
+                + "    private volatile CursorReader reader;\n"
+                + "    @Override\n"
+                + "    public AutoValue_Test apply(Cursor c) {\n"
+                + "      CursorReader reader = this.reader;\n"
+                + "      if (reader == null || reader.cursor != c || reader.cursor.isClosed()) {\n"
+                + "        reader = new CursorReader(c);\n"
+                + "        this.reader = reader;\n"
+                + "      }\n"
+                + "      return reader.read();\n"
+                + "    }\n"
+                + "  };\n"
+                + "  AutoValue_Test(int a, String b) {\n"
+                + "    super(a, b);\n"
+                + "  }\n"
+                + "  static AutoValue_Test createFromCursor(Cursor cursor) {\n"
+                + "    int a = cursor.getInt(cursor.getColumnIndexOrThrow(\"a\"));\n"
+                + "    String b = cursor.getString(cursor.getColumnIndexOrThrow(\"b\"));\n"
+                + "    return new AutoValue_Test(a, b);\n"
+                + "  }\n"
+                + "  static CursorReader bind(Cursor cursor) {\n"
+                + "    return new CursorReader(cursor);\n"
+                + "  }\n"
+                + "  static final class CursorReader {\n"
+                + "    private final Cursor cursor;\n"
+                + "    private final int aColumnIndex;\n"
+                + "    private final int bColumnIndex;\n"
+                + "    CursorReader(Cursor cursor) {\n"
+                + "      this.cursor = cursor;\n"
+                + "      aColumnIndex = cursor.getColumnIndexOrThrow(\"a\");\n"
+                + "      bColumnIndex = cursor.getColumnIndexOrThrow(\"b\");\n"
+                + "    }\n"
+                + "    AutoValue_Test read() {\n"
+                + "      int a = cursor.getInt(aColumnIndex);\n"
+                + "      String b = cursor.getString(bColumnIndex);\n"
+                + "      return new AutoValue_Test(a, b);\n"
+                + "    }\n"
+                + "  }\n"
+                + "}\n");
+
+        assertAbout(javaSources())
+                .that(Arrays.asList(function(), source))
+                .processedWith(new AutoValueProcessor())
+                .compilesWithoutError()
+                .and()
+                .generatesSources(expected);
+    }
+
+    @Test
+    public void rxjava2OptIn() {
+        JavaFileObject source = JavaFileObjects.forSourceString("test.Test", ""
+                + "package test;\n"
+                + "import android.database.Cursor;\n"
+                + "import com.google.auto.value.AutoValue;\n"
+                + "import io.reactivex.functions.Function;\n"
+                + "@AutoValue public abstract class Test {\n"
+                + "  public static Function<Cursor, Test> blahMap() { return null; }\n"
+                + "  public abstract int a();\n"
+                + "  public abstract String b();\n"
+                + "}\n");
+
+        JavaFileObject expected = JavaFileObjects.forSourceString("test.AutoValue_Test", ""
+                + "package test;\n"
+                + "import android.database.Cursor;\n"
+                + "import io.reactivex.functions.Function;\n"
+                + "import java.lang.Override;\n"
+                + "import java.lang.String;\n"
+                + "final class AutoValue_Test extends $AutoValue_Test {\n"
+                + "  static final Function<Cursor, Test> MAPPER_FUNCTION = new Function<Cursor, Test>() {\n"
+                + "    private volatile CursorReader reader;\n"
+                + "    @Override\n"
+                + "    public AutoValue_Test apply(Cursor c) {\n"
+                + "      CursorReader reader = this.reader;\n"
+                + "      if (reader == null || reader.cursor != c || reader.cursor.isClosed()) {\n"
+                + "        reader = new CursorReader(c);\n"
+                + "        this.reader = reader;\n"
+                + "      }\n"
+                + "      return reader.read();\n"
+                + "    }\n"
+                + "  };\n"
+                + "  AutoValue_Test(int a, String b) {\n"
+                + "    super(a, b);\n"
+                + "  }\n"
+                + "  static AutoValue_Test createFromCursor(Cursor cursor) {\n"
+                + "    int a = cursor.getInt(cursor.getColumnIndexOrThrow(\"a\"));\n"
+                + "    String b = cursor.getString(cursor.getColumnIndexOrThrow(\"b\"));\n"
+                + "    return new AutoValue_Test(a, b);\n"
+                + "  }\n"
+                + "  static CursorReader bind(Cursor cursor) {\n"
+                + "    return new CursorReader(cursor);\n"
+                + "  }\n"
+                + "  static final class CursorReader {\n"
+                + "    private final Cursor cursor;\n"
+                + "    private final int aColumnIndex;\n"
+                + "    private final int bColumnIndex;\n"
+                + "    CursorReader(Cursor cursor) {\n"
+                + "      this.cursor = cursor;\n"
+                + "      aColumnIndex = cursor.getColumnIndexOrThrow(\"a\");\n"
+                + "      bColumnIndex = cursor.getColumnIndexOrThrow(\"b\");\n"
+                + "    }\n"
+                + "    AutoValue_Test read() {\n"
+                + "      int a = cursor.getInt(aColumnIndex);\n"
+                + "      String b = cursor.getString(bColumnIndex);\n"
+                + "      return new AutoValue_Test(a, b);\n"
+                + "    }\n"
+                + "  }\n"
+                + "}\n");
+
+        assertAbout(javaSources())
+                .that(Arrays.asList(function(), source))
+                .processedWith(new AutoValueProcessor())
+                .compilesWithoutError()
+                .and()
+                .generatesSources(expected);
+    }
+
+    private JavaFileObject function() {
+        return JavaFileObjects.forSourceString(
+                "io.reactivex.functions.Function", ""
+                        + "package io.reactivex.functions;\n"
+                        + "public interface Function<T, R> {\n"
+                        + "  R apply(T t);\n"
+                        + "}\n");
+    }
+
+    @Test
+    public void rxjava() {
+        JavaFileObject source = JavaFileObjects.forSourceString("test.Test", ""
+                + "package test;\n"
+                + "import com.google.auto.value.AutoValue;\n"
+                + "import android.database.Cursor;\n"
+                + "@AutoValue public abstract class Test {\n"
+                + "  public static Test blah(Cursor cursor) { return null; }\n"
+                + "  public abstract int a();\n"
+                + "  public abstract String b();\n"
+                + "}\n");
+
+        JavaFileObject expected = JavaFileObjects.forSourceString("test.AutoValue_Test", ""
+                + "package test;\n"
+                + "import android.database.Cursor;\n"
+                + "import java.lang.Override;\n"
+                + "import java.lang.String;\n"
+                + "import rx.functions.Func1;\n"
+                + "final class AutoValue_Test extends $AutoValue_Test {\n"
+                + "  static final Func1<Cursor, Test> MAPPER = new Func1<Cursor, Test>() {\n"
+                + "    private volatile CursorReader reader;\n"
+                + "    @Override\n"
+                + "    public AutoValue_Test call(Cursor c) {\n"
+                + "      CursorReader reader = this.reader;\n"
+                + "      if (reader == null || reader.cursor != c || reader.cursor.isClosed()) {\n"
+                + "        reader = new CursorReader(c);\n"
+                + "        this.reader = reader;\n"
+                + "      }\n"
+                + "      return reader.read();\n"
+                + "    }\n"
+                + "  };\n"
+                + "  AutoValue_Test(int a, String b) {\n"
+                + "    super(a, b);\n"
+                + "  }\n"
+                + "  static AutoValue_Test createFromCursor(Cursor cursor) {\n"
+                + "    int a = cursor.getInt(cursor.getColumnIndexOrThrow(\"a\"));\n"
+                + "    String b = cursor.getString(cursor.getColumnIndexOrThrow(\"b\"));\n"
+                + "    return new AutoValue_Test(a, b);\n"
+                + "  }\n"
+                + "  static CursorReader bind(Cursor cursor) {\n"
+                + "    return new CursorReader(cursor);\n"
+                + "  }\n"
+                + "  static final class CursorReader {\n"
+                + "    private final Cursor cursor;\n"
+                + "    private final int aColumnIndex;\n"
+                + "    private final int bColumnIndex;\n"
+                + "    CursorReader(Cursor cursor) {\n"
+                + "      this.cursor = cursor;\n"
+                + "      aColumnIndex = cursor.getColumnIndexOrThrow(\"a\");\n"
+                + "      bColumnIndex = cursor.getColumnIndexOrThrow(\"b\");\n"
+                + "    }\n"
+                + "    AutoValue_Test read() {\n"
+                + "      int a = cursor.getInt(aColumnIndex);\n"
+                + "      String b = cursor.getString(bColumnIndex);\n"
+                + "      return new AutoValue_Test(a, b);\n"
+                + "    }\n"
+                + "  }\n"
+                + "}\n");
+
+        assertAbout(javaSources())
+                .that(Arrays.asList(func1(), source))
                 .processedWith(new AutoValueProcessor())
                 .compilesWithoutError()
                 .and()
@@ -512,9 +2759,15 @@ public class AutoValueCursorExtensionTest {
                 + "import rx.functions.Func1;\n"
                 + "final class AutoValue_Test extends $AutoValue_Test {\n"
                 + "  static final Func1<Cursor, Test> MAPPER = new Func1<Cursor, Test>() {\n"
+                + "    private volatile CursorReader reader;\n"
                 + "    @Override\n"
                 + "    public AutoValue_Test call(Cursor c) {\n"
-                + "      return createFromCursor(c);\n"
+                + "      CursorReader reader = this.reader;\n"
+                + "      if (reader == null || reader.cursor != c || reader.cursor.isClosed()) {\n"
+                + "        reader = new CursorReader(c);\n"
+                + "        this.reader = reader;\n"
+                + "      }\n"
+                + "      return reader.read();\n"
                 + "    }\n"
                 + "  };\n"
                 + "  AutoValue_Test(int a, String b) {\n"
@@ -525,6 +2778,24 @@ public class AutoValueCursorExtensionTest {
                 + "    String b = cursor.getString(cursor.getColumnIndexOrThrow(\"b\"));\n"
                 + "    return new AutoValue_Test(a, b);\n"
                 + "  }\n"
+                + "  static CursorReader bind(Cursor cursor) {\n"
+                + "    return new CursorReader(cursor);\n"
+                + "  }\n"
+                + "  static final class CursorReader {\n"
+                + "    private final Cursor cursor;\n"
+                + "    private final int aColumnIndex;\n"
+                + "    private final int bColumnIndex;\n"
+                + "    CursorReader(Cursor cursor) {\n"
+                + "      this.cursor = cursor;\n"
+                + "      aColumnIndex = cursor.getColumnIndexOrThrow(\"a\");\n"
+                + "      bColumnIndex = cursor.getColumnIndexOrThrow(\"b\");\n"
+                + "    }\n"
+                + "    AutoValue_Test read() {\n"
+                + "      int a = cursor.getInt(aColumnIndex);\n"
+                + "      String b = cursor.getString(bColumnIndex);\n"
+                + "      return new AutoValue_Test(a, b);\n"
+                + "    }\n"
+                + "  }\n"
                 + "}\n");
 
         assertAbout(javaSources())
@@ -616,4 +2887,254 @@ public class AutoValueCursorExtensionTest {
                 .and()
                 .generatesSources(expected);
     }
+
+    @Test
+    public void generatesNothingForOtherVisitorAndBatchTypes() {
+        // only AutoValue_Test.RowVisitor and AutoValue_Test.ColumnBatch opt in
+        JavaFileObject source = JavaFileObjects.forSourceString("test.Test", ""
+                + "package test;\n"
+                + "import com.google.auto.value.AutoValue;\n"
+                + "import android.database.Cursor;\n"
+                + "@AutoValue public abstract class Test {\n"
+                + "  interface RowVisitor {}\n"
+                + "  static final class ColumnBatch {}\n"
+                + "  public static void visitRows(Cursor cursor, RowVisitor visitor) {}\n"
+                + "  public static ColumnBatch readAll(Cursor cursor) { return null; }\n"
+                + "  public abstract int a();\n"
+                + "  public abstract String b();\n"
+                + "}\n");
+
+        JavaFileObject expected = JavaFileObjects.forSourceString("test.AutoValue_Test", ""
+                + "package test;\n"
+                + "import javax.annotation.Generated;\n"
+                + "@Generated(\"com.google.auto.value.processor.AutoValueProcessor\")\n"
+                + "final class AutoValue_Test extends Test {\n"
+                + "  private final int a;\n"
+                + "  private final String b;\n"
+                + "  AutoValue_Test(\n"
+                + "      int a,\n"
+                + "      String b) {\n"
+                + "    this.a = a;\n"
+                + "    if (b == null) {\n"
+                + "      throw new NullPointerException(\"Null b\");\n"
+                + "    }\n"
+                + "    this.b = b;\n"
+                + "  }\n"
+                + "  @Override\n"
+                + "  public int a() {\n"
+                + "    return a;\n"
+                + "  }\n"
+                + "  @Override\n"
+                + "  public String b() {\n"
+                + "    return b;\n"
+                + "  }\n"
+                + "  @Override\n"
+                + "  public String toString() {\n"
+                + "    return \"Test{\"\n"
+                + "        + \"a=\" + a + \", \"\n"
+                + "        + \"b=\" + b\n"
+                + "        + \"}\";\n"
+                + "  }\n"
+                + "  @Override\n"
+                + "  public boolean equals(Object o) {\n"
+                + "    if (o == this) {\n"
+                + "      return true;\n"
+                + "    }\n"
+                + "    if (o instanceof Test) {\n"
+                + "      Test that = (Test) o;\n"
+                + "      return (this.a == that.a())\n"
+                + "           && (this.b.equals(that.b()));\n"
+                + "    }\n"
+                + "    return false;\n"
+                + "  }\n"
+                + "  @Override\n"
+                + "  public int hashCode() {\n"
+                + "    int h = 1;\n"
+                + "    h *= 1000003;\n"
+                + "    h ^= this.a;\n"
+                + "    h *= 1000003;\n"
+                + "    h ^= this.b.hashCode();\n"
+                + "    return h;\n"
+                + "  }\n"
+                + "}\n");
+
+        assertAbout(javaSources())
+                .that(Collections.singleton(source))
+                .processedWith(new AutoValueProcessor())
+                .compilesWithoutError()
+                .and()
+                .generatesSources(expected);
+    }
+
+    @Test
+    public void unaffectedByOtherClasses() {
+        // a changed class has to be the only one whose generated class changes for
+        // incremental annotation processing
+        JavaFileObject source = JavaFileObjects.forSourceString("test.Test", ""
+                + "package test;\n"
+                + "import com.google.auto.value.AutoValue;\n"
+                + "import android.database.Cursor;\n"
+                + "@AutoValue public abstract class Test {\n"
+                + "  public static Test blah(Cursor cursor) { return null; }\n"
+                + "  public abstract int a();\n"
+                + "  public abstract String b();\n"
+                + "}\n");
+
+        JavaFileObject expected = JavaFileObjects.forSourceString("test.AutoValue_Test", ""
+                + "package test;\n"
+                + "import android.database.Cursor;\n"
+                + "import java.lang.String;\n"
+                + "final class AutoValue_Test extends $AutoValue_Test {\n"
+                + "  AutoValue_Test(int a, String b) {\n"
+                + "    super(a, b);\n"
+                + "  }\n"
+                + "  static AutoValue_Test createFromCursor(Cursor cursor) {\n"
+                + "    int a = cursor.getInt(cursor.getColumnIndexOrThrow(\"a\"));\n"
+                + "    String b = cursor.getString(cursor.getColumnIndexOrThrow(\"b\"));\n"
+                + "    return new AutoValue_Test(a, b);\n"
+                + "  }\n"
+                + "  static CursorReader bind(Cursor cursor) {\n"
+                + "    return new CursorReader(cursor);\n"
+                + "  }\n"
+                + "  static final class CursorReader {\n"
+                + "    private final Cursor cursor;\n"
+                + "    private final int aColumnIndex;\n"
+                + "    private final int bColumnIndex;\n"
+                + "    CursorReader(Cursor cursor) {\n"
+                + "      this.cursor = cursor;\n"
+                + "      aColumnIndex = cursor.getColumnIndexOrThrow(\"a\");\n"
+                + "      bColumnIndex = cursor.getColumnIndexOrThrow(\"b\");\n"
+                + "    }\n"
+                + "    AutoValue_Test read() {\n"
+                + "      int a = cursor.getInt(aColumnIndex);\n"
+                + "      String b = cursor.getString(bColumnIndex);\n"
+                + "      return new AutoValue_Test(a, b);\n"
+                + "    }\n"
+                + "  }\n"
+                + "}\n");
+
+        JavaFileObject other = JavaFileObjects.forSourceString("test.Other", ""
+                + "package test;\n"
+                + "import com.gabrielittner.auto.value.cursor.PrimaryKey;\n"
+                + "import com.google.auto.value.AutoValue;\n"
+                + "import android.database.Cursor;\n"
+                + "import java.util.List;\n"
+                + "@AutoValue public abstract class Other {\n"
+                + "  public static List<Other> list(Cursor cursor) { return null; }\n"
+                + "  @PrimaryKey public abstract long id();\n"
+                + "  public abstract String b();\n"
+                + "}\n");
+        JavaFileObject changedOther = JavaFileObjects.forSourceString("test.Other", ""
+                + "package test;\n"
+                + "import com.gabrielittner.auto.value.cursor.EnumOrdinal;\n"
+                + "import com.google.auto.value.AutoValue;\n"
+                + "import android.database.Cursor;\n"
+                + "import java.util.concurrent.TimeUnit;\n"
+                + "@AutoValue public abstract class Other {\n"
+                + "  public static Other create(Cursor cursor) { return null; }\n"
+                + "  public static String[] projection() { return null; }\n"
+                + "  @EnumOrdinal public abstract TimeUnit a();\n"
+                + "  public abstract int b();\n"
+                + "}\n");
+
+        for (JavaFileObject otherVersion : Arrays.asList(other, changedOther)) {
+            assertAbout(javaSources())
+                    .that(Arrays.asList(source, otherVersion))
+                    .processedWith(new AutoValueProcessor())
+                    .compilesWithoutError()
+                    .and()
+                    .generatesSources(expected);
+        }
+    }
+
+    @Test
+    public void embeddedUnaffectedByOtherClasses() {
+        // an embedded class is read by the classes that embed it, any other class isn't
+        JavaFileObject author = JavaFileObjects.forSourceString("test.Author", ""
+                + "package test;\n"
+                + "import com.google.auto.value.AutoValue;\n"
+                + "@AutoValue public abstract class Author {\n"
+                + "  public abstract long id();\n"
+                + "  public abstract String name();\n"
+                + "}\n");
+        JavaFileObject source = JavaFileObjects.forSourceString("test.Test", ""
+                + "package test;\n"
+                + "import android.database.Cursor;\n"
+                + "import com.gabrielittner.auto.value.cursor.ColumnPrefix;\n"
+                + "import com.google.auto.value.AutoValue;\n"
+                + "@AutoValue public abstract class Test {\n"
+                + "  public static Test blah(Cursor cursor) { return null; }\n"
+                + "  public abstract int a();\n"
+                + "  @ColumnPrefix(\"author_\") public abstract Author author();\n"
+                + "}\n");
+
+        JavaFileObject expected = JavaFileObjects.forSourceString("test.AutoValue_Test", ""
+                + "package test;\n"
+                + "import android.database.Cursor;\n"
+                + "import java.lang.String;\n"
+                + "final class AutoValue_Test extends $AutoValue_Test {\n"
+                + "  AutoValue_Test(int a, Author author) {\n"
+                + "    super(a, author);\n"
+                + "  }\n"
+                + "  static AutoValue_Test createFromCursor(Cursor cursor) {\n"
+                + "    int a = cursor.getInt(cursor.getColumnIndexOrThrow(\"a\"));\n"
+                + "    long authorId = cursor.getLong(cursor.getColumnIndexOrThrow(\"author_id\"));\n"
+                + "    String authorName = cursor.getString(cursor.getColumnIndexOrThrow(\"author_name\"));\n"
+                + "    Author author = new AutoValue_Author(authorId, authorName);\n"
+                + "    return new AutoValue_Test(a, author);\n"
+                + "  }\n"
+                + "  static CursorReader bind(Cursor cursor) {\n"
+                + "    return new CursorReader(cursor);\n"
+                + "  }\n"
+                + "  static final class CursorReader {\n"
+                + "    private final Cursor cursor;\n"
+                + "    private final int aColumnIndex;\n"
+                + "    private final int authorIdColumnIndex;\n"
+                + "    private final int authorNameColumnIndex;\n"
+                + "    CursorReader(Cursor cursor) {\n"
+                + "      this.cursor = cursor;\n"
+                + "      aColumnIndex = cursor.getColumnIndexOrThrow(\"a\");\n"
+                + "      authorIdColumnIndex = cursor.getColumnIndexOrThrow(\"author_id\");\n"
+                + "      authorNameColumnIndex = cursor.getColumnIndexOrThrow(\"author_name\");\n"
+                + "    }\n"
+                + "    AutoValue_Test read() {\n"
+                + "      int a = cursor.getInt(aColumnIndex);\n"
+                + "      long authorId = cursor.getLong(authorIdColumnIndex);\n"
+                + "      String authorName = cursor.getString(authorNameColumnIndex);\n"
+                + "      Author author = new AutoValue_Author(authorId, authorName);\n"
+                + "      return new AutoValue_Test(a, author);\n"
+                + "    }\n"
+                + "  }\n"
+                + "}\n");
+
+        JavaFileObject other = JavaFileObjects.forSourceString("test.Other", ""
+                + "package test;\n"
+                + "import com.gabrielittner.auto.value.cursor.ColumnPrefix;\n"
+                + "import com.google.auto.value.AutoValue;\n"
+                + "import android.database.Cursor;\n"
+                + "@AutoValue public abstract class Other {\n"
+                + "  public static Other create(Cursor cursor) { return null; }\n"
+                + "  @ColumnPrefix(\"author_\") public abstract Author author();\n"
+                + "}\n");
+        JavaFileObject changedOther = JavaFileObjects.forSourceString("test.Other", ""
+                + "package test;\n"
+                + "import com.gabrielittner.auto.value.cursor.ColumnPrefix;\n"
+                + "import com.google.auto.value.AutoValue;\n"
+                + "import android.database.Cursor;\n"
+                + "@AutoValue public abstract class Other {\n"
+                + "  public static Other create(Cursor cursor) { return null; }\n"
+                + "  public static String[] projection() { return null; }\n"
+                + "  public abstract long id();\n"
+                + "  @ColumnPrefix(\"writer_\") public abstract Author writer();\n"
+                + "}\n");
+
+        for (JavaFileObject otherVersion : Arrays.asList(other, changedOther)) {
+            assertAbout(javaSources())
+                    .that(Arrays.asList(author, source, otherVersion))
+                    .processedWith(new AutoValueProcessor())
+                    .compilesWithoutError()
+                    .and()
+                    .generatesSources(expected);
+        }
+    }
 }
@@ -0,0 +1,37 @@
+package com.gabrielittner.auto.value.cursor;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import org.junit.Test;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.fail;
+
+public class ByteBuffersTest {
+
+    @Test
+    public void stringRoundTrip() {
+        ByteBuffer buffer = ByteBuffer.allocate(32);
+        ByteBuffers.putString(buffer, "héllo");
+        buffer.flip();
+
+        assertThat(ByteBuffers.getString(buffer)).isEqualTo("héllo");
+        assertThat(buffer.remaining()).isEqualTo(0);
+    }
+
+    @Test
+    public void truncatedStringInHeapBuffer() {
+        ByteBuffer buffer = ByteBuffer.allocate(32);
+        ByteBuffers.putString(buffer, "hello");
+        buffer.put((byte) 'x');
+        // the limit cuts the string off, the bytes behind it are still in the array
+        buffer.flip().limit(4);
+
+        try {
+            ByteBuffers.getString(buffer);
+            fail();
+        } catch (BufferUnderflowException expected) {
+        }
+        assertThat(buffer.position()).isEqualTo(1);
+    }
+}
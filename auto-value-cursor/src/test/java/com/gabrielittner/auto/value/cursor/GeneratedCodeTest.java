@@ -0,0 +1,452 @@
+package com.gabrielittner.auto.value.cursor;
+
+import android.database.Cursor;
+import com.gabrielittner.auto.value.InMemoryCompiler;
+import com.google.testing.compile.JavaFileObjects;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import javax.tools.JavaFileObject;
+import org.junit.Test;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.fail;
+
+/**
+ * Compiles models and runs the generated code against a {@link MatrixCursor}, for behavior that
+ * can't be seen by comparing the generated sources.
+ */
+public class GeneratedCodeTest {
+
+    @Test
+    public void rereadListReusesMovedRowsByPrimaryKey() throws Exception {
+        JavaFileObject source = JavaFileObjects.forSourceString("test.Test", ""
+                + "package test;\n"
+                + "import android.database.Cursor;\n"
+                + "import com.gabrielittner.auto.value.cursor.PrimaryKey;\n"
+                + "import com.google.auto.value.AutoValue;\n"
+                + "import java.util.List;\n"
+                + "@AutoValue public abstract class Test {\n"
+                + "  @PrimaryKey public abstract long id();\n"
+                + "  public abstract String name();\n"
+                + "  public static List<Test> createList(Cursor cursor) {\n"
+                + "    return AutoValue_Test.createListFromCursor(cursor);\n"
+                + "  }\n"
+                + "  public static List<Test> reread(Cursor cursor, List<Test> previous) {\n"
+                + "    return AutoValue_Test.rereadList(cursor, previous);\n"
+                + "  }\n"
+                + "  public static void clearCache() {\n"
+                + "    AutoValue_Test.IDENTITY_MAP.clear();\n"
+                + "  }\n"
+                + "}\n");
+        Class<?> test = load(source, "test.Test");
+
+        List<?> previous = (List<?>) test.getMethod("createList", Cursor.class).invoke(null,
+                new MatrixCursor("id", "name")
+                        .addRow(1L, "a")
+                        .addRow(2L, "b")
+                        .addRow(3L, "c"));
+        // objects have to be reused because of rereadList, not because of the identity map
+        test.getMethod("clearCache").invoke(null);
+        List<?> list = (List<?>) test.getMethod("reread", Cursor.class, List.class).invoke(null,
+                new MatrixCursor("id", "name")
+                        .addRow(0L, "inserted")
+                        .addRow(1L, "a")
+                        .addRow(2L, "changed")
+                        .addRow(3L, "c"),
+                previous);
+
+        assertThat(list).hasSize(4);
+        assertThat(list.get(1)).isSameAs(previous.get(0));
+        assertThat(list.get(2)).isNotSameAs(previous.get(1));
+        assertThat(list.get(2)).isNotEqualTo(previous.get(1));
+        assertThat(list.get(3)).isSameAs(previous.get(2));
+    }
+
+    @Test
+    public void createOrReuseComparesEmbeddedColumns() throws Exception {
+        JavaFileObject author = JavaFileObjects.forSourceString("test.Author", ""
+                + "package test;\n"
+                + "import com.google.auto.value.AutoValue;\n"
+                + "@AutoValue public abstract class Author {\n"
+                + "  public abstract String name();\n"
+                + "}\n");
+        JavaFileObject source = JavaFileObjects.forSourceString("test.Test", ""
+                + "package test;\n"
+                + "import android.database.Cursor;\n"
+                + "import com.gabrielittner.auto.value.cursor.ColumnPrefix;\n"
+                + "import com.gabrielittner.auto.value.cursor.PrimaryKey;\n"
+                + "import com.google.auto.value.AutoValue;\n"
+                + "import java.util.List;\n"
+                + "@AutoValue public abstract class Test {\n"
+                + "  @PrimaryKey public abstract int id();\n"
+                + "  @ColumnPrefix(\"author_\") public abstract Author author();\n"
+                + "  public static List<Test> createList(Cursor cursor) {\n"
+                + "    return AutoValue_Test.createListFromCursor(cursor);\n"
+                + "  }\n"
+                + "}\n");
+        Method createList = load(Arrays.asList(author, source), "test.Test")
+                .getMethod("createList", Cursor.class);
+
+        MatrixCursor first = new MatrixCursor("id", "author_name");
+        MatrixCursor second = new MatrixCursor("id", "author_name");
+        for (int id = 0; id < 100; id++) {
+            first.addRow(id, "author " + id);
+            second.addRow(id, id == 42 ? "changed" : "author " + id);
+        }
+        List<?> previous = (List<?>) createList.invoke(null, first);
+        List<?> list = (List<?>) createList.invoke(null, second);
+
+        assertThat(list).hasSize(100);
+        for (int id = 0; id < 100; id++) {
+            if (id == 42) {
+                assertThat(list.get(id)).isNotEqualTo(previous.get(id));
+            } else {
+                assertThat(list.get(id)).isSameAs(previous.get(id));
+            }
+        }
+    }
+
+    @Test
+    public void embeddedNamesDontCollideWithTopLevelNames() throws Exception {
+        JavaFileObject author = JavaFileObjects.forSourceString("test.Author", ""
+                + "package test;\n"
+                + "import com.google.auto.value.AutoValue;\n"
+                + "@AutoValue public abstract class Author {\n"
+                + "  public abstract long id();\n"
+                + "}\n");
+        JavaFileObject source = JavaFileObjects.forSourceString("test.Test", ""
+                + "package test;\n"
+                + "import android.database.Cursor;\n"
+                + "import com.gabrielittner.auto.value.cursor.ColumnPrefix;\n"
+                + "import com.gabrielittner.auto.value.cursor.PrimaryKey;\n"
+                + "import com.google.auto.value.AutoValue;\n"
+                + "import java.util.List;\n"
+                + "@AutoValue public abstract class Test {\n"
+                + "  @PrimaryKey public abstract long id();\n"
+                + "  public abstract long authorId();\n"
+                + "  @ColumnPrefix(\"author_\") public abstract Author author();\n"
+                + "  public static Test create(Cursor cursor) {\n"
+                + "    return AutoValue_Test.createFromCursor(cursor);\n"
+                + "  }\n"
+                + "  public static List<Test> createList(Cursor cursor) {\n"
+                + "    return AutoValue_Test.createListFromCursor(cursor);\n"
+                + "  }\n"
+                + "}\n");
+        Class<?> test = load(Arrays.asList(author, source), "test.Test");
+
+        // authorId() and author().id() are both called authorId before the names are allocated
+        MatrixCursor cursor = new MatrixCursor("id", "authorId", "author_id").addRow(1L, 2L, 3L);
+        cursor.moveToNext();
+        Object first = test.getMethod("create", Cursor.class).invoke(null, cursor);
+        List<?> list = (List<?>) test.getMethod("createList", Cursor.class).invoke(null,
+                new MatrixCursor("id", "authorId", "author_id").addRow(1L, 2L, 3L));
+
+        assertThat(list).containsExactly(first);
+        assertThat(test.getMethod("authorId").invoke(first)).isEqualTo(2L);
+        Object embedded = test.getMethod("author").invoke(first);
+        Method id = embedded.getClass().getSuperclass().getMethod("id");
+        assertThat(id.invoke(embedded)).isEqualTo(3L);
+    }
+
+    @Test
+    public void identityMapStaysWithinCacheSize() throws Exception {
+        JavaFileObject source = JavaFileObjects.forSourceString("test.Test", ""
+                + "package test;\n"
+                + "import android.database.Cursor;\n"
+                + "import com.gabrielittner.auto.value.cursor.PrimaryKey;\n"
+                + "import com.google.auto.value.AutoValue;\n"
+                + "import java.util.List;\n"
+                + "@AutoValue public abstract class Test {\n"
+                + "  @PrimaryKey(cacheSize = 10) public abstract long id();\n"
+                + "  public abstract String name();\n"
+                + "  public static List<Test> createList(Cursor cursor) {\n"
+                + "    return AutoValue_Test.createListFromCursor(cursor);\n"
+                + "  }\n"
+                + "  public static int cacheSize() {\n"
+                + "    return AutoValue_Test.IDENTITY_MAP.size();\n"
+                + "  }\n"
+                + "}\n");
+        JavaFileObject named = JavaFileObjects.forSourceString("test.Named", ""
+                + "package test;\n"
+                + "import android.database.Cursor;\n"
+                + "import com.gabrielittner.auto.value.cursor.PrimaryKey;\n"
+                + "import com.google.auto.value.AutoValue;\n"
+                + "import java.util.List;\n"
+                + "@AutoValue public abstract class Named {\n"
+                + "  @PrimaryKey(cacheSize = 10) public abstract String key();\n"
+                + "  public static List<Named> createList(Cursor cursor) {\n"
+                + "    return AutoValue_Named.createListFromCursor(cursor);\n"
+                + "  }\n"
+                + "  public static int cacheSize() {\n"
+                + "    return AutoValue_Named.IDENTITY_MAP.size();\n"
+                + "  }\n"
+                + "}\n");
+        ClassLoader classLoader = InMemoryCompiler.load(Arrays.asList(source, named));
+        Class<?> test = classLoader.loadClass("test.Test");
+        Class<?> namedTest = classLoader.loadClass("test.Named");
+
+        MatrixCursor cursor = new MatrixCursor("id", "name");
+        MatrixCursor namedCursor = new MatrixCursor("key");
+        for (int id = 0; id < 100; id++) {
+            cursor.addRow((long) id, "name " + id);
+            namedCursor.addRow("key " + id);
+        }
+        test.getMethod("createList", Cursor.class).invoke(null, cursor);
+        namedTest.getMethod("createList", Cursor.class).invoke(null, namedCursor);
+
+        // LongIdentityMap for integer keys and IdentityMap for all others
+        assertThat((Integer) test.getMethod("cacheSize").invoke(null)).isAtMost(10);
+        assertThat((Integer) namedTest.getMethod("cacheSize").invoke(null)).isAtMost(10);
+    }
+
+    @Test
+    public void groupedListSkipsMissingRowsOfLeftJoin() throws Exception {
+        JavaFileObject chapter = JavaFileObjects.forSourceString("test.Chapter", ""
+                + "package test;\n"
+                + "import com.google.auto.value.AutoValue;\n"
+                + "import javax.annotation.Nullable;\n"
+                + "@AutoValue public abstract class Chapter {\n"
+                + "  public abstract long id();\n"
+                + "  public abstract String title();\n"
+                + "  @Nullable public abstract String summary();\n"
+                + "}\n");
+        JavaFileObject source = JavaFileObjects.forSourceString("test.Test", ""
+                + "package test;\n"
+                + "import android.database.Cursor;\n"
+                + "import com.gabrielittner.auto.value.cursor.ColumnPrefix;\n"
+                + "import com.gabrielittner.auto.value.cursor.GroupedBy;\n"
+                + "import com.google.auto.value.AutoValue;\n"
+                + "import java.util.List;\n"
+                + "@AutoValue public abstract class Test {\n"
+                + "  public abstract long id();\n"
+                + "  @ColumnPrefix(\"chapter_\") @GroupedBy(\"id\") public abstract List<Chapter> chapters();\n"
+                + "  public static List<Test> createList(Cursor cursor) {\n"
+                + "    return AutoValue_Test.createListFromCursor(cursor);\n"
+                + "  }\n"
+                + "}\n");
+        Class<?> test = load(Arrays.asList(chapter, source), "test.Test");
+
+        // the result of books LEFT JOIN chapters, book 2 doesn't have any chapters
+        List<?> list = (List<?>) test.getMethod("createList", Cursor.class).invoke(null,
+                new MatrixCursor("id", "chapter_id", "chapter_title", "chapter_summary")
+                        .addRow(1L, 10L, "one", null)
+                        .addRow(1L, 11L, "two", "second")
+                        .addRow(2L, null, null, null)
+                        .addRow(3L, 30L, "three", null));
+
+        Method chapters = test.getMethod("chapters");
+        assertThat(list).hasSize(3);
+        assertThat((List<?>) chapters.invoke(list.get(0))).hasSize(2);
+        assertThat((List<?>) chapters.invoke(list.get(1))).isEmpty();
+        assertThat((List<?>) chapters.invoke(list.get(2))).hasSize(1);
+    }
+
+    @Test
+    public void groupedPropertyIsEmptyForRowWithoutElement() throws Exception {
+        JavaFileObject chapter = JavaFileObjects.forSourceString("test.Chapter", ""
+                + "package test;\n"
+                + "import com.google.auto.value.AutoValue;\n"
+                + "import javax.annotation.Nullable;\n"
+                + "@AutoValue public abstract class Chapter {\n"
+                + "  public abstract long id();\n"
+                + "  public abstract String title();\n"
+                + "  @Nullable public abstract String summary();\n"
+                + "}\n");
+        JavaFileObject source = JavaFileObjects.forSourceString("test.Test", ""
+                + "package test;\n"
+                + "import android.database.Cursor;\n"
+                + "import com.gabrielittner.auto.value.cursor.ColumnPrefix;\n"
+                + "import com.gabrielittner.auto.value.cursor.GroupedBy;\n"
+                + "import com.google.auto.value.AutoValue;\n"
+                + "import java.util.List;\n"
+                + "@AutoValue public abstract class Test {\n"
+                + "  public abstract long id();\n"
+                + "  @ColumnPrefix(\"chapter_\") @GroupedBy(\"id\") public abstract List<Chapter> chapters();\n"
+                + "  public static Test create(Cursor cursor) {\n"
+                + "    return AutoValue_Test.createFromCursor(cursor);\n"
+                + "  }\n"
+                + "  public static Test createProjected(Cursor cursor) {\n"
+                + "    return AutoValue_Test.createFromProjection(cursor);\n"
+                + "  }\n"
+                + "  public static String[] projection() {\n"
+                + "    return AutoValue_Test.PROJECTION;\n"
+                + "  }\n"
+                + "}\n");
+        Class<?> test = load(Arrays.asList(chapter, source), "test.Test");
+        Method create = test.getMethod("create", Cursor.class);
+        Method createProjected = test.getMethod("createProjected", Cursor.class);
+        Method chapters = test.getMethod("chapters");
+
+        // book 2 of books LEFT JOIN chapters doesn't have any chapters
+        MatrixCursor cursor = new MatrixCursor((String[]) test.getMethod("projection").invoke(null))
+                .addRow(1L, 10L, "one", null)
+                .addRow(2L, null, null, null);
+        cursor.moveToNext();
+        assertThat((List<?>) chapters.invoke(create.invoke(null, cursor))).hasSize(1);
+        assertThat((List<?>) chapters.invoke(createProjected.invoke(null, cursor))).hasSize(1);
+        cursor.moveToNext();
+        assertThat((List<?>) chapters.invoke(create.invoke(null, cursor))).isEmpty();
+        assertThat((List<?>) chapters.invoke(createProjected.invoke(null, cursor))).isEmpty();
+    }
+
+    @Test
+    public void unknownEnumOrdinalNamesEnum() throws Exception {
+        JavaFileObject state = JavaFileObjects.forSourceString("test.State", ""
+                + "package test;\n"
+                + "public enum State { ON, OFF }\n");
+        JavaFileObject source = JavaFileObjects.forSourceString("test.Test", ""
+                + "package test;\n"
+                + "import android.database.Cursor;\n"
+                + "import com.gabrielittner.auto.value.cursor.EnumOrdinal;\n"
+                + "import com.google.auto.value.AutoValue;\n"
+                + "@AutoValue public abstract class Test {\n"
+                + "  @EnumOrdinal public abstract State state();\n"
+                + "  public static Test create(Cursor cursor) {\n"
+                + "    return AutoValue_Test.createFromCursor(cursor);\n"
+                + "  }\n"
+                + "}\n");
+        Method create = load(Arrays.asList(state, source), "test.Test")
+                .getMethod("create", Cursor.class);
+
+        MatrixCursor cursor = new MatrixCursor("state").addRow(1).addRow(2);
+        cursor.moveToNext();
+        assertThat(create.invoke(null, cursor).toString()).contains("OFF");
+        cursor.moveToNext();
+        try {
+            create.invoke(null, cursor);
+            fail();
+        } catch (InvocationTargetException e) {
+            assertThat(e.getCause()).isInstanceOf(IllegalArgumentException.class);
+            assertThat(e.getCause().getMessage()).isEqualTo("No enum constant State with ordinal 2");
+        }
+    }
+
+    @Test
+    public void rowVisitorOnlyReadsVisitedColumns() throws Exception {
+        JavaFileObject author = JavaFileObjects.forSourceString("test.Author", ""
+                + "package test;\n"
+                + "import com.google.auto.value.AutoValue;\n"
+                + "@AutoValue public abstract class Author {\n"
+                + "  public abstract long id();\n"
+                + "}\n");
+        JavaFileObject source = JavaFileObjects.forSourceString("test.Test", ""
+                + "package test;\n"
+                + "import android.database.Cursor;\n"
+                + "import com.gabrielittner.auto.value.cursor.ColumnPrefix;\n"
+                + "import com.google.auto.value.AutoValue;\n"
+                + "import java.util.List;\n"
+                + "import javax.annotation.Nullable;\n"
+                + "@AutoValue public abstract class Test {\n"
+                + "  public abstract long id();\n"
+                + "  @Nullable public abstract Integer count();\n"
+                + "  @ColumnPrefix(\"author_\") public abstract Author author();\n"
+                + "  @Nullable public abstract List<String> tags();\n"
+                + "  public static void visitRows(Cursor cursor, AutoValue_Test.RowVisitor visitor) {\n"
+                + "    AutoValue_Test.forEachRow(cursor, visitor);\n"
+                + "  }\n"
+                + "  public static long sum(Cursor cursor) {\n"
+                + "    final long[] sum = new long[1];\n"
+                + "    visitRows(cursor, new AutoValue_Test.RowVisitor() {\n"
+                + "      @Override public void visit(long id, int count, boolean countIsNull) {\n"
+                + "        sum[0] += countIsNull ? id * 1000 : id * count;\n"
+                + "      }\n"
+                + "    });\n"
+                + "    return sum[0];\n"
+                + "  }\n"
+                + "}\n");
+        Class<?> test = load(Arrays.asList(author, source), "test.Test");
+
+        // author and tags aren't visited, so their columns don't have to be part of the cursor
+        long sum = (Long) test.getMethod("sum", Cursor.class).invoke(null,
+                new MatrixCursor("id", "count")
+                        .addRow(1L, 2)
+                        .addRow(2L, null));
+
+        assertThat(sum).isEqualTo(1 * 2 + 2 * 1000);
+    }
+
+    @Test
+    public void wideModelIsReadInChunks() throws Exception {
+        StringBuilder source = new StringBuilder()
+                .append("package test;\n")
+                .append("import android.database.Cursor;\n")
+                .append("import com.google.auto.value.AutoValue;\n")
+                .append("import javax.annotation.Nullable;\n")
+                .append("@AutoValue public abstract class Test {\n");
+        String[] columns = new String[125];
+        Object[] values = new Object[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            source.append("  @Nullable public abstract Integer p").append(i).append("();\n");
+            columns[i] = "p" + i;
+            values[i] = i % 3 == 0 ? null : i;
+        }
+        source.append("  public static Test create(Cursor cursor) {\n")
+                .append("    return AutoValue_Test.createFromCursor(cursor);\n")
+                .append("  }\n")
+                .append("  public static Test createProjected(Cursor cursor) {\n")
+                .append("    return AutoValue_Test.createFromProjection(cursor);\n")
+                .append("  }\n")
+                .append("  public static String[] projection() {\n")
+                .append("    return AutoValue_Test.PROJECTION;\n")
+                .append("  }\n")
+                .append("  public static AutoValue_Test.ColumnBatch readAll(Cursor cursor) {\n")
+                .append("    return AutoValue_Test.readBatch(cursor);\n")
+                .append("  }\n")
+                .append("  public static Test first(Cursor cursor) {\n")
+                .append("    return readAll(cursor).get(0);\n")
+                .append("  }\n")
+                .append("  public static void visit(Cursor cursor, AutoValue_Test.RowVisitor visitor) {\n")
+                .append("    AutoValue_Test.forEachRow(cursor, visitor);\n")
+                .append("  }\n")
+                .append("}\n");
+        ClassLoader classLoader = InMemoryCompiler.load(Collections.singletonList(
+                JavaFileObjects.forSourceString("test.Test", source.toString())));
+        Class<?> test = classLoader.loadClass("test.Test");
+
+        MatrixCursor cursor = new MatrixCursor(columns).addRow(values);
+        cursor.moveToNext();
+        Object read = test.getMethod("create", Cursor.class).invoke(null, cursor);
+        for (int i = 0; i < columns.length; i++) {
+            assertThat(test.getMethod("p" + i).invoke(read)).isEqualTo(values[i]);
+        }
+        assertThat(test.getMethod("createProjected", Cursor.class).invoke(null, cursor))
+                .isEqualTo(read);
+        assertThat(test.getMethod("first", Cursor.class)
+                        .invoke(null, new MatrixCursor(columns).addRow(values)))
+                .isEqualTo(read);
+
+        Class<?> visitorClass = classLoader.loadClass("test.AutoValue_Test$RowVisitor");
+        final List<Object> visited = new ArrayList<>();
+        Object visitor = Proxy.newProxyInstance(classLoader, new Class<?>[] {visitorClass},
+                new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) {
+                        visited.addAll(Arrays.asList(args));
+                        return null;
+                    }
+                });
+        test.getMethod("visit", Cursor.class, visitorClass)
+                .invoke(null, new MatrixCursor(columns).addRow(values), visitor);
+        // every column is visited as its unboxed value followed by its null flag
+        assertThat(visited).hasSize(2 * columns.length);
+        for (int i = 0; i < columns.length; i++) {
+            assertThat(visited.get(2 * i)).isEqualTo(values[i] == null ? 0 : values[i]);
+            assertThat(visited.get(2 * i + 1)).isEqualTo(values[i] == null);
+        }
+    }
+
+    private static Class<?> load(JavaFileObject source, String className) throws Exception {
+        return load(Collections.singletonList(source), className);
+    }
+
+    private static Class<?> load(List<JavaFileObject> sources, String className)
+            throws Exception {
+        return InMemoryCompiler.load(sources).loadClass(className);
+    }
+}